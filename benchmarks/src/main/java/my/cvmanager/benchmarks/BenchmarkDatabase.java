@@ -0,0 +1,102 @@
+package my.cvmanager.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.User;
+import my.cvmanager.domain.UserProfile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embedded H2 database and test data of the benchmarks.
+ * Every benchmark fork runs in its own JVM and therefore starts with an empty in-memory database.
+ */
+public final class BenchmarkDatabase {
+
+    /**
+     * The persistence unit of the benchmarks.
+     */
+    public static final String PERSISTENCE_UNIT = "cvmanagerBenchmarkPU";
+
+    private static final String[] TECHNOLOGIES = {"Java", "Kotlin", "SQL", "Docker", "Angular"};
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Creates the entity manager factory and the schema.
+     *
+     * @return the entity manager factory
+     */
+    public static EntityManagerFactory open() {
+        return Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+    }
+
+    /**
+     * Runs a block in a resource-local transaction.
+     *
+     * @param em    the entity manager
+     * @param block the block
+     */
+    public static void inTransaction(EntityManager em, Runnable block) {
+        em.getTransaction().begin();
+        try {
+            block.run();
+            em.getTransaction().commit();
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+        }
+    }
+
+    /**
+     * Creates new, unsaved users.
+     *
+     * @param prefix the prefix of the usernames
+     * @param from   the number of the first user
+     * @param count  the number of users
+     * @return the users
+     */
+    public static List<User> newUsers(String prefix, long from, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (long i = from; i < from + count; i++) {
+            User user = new User();
+            user.setUsername(prefix + i);
+            user.setPassword("secret");
+            user.setEmail(prefix + i + "@example.com");
+            users.add(user);
+        }
+        return users;
+    }
+
+    /**
+     * Creates a new, unsaved profile. The technology names still have to be resolved against the catalog.
+     *
+     * @param positions              the number of positions
+     * @param technologiesPerPosition the number of technologies per position
+     * @return the profile
+     */
+    public static UserProfile newProfile(int positions, int technologiesPerPosition) {
+        UserProfile profile = new UserProfile();
+        profile.setFirstName("Bench");
+        profile.setLastName("Mark");
+        for (int i = 0; i < positions; i++) {
+            Position position = new Position();
+            position.setTitle("Software Engineer " + i);
+            position.setCompany("Company " + i);
+            profile.addPosition(position);
+            for (int j = 0; j < technologiesPerPosition; j++) {
+                Technology technology = new Technology();
+                technology.setName(TECHNOLOGIES[j % TECHNOLOGIES.length]);
+                technology.setLevel(Technology.Level.values()[j % Technology.Level.values().length]);
+                position.addTechnology(technology);
+            }
+        }
+        return profile;
+    }
+}
@@ -0,0 +1,99 @@
+package my.cvmanager.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import my.cvmanager.domain.User;
+import my.cvmanager.pool.ConcurrencyLimiter;
+import my.cvmanager.pool.PooledConnectionProvider;
+import my.cvmanager.repositories.UserDao;
+import my.cvmanager.service.BlockingCallExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking user lookups through the {@link BlockingCallExecutor}, on a platform thread pool of the size of a
+ * container worker pool and on virtual threads, with the same {@link ConcurrencyLimiter} in front of the
+ * connection pool.
+ * <p>
+ * Many client threads issue one call each and wait for it; the sample mode reports the percentiles of the latency,
+ * the throughput mode the calls per millisecond. The in-memory database answers without network latency, so every
+ * call holds its connection for an extra {@code roundTripMillis} to stand in for the round trip to a remote
+ * database. With platform threads at most {@link BlockingCallExecutor#DEFAULT_PLATFORM_THREADS} calls wait for the
+ * database at a time, with virtual threads the connection pool is the limit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(256)
+@Fork(1)
+public class BlockingCallBenchmark {
+
+    private static final int USERS = 1000;
+    private static final int CONNECTIONS = 64;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"1"})
+    private int roundTripMillis;
+
+    private EntityManagerFactory emf;
+    private BlockingCallExecutor executor;
+    private final UserDao userDao = new UserDao();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        emf = Persistence.createEntityManagerFactory(BenchmarkDatabase.PERSISTENCE_UNIT, Map.of(
+                PooledConnectionProvider.MIN_SIZE, Integer.toString(CONNECTIONS),
+                PooledConnectionProvider.MAX_SIZE, Integer.toString(CONNECTIONS)));
+        EntityManager em = emf.createEntityManager();
+        try {
+            BenchmarkDatabase.inTransaction(em, () -> userDao.persistAll(BenchmarkDatabase.newUsers("user", 0, USERS), em));
+        } finally {
+            em.close();
+        }
+        executor = new BlockingCallExecutor("virtual".equals(threads), BlockingCallExecutor.DEFAULT_PLATFORM_THREADS,
+                new ConcurrencyLimiter(CONNECTIONS, Duration.ofSeconds(30)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+        emf.close();
+    }
+
+    @Benchmark
+    public User findUser() throws InterruptedException, ExecutionException {
+        String email = "user" + ThreadLocalRandom.current().nextInt(USERS) + "@example.com";
+        return executor.supply(() -> findByEmail(email)).get();
+    }
+
+    private User findByEmail(String email) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            User user = em.createQuery("select u from User u where u.email = :email", User.class)
+                    .setParameter("email", email)
+                    .getSingleResult();
+            Thread.sleep(roundTripMillis);
+            em.getTransaction().commit();
+            return user;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+}
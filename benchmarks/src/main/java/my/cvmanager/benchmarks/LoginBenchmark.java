@@ -0,0 +1,67 @@
+package my.cvmanager.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import my.cvmanager.domain.User;
+import my.cvmanager.service.LoginThrottle;
+import my.cvmanager.service.PasswordHasher;
+import my.cvmanager.service.SessionRegistry;
+import my.cvmanager.service.UserService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login and logout through {@link UserService}, outside of the container.
+ * The service is wired by hand; the transactions the container would open are opened by the benchmark, and the
+ * login throttle is part of the flow but never rejects an attempt.
+ * The flow is dominated by the password hashing, therefore it is measured with a cheap and with the default
+ * number of PBKDF2 iterations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginBenchmark {
+
+    private static final String USERNAME = "bench";
+    private static final String PASSWORD = "secret";
+
+    @Param({"1000", "210000"})
+    private int iterations;
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private PasswordHasher passwordHasher;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        emf = BenchmarkDatabase.open();
+        em = emf.createEntityManager();
+        passwordHasher = new PasswordHasher(iterations, Runtime.getRuntime().availableProcessors(), 64, Duration.ofSeconds(10));
+        userService = new UserService(em, new SessionRegistry(), passwordHasher, new LoginThrottle(Integer.MAX_VALUE,
+                Integer.MAX_VALUE, Duration.ofMinutes(1), LoginThrottle.DEFAULT_STRIPES));
+        BenchmarkDatabase.inTransaction(em, () -> userService.register(USERNAME, PASSWORD, USERNAME + "@example.com"));
+        em.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        passwordHasher.shutdown();
+        em.close();
+        emf.close();
+    }
+
+    @Benchmark
+    public User loginLogout() {
+        User[] user = new User[1];
+        BenchmarkDatabase.inTransaction(em, () -> user[0] = userService.login(USERNAME, PASSWORD));
+        userService.logout(user[0].getId());
+        em.clear();
+        return user[0];
+    }
+}
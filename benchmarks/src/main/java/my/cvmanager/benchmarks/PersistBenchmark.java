@@ -0,0 +1,69 @@
+package my.cvmanager.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import my.cvmanager.domain.User;
+import my.cvmanager.repositories.UserDao;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserting users one by one versus with the batched {@link UserDao#persistAll}, one transaction per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int count;
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private final UserDao userDao = new UserDao();
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        emf = BenchmarkDatabase.open();
+        em = emf.createEntityManager();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteUsers() {
+        BenchmarkDatabase.inTransaction(em, () -> em.createQuery("delete from User").executeUpdate());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+
+    @Benchmark
+    public List<User> persist() {
+        List<User> users = nextUsers();
+        BenchmarkDatabase.inTransaction(em, () -> users.forEach(user -> userDao.persist(user, em)));
+        em.clear();
+        return users;
+    }
+
+    @Benchmark
+    public List<User> persistAll() {
+        List<User> users = nextUsers();
+        BenchmarkDatabase.inTransaction(em, () -> userDao.persistAll(users, em));
+        em.clear();
+        return users;
+    }
+
+    private List<User> nextUsers() {
+        List<User> users = BenchmarkDatabase.newUsers("user", next, count);
+        next += count;
+        return users;
+    }
+}
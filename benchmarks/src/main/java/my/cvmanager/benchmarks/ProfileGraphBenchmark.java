@@ -0,0 +1,76 @@
+package my.cvmanager.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import my.cvmanager.domain.FetchPlan;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.repositories.BaseDao;
+import my.cvmanager.repositories.TechnologyCatalog;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a complete profile (positions and their technologies) with the {@link FetchPlan#FULL_CV} plan versus
+ * walking the lazy associations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProfileGraphBenchmark {
+
+    @Param({"5", "50"})
+    private int positions;
+
+    @Param({"5"})
+    private int technologiesPerPosition;
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private final BaseDao<UserProfile> profileDao = new BaseDao<>(UserProfile.class);
+    private Long profileId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        emf = BenchmarkDatabase.open();
+        em = emf.createEntityManager();
+        UserProfile profile = BenchmarkDatabase.newProfile(positions, technologiesPerPosition);
+        TechnologyCatalog catalog = new TechnologyCatalog();
+        BenchmarkDatabase.inTransaction(em, () -> {
+            catalog.resolve(profile, em);
+            profileDao.persist(profile, em);
+        });
+        profileId = profile.getId();
+        em.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+
+    @Benchmark
+    public int fullCv() {
+        em.clear();
+        return countTechnologies(profileDao.find(profileId, FetchPlan.FULL_CV, em).orElseThrow());
+    }
+
+    @Benchmark
+    public int lazy() {
+        em.clear();
+        return countTechnologies(profileDao.find(profileId, em).orElseThrow());
+    }
+
+    private static int countTechnologies(UserProfile profile) {
+        int technologies = 0;
+        for (Position position : profile.getPositions()) {
+            technologies += position.getTechnologies().size();
+        }
+        return technologies;
+    }
+}
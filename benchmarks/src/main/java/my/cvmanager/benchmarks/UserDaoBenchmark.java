@@ -0,0 +1,78 @@
+package my.cvmanager.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import my.cvmanager.domain.User;
+import my.cvmanager.repositories.UserDao;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths of {@link UserDao} at several table sizes.
+ * The persistence context is cleared before every call, so each call hits the second-level cache or the database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDaoBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int users;
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private final UserDao userDao = new UserDao();
+    private List<Long> ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        emf = BenchmarkDatabase.open();
+        em = emf.createEntityManager();
+        BenchmarkDatabase.inTransaction(em, () -> userDao.persistAll(BenchmarkDatabase.newUsers("user", 0, users), em));
+        ids = em.createQuery("select u.id from User u order by u.id", Long.class).getResultList();
+        em.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        em.clear();
+        return userDao.find(ids.get(nextIndex()), em);
+    }
+
+    @Benchmark
+    public Optional<User> findOneByAttribute() {
+        em.clear();
+        return userDao.findOne("email", "user" + nextIndex() + "@example.com", em);
+    }
+
+    @Benchmark
+    public Optional<User> findOneByNaturalId() {
+        em.clear();
+        return userDao.findOne("username", "user" + nextIndex(), em);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<User> loadAll() {
+        em.clear();
+        return userDao.loadAll(em);
+    }
+
+    private int nextIndex() {
+        next = next + 1 == users ? 0 : next + 1;
+        return next;
+    }
+}
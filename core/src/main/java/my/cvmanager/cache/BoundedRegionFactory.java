@@ -0,0 +1,119 @@
+package my.cvmanager.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hibernate second-level cache backed by {@link BoundedStorageAccess} regions.
+ * <p>
+ * Enabled in {@code persistence.xml} with
+ * {@code hibernate.cache.region.factory_class=my.cvmanager.cache.BoundedRegionFactory}. Each region is bounded by
+ * {@code cvmanager.cache.<region>.max_entries} and {@code cvmanager.cache.<region>.ttl_seconds}, falling back to
+ * {@code cvmanager.cache.max_entries} and {@code cvmanager.cache.ttl_seconds}.
+ */
+public class BoundedRegionFactory extends RegionFactoryTemplate {
+
+    public static final String PREFIX = "cvmanager.cache.";
+    public static final String MAX_ENTRIES = "max_entries";
+    public static final String TTL_SECONDS = "ttl_seconds";
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    public static final long DEFAULT_TTL_SECONDS = 0;
+
+    private final Map<String, BoundedStorageAccess> regions = new ConcurrentHashMap<>();
+
+    private Map<String, Object> configValues = Map.of();
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        this.configValues = configValues;
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        regions.values().forEach(BoundedStorageAccess::release);
+        regions.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return createStorageAccess(regionConfig.getRegionName());
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return createStorageAccess(regionName);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        // one entry per table, evicting them would make cached query results look stale
+        return register(new BoundedStorageAccess(regionName, Integer.MAX_VALUE, Duration.ZERO));
+    }
+
+    /**
+     * Returns the storage of all regions built so far.
+     *
+     * @return the regions by name
+     */
+    public Map<String, BoundedStorageAccess> getRegions() {
+        return Collections.unmodifiableMap(regions);
+    }
+
+    /**
+     * Returns the storage of a region.
+     *
+     * @param regionName the name of the region
+     * @return the region, or null if there is no such region
+     */
+    public BoundedStorageAccess getRegion(String regionName) {
+        return regions.get(qualify(regionName));
+    }
+
+    /**
+     * Returns the factory of an EntityManagerFactory.
+     *
+     * @param entityManagerFactory the EntityManagerFactory
+     * @return the factory, or null if the second-level cache does not use this factory
+     */
+    public static BoundedRegionFactory of(EntityManagerFactory entityManagerFactory) {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory()
+                instanceof BoundedRegionFactory factory ? factory : null;
+    }
+
+    private BoundedStorageAccess createStorageAccess(String regionName) {
+        int maxEntries = Integer.parseInt(setting(regionName, MAX_ENTRIES, DEFAULT_MAX_ENTRIES));
+        long ttlSeconds = Long.parseLong(setting(regionName, TTL_SECONDS, DEFAULT_TTL_SECONDS));
+        return register(new BoundedStorageAccess(regionName, maxEntries, Duration.ofSeconds(ttlSeconds)));
+    }
+
+    private BoundedStorageAccess register(BoundedStorageAccess storageAccess) {
+        regions.put(storageAccess.getRegionName(), storageAccess);
+        return storageAccess;
+    }
+
+    private String setting(String regionName, String name, Object defaultValue) {
+        Object value = configValues.get(PREFIX + unqualify(regionName) + "." + name);
+        if (value == null) {
+            value = configValues.getOrDefault(PREFIX + name, defaultValue);
+        }
+        return value.toString().trim();
+    }
+
+    private String unqualify(String regionName) {
+        String prefix = getOptions() == null ? null : getOptions().getCacheRegionPrefix();
+        return prefix != null && regionName.startsWith(prefix + ".") ? regionName.substring(prefix.length() + 1) : regionName;
+    }
+}
@@ -0,0 +1,174 @@
+package my.cvmanager.cache;
+
+import my.cvmanager.util.CacheStatistics;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process storage of a cache region, bounded by a maximum number of entries and a time to live.
+ * <p>
+ * The entries are kept in a {@link ConcurrentHashMap}, so reads and writes of different keys do not wait for each
+ * other. A read only stamps the entry with the time of the access. When a write takes the region over its maximum,
+ * the writing thread evicts the least recently used entries by their stamps, down to {@value #EVICTION_HEADROOM} per
+ * mille below the maximum, so the cost of a pass is shared by the writes that fill this headroom again. Only one
+ * thread evicts at a time; the others do not wait for it, so the region may briefly hold a few entries more than its
+ * maximum under concurrent writes. The order is approximate where entries are accessed while a pass runs.
+ */
+public class BoundedStorageAccess implements DomainDataStorageAccess {
+
+    /**
+     * The part of the maximum, per mille, that an eviction pass frees beyond the entries over the maximum.
+     */
+    static final int EVICTION_HEADROOM = 50;
+
+    private final String regionName;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final CacheStatistics statistics = new CacheStatistics();
+
+    private final ConcurrentHashMap<Object, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Held by the thread running an eviction pass.
+     */
+    private final ReentrantLock evicting = new ReentrantLock();
+
+    /**
+     * Constructor.
+     *
+     * @param regionName the name of the region
+     * @param maxEntries the maximum number of entries
+     * @param ttl        the time to live of an entry, zero for no expiry
+     */
+    public BoundedStorageAccess(String regionName, int maxEntries, Duration ttl) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Maximum number of entries must be positive: " + maxEntries);
+        }
+        this.regionName = regionName;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        Entry entry = entries.get(key);
+        long now = System.nanoTime();
+        if (entry != null && entry.isExpired(now)) {
+            if (entries.remove(key, entry)) {
+                statistics.recordEviction();
+            }
+            entry = null;
+        }
+        if (entry == null) {
+            statistics.recordMiss();
+            return null;
+        }
+        entry.lastAccess = now;
+        statistics.recordHit();
+        return entry.value;
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        long now = System.nanoTime();
+        entries.put(key, new Entry(value, ttlNanos > 0 ? now + ttlNanos : Long.MAX_VALUE, now));
+        if (entries.size() > maxEntries && evicting.tryLock()) {
+            try {
+                evictLeastRecentlyUsed();
+            } finally {
+                evicting.unlock();
+            }
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries, down to the headroom below the maximum.
+     */
+    private void evictLeastRecentlyUsed() {
+        int excess = entries.size() - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        int count = (int) Math.min(entries.size(), excess + (long) maxEntries * EVICTION_HEADROOM / 1000);
+        // the stamps are copied, since readers keep changing them while the snapshot is sorted
+        List<Candidate> snapshot = new ArrayList<>(entries.size());
+        entries.forEach((key, entry) -> snapshot.add(new Candidate(key, entry, entry.lastAccess)));
+        snapshot.sort(Comparator.comparingLong(Candidate::lastAccess));
+        for (int i = 0; i < count && i < snapshot.size(); i++) {
+            // an entry replaced since the snapshot is not the one to evict
+            if (entries.remove(snapshot.get(i).key(), snapshot.get(i).entry())) {
+                statistics.recordEviction();
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        Entry entry = entries.get(key);
+        return entry != null && !entry.isExpired(System.nanoTime());
+    }
+
+    @Override
+    public void evictData() {
+        entries.clear();
+    }
+
+    @Override
+    public void evictData(Object key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void release() {
+        evictData();
+    }
+
+    public String getRegionName() {
+        return regionName;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts of the region.
+     * Entries dropped because their time to live has passed are counted as evictions.
+     *
+     * @return the statistics
+     */
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long expiresAt;
+        private volatile long lastAccess;
+
+        Entry(Object value, long expiresAt, long lastAccess) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.lastAccess = lastAccess;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+        }
+    }
+
+    private record Candidate(Object key, Entry entry, long lastAccess) {
+    }
+}
@@ -0,0 +1,177 @@
+package my.cvmanager.cache;
+
+import my.cvmanager.util.CacheStatistics;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process cache of rendered CV documents, e.g. the HTML preview and the PDF of a profile, bounded by the number of
+ * cached bytes. When the cache is full, the documents of the least recently used profile are evicted.
+ * <p>
+ * The documents of a profile are keyed by the version of its aggregate, see {@link my.cvmanager.domain.AggregatePart},
+ * so a document rendered from an older version is never served: a lookup with a newer version is a miss, and storing
+ * a newer version drops the documents of the older one. {@link #invalidate(long)} frees the memory as soon as a
+ * profile changes, see {@link my.cvmanager.domain.AggregateChangeListener}.
+ * <p>
+ * The cached arrays are shared with the callers and must not be modified.
+ */
+public class RenderCache {
+
+    private final long maxBytes;
+
+    private final CacheStatistics statistics = new CacheStatistics();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Documents by profile ID in access order, the eldest entry is the least recently used one. Guarded by
+     * {@code this}.
+     */
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The size of all cached documents. Guarded by {@code this}.
+     */
+    private long bytes;
+
+    /**
+     * Constructor.
+     *
+     * @param maxBytes the maximum size of all cached documents
+     */
+    public RenderCache(long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a cached document.
+     *
+     * @param profileId the ID of the profile
+     * @param version   the current version of the profile
+     * @param variant   the variant of the document, e.g. {@code "html"}
+     * @return the document, null if it is not cached for this version
+     */
+    public synchronized byte[] get(long profileId, long version, String variant) {
+        Entry entry = entries.get(profileId);
+        byte[] content = entry != null && entry.version == version ? entry.documents.get(variant) : null;
+        if (content == null) {
+            statistics.recordMiss();
+            return null;
+        }
+        statistics.recordHit();
+        return content;
+    }
+
+    /**
+     * Caches a document. Documents larger than the cache and documents of an older version than the cached one are
+     * not stored.
+     *
+     * @param profileId the ID of the profile
+     * @param version   the version of the profile the document was rendered from
+     * @param variant   the variant of the document
+     * @param content   the document
+     */
+    public synchronized void put(long profileId, long version, String variant, byte[] content) {
+        if (content.length > maxBytes) {
+            return;
+        }
+        Entry entry = entries.get(profileId);
+        if (entry != null && entry.version != version) {
+            if (entry.version > version) {
+                return;
+            }
+            entries.remove(profileId);
+            bytes -= entry.bytes;
+            entry = null;
+        }
+        if (entry == null) {
+            entry = new Entry(version);
+            entries.put(profileId, entry);
+        }
+        byte[] previous = entry.documents.put(variant, content);
+        long delta = content.length - (previous == null ? 0 : previous.length);
+        entry.bytes += delta;
+        bytes += delta;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes) {
+            Entry evicted = eldest.next();
+            eldest.remove();
+            bytes -= evicted.bytes;
+            statistics.recordEviction();
+        }
+    }
+
+    /**
+     * Drops all documents of a profile.
+     *
+     * @param profileId the ID of the profile
+     */
+    public synchronized void invalidate(long profileId) {
+        Entry entry = entries.remove(profileId);
+        if (entry != null) {
+            bytes -= entry.bytes;
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Drops all documents.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the size of all cached documents.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of profiles with cached documents.
+     *
+     * @return the number of profiles
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts of the cache.
+     * Documents dropped because their profile has changed are counted as invalidations, not as evictions.
+     *
+     * @return the statistics
+     */
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    private static final class Entry {
+        final long version;
+        final Map<String, byte[]> documents = new HashMap<>(4);
+        long bytes;
+
+        Entry(long version) {
+            this.version = version;
+        }
+    }
+}
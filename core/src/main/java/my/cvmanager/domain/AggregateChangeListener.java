@@ -0,0 +1,96 @@
+package my.cvmanager.domain;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+
+/**
+ * Entity listener of the CV aggregate, a profile with its positions and technologies. When any entity of the
+ * aggregate is inserted, updated or removed, the subscribers are called with the ID of the profile, e.g. to drop
+ * documents rendered from it.
+ * <p>
+ * The subscribers are called during the flush, before the transaction commits, and must neither block nor use the
+ * entity manager. Subscribers that read the changed profile, e.g. to index it, subscribe with
+ * {@link #subscribeCommitted(LongConsumer)} instead: they are called once per changed profile after the transaction
+ * has committed, by {@link my.cvmanager.util.AggregateCommitIntegrator}, and not at all after a rollback.
+ */
+public class AggregateChangeListener {
+
+    private static final List<LongConsumer> subscribers = new CopyOnWriteArrayList<>();
+    private static final List<LongConsumer> committedSubscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Subscribes to changes of the profiles.
+     *
+     * @param subscriber called with the ID of a changed profile
+     */
+    public static void subscribe(LongConsumer subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Cancels a subscription.
+     *
+     * @param subscriber the subscriber passed to {@link #subscribe(LongConsumer)}
+     */
+    public static void unsubscribe(LongConsumer subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Subscribes to committed changes of the profiles.
+     *
+     * @param subscriber called with the ID of a changed profile after the transaction that changed it has committed
+     */
+    public static void subscribeCommitted(LongConsumer subscriber) {
+        committedSubscribers.add(subscriber);
+    }
+
+    /**
+     * Cancels a subscription to committed changes.
+     *
+     * @param subscriber the subscriber passed to {@link #subscribeCommitted(LongConsumer)}
+     */
+    public static void unsubscribeCommitted(LongConsumer subscriber) {
+        committedSubscribers.remove(subscriber);
+    }
+
+    /**
+     * Notifies the subscribers to committed changes; called after the transaction that changed the profile has
+     * committed.
+     *
+     * @param profileId the ID of the changed profile
+     */
+    public static void committed(long profileId) {
+        for (LongConsumer subscriber : committedSubscribers) {
+            subscriber.accept(profileId);
+        }
+    }
+
+    /**
+     * Returns the ID of the profile an entity of the aggregate belongs to.
+     *
+     * @param entity a profile, position or technology
+     * @return the ID of the profile, null if the entity is not part of a saved profile
+     */
+    public static Long profileIdOf(Object entity) {
+        Object root = entity instanceof AggregatePart part ? part.getAggregateRoot() : entity;
+        return root instanceof UserProfile profile ? profile.getId() : null;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        Long profileId = profileIdOf(entity);
+        if (profileId != null) {
+            for (LongConsumer subscriber : subscribers) {
+                subscriber.accept(profileId);
+            }
+        }
+    }
+}
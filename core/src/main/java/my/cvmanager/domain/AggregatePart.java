@@ -0,0 +1,17 @@
+package my.cvmanager.domain;
+
+/**
+ * An entity that is part of the aggregate of another entity, its root, like the positions and technologies of a
+ * profile. The version of the root is the version of the whole aggregate: when a part is added, changed or removed,
+ * the root version is incremented at commit by {@link my.cvmanager.util.AggregateVersionIntegrator}. A single
+ * version lookup of the root therefore tells if anything in the aggregate has changed.
+ */
+public interface AggregatePart {
+
+    /**
+     * Returns the root of the aggregate.
+     *
+     * @return the root entity, null if the part is not attached to one
+     */
+    Object getAggregateRoot();
+}
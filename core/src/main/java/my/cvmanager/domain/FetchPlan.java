@@ -0,0 +1,21 @@
+package my.cvmanager.domain;
+
+/**
+ * Names of the fetch plans defined as named entity graphs on the entities.
+ * The graph of a plan is named {@code <Entity>.<plan>}, e.g. {@code UserProfile.full-cv}.
+ */
+public final class FetchPlan {
+
+    /**
+     * Only the basic attributes of the entity.
+     */
+    public static final String SUMMARY = "summary";
+
+    /**
+     * Everything needed to render a CV: positions and their technologies.
+     */
+    public static final String FULL_CV = "full-cv";
+
+    private FetchPlan() {
+    }
+}
@@ -0,0 +1,38 @@
+package my.cvmanager.domain;
+
+import jakarta.persistence.*;
+
+/**
+ * The progress of a CV import: the number of the last record of an import file whose batch is stored.
+ * It is written in the transaction of each batch, so it never disagrees with the stored profiles.
+ */
+@Entity
+@Table(name = "import_progress")
+public class ImportProgress {
+    @Id
+    @Column(length = 500)
+    private String input;
+
+    @Column(name = "last_record", nullable = false)
+    private long lastRecord;
+
+    protected ImportProgress() {
+    }
+
+    public ImportProgress(String input, long lastRecord) {
+        this.input = input;
+        this.lastRecord = lastRecord;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public long getLastRecord() {
+        return lastRecord;
+    }
+
+    public void setLastRecord(long lastRecord) {
+        this.lastRecord = lastRecord;
+    }
+}
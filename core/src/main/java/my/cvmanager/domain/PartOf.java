@@ -0,0 +1,32 @@
+package my.cvmanager.domain;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the aggregate root of an {@link AggregatePart} and the path to it. The
+ * {@link my.cvmanager.util.AggregateVersionIntegrator} uses it to recognize the root a part has been moved away from.
+ * Bulk updates, which bypass the entities and their listeners, use the path to increment the versions of the affected
+ * roots, see
+ * {@link my.cvmanager.repositories.BaseDao#updateWhere(java.util.Map, java.util.Map, jakarta.persistence.EntityManager)}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PartOf {
+
+    /**
+     * Returns the entity class of the root.
+     *
+     * @return the root class
+     */
+    Class<?> root();
+
+    /**
+     * Returns the path from the part to the root, e.g. {@code "position.userProfile"}.
+     *
+     * @return the attribute path
+     */
+    String path();
+}
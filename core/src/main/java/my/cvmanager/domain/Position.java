@@ -1,6 +1,8 @@
 package my.cvmanager.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -8,11 +10,19 @@ import java.util.List;
 
 @Entity
 @Table(name = "positions")
-public class Position {
+@NamedEntityGraph(name = "Position." + FetchPlan.SUMMARY)
+@NamedEntityGraph(name = "Position." + FetchPlan.FULL_CV, attributeNodes = @NamedAttributeNode("technologies"))
+@EntityListeners(AggregateChangeListener.class)
+@PartOf(root = UserProfile.class, path = "userProfile")
+@DynamicUpdate
+public class Position implements AggregatePart {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
+    @Version
+    private Long version;
+
     private String title;
     private String company;
     private String location;
@@ -28,12 +38,17 @@ public class Position {
     private UserProfile userProfile;
 
     @OneToMany(mappedBy = "position", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100) // loads the technologies of up to 100 positions at once, a join fetch would be a second bag
     private List<Technology> technologies = new ArrayList<>();
 
     public Long getId() {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -99,6 +114,12 @@ public class Position {
     }
 
     public void addTechnology(Technology technology) {
+        technology.setPosition(this);
         this.technologies.add(technology);
     }
-}
\ No newline at end of file
+
+    @Override
+    public UserProfile getAggregateRoot() {
+        return userProfile;
+    }
+}
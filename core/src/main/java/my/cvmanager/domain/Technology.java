@@ -1,11 +1,22 @@
 package my.cvmanager.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "technologies")
-public class Technology {
-
+@EntityListeners(AggregateChangeListener.class)
+@PartOf(root = UserProfile.class, path = "position.userProfile")
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "technology")
+public class Technology implements AggregatePart {
+
+    /**
+     * Skill level, stored as ordinal. A lower ordinal is a higher level.
+     */
     public enum Level {
         AAA("AAA"),
         AA("AA"),
@@ -20,14 +31,54 @@ public class Technology {
         public String code() {
             return level;
         }
+
+        /**
+         * Checks if this level is the same as or higher than another level.
+         *
+         * @param other the level to compare with
+         * @return true if this level is at least {@code other}
+         */
+        public boolean isAtLeast(Level other) {
+            return ordinal() <= other.ordinal();
+        }
+
+        /**
+         * Returns the level of a code.
+         *
+         * @param code the code, e.g. "AA"
+         * @return the level
+         * @throws IllegalArgumentException if there is no level with this code
+         */
+        public static Level fromCode(String code) {
+            for (Level level : values()) {
+                if (level.level.equals(code)) {
+                    return level;
+                }
+            }
+            throw new IllegalArgumentException("Unknown level: " + code);
+        }
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
-    private String name;
-    private String level; // "Beginner", "Intermediate", "Advanced"
+    @Version
+    private Long version;
+
+    @ManyToOne
+    @JoinColumn(name = "technology_name_id")
+    private TechnologyName technologyName;
+
+    /**
+     * Name set by {@link #setName(String)} that has not been resolved against the catalog yet.
+     */
+    @Transient
+    private String pendingName;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "skill_level")
+    private Level level;
 
     @ManyToOne
     @JoinColumn(name = "position_id")
@@ -37,19 +88,51 @@ public class Technology {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getName() {
-        return name;
+        return technologyName != null ? technologyName.getName() : pendingName;
     }
 
+    /**
+     * Sets the name of the technology.
+     * The name is resolved against the catalog by {@link my.cvmanager.repositories.TechnologyCatalog} before the
+     * technology is written.
+     *
+     * @param name the name
+     */
     public void setName(String name) {
-        this.name = name;
+        if (technologyName == null || !technologyName.getName().equals(name)) {
+            technologyName = null;
+            pendingName = name;
+        }
     }
 
-    public String getLevel() {
+    public TechnologyName getTechnologyName() {
+        return technologyName;
+    }
+
+    public void setTechnologyName(TechnologyName technologyName) {
+        this.technologyName = technologyName;
+        this.pendingName = null;
+    }
+
+    /**
+     * Checks if the name still has to be resolved against the catalog.
+     *
+     * @return true if the name is not resolved yet
+     */
+    public boolean isNamePending() {
+        return technologyName == null && pendingName != null;
+    }
+
+    public Level getLevel() {
         return level;
     }
 
-    public void setLevel(String level) {
+    public void setLevel(Level level) {
         this.level = level;
     }
 
@@ -60,4 +143,17 @@ public class Technology {
     public void setPosition(Position position) {
         this.position = position;
     }
-}
\ No newline at end of file
+
+    @Override
+    public UserProfile getAggregateRoot() {
+        return position != null ? position.getUser() : null;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void checkNameResolved() {
+        if (isNamePending()) {
+            throw new IllegalStateException("Technology name '" + pendingName + "' has not been resolved against the catalog");
+        }
+    }
+}
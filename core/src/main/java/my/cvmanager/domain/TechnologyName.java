@@ -0,0 +1,41 @@
+package my.cvmanager.domain;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+/**
+ * Entry of the shared technology catalog: a unique technology name with a compact integer ID.
+ * The technologies of all positions refer to the catalog instead of storing the name again.
+ */
+@Entity
+@Table(name = "technology_names")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "technology-name")
+public class TechnologyName {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String name;
+
+    protected TechnologyName() {
+    }
+
+    public TechnologyName(String name) {
+        this.name = name;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String toString() {
+        return name;
+    }
+}
@@ -1,15 +1,28 @@
 package my.cvmanager.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
+@NaturalIdCache(region = "user-natural-id")
+@DynamicUpdate
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     @Column
     private Long id;
 
+    @Version
+    private Long version;
+
+    @NaturalId(mutable = true)
     @Column(nullable = false, unique = true)
     private String username;
     @Column(nullable = false)
@@ -23,6 +36,10 @@ public class User {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getUsername() {
         return username;
     }
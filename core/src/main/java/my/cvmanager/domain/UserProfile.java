@@ -1,18 +1,32 @@
 package my.cvmanager.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "userProfiles")
+@NamedEntityGraph(name = "UserProfile." + FetchPlan.SUMMARY)
+@NamedEntityGraph(name = "UserProfile." + FetchPlan.FULL_CV,
+        attributeNodes = @NamedAttributeNode(value = "positions", subgraph = "position"),
+        subgraphs = @NamedSubgraph(name = "position", attributeNodes = @NamedAttributeNode("technologies")))
+@EntityListeners(AggregateChangeListener.class)
+@DynamicUpdate
 public class UserProfile {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     @Column
     private Long id;
 
+    /**
+     * The version of the whole CV. It is also incremented when a position or technology is added, changed or
+     * removed, see {@link AggregatePart}.
+     */
+    @Version
+    private Long version;
+
     private String firstName;
     private String lastName;
     private String email;
@@ -29,6 +43,10 @@ public class UserProfile {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -86,6 +104,7 @@ public class UserProfile {
     }
 
     public void addPosition(Position position) {
+        position.setUser(this);
         this.positions.add(position);
     }
 
@@ -0,0 +1,103 @@
+package my.cvmanager.migration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Checks with {@code EXPLAIN} that the hot queries use the indexes of the migrations, on H2 and PostgreSQL.
+ * <p>
+ * On PostgreSQL sequential scans are disabled for the check, so that the planner shows the index it would use on a
+ * large table even if the tables of the checked database are still small.
+ */
+public final class IndexUsageCheck {
+
+    /**
+     * A query and the index it has to use.
+     *
+     * @param name  the name of the query
+     * @param sql   the query, with literals instead of parameters
+     * @param index the name of the index
+     */
+    public record HotQuery(String name, String sql, String index) {
+    }
+
+    /**
+     * The queries behind the CV pages, the exports and the skill search.
+     */
+    public static final List<HotQuery> HOT_QUERIES = List.of(
+            new HotQuery("positions of a profile",
+                    "select id, title, startDate, endDate from positions where userProfile_id = 1 order by startDate",
+                    "idx_positions_user_profile"),
+            new HotQuery("positions by period",
+                    "select id from positions where startDate >= date '2020-01-01' and startDate < date '2021-01-01'",
+                    "idx_positions_dates"),
+            new HotQuery("technologies of a position",
+                    "select id, technology_name_id, skill_level from technologies where position_id = 1",
+                    "idx_technologies_position"),
+            new HotQuery("skill search",
+                    "select position_id from technologies where technology_name_id = 1 and skill_level <= 1",
+                    "idx_technologies_name_level"));
+
+    private IndexUsageCheck() {
+    }
+
+    /**
+     * Checks the {@link #HOT_QUERIES}.
+     *
+     * @param connection the connection to the migrated database
+     * @return a description of every query that does not use its index, empty if all do
+     * @throws SQLException if a query cannot be explained
+     */
+    public static List<String> check(Connection connection) throws SQLException {
+        return check(connection, HOT_QUERIES);
+    }
+
+    /**
+     * Checks that queries use their indexes.
+     *
+     * @param connection the connection to the migrated database
+     * @param queries    the queries to check
+     * @return a description of every query that does not use its index, empty if all do
+     * @throws SQLException if a query cannot be explained
+     */
+    public static List<String> check(Connection connection, List<HotQuery> queries) throws SQLException {
+        boolean postgres = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("postgres");
+        List<String> problems = new ArrayList<>();
+        try (Statement statement = connection.createStatement()) {
+            if (postgres) {
+                statement.execute("set enable_seqscan = off");
+            }
+            try {
+                for (HotQuery query : queries) {
+                    String plan = explain(statement, query.sql());
+                    if (!plan.toLowerCase(Locale.ROOT).contains(query.index().toLowerCase(Locale.ROOT))) {
+                        problems.add(query.name() + " does not use " + query.index() + ": " + plan);
+                    }
+                }
+            } finally {
+                if (postgres) {
+                    statement.execute("reset enable_seqscan");
+                }
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Returns the plan of a query as a single string.
+     */
+    static String explain(Statement statement, String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (ResultSet rows = statement.executeQuery("explain " + sql)) {
+            while (rows.next()) {
+                plan.append(plan.isEmpty() ? "" : " ").append(rows.getString(1).strip());
+            }
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,96 @@
+package my.cvmanager.migration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * A versioned SQL migration, read from a script named {@code V<version>__<description>.sql}.
+ * <p>
+ * A version is a dot-separated list of numbers, written with underscores in the file name: {@code V1_2__x.sql} has
+ * version 1.2, which is applied after 1.1 and before 2. Versions are compared number by number, see
+ * {@link #compareVersions(String, String)}.
+ * <p>
+ * The script is split into statements at the semicolons that end a line; lines starting with {@code --} are
+ * comments. The checksum covers the statements only, so comments and blank lines can be edited without changing it.
+ *
+ * @param version     the version, e.g. "1.2", applied in ascending order
+ * @param description the description, taken from the file name
+ * @param script      the file name of the script
+ * @param statements  the SQL statements without the terminating semicolons
+ * @param checksum    the CRC32 of the statements
+ */
+public record Migration(String version, String description, String script, List<String> statements, long checksum) {
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+(?:_\\d+)*)__([a-zA-Z]\\w*)\\.sql");
+
+    /**
+     * Parses a migration script.
+     *
+     * @param script  the file name of the script
+     * @param content the content of the script
+     * @return the migration
+     * @throws MigrationException if the file name does not follow the naming convention
+     */
+    public static Migration parse(String script, String content) {
+        Matcher matcher = FILE_NAME.matcher(script);
+        if (!matcher.matches()) {
+            throw new MigrationException("Migration " + script + " is not named V<version>__<description>.sql");
+        }
+
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        for (String line : content.split("\\R")) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            statement.append(statement.isEmpty() ? "" : "\n").append(line.stripTrailing());
+            if (trimmed.endsWith(";")) {
+                statement.setLength(statement.length() - 1);
+                statements.add(statement.toString());
+                statement.setLength(0);
+            }
+        }
+        if (!statement.isEmpty()) {
+            statements.add(statement.toString());
+        }
+
+        CRC32 crc = new CRC32();
+        for (String sql : statements) {
+            crc.update(sql.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return new Migration(matcher.group(1).replace('_', '.'), matcher.group(2).replace('_', ' '), script,
+                List.copyOf(statements), crc.getValue());
+    }
+
+    /**
+     * Compares two versions number by number, so that 1.2 comes before 1.10 and 2.
+     *
+     * @param a a version
+     * @param b another version
+     * @return a negative number, zero or a positive number if {@code a} is lower than, equal to or higher than
+     * {@code b}
+     */
+    public static int compareVersions(String a, String b) {
+        String[] left = a.split("\\.");
+        String[] right = b.split("\\.");
+        for (int i = 0; i < Math.max(left.length, right.length); i++) {
+            long l = i < left.length ? Long.parseLong(left[i]) : 0;
+            long r = i < right.length ? Long.parseLong(right[i]) : 0;
+            if (l != r) {
+                return Long.compare(l, r);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "V" + version + " (" + description + ")";
+    }
+}
@@ -0,0 +1,15 @@
+package my.cvmanager.migration;
+
+/**
+ * Thrown when the schema migrations cannot be loaded or applied, or when an applied migration has been changed.
+ */
+public class MigrationException extends RuntimeException {
+
+    public MigrationException(String message) {
+        super(message);
+    }
+
+    public MigrationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
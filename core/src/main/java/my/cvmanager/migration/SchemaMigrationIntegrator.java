@@ -0,0 +1,40 @@
+package my.cvmanager.migration;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Applies the pending schema migrations, see {@link SchemaMigrator}, when a session factory starts, if its
+ * persistence unit sets {@value #ENABLED} to true. The migrations run on a connection of the connection provider of
+ * the unit, before Hibernate uses the schema.
+ * <p>
+ * Registered for every session factory through {@code META-INF/services/org.hibernate.integrator.spi.Integrator}.
+ */
+public class SchemaMigrationIntegrator implements Integrator {
+
+    public static final String ENABLED = "cvmanager.migration.enabled";
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        if (!Boolean.parseBoolean(String.valueOf(sessionFactory.getProperties().get(ENABLED)))) {
+            return;
+        }
+        ConnectionProvider connectionProvider = sessionFactory.getServiceRegistry().requireService(ConnectionProvider.class);
+        try {
+            Connection connection = connectionProvider.getConnection();
+            try {
+                SchemaMigrator.forDatabase(connection).migrate(connection);
+            } finally {
+                connectionProvider.closeConnection(connection);
+            }
+        } catch (SQLException ex) {
+            throw new MigrationException("Cannot get a connection for the schema migrations", ex);
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package my.cvmanager.migration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the versioned SQL migrations of {@value #LOCATION} to a database and records them in the table
+ * {@value #HISTORY_TABLE}, in place of {@code hibernate.hbm2ddl.auto}.
+ * <p>
+ * The migrations are listed in {@value #INDEX} in the order of their versions. Where the SQL of the databases
+ * differs, a migration has a script for each database in a directory named after it, e.g. {@code postgresql/} or
+ * {@code h2/}, which takes the place of the common script; see {@link #database(Connection)}. Every pending
+ * migration runs in a
+ * transaction of its own together with its history row, so on PostgreSQL a failed migration leaves nothing behind.
+ * H2 commits DDL statements right away. Nodes migrating at the same time take turns on a database lock, and a node
+ * finds the migrations of the ones before it in the history, see {@link #migrate(Connection)}. A migration whose
+ * script has changed after it was applied is reported as an error rather than skipped.
+ * <p>
+ * A database that was created by hbm2ddl before the migrations were versioned has the tables of the first
+ * migration, the baseline, but no history. If its tables have all the columns the baseline creates, the baseline is
+ * recorded as applied without running it, and the later migrations are applied as usual; they are written so that
+ * they also succeed on columns and tables that {@code hibernate.hbm2ddl.auto=update} may have added already. A
+ * database whose tables do not match the baseline is rejected, it has to be migrated by hand.
+ * <p>
+ * The migrations run at startup when the persistence unit sets {@value SchemaMigrationIntegrator#ENABLED}, see
+ * {@link SchemaMigrationIntegrator}, or from the command line, see {@link #main(String[])}.
+ */
+public class SchemaMigrator {
+
+    public static final String LOCATION = "db/migration/";
+    public static final String INDEX = LOCATION + "migrations.txt";
+    public static final String HISTORY_TABLE = "schema_history";
+
+    /**
+     * A table of the baseline; if it exists without a history, the database predates the versioned migrations.
+     */
+    static final String BASELINE_TABLE = "users";
+
+    /**
+     * The key of the PostgreSQL advisory lock held while migrating.
+     */
+    static final long LOCK_KEY = 0x63765f6d69677261L;
+
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+            "create table (?:if not exists )?(\\w+)\\s*\\((.*)\\)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Set<String> TABLE_CONSTRAINTS = Set.of("constraint", "primary", "unique", "foreign", "check");
+
+    private static final Logger logger = Logger.getLogger(SchemaMigrator.class.getName());
+
+    private final List<Migration> migrations;
+
+    /**
+     * Creates a migrator for the migrations on the class path, with the scripts for the database of a connection.
+     *
+     * @param connection the connection to the database
+     * @return the migrator
+     * @throws SQLException       if the database cannot be identified
+     * @throws MigrationException if the migrations cannot be read
+     */
+    public static SchemaMigrator forDatabase(Connection connection) throws SQLException {
+        return new SchemaMigrator(load(SchemaMigrator.class.getClassLoader(), database(connection)));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param migrations the migrations in ascending order of their versions
+     * @throws MigrationException if the versions are not ascending
+     */
+    public SchemaMigrator(List<Migration> migrations) {
+        for (int i = 1; i < migrations.size(); i++) {
+            if (Migration.compareVersions(migrations.get(i).version(), migrations.get(i - 1).version()) <= 0) {
+                throw new MigrationException("Migration " + migrations.get(i) + " is listed after "
+                        + migrations.get(i - 1));
+            }
+        }
+        this.migrations = List.copyOf(migrations);
+    }
+
+    /**
+     * Reads the migrations listed in {@value #INDEX}.
+     *
+     * @param classLoader the class loader to read the scripts from
+     * @param database    the database the scripts are for, see {@link #database(Connection)}
+     * @return the migrations
+     * @throws MigrationException if a script is missing or cannot be read
+     */
+    public static List<Migration> load(ClassLoader classLoader, String database) {
+        List<Migration> migrations = new ArrayList<>();
+        for (String line : read(classLoader, INDEX).split("\\R")) {
+            String script = line.strip();
+            if (!script.isEmpty() && !script.startsWith("#")) {
+                String specific = LOCATION + database + "/" + script;
+                String resource = classLoader.getResource(specific) != null ? specific : LOCATION + script;
+                migrations.add(Migration.parse(script, read(classLoader, resource)));
+            }
+        }
+        return migrations;
+    }
+
+    /**
+     * Returns the name of the database of a connection as it is used for the directories of database specific
+     * scripts: the product name in lower case without spaces, e.g. "postgresql" or "h2".
+     *
+     * @param connection the connection to the database
+     * @return the name of the database
+     * @throws SQLException if the meta data of the connection cannot be read
+     */
+    public static String database(Connection connection) throws SQLException {
+        return connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).replace(" ", "");
+    }
+
+    public List<Migration> getMigrations() {
+        return migrations;
+    }
+
+    /**
+     * Returns the checksums of the applied migrations.
+     *
+     * @param connection the connection to the database
+     * @return the checksums by version, empty if there is no history yet
+     * @throws SQLException if the history cannot be read
+     */
+    public Map<String, Long> applied(Connection connection) throws SQLException {
+        Map<String, Long> applied = new TreeMap<>(Migration::compareVersions);
+        if (tableExists(connection, HISTORY_TABLE)) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("select version, checksum from " + HISTORY_TABLE)) {
+                while (rows.next()) {
+                    applied.put(rows.getString(1), rows.getLong(2));
+                }
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Returns the migrations that have not been applied yet.
+     *
+     * @param connection the connection to the database
+     * @return the pending migrations in the order they will be applied
+     * @throws SQLException       if the history cannot be read
+     * @throws MigrationException if an applied migration has been changed or is unknown
+     */
+    public List<Migration> pending(Connection connection) throws SQLException {
+        return pending(applied(connection));
+    }
+
+    /**
+     * Applies the pending migrations. The database is locked meanwhile, so another node migrating it waits and then
+     * finds nothing left to apply.
+     *
+     * @param connection the connection to the database; its auto-commit mode is restored afterwards
+     * @return the migrations that have been applied, without a baseline that was only recorded
+     * @throws MigrationException if a migration fails or an applied migration has been changed
+     */
+    public List<Migration> migrate(Connection connection) {
+        List<Migration> applied = new ArrayList<>();
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            String database = database(connection);
+            lock(connection, database);
+            try {
+                connection.setAutoCommit(false);
+                if (!tableExists(connection, HISTORY_TABLE)) {
+                    createHistory(connection);
+                }
+                for (Migration migration : pending(connection)) {
+                    apply(connection, migration);
+                    applied.add(migration);
+                }
+            } finally {
+                connection.setAutoCommit(true);
+                unlock(connection, database);
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException ex) {
+            throw new MigrationException("Cannot migrate the schema: " + ex.getMessage(), ex);
+        }
+        return applied;
+    }
+
+    /**
+     * Waits until no other connection migrates the database, so that nodes starting together on an empty database
+     * do not race to create the history and the tables; the history is read once the lock is held. PostgreSQL takes
+     * a session-level advisory lock, which outlives the transactions of the migrations, H2 switches the database to
+     * exclusive mode. On other databases the migrations are not serialized.
+     */
+    private static void lock(Connection connection, String database) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            switch (database) {
+                case "postgresql" -> statement.execute("select pg_advisory_lock(" + LOCK_KEY + ")");
+                case "h2" -> statement.execute("set exclusive 1");
+                default -> logger.warning("Migrations on " + database + " are not serialized across nodes");
+            }
+        }
+    }
+
+    private static void unlock(Connection connection, String database) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            switch (database) {
+                case "postgresql" -> statement.execute("select pg_advisory_unlock(" + LOCK_KEY + ")");
+                case "h2" -> statement.execute("set exclusive 0");
+                default -> {
+                }
+            }
+        }
+    }
+
+    private List<Migration> pending(Map<String, Long> applied) {
+        String latest = migrations.isEmpty() ? "0" : migrations.getLast().version();
+        for (Map.Entry<String, Long> entry : applied.entrySet()) {
+            if (Migration.compareVersions(entry.getKey(), latest) > 0) {
+                throw new MigrationException("The database has migration V" + entry.getKey()
+                        + ", which is newer than the application");
+            }
+        }
+        List<Migration> pending = new ArrayList<>();
+        for (Migration migration : migrations) {
+            Long checksum = applied.get(migration.version());
+            if (checksum == null) {
+                pending.add(migration);
+            } else if (checksum.longValue() != migration.checksum()) {
+                throw new MigrationException("Migration " + migration + " has been changed after it was applied");
+            }
+        }
+        return pending;
+    }
+
+    private void createHistory(Connection connection) throws SQLException {
+        boolean predatesHistory = !migrations.isEmpty() && tableExists(connection, BASELINE_TABLE);
+        if (predatesHistory) {
+            List<String> missing = missingColumns(connection, migrations.getFirst());
+            if (!missing.isEmpty()) {
+                throw new MigrationException("The existing schema has no history and does not match the baseline "
+                        + migrations.getFirst() + ", it lacks " + String.join(", ", missing)
+                        + "; migrate it by hand and record the baseline in " + HISTORY_TABLE);
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table " + HISTORY_TABLE + " ("
+                    + "version varchar(50) not null, "
+                    + "description varchar(200) not null, "
+                    + "checksum bigint not null, "
+                    + "applied_at timestamp not null, "
+                    + "execution_ms bigint not null, "
+                    + "primary key (version))");
+            if (predatesHistory) {
+                record(connection, migrations.getFirst(), 0);
+                logger.info("Recorded " + migrations.getFirst() + " as the baseline of the existing schema");
+            }
+            connection.commit();
+        } catch (SQLException ex) {
+            connection.rollback();
+            throw ex;
+        }
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : migration.statements()) {
+                statement.execute(sql);
+            }
+            record(connection, migration, (System.nanoTime() - start) / 1_000_000);
+            connection.commit();
+        } catch (SQLException ex) {
+            connection.rollback();
+            throw new MigrationException("Migration " + migration + " failed: " + ex.getMessage(), ex);
+        }
+        logger.info("Applied migration " + migration + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static void record(Connection connection, Migration migration, long executionMillis) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("insert into " + HISTORY_TABLE
+                + " (version, description, checksum, applied_at, execution_ms) values (?, ?, ?, ?, ?)")) {
+            insert.setString(1, migration.version());
+            insert.setString(2, migration.description());
+            insert.setLong(3, migration.checksum());
+            insert.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            insert.setLong(5, executionMillis);
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns the columns created by the {@code create table} statements of a migration that the database lacks.
+     *
+     * @return the missing tables and columns as {@code table.column}, empty if the database has them all
+     */
+    static List<String> missingColumns(Connection connection, Migration migration) throws SQLException {
+        List<String> missing = new ArrayList<>();
+        for (Map.Entry<String, List<String>> table : createdTables(migration).entrySet()) {
+            Set<String> columns = columns(connection, table.getKey());
+            for (String column : table.getValue()) {
+                if (!columns.contains(column.toLowerCase(Locale.ROOT))) {
+                    missing.add(table.getKey() + "." + column);
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Returns the columns of the tables that a migration creates, by table.
+     */
+    static Map<String, List<String>> createdTables(Migration migration) {
+        Map<String, List<String>> tables = new LinkedHashMap<>();
+        for (String sql : migration.statements()) {
+            Matcher matcher = CREATE_TABLE.matcher(sql);
+            if (!matcher.matches()) {
+                continue;
+            }
+            List<String> columns = new ArrayList<>();
+            for (String definition : splitTopLevel(matcher.group(2))) {
+                String name = definition.strip().split("\\s+", 2)[0];
+                if (!TABLE_CONSTRAINTS.contains(name.toLowerCase(Locale.ROOT))) {
+                    columns.add(name);
+                }
+            }
+            tables.put(matcher.group(1), columns);
+        }
+        return tables;
+    }
+
+    /**
+     * Splits the definitions of a {@code create table} statement at the commas outside of parentheses.
+     */
+    private static List<String> splitTopLevel(String definitions) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < definitions.length(); i++) {
+            char c = definitions.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                parts.add(definitions.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(definitions.substring(start));
+        return parts;
+    }
+
+    /**
+     * Returns the lower case names of the columns of a table in the current schema, empty if there is no such table.
+     */
+    private static Set<String> columns(Connection connection, String table) throws SQLException {
+        Set<String> columns = new HashSet<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rows = metaData.getColumns(connection.getCatalog(), connection.getSchema(), "%", "%")) {
+            while (rows.next()) {
+                if (table.equalsIgnoreCase(rows.getString("TABLE_NAME"))) {
+                    columns.add(rows.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Checks if a table exists in the current schema, whatever case the database stores unquoted names in.
+     */
+    static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), connection.getSchema(), "%",
+                new String[]{"TABLE"})) {
+            while (tables.next()) {
+                if (table.equalsIgnoreCase(tables.getString("TABLE_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String read(ClassLoader classLoader, String resource) {
+        try (InputStream in = classLoader.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new MigrationException("Migration resource " + resource + " not found");
+            }
+            StringBuilder content = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                reader.lines().forEach(line -> content.append(line).append('\n'));
+            }
+            return content.toString();
+        } catch (IOException ex) {
+            throw new MigrationException("Cannot read migration resource " + resource, ex);
+        }
+    }
+
+    /**
+     * Migrates a database from the command line.
+     * <p>
+     * Usage: {@code SchemaMigrator [--info | --check] <jdbc-url> [<user> [<password>]]}. Without an option the
+     * pending migrations are applied. {@code --info} lists the applied and pending migrations without changing the
+     * database; {@code --check} applies the pending migrations and then verifies with {@link IndexUsageCheck} that
+     * the hot queries use their indexes. The JDBC driver must be on the class path.
+     *
+     * @param args the command line arguments
+     * @throws SQLException if the database cannot be reached
+     */
+    public static void main(String[] args) throws SQLException {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        boolean info = arguments.remove("--info");
+        boolean check = arguments.remove("--check");
+        if (arguments.isEmpty() || arguments.size() > 3) {
+            System.err.println("Usage: SchemaMigrator [--info | --check] <jdbc-url> [<user> [<password>]]");
+            System.exit(2);
+        }
+        String user = arguments.size() > 1 ? arguments.get(1) : null;
+        String password = arguments.size() > 2 ? arguments.get(2) : null;
+
+        try (Connection connection = DriverManager.getConnection(arguments.getFirst(), user, password)) {
+            SchemaMigrator migrator = forDatabase(connection);
+            if (info) {
+                Map<String, Long> applied = migrator.applied(connection);
+                for (Migration migration : migrator.getMigrations()) {
+                    System.out.println((applied.containsKey(migration.version()) ? "applied  " : "pending  ") + migration);
+                }
+                return;
+            }
+            List<Migration> applied = migrator.migrate(connection);
+            System.out.println(applied.isEmpty() ? "Schema is up to date" : "Applied " + applied);
+            if (check) {
+                List<String> problems = IndexUsageCheck.check(connection);
+                problems.forEach(System.err::println);
+                if (!problems.isEmpty()) {
+                    System.exit(1);
+                }
+                System.out.println("All hot queries use their indexes");
+            }
+        }
+    }
+}
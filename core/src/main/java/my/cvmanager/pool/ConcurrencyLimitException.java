@@ -0,0 +1,16 @@
+package my.cvmanager.pool;
+
+/**
+ * Thrown when a call gets no permit of a {@link ConcurrencyLimiter} within its timeout.
+ * Callers should answer with a "try again later" instead of retrying right away.
+ */
+public class ConcurrencyLimitException extends RuntimeException {
+
+    public ConcurrencyLimitException(String message) {
+        super(message);
+    }
+
+    public ConcurrencyLimitException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
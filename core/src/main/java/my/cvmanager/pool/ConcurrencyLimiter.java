@@ -0,0 +1,168 @@
+package my.cvmanager.pool;
+
+import my.cvmanager.util.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of calls that use the database at the same time.
+ * <p>
+ * With virtual threads the size of the request thread pool no longer bounds the number of concurrent requests.
+ * Without a limit, every request would wait inside the connection pool and fail there after its acquisition
+ * timeout. The limiter admits as many calls as the pool has connections. The other calls wait in arrival order, and
+ * those that get no permit within the timeout fail fast with a {@link ConcurrencyLimitException}. Waiting parks a
+ * virtual thread without blocking its carrier.
+ * <p>
+ * A call gives its permit back while it does work without the database, see {@link #withoutPermit(Supplier)}.
+ */
+public class ConcurrencyLimiter {
+
+    /**
+     * The limiter whose permit the current thread holds.
+     */
+    private static final ThreadLocal<ConcurrencyLimiter> HELD = new ThreadLocal<>();
+
+    private final int maxConcurrency;
+    private final Duration timeout;
+    private final Semaphore permits;
+
+    private final LatencyHistogram waitLatency = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param maxConcurrency the maximum number of concurrent calls, usually the maximum size of the connection pool
+     * @param timeout        the maximum time a call waits for a permit
+     */
+    public ConcurrencyLimiter(int maxConcurrency, Duration timeout) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Maximum concurrency must be positive: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.timeout = timeout;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * Runs a call once a permit is available.
+     *
+     * @param call the call
+     * @param <T>  the type of the result
+     * @return the result of the call
+     * @throws ConcurrencyLimitException if no permit became available within the timeout
+     */
+    public <T> T call(Supplier<T> call) {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrencyLimitException("Interrupted while waiting for a permit", ex);
+        }
+        waitLatency.recordSince(start);
+        if (!acquired) {
+            rejected.increment();
+            throw new ConcurrencyLimitException("No permit within " + timeout.toMillis() + " ms, "
+                    + maxConcurrency + " calls are active");
+        }
+        ConcurrencyLimiter outer = HELD.get();
+        HELD.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (outer == null) {
+                HELD.remove();
+            } else {
+                HELD.set(outer);
+            }
+            permits.release();
+        }
+    }
+
+    /**
+     * Runs a part of a call that does not use the database, e.g. CPU-bound password hashing, without the permit of
+     * the call, so other calls can use the database meanwhile. The permit is taken back afterwards; the call has been
+     * admitted already, so it waits without timeout. Outside of a call the part just runs.
+     * <p>
+     * The connection must not be held meanwhile, as with a JTA unit that releases it after every statement.
+     *
+     * @param part the part of the call
+     * @param <T>  the type of the result
+     * @return the result of the part
+     */
+    public static <T> T withoutPermit(Supplier<T> part) {
+        ConcurrencyLimiter limiter = HELD.get();
+        if (limiter == null) {
+            return part.get();
+        }
+        HELD.remove();
+        limiter.permits.release();
+        try {
+            return part.get();
+        } finally {
+            long start = System.nanoTime();
+            limiter.permits.acquireUninterruptibly();
+            limiter.waitLatency.recordSince(start);
+            HELD.set(limiter);
+        }
+    }
+
+    /**
+     * Runs a call without result once a permit is available.
+     *
+     * @param call the call
+     * @throws ConcurrencyLimitException if no permit became available within the timeout
+     */
+    public void run(Runnable call) {
+        call(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Returns the number of calls holding a permit.
+     *
+     * @return the active calls
+     */
+    public int getActive() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * Returns an estimate of the number of calls waiting for a permit.
+     *
+     * @return the waiting calls
+     */
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Returns the number of calls that got no permit within the timeout.
+     *
+     * @return the rejected calls
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the time the calls waited for a permit, including rejected calls.
+     *
+     * @return the wait latency
+     */
+    public LatencyHistogram getWaitLatency() {
+        return waitLatency;
+    }
+}
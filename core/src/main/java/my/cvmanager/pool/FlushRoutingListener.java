@@ -0,0 +1,53 @@
+package my.cvmanager.pool;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Suspends the {@link ReadRouting#readOnly read-only scope} while a session flushes, so the writes of a flush go to
+ * the primary even if a read within the scope triggered it. A JTA unit acquires a connection per statement; once the
+ * flush has written on the primary, the {@link RoutingConnectionProvider} keeps the rest of the transaction there.
+ * A flush without changes executes no statement and leaves the routing alone.
+ * <p>
+ * Enabled for every session with {@code hibernate.session.events.auto=my.cvmanager.pool.FlushRoutingListener}, next
+ * to the routing provider. Hibernate creates one instance per session.
+ */
+public class FlushRoutingListener implements SessionEventListener {
+
+    /**
+     * The number of running flushes of the session that have suspended the scope.
+     */
+    private int suspended;
+
+    @Override
+    public void flushStart() {
+        suspend();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        resume();
+    }
+
+    @Override
+    public void partialFlushStart() {
+        suspend();
+    }
+
+    @Override
+    public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+        resume();
+    }
+
+    private void suspend() {
+        suspended++;
+        ReadRouting.suspend();
+    }
+
+    private void resume() {
+        // Hibernate ends a flush in a finally block, which may run without its start
+        if (suspended > 0) {
+            suspended--;
+            ReadRouting.resume();
+        }
+    }
+}
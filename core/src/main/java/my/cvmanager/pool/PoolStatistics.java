@@ -0,0 +1,13 @@
+package my.cvmanager.pool;
+
+/**
+ * Snapshot of the usage of a connection pool.
+ *
+ * @param active              connections handed out
+ * @param idle                connections waiting in the pool
+ * @param waiting             threads waiting for a connection
+ * @param total               open connections
+ * @param acquisitionFailures calls that got no connection within the acquisition timeout
+ */
+public record PoolStatistics(int active, int idle, int waiting, int total, long acquisitionFailures) {
+}
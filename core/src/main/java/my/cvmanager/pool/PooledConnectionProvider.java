@@ -0,0 +1,193 @@
+package my.cvmanager.pool;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.persistence.EntityManagerFactory;
+import my.cvmanager.util.LatencyHistogram;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection pool for the resource-local units and {@link my.cvmanager.util.HibernateUtil}, backed by HikariCP.
+ * The JTA unit uses the pool of the container instead.
+ * <p>
+ * Enabled with {@code hibernate.connection.provider_class=my.cvmanager.pool.PooledConnectionProvider}. The database
+ * is taken from the usual {@code jakarta.persistence.jdbc.*} or {@code hibernate.connection.*} settings, the pool is
+ * sized with {@code cvmanager.pool.min_size} and {@code cvmanager.pool.max_size}. A caller waits at most
+ * {@code cvmanager.pool.acquisition_timeout_ms} for a connection, and a connection held longer than
+ * {@code cvmanager.pool.leak_detection_ms} is logged as possible leak (0 disables the check).
+ */
+public class PooledConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    public static final String PREFIX = "cvmanager.pool.";
+    public static final String MIN_SIZE = PREFIX + "min_size";
+    public static final String MAX_SIZE = PREFIX + "max_size";
+    public static final String ACQUISITION_TIMEOUT_MS = PREFIX + "acquisition_timeout_ms";
+    public static final String LEAK_DETECTION_MS = PREFIX + "leak_detection_ms";
+
+    public static final int DEFAULT_MIN_SIZE = 2;
+    public static final int DEFAULT_MAX_SIZE = 10;
+    public static final long DEFAULT_ACQUISITION_TIMEOUT_MS = 30_000;
+    public static final long DEFAULT_LEAK_DETECTION_MS = 0;
+
+    /**
+     * The legacy names of the JDBC settings, read if the {@code jakarta.persistence.jdbc.*} setting is missing, e.g.
+     * in a {@code hibernate.cfg.xml}. Hibernate has deprecated its constants for them.
+     */
+    static final String LEGACY_URL = "hibernate.connection.url";
+    static final String LEGACY_USER = "hibernate.connection.username";
+    static final String LEGACY_PASSWORD = "hibernate.connection.password";
+    static final String LEGACY_DRIVER = "hibernate.connection.driver_class";
+
+    private final LatencyHistogram acquisitionLatency = new LatencyHistogram();
+    private final LongAdder acquisitionFailures = new LongAdder();
+
+    private HikariDataSource dataSource;
+
+    @Override
+    public void configure(Map<String, Object> settings) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("cvmanager");
+        config.setJdbcUrl(jdbcSetting(settings, AvailableSettings.JAKARTA_JDBC_URL, LEGACY_URL));
+        config.setUsername(jdbcSetting(settings, AvailableSettings.JAKARTA_JDBC_USER, LEGACY_USER));
+        config.setPassword(jdbcSetting(settings, AvailableSettings.JAKARTA_JDBC_PASSWORD, LEGACY_PASSWORD));
+        String driver = jdbcSetting(settings, AvailableSettings.JAKARTA_JDBC_DRIVER, LEGACY_DRIVER);
+        if (driver != null && !driver.isEmpty()) {
+            config.setDriverClassName(driver);
+        }
+        if (config.getJdbcUrl() == null) {
+            throw new IllegalArgumentException("No JDBC URL configured for the connection pool");
+        }
+
+        int maxSize = Integer.parseInt(setting(settings, MAX_SIZE, DEFAULT_MAX_SIZE));
+        int minSize = Integer.parseInt(setting(settings, MIN_SIZE, DEFAULT_MIN_SIZE));
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min " + minSize + ", max " + maxSize);
+        }
+        config.setMaximumPoolSize(maxSize);
+        config.setMinimumIdle(minSize);
+        config.setConnectionTimeout(Long.parseLong(setting(settings, ACQUISITION_TIMEOUT_MS, DEFAULT_ACQUISITION_TIMEOUT_MS)));
+        config.setLeakDetectionThreshold(Long.parseLong(setting(settings, LEAK_DETECTION_MS, DEFAULT_LEAK_DETECTION_MS)));
+        // Hibernate controls the transactions
+        config.setAutoCommit(false);
+        dataSource = new HikariDataSource(config);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException ex) {
+            acquisitionFailures.increment();
+            throw ex;
+        } finally {
+            acquisitionLatency.recordSince(start);
+        }
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public void stop() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isInstance(this) || unwrapType.isAssignableFrom(HikariDataSource.class);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isInstance(this)) {
+            return unwrapType.cast(this);
+        }
+        if (unwrapType.isAssignableFrom(HikariDataSource.class)) {
+            return unwrapType.cast(dataSource);
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    /**
+     * Returns the pooled data source, e.g. for JDBC work outside of Hibernate.
+     *
+     * @return the data source
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Returns the current usage of the pool.
+     *
+     * @return the numbers of active, idle and total connections and of waiting threads
+     */
+    public PoolStatistics getStatistics() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return new PoolStatistics(0, 0, 0, 0, acquisitionFailures.sum());
+        }
+        return new PoolStatistics(pool.getActiveConnections(), pool.getIdleConnections(),
+                pool.getThreadsAwaitingConnection(), pool.getTotalConnections(), acquisitionFailures.sum());
+    }
+
+    /**
+     * Returns the time callers waited for a connection.
+     *
+     * @return the latency histogram of {@link #getConnection()}
+     */
+    public LatencyHistogram getAcquisitionLatency() {
+        return acquisitionLatency;
+    }
+
+    /**
+     * Returns the provider of an EntityManagerFactory.
+     *
+     * @param entityManagerFactory the EntityManagerFactory, or a SessionFactory
+     * @return the provider, or null if the connections do not come from this provider; with a
+     * {@link RoutingConnectionProvider} the provider of the primary
+     */
+    public static PooledConnectionProvider of(EntityManagerFactory entityManagerFactory) {
+        ConnectionProvider provider = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        if (provider instanceof RoutingConnectionProvider routing) {
+            provider = routing.getPrimary();
+        }
+        return provider instanceof PooledConnectionProvider pooled ? pooled : null;
+    }
+
+    private static String setting(Map<String, Object> settings, String name, Object defaultValue) {
+        Object value = settings.getOrDefault(name, defaultValue);
+        return value == null ? null : value.toString().trim();
+    }
+
+    private static String jdbcSetting(Map<String, Object> settings, String name, String legacyName) {
+        Object value = settings.get(name);
+        if (value == null) {
+            value = settings.get(legacyName);
+        }
+        return value == null ? null : value.toString();
+    }
+}
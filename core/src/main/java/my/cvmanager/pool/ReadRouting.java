@@ -0,0 +1,81 @@
+package my.cvmanager.pool;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks read-only work of the current thread, so that the {@link RoutingConnectionProvider} can send it to a replica.
+ * <p>
+ * The provider decides when a connection is acquired: a resource-local transaction acquires its connection when it
+ * begins, so the whole transaction has to run in the scope to be routed; a JTA unit acquires a connection per
+ * statement, so single reads are routed. Work that already uses the primary stays on it, see
+ * {@link RoutingConnectionProvider}. Without a routing provider the scope has no effect.
+ * <p>
+ * The flushes of a session leave the scope while they run, see {@link FlushRoutingListener}, so the writes of a
+ * flush triggered by a read go to the primary.
+ * <p>
+ * A resource-local EntityManager keeps its connection until its transaction ends or it is closed, so an
+ * EntityManager that has read in the scope outside of a transaction must not be used to write afterwards.
+ */
+public final class ReadRouting {
+
+    /**
+     * The depth of the read-only scopes of the current thread and, at index 1, of the flushes that suspend them.
+     */
+    private static final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[2]);
+
+    private ReadRouting() {
+    }
+
+    /**
+     * Runs read-only work.
+     *
+     * @param work the work, which must not write
+     * @param <T>  the type of the result
+     * @return the result of the work
+     */
+    public static <T> T readOnly(Supplier<T> work) {
+        int[] depths = depth.get();
+        depths[0]++;
+        try {
+            return work.get();
+        } finally {
+            depths[0]--;
+        }
+    }
+
+    /**
+     * Runs read-only work.
+     *
+     * @param work the work, which must not write
+     */
+    public static void readOnly(Runnable work) {
+        readOnly(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Checks if the current thread runs read-only work.
+     *
+     * @return true inside {@link #readOnly(Supplier)}, unless a flush runs
+     */
+    public static boolean isReadOnly() {
+        int[] depths = depth.get();
+        return depths[0] > 0 && depths[1] == 0;
+    }
+
+    /**
+     * Suspends the read-only scope of the current thread until {@link #resume()}.
+     */
+    static void suspend() {
+        depth.get()[1]++;
+    }
+
+    /**
+     * Ends a {@link #suspend()}.
+     */
+    static void resume() {
+        depth.get()[1]--;
+    }
+}
@@ -0,0 +1,405 @@
+package my.cvmanager.pool;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.Transaction;
+import jakarta.transaction.TransactionManager;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.internal.DatasourceConnectionProviderImpl;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.jndi.spi.JndiService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.transaction.jta.platform.spi.JtaPlatform;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.ServiceRegistryAwareService;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Connection provider that sends read-only work to a pool of replicas and everything else to the primary.
+ * <p>
+ * Enabled with {@code hibernate.connection.provider_class=my.cvmanager.pool.RoutingConnectionProvider}. The primary
+ * is the data source of the unit, e.g. its JTA data source, if there is one, otherwise a
+ * {@link PooledConnectionProvider} configured from the usual settings. The replicas are listed in {@value #REPLICA_URLS}, separated by commas; each gets a read-only
+ * HikariCP pool of the size of the primary pool, with the credentials of {@value #REPLICA_USER} and
+ * {@value #REPLICA_PASSWORD}, or those of the primary.
+ * <p>
+ * A connection is taken from a replica, round-robin, when it is acquired within {@link ReadRouting#readOnly}, unless
+ * the work already uses the primary: the current thread holds a primary connection, or the current JTA transaction
+ * has used one. Reads of a transaction that has written therefore see its writes. Replica connections are not
+ * enlisted in JTA transactions. The flushes of a session run outside of the read-only scope with the
+ * {@link FlushRoutingListener}, enabled with {@code hibernate.session.events.auto}, so the routing of a transaction
+ * is decided by its first write and no read has to check for pending changes.
+ * <p>
+ * Every {@value #HEALTH_CHECK_MS} milliseconds the replicas are validated in the background; a replica that fails the
+ * check, or hands out no connection within {@value #REPLICA_TIMEOUT_MS} milliseconds, is skipped until it passes the
+ * check again. Without a healthy replica all work goes to the primary.
+ */
+public class RoutingConnectionProvider implements ConnectionProvider, Configurable, Stoppable, ServiceRegistryAwareService {
+
+    public static final String PREFIX = "cvmanager.routing.";
+    public static final String REPLICA_URLS = PREFIX + "replica_urls";
+    public static final String REPLICA_USER = PREFIX + "replica_user";
+    public static final String REPLICA_PASSWORD = PREFIX + "replica_password";
+    public static final String REPLICA_TIMEOUT_MS = PREFIX + "replica_timeout_ms";
+    public static final String HEALTH_CHECK_MS = PREFIX + "health_check_ms";
+
+    public static final long DEFAULT_REPLICA_TIMEOUT_MS = 1000;
+    public static final long DEFAULT_HEALTH_CHECK_MS = 5000;
+
+    /**
+     * The data source setting read by {@link DatasourceConnectionProviderImpl}, whose Hibernate constant is deprecated.
+     */
+    private static final String LEGACY_DATASOURCE = "hibernate.connection.datasource";
+
+    /**
+     * The logger instance for this class.
+     */
+    private static final Logger logger = Logger.getLogger(RoutingConnectionProvider.class.getName());
+
+    /**
+     * The number of primary connections held by the current thread.
+     */
+    private final ThreadLocal<int[]> primaryConnectionsHeld = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * The connections handed out by the replicas, to tell them apart when they are closed.
+     */
+    private final Set<Connection> replicaConnections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The identifiers of the active JTA transactions that have used the primary.
+     */
+    private final Set<Object> primaryTransactions = ConcurrentHashMap.newKeySet();
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final LongAdder primaryAcquisitions = new LongAdder();
+    private final LongAdder replicaAcquisitions = new LongAdder();
+    private final LongAdder replicaFailures = new LongAdder();
+
+    private ServiceRegistryImplementor serviceRegistry;
+    private ConnectionProvider primary;
+    private ScheduledExecutorService healthCheck;
+    private long replicaTimeoutMillis;
+
+    @Override
+    public void injectServices(ServiceRegistryImplementor serviceRegistry) {
+        this.serviceRegistry = serviceRegistry;
+    }
+
+    @Override
+    public void configure(Map<String, Object> settings) {
+        if (settings.get(LEGACY_DATASOURCE) != null) {
+            DatasourceConnectionProviderImpl dataSourceProvider = new DatasourceConnectionProviderImpl();
+            dataSourceProvider.setJndiService(serviceRegistry.getService(JndiService.class));
+            dataSourceProvider.configure(settings);
+            primary = dataSourceProvider;
+        } else {
+            PooledConnectionProvider pooledProvider = new PooledConnectionProvider();
+            pooledProvider.configure(settings);
+            primary = pooledProvider;
+        }
+
+        replicaTimeoutMillis = Long.parseLong(setting(settings, REPLICA_TIMEOUT_MS, DEFAULT_REPLICA_TIMEOUT_MS));
+        String urls = setting(settings, REPLICA_URLS, "");
+        for (String url : urls.split(",")) {
+            if (!url.isBlank()) {
+                replicas.add(new Replica(url.trim(), replicaPool(settings, url.trim(), replicas.size() + 1)));
+            }
+        }
+        if (!replicas.isEmpty()) {
+            long interval = Long.parseLong(setting(settings, HEALTH_CHECK_MS, DEFAULT_HEALTH_CHECK_MS));
+            healthCheck = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cvmanager-replica-health");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthCheck.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+            if (!FlushRoutingListener.class.getName().equals(setting(settings, AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, ""))) {
+                logger.warning("Without " + AvailableSettings.AUTO_SESSION_EVENTS_LISTENER + "="
+                        + FlushRoutingListener.class.getName() + " a read may flush pending changes on a replica");
+            }
+        }
+    }
+
+    private HikariDataSource replicaPool(Map<String, Object> settings, String url, int number) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("cvmanager-replica-" + number);
+        config.setJdbcUrl(url);
+        config.setUsername(setting(settings, REPLICA_USER, jdbcSetting(settings, AvailableSettings.JAKARTA_JDBC_USER, PooledConnectionProvider.LEGACY_USER)));
+        config.setPassword(setting(settings, REPLICA_PASSWORD, jdbcSetting(settings, AvailableSettings.JAKARTA_JDBC_PASSWORD, PooledConnectionProvider.LEGACY_PASSWORD)));
+        String driver = jdbcSetting(settings, AvailableSettings.JAKARTA_JDBC_DRIVER, PooledConnectionProvider.LEGACY_DRIVER);
+        if (driver != null && !driver.isEmpty()) {
+            config.setDriverClassName(driver);
+        }
+        config.setMaximumPoolSize(Integer.parseInt(setting(settings, PooledConnectionProvider.MAX_SIZE, PooledConnectionProvider.DEFAULT_MAX_SIZE)));
+        config.setMinimumIdle(0);
+        config.setConnectionTimeout(Math.max(250, replicaTimeoutMillis));
+        config.setReadOnly(true);
+        config.setAutoCommit(false);
+        // a replica that is down must not keep the application from starting
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReadRouting.isReadOnly() && !usesPrimary()) {
+            Connection connection = replicaConnection();
+            if (connection != null) {
+                return connection;
+            }
+        }
+        Connection connection = primary.getConnection();
+        primaryAcquisitions.increment();
+        primaryConnectionsHeld.get()[0]++;
+        markTransaction();
+        return connection;
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        if (replicaConnections.remove(connection)) {
+            connection.close();
+            return;
+        }
+        int[] held = primaryConnectionsHeld.get();
+        if (held[0] > 0) {
+            held[0]--;
+        }
+        primary.closeConnection(connection);
+    }
+
+    /**
+     * Takes a connection from the next healthy replica. A replica that hands out no connection is marked unhealthy.
+     *
+     * @return the connection, null if no replica is available
+     */
+    private Connection replicaConnection() {
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replicaConnections.add(connection);
+                replicaAcquisitions.increment();
+                return connection;
+            } catch (SQLException ex) {
+                replicaFailures.increment();
+                setHealthy(replica, false, ex.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the current work already uses the primary, so its reads must stay there.
+     */
+    private boolean usesPrimary() {
+        if (primaryConnectionsHeld.get()[0] > 0) {
+            return true;
+        }
+        Object transaction = currentTransaction();
+        return transaction != null && primaryTransactions.contains(transaction);
+    }
+
+    /**
+     * Remembers that the current JTA transaction has used the primary, until it completes.
+     */
+    private void markTransaction() {
+        Object transaction = currentTransaction();
+        if (transaction != null && primaryTransactions.add(transaction)) {
+            serviceRegistry.getService(JtaPlatform.class).registerSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    primaryTransactions.remove(transaction);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the identifier of the active JTA transaction of the current thread.
+     *
+     * @return the identifier, null if there is none or the unit is resource-local
+     */
+    private Object currentTransaction() {
+        if (serviceRegistry == null) {
+            return null;
+        }
+        JtaPlatform jtaPlatform = serviceRegistry.getService(JtaPlatform.class);
+        TransactionManager transactionManager = jtaPlatform == null ? null : jtaPlatform.retrieveTransactionManager();
+        if (transactionManager == null) {
+            return null;
+        }
+        try {
+            Transaction transaction = transactionManager.getTransaction();
+            return transaction != null && transaction.getStatus() == Status.STATUS_ACTIVE
+                    ? jtaPlatform.getTransactionIdentifier(transaction)
+                    : null;
+        } catch (SystemException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Validates every replica and updates its health. Called periodically in the background.
+     */
+    public void checkHealth() {
+        int timeoutSeconds = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(replicaTimeoutMillis));
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                setHealthy(replica, connection.isValid(timeoutSeconds), "validation failed");
+            } catch (SQLException ex) {
+                setHealthy(replica, false, ex.getMessage());
+            }
+        }
+    }
+
+    private static void setHealthy(Replica replica, boolean healthy, String reason) {
+        if (replica.healthy != healthy) {
+            replica.healthy = healthy;
+            if (healthy) {
+                logger.info("Replica " + replica.url + " is available again");
+            } else {
+                logger.warning("Replica " + replica.url + " is unavailable: " + reason);
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return primary.supportsAggressiveRelease();
+    }
+
+    @Override
+    public void stop() {
+        if (healthCheck != null) {
+            healthCheck.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+        if (primary instanceof Stoppable stoppable) {
+            stoppable.stop();
+        }
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isInstance(this) || primary.isUnwrappableAs(unwrapType);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isInstance(this)) {
+            return unwrapType.cast(this);
+        }
+        if (primary.isUnwrappableAs(unwrapType)) {
+            return primary.unwrap(unwrapType);
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    /**
+     * Returns the provider of the primary connections.
+     *
+     * @return the primary provider
+     */
+    public ConnectionProvider getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Checks if an EntityManagerFactory routes read-only work to replicas.
+     *
+     * @param entityManagerFactory the EntityManagerFactory
+     * @return true if its connections come from a routing provider with replicas
+     */
+    public static boolean routesReads(EntityManagerFactory entityManagerFactory) {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(ConnectionProvider.class) instanceof RoutingConnectionProvider routing
+                && !routing.replicas.isEmpty();
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    /**
+     * Returns the number of replicas that currently get read-only work.
+     *
+     * @return the number of healthy replicas
+     */
+    public int getHealthyReplicaCount() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    public long getPrimaryAcquisitions() {
+        return primaryAcquisitions.sum();
+    }
+
+    public long getReplicaAcquisitions() {
+        return replicaAcquisitions.sum();
+    }
+
+    /**
+     * Returns the number of replica connections that could not be acquired; the work went to another replica or the
+     * primary instead.
+     *
+     * @return the number of failures
+     */
+    public long getReplicaFailures() {
+        return replicaFailures.sum();
+    }
+
+    private static String setting(Map<String, Object> settings, String name, Object defaultValue) {
+        Object value = settings.getOrDefault(name, defaultValue);
+        return value == null ? null : value.toString().trim();
+    }
+
+    private static String jdbcSetting(Map<String, Object> settings, String name, String legacyName) {
+        Object value = settings.get(name);
+        if (value == null) {
+            value = settings.get(legacyName);
+        }
+        return value == null ? null : value.toString();
+    }
+
+    private static final class Replica {
+        final String url;
+        final HikariDataSource dataSource;
+        volatile boolean healthy = true;
+
+        Replica(String url, HikariDataSource dataSource) {
+            this.url = url;
+            this.dataSource = dataSource;
+        }
+    }
+}
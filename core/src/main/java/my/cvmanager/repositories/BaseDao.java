@@ -1,33 +1,150 @@
 package my.cvmanager.repositories;
 
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import my.cvmanager.domain.AggregateChangeListener;
+import my.cvmanager.domain.PartOf;
+import my.cvmanager.pool.ReadRouting;
+import my.cvmanager.pool.RoutingConnectionProvider;
+import my.cvmanager.util.AggregateCommitIntegrator;
+import my.cvmanager.util.CacheStatistics;
+import my.cvmanager.util.OperationMetrics;
+import my.cvmanager.util.OperationStats;
+import my.cvmanager.util.StatementCounter;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.jpa.SpecHints;
+import org.hibernate.metamodel.mapping.NaturalIdMapping;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Base class for Data Access Objects (DAOs).
+ * Every operation records its latency, errors and SQL statements in {@link OperationMetrics#global()} under
+ * {@code dao.<Entity>.<operation>}.
+ * With a {@link RoutingConnectionProvider} the reads within a transaction run in a
+ * {@link ReadRouting#readOnly read-only scope}, so they go to a replica until the transaction first writes.
  *
  * @param <T> the type of the entity
  */
 public class BaseDao<T> {
 
+    /**
+     * Default number of entities written per chunk by the bulk operations.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
     private final Class<T> entityClass;
 
+    private int batchSize;
+
+    private final ConcurrentMap<String, String> findOneQueries = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, BulkUpdate> updateQueries = new ConcurrentHashMap<>();
+
+    private final CacheStatistics queryCacheStatistics = new CacheStatistics();
+
+    private final OperationStats[] operationStats = new OperationStats[Operation.values().length];
+
+    /**
+     * The instrumented operations.
+     */
+    private enum Operation {
+        PERSIST("persist"),
+        FIND("find"),
+        FIND_WITH_PLAN("findWithPlan"),
+        UPDATE("update"),
+        DELETE("delete"),
+        PERSIST_ALL("persistAll"),
+        UPDATE_ALL("updateAll"),
+        DELETE_ALL("deleteAll"),
+        LOAD_ALL("loadAll"),
+        STREAM_ALL("streamAll"),
+        LOAD_PAGE("loadPage"),
+        FIND_ONE("findOne"),
+        UPDATE_WHERE("updateWhere");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+
     /**
      * Constructor.
      *
      * @param entityClass the type of the entity
      */
     public BaseDao(Class<T> entityClass) {
+        this(entityClass, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param entityClass the type of the entity
+     * @param batchSize   the number of entities written per chunk by the bulk operations
+     */
+    public BaseDao(Class<T> entityClass, int batchSize) {
         this.entityClass = entityClass;
+        this.batchSize = checkBatchSize(batchSize);
+        for (Operation operation : Operation.values()) {
+            operationStats[operation.ordinal()] = OperationMetrics.global()
+                    .operation("dao." + entityClass.getSimpleName() + "." + operation.label);
+        }
+    }
+
+    /**
+     * Returns the number of entities written per chunk by the bulk operations.
+     *
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of entities written per chunk by the bulk operations.
+     *
+     * @param batchSize the batch size, must be positive
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = checkBatchSize(batchSize);
+    }
+
+    private static int checkBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        return batchSize;
     }
 
     /**
@@ -37,7 +154,15 @@ public class BaseDao<T> {
      * @param entityManager the EntityManager
      */
     public void persist(T entity, EntityManager entityManager) {
-        entityManager.persist(entity);
+        OperationStats stats = operationStats[Operation.PERSIST.ordinal()];
+        long start = System.nanoTime(), statements = StatementCounter.current();
+        try {
+            entityManager.persist(entity);
+        } catch (RuntimeException ex) {
+            throw stats.failed(ex);
+        } finally {
+            stats.record(start, statements);
+        }
     }
 
     /**
@@ -48,50 +173,487 @@ public class BaseDao<T> {
      * @return the entity or an empty Optional
      */
     public Optional<T> find(Long id, EntityManager entityManager) {
-        return Optional.ofNullable(entityManager.find(entityClass, id));
+        OperationStats stats = operationStats[Operation.FIND.ordinal()];
+        long start = System.nanoTime(), statements = StatementCounter.current();
+        try {
+            return read(entityManager, () -> Optional.ofNullable(entityManager.find(entityClass, id)));
+        } catch (RuntimeException ex) {
+            throw stats.failed(ex);
+        } finally {
+            stats.record(start, statements);
+        }
+    }
+
+    /**
+     * Finds an entity by its ID and loads the associations of a fetch plan.
+     * Associations outside of the plan are not loaded.
+     *
+     * @param id            the ID of the entity
+     * @param plan          the name of the fetch plan, see {@link my.cvmanager.domain.FetchPlan}
+     * @param entityManager the EntityManager
+     * @return the entity or an empty Optional
+     * @throws IllegalArgumentException if the entity defines no such fetch plan
+     */
+    public Optional<T> find(Long id, String plan, EntityManager entityManager) {
+        OperationStats stats = operationStats[Operation.FIND_WITH_PLAN.ordinal()];
+        long start = System.nanoTime(), statements = StatementCounter.current();
+        try {
+            String graphName = entityManager.getMetamodel().entity(entityClass).getName() + "." + plan;
+            EntityGraph<?> graph = entityManager.getEntityGraph(graphName);
+            return read(entityManager, () ->
+                    Optional.ofNullable(entityManager.find(entityClass, id, Map.of(SpecHints.HINT_SPEC_FETCH_GRAPH, graph))));
+        } catch (RuntimeException ex) {
+            throw stats.failed(ex);
+        } finally {
+            stats.record(start, statements);
+        }
     }
 
     /**
      * Updates an entity.
+     * A managed entity is returned as it is, its changes are written by the dirty check at flush. A detached entity
+     * is merged, which loads its current state first. Only the changed columns are written and versioned entities
+     * are checked for concurrent changes; to change single attributes without loading the entity, use
+     * {@link #updateWhere(String, Object, String, Object, EntityManager)}.
      *
      * @param entity        the entity to update
      * @param entityManager the EntityManager
      * @return the updated entity
      * @throws EntityNotFoundException if the entity is not found
+     * @throws jakarta.persistence.OptimisticLockException if a versioned entity has been changed concurrently
      */
     public T update(T entity, EntityManager entityManager) {
-        return Optional.ofNullable(entityManager.merge(entity))
-                .orElseThrow(EntityNotFoundException::new);
+        OperationStats stats = operationStats[Operation.UPDATE.ordinal()];
+        long start = System.nanoTime(), statements = StatementCounter.current();
+        try {
+            return merge(entity, entityManager);
+        } catch (RuntimeException ex) {
+            throw stats.failed(ex);
+        } finally {
+            stats.record(start, statements);
+        }
     }
 
     /**
      * Deletes an entity.
+     * A detached entity is deleted by its ID, whatever the version of the detached copy.
      *
      * @param entity        the entity to delete
      * @param entityManager the EntityManager
      */
     public void delete(T entity, EntityManager entityManager) {
+        OperationStats stats = operationStats[Operation.DELETE.ordinal()];
+        long start = System.nanoTime(), statements = StatementCounter.current();
+        try {
+            remove(entity, entityManager);
+        } catch (RuntimeException ex) {
+            throw stats.failed(ex);
+        } finally {
+            stats.record(start, statements);
+        }
+    }
+
+    private T merge(T entity, EntityManager entityManager) {
+        if (entity != null && entityManager.contains(entity)) {
+            return entity;
+        }
+        return Optional.ofNullable(entityManager.merge(entity))
+                .orElseThrow(EntityNotFoundException::new);
+    }
+
+    private void remove(T entity, EntityManager entityManager) {
         if (entity == null) {
             throw new NullPointerException("Entity is null");
         }
         if (!entityManager.contains(entity)) {
-            entity = entityManager.merge(entity);
+            // deleted by its ID, the state of the detached copy does not matter
+            Object id = entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+            entity = entityManager.getReference(entityClass, id);
         }
         entityManager.remove(entity);
     }
 
+    /**
+     * Runs a read in a read-only scope if reads are routed and the EntityManager takes part in a transaction. Outside
+     * of a transaction a resource-local EntityManager would keep a replica connection for its next transaction, so
+     * these reads go to the primary. A flush triggered by the read leaves the scope, see
+     * {@link my.cvmanager.pool.FlushRoutingListener}, and pins the transaction to the primary. The entities read in
+     * the scope are not put into the second-level cache, a replica may lag behind the primary.
+     */
+    private static <R> R read(EntityManager entityManager, Supplier<R> read) {
+        if (!entityManager.isJoinedToTransaction()
+                || !RoutingConnectionProvider.routesReads(entityManager.getEntityManagerFactory())) {
+            return read.get();
+        }
+        Session session = entityManager.unwrap(Session.class);
+        CacheStoreMode storeMode = session.getCacheStoreMode();
+        session.setCacheStoreMode(CacheStoreMode.BYPASS);
+        try {
+            return ReadRouting.readOnly(read);
+        } finally {
+            session.setCacheStoreMode(storeMode);
+        }
+    }
+
+    /**
+     * Persists a collection of entities.
+     * The persistence context is flushed and cleared after every chunk of {@link #getBatchSize()} entities,
+     * so the entities are detached once this method returns.
+     *
+     * @param entities      the entities to persist
+     * @param entityManager the EntityManager
+     */
+    public void persistAll(Collection<T> entities, EntityManager entityManager) {
+        inBatches(Operation.PERSIST_ALL, entities, entityManager, entity -> entityManager.persist(entity));
+    }
+
+    /**
+     * Updates a collection of entities.
+     * The persistence context is flushed and cleared after every chunk of {@link #getBatchSize()} entities,
+     * so the returned entities are detached once this method returns.
+     *
+     * @param entities      the entities to update
+     * @param entityManager the EntityManager
+     * @return the updated entities
+     * @throws EntityNotFoundException if an entity is not found
+     */
+    public List<T> updateAll(Collection<T> entities, EntityManager entityManager) {
+        List<T> updated = new ArrayList<>(entities.size());
+        inBatches(Operation.UPDATE_ALL, entities, entityManager, entity -> updated.add(merge(entity, entityManager)));
+        return updated;
+    }
+
+    /**
+     * Deletes a collection of entities.
+     * The persistence context is flushed and cleared after every chunk of {@link #getBatchSize()} entities.
+     *
+     * @param entities      the entities to delete
+     * @param entityManager the EntityManager
+     */
+    public void deleteAll(Collection<T> entities, EntityManager entityManager) {
+        inBatches(Operation.DELETE_ALL, entities, entityManager, entity -> remove(entity, entityManager));
+    }
+
+    /**
+     * Applies an operation to each entity and flushes and clears the persistence context after every chunk.
+     * The JDBC batch size of the session is aligned to the chunk size while the operation runs.
+     *
+     * @param recordedAs    the operation the call is recorded as
+     * @param entities      the entities to process
+     * @param entityManager the EntityManager
+     * @param operation     the operation to apply to each entity
+     */
+    private void inBatches(Operation recordedAs, Collection<T> entities, EntityManager entityManager, Consumer<T> operation) {
+        OperationStats stats = operationStats[recordedAs.ordinal()];
+        long start = System.nanoTime(), statements = StatementCounter.current();
+        try {
+            Session session = entityManager.unwrap(Session.class);
+            Integer previousBatchSize = session.getJdbcBatchSize();
+            session.setJdbcBatchSize(batchSize);
+            try {
+                int count = 0;
+                for (T entity : entities) {
+                    operation.accept(entity);
+                    if (++count % batchSize == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+                entityManager.flush();
+                entityManager.clear();
+            } finally {
+                session.setJdbcBatchSize(previousBatchSize);
+            }
+        } catch (RuntimeException ex) {
+            throw stats.failed(ex);
+        } finally {
+            stats.record(start, statements);
+        }
+    }
+
+    /**
+     * Sets an attribute of all entities with an attribute value, with a single UPDATE statement and without loading
+     * the entities.
+     *
+     * @param attribute     the attribute to search for
+     * @param value         the value of the attribute, or a collection of values
+     * @param setAttribute  the attribute to set
+     * @param setValue      the new value
+     * @param entityManager the EntityManager
+     * @return the number of updated entities
+     * @see #updateWhere(Map, Map, EntityManager)
+     */
+    public int updateWhere(String attribute, Object value, String setAttribute, Object setValue, EntityManager entityManager) {
+        return updateWhere(Collections.singletonMap(attribute, value), Collections.singletonMap(setAttribute, setValue), entityManager);
+    }
+
+    /**
+     * Sets attributes of all entities that match multiple attributes, with a single UPDATE statement and without
+     * loading the entities. A collection value matches any of its elements.
+     * <p>
+     * The version of versioned entities is incremented. If the entity is part of an aggregate, see {@link PartOf},
+     * the versions of the affected roots are incremented by a second statement, so their clients and caches see the
+     * change. Entity listeners are not called; for the profile aggregate, see {@link AggregateChangeListener}, the
+     * affected profiles are selected first and reported to the subscribers of committed changes once the transaction
+     * has committed, e.g. to reindex them. Entities already loaded into the persistence context are not
+     * refreshed, the second-level cache regions of the entity are evicted by Hibernate.
+     * The statements are prepared once per set of attribute names. Must be called within a transaction.
+     *
+     * @param params        the attributes to search for and their values
+     * @param set           the attributes to set and their new values
+     * @param entityManager the EntityManager
+     * @return the number of updated entities
+     * @throws IllegalArgumentException if an attribute does not exist or nothing is set
+     */
+    public int updateWhere(Map<String, Object> params, Map<String, Object> set, EntityManager entityManager) {
+        OperationStats stats = operationStats[Operation.UPDATE_WHERE.ordinal()];
+        long start = System.nanoTime(), statements = StatementCounter.current();
+        try {
+            return bulkUpdate(params, set, entityManager);
+        } catch (RuntimeException ex) {
+            throw stats.failed(ex);
+        } finally {
+            stats.record(start, statements);
+        }
+    }
+
+    private int bulkUpdate(Map<String, Object> params, Map<String, Object> set, EntityManager entityManager) {
+        if (set.isEmpty()) {
+            throw new IllegalArgumentException("No attribute to set");
+        }
+        List<String> attributes = params.keySet().stream().sorted().toList();
+        List<String> assigned = set.keySet().stream().sorted().toList();
+        StringBuilder key = new StringBuilder(entityClass.getName()).append(':');
+        for (String attribute : attributes) {
+            Object value = params.get(attribute);
+            if (value instanceof Collection<?> values && values.isEmpty()) {
+                return 0;
+            }
+            key.append(attribute).append(value instanceof Collection ? "[]," : ",");
+        }
+        key.append(':').append(String.join(",", assigned));
+        BulkUpdate update = updateQueries.computeIfAbsent(key.toString(),
+                k -> buildBulkUpdate(attributes, params, assigned, entityManager));
+
+        // selected and incremented first, the update may change the attributes the entities are selected by
+        List<Long> profileIds = update.profileQuery() == null
+                ? List.of()
+                : bindWhere(entityManager.createQuery(update.profileQuery(), Long.class), attributes, params).getResultList();
+        if (update.rootStatement() != null) {
+            bindWhere(entityManager.createQuery(update.rootStatement()), attributes, params).executeUpdate();
+        }
+        Query query = bindWhere(entityManager.createQuery(update.statement()), attributes, params);
+        for (int i = 0; i < assigned.size(); i++) {
+            query.setParameter("s" + i, set.get(assigned.get(i)));
+        }
+        int updated = query.executeUpdate();
+        if (!profileIds.isEmpty()) {
+            EventSource session = entityManager.unwrap(EventSource.class);
+            profileIds.forEach(profileId -> AggregateCommitIntegrator.changed(profileId, session));
+        }
+        return updated;
+    }
+
+    private static <Q extends Query> Q bindWhere(Q query, List<String> attributes, Map<String, Object> params) {
+        for (int i = 0; i < attributes.size(); i++) {
+            query.setParameter("p" + i, params.get(attributes.get(i)));
+        }
+        return query;
+    }
+
+    private BulkUpdate buildBulkUpdate(List<String> attributes, Map<String, Object> params, List<String> assigned,
+                                       EntityManager entityManager) {
+        EntityType<T> entityType = entityManager.getMetamodel().entity(entityClass);
+        StringBuilder where = new StringBuilder();
+        for (int i = 0; i < attributes.size(); i++) {
+            // fails for unknown attributes, so only mapped names end up in the query
+            String attribute = entityType.getAttribute(attributes.get(i)).getName();
+            where.append(i == 0 ? " where " : " and ")
+                    .append("e.").append(attribute)
+                    .append(params.get(attributes.get(i)) instanceof Collection ? " in :p" : " = :p").append(i);
+        }
+
+        StringBuilder statement = new StringBuilder("update ")
+                .append(entityType.hasVersionAttribute() ? "versioned " : "")
+                .append(entityType.getName()).append(" e");
+        for (int i = 0; i < assigned.size(); i++) {
+            String attribute = entityType.getAttribute(assigned.get(i)).getName();
+            statement.append(i == 0 ? " set " : ", ")
+                    .append("e.").append(attribute).append(" = :s").append(i);
+        }
+        statement.append(where);
+
+        String rootStatement = null;
+        PartOf partOf = entityClass.getAnnotation(PartOf.class);
+        if (partOf != null) {
+            EntityType<?> rootType = entityManager.getMetamodel().entity(partOf.root());
+            Optional<String> version = rootType.getSingularAttributes().stream()
+                    .filter(SingularAttribute::isVersion)
+                    .map(SingularAttribute::getName)
+                    .findFirst();
+            if (version.isPresent()) {
+                rootStatement = "update " + rootType.getName() + " r set r." + version.get() + " = r." + version.get()
+                        + " + 1 where r in (select e." + partOf.path() + " from " + entityType.getName() + " e" + where + ")";
+            }
+        }
+
+        String profileQuery = null;
+        Class<?> rootClass = partOf == null ? entityClass : partOf.root();
+        EntityListeners listeners = rootClass.getAnnotation(EntityListeners.class);
+        if (listeners != null && List.of(listeners.value()).contains(AggregateChangeListener.class)) {
+            String rootId = entityManager.getMetamodel().entity(rootClass).getSingularAttributes().stream()
+                    .filter(SingularAttribute::isId)
+                    .map(SingularAttribute::getName)
+                    .findFirst().orElseThrow();
+            profileQuery = "select distinct e." + (partOf == null ? "" : partOf.path() + ".") + rootId
+                    + " from " + entityType.getName() + " e" + where;
+        }
+        return new BulkUpdate(statement.toString(), rootStatement, profileQuery);
+    }
+
     /**
      * Loads all entities.
+     * The whole table is materialized in memory, use {@link #streamAll(EntityManager)} or
+     * {@link #loadPage(Long, int, EntityManager)} for large tables.
      *
      * @param entityManager the EntityManager
      * @return a list of all entities
      */
     public List<T> loadAll(EntityManager entityManager) {
+        OperationStats stats = operationStats[Operation.LOAD_ALL.ordinal()];
+        long start = System.nanoTime(), statements = StatementCounter.current();
+        try {
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<T> cq = cb.createQuery(entityClass);
+            Root<T> root = cq.from(entityClass);
+            cq.select(root);
+            return read(entityManager, () -> entityManager.createQuery(cq).getResultList());
+        } catch (RuntimeException ex) {
+            throw stats.failed(ex);
+        } finally {
+            stats.record(start, statements);
+        }
+    }
+
+    /**
+     * Streams all entities using a forward-only cursor.
+     * The persistence context is cleared after every {@link #getBatchSize()} entities.
+     *
+     * @param entityManager the EntityManager
+     * @return a stream of all entities, which must be closed by the caller
+     * @see #streamAll(int, EntityManager)
+     */
+    public Stream<T> streamAll(EntityManager entityManager) {
+        return streamAll(batchSize, entityManager);
+    }
+
+    /**
+     * Streams all entities using a forward-only cursor.
+     * The entities are read-only and the persistence context is cleared after every {@code clearInterval}
+     * entities, so an entity must not be used once the next chunk has been read.
+     *
+     * @param clearInterval the number of entities read between two clears, also used as JDBC fetch size
+     * @param entityManager the EntityManager
+     * @return a stream of all entities, which must be closed by the caller
+     */
+    public Stream<T> streamAll(int clearInterval, EntityManager entityManager) {
+        OperationStats stats = operationStats[Operation.STREAM_ALL.ordinal()];
+        long start = System.nanoTime(), statements = StatementCounter.current();
+        try {
+            return read(entityManager, () -> openStream(clearInterval, entityManager));
+        } catch (RuntimeException ex) {
+            throw stats.failed(ex);
+        } finally {
+            stats.record(start, statements);
+        }
+    }
+
+    /**
+     * Opens the cursor of {@link #streamAll(int, EntityManager)}. Only this part is recorded, reading the stream is
+     * up to the caller.
+     */
+    private Stream<T> openStream(int clearInterval, EntityManager entityManager) {
+        if (clearInterval < 1) {
+            throw new IllegalArgumentException("Clear interval must be positive: " + clearInterval);
+        }
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<T> cq = cb.createQuery(entityClass);
         Root<T> root = cq.from(entityClass);
         cq.select(root);
-        return entityManager.createQuery(cq).getResultList();
+
+        ScrollableResults<T> results = entityManager.unwrap(Session.class)
+                .createQuery(cq)
+                .setFetchSize(clearInterval)
+                .setReadOnly(true)
+                // a scan of the whole table must not displace the cached entities, and may come from a replica
+                .setCacheMode(CacheMode.GET)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private long count;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (count > 0 && count % clearInterval == 0) {
+                    entityManager.clear();
+                }
+                if (!results.next()) {
+                    return false;
+                }
+                count++;
+                action.accept(results.get());
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(results::close);
+    }
+
+    /**
+     * Loads a page of entities ordered by ID using keyset pagination.
+     *
+     * @param afterId       the ID of the last entity of the previous page, or null for the first page
+     * @param size          the maximum number of entities of the page
+     * @param entityManager the EntityManager
+     * @return the page
+     */
+    public Page<T> loadPage(Long afterId, int size, EntityManager entityManager) {
+        OperationStats stats = operationStats[Operation.LOAD_PAGE.ordinal()];
+        long start = System.nanoTime(), statements = StatementCounter.current();
+        try {
+            return read(entityManager, () -> queryPage(afterId, size, entityManager));
+        } catch (RuntimeException ex) {
+            throw stats.failed(ex);
+        } finally {
+            stats.record(start, statements);
+        }
+    }
+
+    private Page<T> queryPage(Long afterId, int size, EntityManager entityManager) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + size);
+        }
+        SingularAttribute<? super T, Long> idAttribute = entityManager.getMetamodel().entity(entityClass).getId(Long.class);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> cq = cb.createQuery(entityClass);
+        Root<T> root = cq.from(entityClass);
+        cq.select(root).orderBy(cb.asc(root.get(idAttribute)));
+        if (afterId != null) {
+            cq.where(cb.greaterThan(root.get(idAttribute), afterId));
+        }
+
+        // read one entity more than requested to find out whether there is a next page
+        List<T> content = entityManager.createQuery(cq)
+                .setMaxResults(size + 1)
+                .getResultList();
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        Long lastId = content.isEmpty()
+                ? afterId
+                : (Long) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(content.get(content.size() - 1));
+        return new Page<>(List.copyOf(content), lastId, hasNext);
     }
 
     /**
@@ -103,31 +665,108 @@ public class BaseDao<T> {
      * @return the entity or an empty Optional
      */
     public Optional<T> findOne(String attribute, Object value, EntityManager entityManager) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<T> cq = cb.createQuery(entityClass);
-        Root<T> root = cq.from(entityClass);
-        cq.select(root).where(cb.equal(root.get(attribute), value));
-        return entityManager.createQuery(cq).getResultStream().findFirst();
+        return findOne(Collections.singletonMap(attribute, value), entityManager);
     }
 
     /**
      * Finds an entity by multiple attributes.
+     * A lookup by the natural ID alone goes through the natural ID cache. Other queries are prepared once per set
+     * of attribute names and only the parameters are bound on later calls.
      *
      * @param params        the attributes and their values
      * @param entityManager the EntityManager
      * @return the entity or an empty Optional
+     * @throws IllegalArgumentException if an attribute does not exist
      */
     public Optional<T> findOne(Map<String, Object> params, EntityManager entityManager) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<T> cq = cb.createQuery(entityClass);
-        Root<T> root = cq.from(entityClass);
+        OperationStats stats = operationStats[Operation.FIND_ONE.ordinal()];
+        long start = System.nanoTime(), statements = StatementCounter.current();
+        try {
+            return read(entityManager, () -> queryOne(params, entityManager));
+        } catch (RuntimeException ex) {
+            throw stats.failed(ex);
+        } finally {
+            stats.record(start, statements);
+        }
+    }
+
+    private Optional<T> queryOne(Map<String, Object> params, EntityManager entityManager) {
+        if (params.size() == 1) {
+            Map.Entry<String, Object> param = params.entrySet().iterator().next();
+            if (param.getValue() != null && param.getKey().equals(naturalIdAttribute(entityManager))) {
+                return entityManager.unwrap(Session.class).bySimpleNaturalId(entityClass).loadOptional(param.getValue());
+            }
+        }
 
-        List<Predicate> predicates = new ArrayList<>();
-        for (Map.Entry<String, Object> entry : params.entrySet()) {
-            predicates.add(cb.equal(root.get(entry.getKey()), entry.getValue()));
+        List<String> attributes = params.keySet().stream().sorted().toList();
+        TypedQuery<T> query = entityManager.createQuery(findOneQuery(attributes, entityManager), entityClass);
+        for (int i = 0; i < attributes.size(); i++) {
+            query.setParameter("p" + i, params.get(attributes.get(i)));
         }
+        return query.setMaxResults(1).getResultStream().findFirst();
+    }
 
-        cq.select(root).where(cb.and(predicates.toArray(new Predicate[0])));
-        return entityManager.createQuery(cq).getResultStream().findFirst();
+    /**
+     * Returns the hit and miss counts of the prepared {@code findOne} queries.
+     *
+     * @return the query cache statistics
+     */
+    public CacheStatistics getQueryCacheStatistics() {
+        return queryCacheStatistics;
+    }
+
+    /**
+     * Returns the prepared query for a set of attribute names, building it on the first use.
+     *
+     * @param attributes    the sorted attribute names
+     * @param entityManager the EntityManager
+     * @return the JPQL query with one parameter {@code p<index>} per attribute
+     */
+    private String findOneQuery(List<String> attributes, EntityManager entityManager) {
+        String key = entityClass.getName() + ":" + String.join(",", attributes);
+        String query = findOneQueries.get(key);
+        if (query != null) {
+            queryCacheStatistics.recordHit();
+            return query;
+        }
+        queryCacheStatistics.recordMiss();
+        return findOneQueries.computeIfAbsent(key, k -> buildFindOneQuery(attributes, entityManager));
+    }
+
+    /**
+     * Returns the name of the natural ID attribute of the entity.
+     *
+     * @param entityManager the EntityManager
+     * @return the attribute name, or null if the entity has no simple natural ID
+     */
+    private String naturalIdAttribute(EntityManager entityManager) {
+        NaturalIdMapping naturalIdMapping = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(entityClass).getNaturalIdMapping();
+        if (naturalIdMapping == null || naturalIdMapping.getNaturalIdAttributes().size() != 1) {
+            return null;
+        }
+        return naturalIdMapping.getNaturalIdAttributes().get(0).getAttributeName();
+    }
+
+    private String buildFindOneQuery(List<String> attributes, EntityManager entityManager) {
+        EntityType<T> entityType = entityManager.getMetamodel().entity(entityClass);
+        StringBuilder query = new StringBuilder("select e from ").append(entityType.getName()).append(" e");
+        for (int i = 0; i < attributes.size(); i++) {
+            // fails for unknown attributes, so only mapped names end up in the query
+            String attribute = entityType.getAttribute(attributes.get(i)).getName();
+            query.append(i == 0 ? " where " : " and ")
+                    .append("e.").append(attribute).append(" = :p").append(i);
+        }
+        return query.toString();
+    }
+
+    /**
+     * The prepared statements of a bulk update.
+     *
+     * @param statement     the update of the entities
+     * @param rootStatement the version increment of the aggregate roots, null if there is none
+     * @param profileQuery  the selection of the affected profiles, null if the entity is not part of a profile
+     */
+    private record BulkUpdate(String statement, String rootStatement, String profileQuery) {
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,23 @@
 package my.cvmanager.repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public interface ICrudService<T> {
     void persist(T entity);
 
+    void persistAll(Collection<T> entities);
+
     T find(Class<T> clazz, Long id);
 
+    T find(Class<T> clazz, Long id, String plan);
+
     T update(T entity);
 
+    List<T> updateAll(Collection<T> entities);
+
     T findOne(Class<T> clazz, String query);
 
     T findOne(Class<T> clazz, String attr, Object value);
@@ -18,5 +26,11 @@ public interface ICrudService<T> {
 
     void delete(T entity);
 
+    void deleteAll(Collection<T> entities);
+
     List<T> loadAll(final Class<T> clazz, final String query);
+
+    Stream<T> streamAll(Class<T> clazz);
+
+    Page<T> loadPage(Class<T> clazz, Long afterId, int size);
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package my.cvmanager.repositories;
+
+import java.util.List;
+
+/**
+ * A page of entities loaded by keyset pagination.
+ *
+ * @param content the entities of the page, ordered by ID
+ * @param lastId  the ID of the last entity of the page, to be passed as {@code afterId} for the next page
+ * @param hasNext whether there are more entities after this page
+ * @param <T>     the type of the entity
+ */
+public record Page<T>(List<T> content, Long lastId, boolean hasNext) {
+}
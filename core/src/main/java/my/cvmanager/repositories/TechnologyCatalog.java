@@ -0,0 +1,211 @@
+package my.cvmanager.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.TechnologyName;
+import my.cvmanager.domain.UserProfile;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared catalog of technology names.
+ * Every distinct name is stored once in {@code technology_names}; technologies refer to it by its integer ID.
+ * Name to ID lookups are cached, so resolving a known name needs no query. An ID is cached only once the
+ * transaction that read or created the entry has committed, so a rolled back entry is never handed out. The cache
+ * holds at most {@link #DEFAULT_MAX_ENTRIES} names by default; when it is full, an arbitrary name is dropped.
+ * <p>
+ * Two transactions may create the same new name at the same time. The insert runs in a savepoint, so the one that
+ * loses on the unique constraint rolls back only the insert and uses the entry of the other one.
+ */
+public class TechnologyCatalog {
+
+    /**
+     * The default maximum number of cached names.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    /**
+     * The maximum length of a name, the length of {@code technology_names.name}.
+     */
+    public static final int MAX_NAME_LENGTH = 100;
+
+    /**
+     * The SQL state of a unique constraint violation.
+     */
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    /**
+     * Creates a catalog caching up to {@link #DEFAULT_MAX_ENTRIES} names.
+     */
+    public TechnologyCatalog() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries the maximum number of cached names
+     */
+    public TechnologyCatalog(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Maximum entries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the catalog entry of a name and creates it if it does not exist yet.
+     *
+     * @param name the technology name
+     * @param em   the entity manager
+     * @return the managed catalog entry
+     * @throws IllegalArgumentException if the name is empty or longer than {@value #MAX_NAME_LENGTH} characters
+     */
+    public TechnologyName resolve(String name, EntityManager em) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Technology name must not be empty");
+        }
+        String key = name.strip();
+        if (key.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Technology name must not be longer than " + MAX_NAME_LENGTH
+                    + " characters: " + key.substring(0, 20) + "...");
+        }
+        Integer id = ids.get(key);
+        if (id != null) {
+            return em.getReference(TechnologyName.class, id);
+        }
+        TechnologyName entry = find(key, em).orElseGet(() -> create(key, em));
+        remember(key, entry.getId(), em);
+        return entry;
+    }
+
+    /**
+     * Inserts a name and returns its entry. If a concurrent transaction has inserted the name since it was looked
+     * up, the insert is rolled back to a savepoint, which keeps the transaction usable, and the entry of the other
+     * transaction is looked up again.
+     */
+    private TechnologyName create(String key, EntityManager em) {
+        em.unwrap(Session.class).doWork(connection -> {
+            Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+            try (PreparedStatement insert = connection.prepareStatement("insert into technology_names (name) values (?)")) {
+                insert.setString(1, key);
+                insert.executeUpdate();
+            } catch (SQLException ex) {
+                if (savepoint != null) {
+                    connection.rollback(savepoint);
+                }
+                if (!UNIQUE_VIOLATION.equals(ex.getSQLState())) {
+                    throw ex;
+                }
+                return;
+            }
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+        });
+        return find(key, em).orElseThrow(() -> new IllegalStateException("Technology name " + key + " not found after insert"));
+    }
+
+    /**
+     * Caches the ID of a name after the current transaction has committed, or right away without a transaction.
+     */
+    private void remember(String key, Integer id, EntityManager em) {
+        if (!em.isJoinedToTransaction()) {
+            cache(key, id);
+            return;
+        }
+        em.unwrap(Session.class).getTransaction().registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    cache(key, id);
+                }
+            }
+        });
+    }
+
+    private void cache(String key, Integer id) {
+        if (ids.size() >= maxEntries && !ids.containsKey(key)) {
+            Iterator<String> cached = ids.keySet().iterator();
+            if (cached.hasNext()) {
+                ids.remove(cached.next());
+            }
+        }
+        ids.putIfAbsent(key, id);
+    }
+
+    /**
+     * Resolves the pending name of a technology.
+     *
+     * @param technology the technology
+     * @param em         the entity manager
+     */
+    public void resolve(Technology technology, EntityManager em) {
+        if (technology.isNamePending()) {
+            technology.setTechnologyName(resolve(technology.getName(), em));
+        }
+    }
+
+    /**
+     * Resolves the pending names of all technologies of a profile.
+     *
+     * @param profile the profile
+     * @param em      the entity manager
+     */
+    public void resolve(UserProfile profile, EntityManager em) {
+        for (Position position : profile.getPositions()) {
+            for (Technology technology : position.getTechnologies()) {
+                resolve(technology, em);
+            }
+        }
+    }
+
+    /**
+     * Looks up the catalog entry of a name without creating it.
+     *
+     * @param name the technology name
+     * @param em   the entity manager
+     * @return the entry, if the name is in the catalog
+     */
+    public Optional<TechnologyName> find(String name, EntityManager em) {
+        List<TechnologyName> result = em.createQuery("select t from TechnologyName t where t.name = :name", TechnologyName.class)
+                .setParameter("name", name.strip())
+                .setMaxResults(1)
+                .getResultList();
+        return result.stream().findFirst();
+    }
+
+    /**
+     * Returns the number of cached names.
+     *
+     * @return the cached names
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Drops the cached name to ID mappings.
+     */
+    public void clear() {
+        ids.clear();
+    }
+}
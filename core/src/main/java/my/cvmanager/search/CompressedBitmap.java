@@ -0,0 +1,462 @@
+package my.cvmanager.search;
+
+import java.util.Arrays;
+
+/**
+ * Compressed bitmap of non-negative int values, in the layout of Roaring bitmaps: the values are split into chunks
+ * of 65536 by their high 16 bits, and each chunk that has values is stored in a container of its own. A container
+ * with up to {@value #ARRAY_MAX} values is a sorted array of their low 16 bits, 2 bytes per value; a fuller one is a
+ * plain bitmap of 8 KiB. Chunks without values take no memory, so a sparse bitmap over a large range stays small,
+ * while a dense one costs at most about as much as a {@link java.util.BitSet}.
+ * <p>
+ * The set operations return new bitmaps and leave their operands unchanged. Not thread-safe.
+ */
+final class CompressedBitmap {
+
+    /**
+     * The maximum number of values of an array container; a bitmap container of 1024 words takes as much memory.
+     */
+    static final int ARRAY_MAX = 4096;
+
+    private static final int WORDS = 1024;
+
+    /**
+     * The high 16 bits of the chunks with values, ascending, in the first {@link #size} elements.
+     */
+    private char[] keys;
+
+    private Container[] containers;
+
+    private int size;
+
+    CompressedBitmap() {
+        this(4);
+    }
+
+    private CompressedBitmap(int capacity) {
+        keys = new char[Math.max(1, capacity)];
+        containers = new Container[keys.length];
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value, not negative
+     */
+    void set(int value) {
+        char key = high(value);
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            containers[index].add(low(value));
+        } else {
+            insert(-index - 1, key, Container.of(low(value)));
+        }
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param value the value, not negative
+     */
+    void clear(int value) {
+        int index = Arrays.binarySearch(keys, 0, size, high(value));
+        if (index >= 0) {
+            Container container = containers[index];
+            container.remove(low(value));
+            if (container.cardinality == 0) {
+                System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+                System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+                containers[--size] = null;
+            }
+        }
+    }
+
+    /**
+     * Removes all values.
+     */
+    void clear() {
+        Arrays.fill(containers, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Checks if a value is set.
+     *
+     * @param value the value
+     * @return true if the bitmap contains the value
+     */
+    boolean get(int value) {
+        int index = value < 0 ? -1 : Arrays.binarySearch(keys, 0, size, high(value));
+        return index >= 0 && containers[index].contains(low(value));
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return the cardinality
+     */
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns the values in both bitmaps.
+     *
+     * @param other the other bitmap
+     * @return the intersection
+     */
+    CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(Math.min(size, other.size));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.append(keys[i], Container.and(containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values in either bitmap.
+     *
+     * @param other the other bitmap
+     * @return the union
+     */
+    CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(size + other.size);
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || i < size && keys[i] < other.keys[j]) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], Container.or(containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values of this bitmap that are not in the other one.
+     *
+     * @param other the other bitmap
+     * @return the difference
+     */
+    CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(size);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            result.append(keys[i], j < other.size && other.keys[j] == keys[i]
+                    ? Container.andNot(containers[i], other.containers[j])
+                    : containers[i].copy());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values.
+     *
+     * @return the values in ascending order
+     */
+    long[] toArray() {
+        long[] values = new long[cardinality()];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            count = containers[i].copyTo(keys[i] << 16, values, count);
+        }
+        return values;
+    }
+
+    /**
+     * Estimates the memory taken by the containers, for testing purposes.
+     *
+     * @return the size in bytes
+     */
+    long sizeInBytes() {
+        long bytes = keys.length * 2L + containers.length * 4L;
+        for (int i = 0; i < size; i++) {
+            Container container = containers[i];
+            bytes += 16 + (container.words != null ? WORDS * 8L : container.values.length * 2L);
+        }
+        return bytes;
+    }
+
+    private void insert(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    /**
+     * Adds a container after the last one, unless it is empty.
+     */
+    private void append(char key, Container container) {
+        if (container != null) {
+            insert(size, key, container);
+        }
+    }
+
+    private static char high(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        return (char) (value >>> 16);
+    }
+
+    private static char low(int value) {
+        return (char) value;
+    }
+
+    /**
+     * The low 16 bits of the values of a chunk, either as sorted array or, above {@value #ARRAY_MAX} values, as
+     * bitmap.
+     */
+    private static final class Container {
+
+        /**
+         * The values in the first {@link #cardinality} elements, null in a bitmap container.
+         */
+        private char[] values;
+
+        /**
+         * The bits of the values, null in an array container.
+         */
+        private long[] words;
+
+        private int cardinality;
+
+        private static Container of(char value) {
+            Container container = new Container();
+            container.values = new char[]{value, 0, 0, 0};
+            container.cardinality = 1;
+            return container;
+        }
+
+        private static Container ofValues(char[] values, int cardinality) {
+            if (cardinality == 0) {
+                return null;
+            }
+            Container container = new Container();
+            container.values = values;
+            container.cardinality = cardinality;
+            return container;
+        }
+
+        /**
+         * Wraps bits into a container, an array container if there are few of them.
+         */
+        private static Container ofWords(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            if (cardinality > ARRAY_MAX) {
+                Container container = new Container();
+                container.words = words;
+                container.cardinality = cardinality;
+                return container;
+            }
+            char[] values = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                for (long word = words[i]; word != 0; word &= word - 1) {
+                    values[count++] = (char) (i << 6 | Long.numberOfTrailingZeros(word));
+                }
+            }
+            return ofValues(values, cardinality);
+        }
+
+        private boolean contains(char value) {
+            return words != null
+                    ? (words[value >>> 6] & 1L << value) != 0
+                    : Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        private void add(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) == 0) {
+                    words[value >>> 6] |= bit;
+                    cardinality++;
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_MAX) {
+                words = toWords();
+                values = null;
+                add(value);
+                return;
+            }
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            index = -index - 1;
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+        }
+
+        private void remove(char value) {
+            if (words != null) {
+                long bit = 1L << value;
+                if ((words[value >>> 6] & bit) != 0) {
+                    words[value >>> 6] &= ~bit;
+                    if (--cardinality == ARRAY_MAX) {
+                        Container array = ofWords(words);
+                        values = array.values;
+                        words = null;
+                    }
+                }
+                return;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+        }
+
+        private Container copy() {
+            Container copy = new Container();
+            copy.values = values == null ? null : Arrays.copyOf(values, cardinality);
+            copy.words = words == null ? null : words.clone();
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        private long[] toWords() {
+            if (words != null) {
+                return words.clone();
+            }
+            long[] bits = new long[WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                bits[values[i] >>> 6] |= 1L << values[i];
+            }
+            return bits;
+        }
+
+        private int copyTo(int high, long[] target, int offset) {
+            if (words == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    target[offset++] = high | values[i];
+                }
+                return offset;
+            }
+            for (int i = 0; i < WORDS; i++) {
+                for (long word = words[i]; word != 0; word &= word - 1) {
+                    target[offset++] = high | i << 6 | Long.numberOfTrailingZeros(word);
+                }
+            }
+            return offset;
+        }
+
+        private static Container and(Container a, Container b) {
+            if (a.words != null && b.words != null) {
+                long[] bits = new long[WORDS];
+                for (int i = 0; i < WORDS; i++) {
+                    bits[i] = a.words[i] & b.words[i];
+                }
+                return ofWords(bits);
+            }
+            Container array = a.words == null ? a : b;
+            Container other = array == a ? b : a;
+            char[] values = new char[array.cardinality];
+            int count = 0;
+            for (int i = 0; i < array.cardinality; i++) {
+                if (other.contains(array.values[i])) {
+                    values[count++] = array.values[i];
+                }
+            }
+            return ofValues(values, count);
+        }
+
+        private static Container or(Container a, Container b) {
+            if (a.words == null && b.words == null && a.cardinality + b.cardinality <= ARRAY_MAX) {
+                char[] values = new char[a.cardinality + b.cardinality];
+                int i = 0;
+                int j = 0;
+                int count = 0;
+                while (i < a.cardinality || j < b.cardinality) {
+                    if (j == b.cardinality || i < a.cardinality && a.values[i] < b.values[j]) {
+                        values[count++] = a.values[i++];
+                    } else if (i == a.cardinality || a.values[i] > b.values[j]) {
+                        values[count++] = b.values[j++];
+                    } else {
+                        values[count++] = a.values[i++];
+                        j++;
+                    }
+                }
+                return ofValues(values, count);
+            }
+            long[] bits = a.toWords();
+            if (b.words != null) {
+                for (int i = 0; i < WORDS; i++) {
+                    bits[i] |= b.words[i];
+                }
+            } else {
+                for (int i = 0; i < b.cardinality; i++) {
+                    bits[b.values[i] >>> 6] |= 1L << b.values[i];
+                }
+            }
+            return ofWords(bits);
+        }
+
+        private static Container andNot(Container a, Container b) {
+            if (a.words == null) {
+                char[] values = new char[a.cardinality];
+                int count = 0;
+                for (int i = 0; i < a.cardinality; i++) {
+                    if (!b.contains(a.values[i])) {
+                        values[count++] = a.values[i];
+                    }
+                }
+                return ofValues(values, count);
+            }
+            long[] bits = a.words.clone();
+            if (b.words != null) {
+                for (int i = 0; i < WORDS; i++) {
+                    bits[i] &= ~b.words[i];
+                }
+            } else {
+                for (int i = 0; i < b.cardinality; i++) {
+                    bits[b.values[i] >>> 6] &= ~(1L << b.values[i]);
+                }
+            }
+            return ofWords(bits);
+        }
+    }
+}
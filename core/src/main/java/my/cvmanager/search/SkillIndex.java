@@ -0,0 +1,244 @@
+package my.cvmanager.search;
+
+import jakarta.persistence.EntityManager;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.UserProfile;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index from skills to profiles.
+ * For every technology and level the index keeps a bitmap of the IDs of the profiles that have the technology at
+ * this level or higher, so a {@link SkillQuery} is answered with a few bitmap operations and without a query.
+ * <p>
+ * The bitmaps are {@link CompressedBitmap compressed}: most technologies are known by few profiles, and an
+ * uncompressed bitmap per technology and level would take {@code maxId / 8} bytes whatever its content, about
+ * 1.9 GB for 5,000 technologies and a million profiles. Compressed, a profile takes 2 bytes per technology and
+ * level it has, and a bitmap with more than 4,096 profiles per range of 65,536 IDs at most 8 KiB per range; with
+ * 20 technologies per profile, a million profiles take at most about 120 MB.
+ * <p>
+ * The index is built with {@link #rebuild(EntityManager)} and kept up to date with {@link #index(UserProfile)} and
+ * {@link #remove(Long)}. It is safe for concurrent use.
+ */
+public class SkillIndex {
+
+    private static final int LEVELS = Technology.Level.values().length;
+
+    /**
+     * Per technology, one bitmap per level ordinal with the profiles having at least that level.
+     */
+    private final Map<String, CompressedBitmap[]> postings = new HashMap<>();
+
+    /**
+     * Per profile, the highest level per technology, needed to take a profile out of the postings again.
+     */
+    private final Map<Integer, Map<String, Technology.Level>> skills = new HashMap<>();
+
+    /**
+     * All indexed profiles, the universe of {@link SkillQuery#not(SkillQuery)}.
+     */
+    private final CompressedBitmap profiles = new CompressedBitmap();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Replaces the content of the index with the skills of all profiles in the database.
+     *
+     * @param em the entity manager
+     * @return the number of indexed profiles
+     */
+    public int rebuild(EntityManager em) {
+        Map<Integer, Map<String, Technology.Level>> loaded = new HashMap<>();
+        try (Stream<Long> ids = em.createQuery("select p.id from UserProfile p", Long.class).getResultStream()) {
+            ids.forEach(id -> loaded.put(toBit(id), new HashMap<>()));
+        }
+        try (Stream<Object[]> rows = em.createQuery("select p.userProfile.id, n.name, t.level from Technology t"
+                + " join t.position p join t.technologyName n", Object[].class).getResultStream()) {
+            rows.forEach(row -> addSkill(loaded.computeIfAbsent(toBit((Long) row[0]), id -> new HashMap<>()),
+                    (String) row[1], (Technology.Level) row[2]));
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            skills.clear();
+            profiles.clear();
+            loaded.forEach(this::add);
+            return skills.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a profile to the index or replaces its skills. The positions and technologies of the profile are read.
+     *
+     * @param profile the profile, with an ID
+     */
+    public void index(UserProfile profile) {
+        int bit = toBit(profile.getId());
+        Map<String, Technology.Level> profileSkills = new HashMap<>();
+        for (Position position : profile.getPositions()) {
+            for (Technology technology : position.getTechnologies()) {
+                addSkill(profileSkills, technology.getName(), technology.getLevel());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeBit(bit);
+            add(bit, profileSkills);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a profile from the index.
+     *
+     * @param profileId the ID of the profile
+     */
+    public void remove(Long profileId) {
+        int bit = toBit(profileId);
+        lock.writeLock().lock();
+        try {
+            removeBit(bit);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the IDs of the profiles matching a query.
+     *
+     * @param query the query
+     * @return the profile IDs in ascending order
+     */
+    public long[] search(SkillQuery query) {
+        return evaluate(query, CompressedBitmap::toArray);
+    }
+
+    /**
+     * Counts the profiles matching a query.
+     *
+     * @param query the query
+     * @return the number of matching profiles
+     */
+    public int count(SkillQuery query) {
+        return evaluate(query, CompressedBitmap::cardinality);
+    }
+
+    /**
+     * Returns the number of indexed profiles.
+     *
+     * @return the number of profiles
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return skills.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Evaluates a query and reads the result under the read lock, the result may be a bitmap of the index.
+     */
+    private <R> R evaluate(SkillQuery query, Function<CompressedBitmap, R> result) {
+        lock.readLock().lock();
+        try {
+            return result.apply(bitmapOf(query));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Evaluates a query into a bitmap, which must not be changed. Must be called with the read lock held.
+     */
+    private CompressedBitmap bitmapOf(SkillQuery query) {
+        if (query instanceof SkillQuery.Has has) {
+            CompressedBitmap[] levels = postings.get(key(has.technology()));
+            return levels == null ? new CompressedBitmap() : levels[has.minLevel().ordinal()];
+        }
+        if (query instanceof SkillQuery.And and) {
+            CompressedBitmap left = bitmapOf(and.left());
+            return and.right() instanceof SkillQuery.Not not
+                    ? left.andNot(bitmapOf(not.query()))
+                    : left.and(bitmapOf(and.right()));
+        }
+        if (query instanceof SkillQuery.Or or) {
+            return bitmapOf(or.left()).or(bitmapOf(or.right()));
+        }
+        SkillQuery.Not not = (SkillQuery.Not) query;
+        return profiles.andNot(bitmapOf(not.query()));
+    }
+
+    /**
+     * Adds the skills of a profile that is not in the index. Must be called with the write lock held.
+     */
+    private void add(int bit, Map<String, Technology.Level> profileSkills) {
+        profiles.set(bit);
+        skills.put(bit, profileSkills);
+        profileSkills.forEach((technology, level) -> {
+            CompressedBitmap[] levels = postings.computeIfAbsent(technology, key -> newLevels());
+            for (int ordinal = level.ordinal(); ordinal < LEVELS; ordinal++) {
+                levels[ordinal].set(bit);
+            }
+        });
+    }
+
+    /**
+     * Takes a profile out of the index. Must be called with the write lock held.
+     */
+    private void removeBit(int bit) {
+        Map<String, Technology.Level> previous = skills.remove(bit);
+        profiles.clear(bit);
+        if (previous == null) {
+            return;
+        }
+        for (String technology : previous.keySet()) {
+            CompressedBitmap[] levels = postings.get(technology);
+            for (CompressedBitmap level : levels) {
+                level.clear(bit);
+            }
+            if (levels[LEVELS - 1].isEmpty()) {
+                postings.remove(technology);
+            }
+        }
+    }
+
+    private static void addSkill(Map<String, Technology.Level> profileSkills, String technology, Technology.Level level) {
+        if (technology == null || level == null) {
+            return;
+        }
+        profileSkills.merge(key(technology), level, (a, b) -> a.isAtLeast(b) ? a : b);
+    }
+
+    private static CompressedBitmap[] newLevels() {
+        CompressedBitmap[] levels = new CompressedBitmap[LEVELS];
+        for (int i = 0; i < LEVELS; i++) {
+            levels[i] = new CompressedBitmap();
+        }
+        return levels;
+    }
+
+    private static String key(String technology) {
+        return technology.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static int toBit(Long profileId) {
+        if (profileId == null || profileId < 0 || profileId > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Profile ID out of range for the skill index: " + profileId);
+        }
+        return profileId.intValue();
+    }
+}
@@ -0,0 +1,74 @@
+package my.cvmanager.search;
+
+import my.cvmanager.domain.Technology;
+
+/**
+ * Boolean query over the skills of the profiles, evaluated by {@link SkillIndex#search(SkillQuery)}.
+ * <p>
+ * Example: profiles with Java at level AA or higher and any Kotlin, but without Cobol:
+ * <pre>{@code
+ * SkillQuery.has("Java", Technology.Level.AA).and(SkillQuery.has("Kotlin")).andNot(SkillQuery.has("Cobol"))
+ * }</pre>
+ */
+public sealed interface SkillQuery permits SkillQuery.Has, SkillQuery.And, SkillQuery.Or, SkillQuery.Not {
+
+    /**
+     * Matches the profiles that have a technology at any level.
+     *
+     * @param technology the technology name
+     * @return the query
+     */
+    static SkillQuery has(String technology) {
+        return new Has(technology, Technology.Level.values()[Technology.Level.values().length - 1]);
+    }
+
+    /**
+     * Matches the profiles that have a technology at a minimum level.
+     *
+     * @param technology the technology name
+     * @param minLevel   the minimum level
+     * @return the query
+     */
+    static SkillQuery has(String technology, Technology.Level minLevel) {
+        return new Has(technology, minLevel);
+    }
+
+    /**
+     * Matches the profiles that do not match a query.
+     *
+     * @param query the query
+     * @return the query
+     */
+    static SkillQuery not(SkillQuery query) {
+        return new Not(query);
+    }
+
+    default SkillQuery and(SkillQuery other) {
+        return new And(this, other);
+    }
+
+    default SkillQuery or(SkillQuery other) {
+        return new Or(this, other);
+    }
+
+    default SkillQuery andNot(SkillQuery other) {
+        return new And(this, new Not(other));
+    }
+
+    record Has(String technology, Technology.Level minLevel) implements SkillQuery {
+        public Has {
+            if (technology == null || minLevel == null) {
+                throw new IllegalArgumentException("Technology and level must not be null");
+            }
+        }
+    }
+
+    record And(SkillQuery left, SkillQuery right) implements SkillQuery {
+    }
+
+    record Or(SkillQuery left, SkillQuery right) implements SkillQuery {
+    }
+
+    record Not(SkillQuery query) implements SkillQuery {
+    }
+}
@@ -0,0 +1,104 @@
+package my.cvmanager.util;
+
+import my.cvmanager.domain.AggregateChangeListener;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.integrator.spi.Integrator;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Notifies the subscribers of {@link AggregateChangeListener#subscribeCommitted(java.util.function.LongConsumer)}
+ * once the transaction that changed a profile, one of its positions or one of its technologies has committed. The
+ * IDs of the changed profiles are collected per session while it flushes, so a profile is reported once per
+ * transaction however many of its entities changed; after a rollback they are dropped. Changes that bypass the
+ * entities, e.g. bulk updates, are reported with {@link #changed(long, EventSource)}.
+ * <p>
+ * Registered for every session factory through {@code META-INF/services/org.hibernate.integrator.spi.Integrator}.
+ */
+public class AggregateCommitIntegrator implements Integrator {
+
+    /**
+     * The collector of all session factories, the changes are kept per session.
+     */
+    private static final ChangeCollector collector = new ChangeCollector();
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        EventListenerRegistry registry = sessionFactory.getEventListenerRegistry();
+        registry.appendListeners(EventType.POST_INSERT, collector);
+        registry.appendListeners(EventType.POST_UPDATE, collector);
+        registry.appendListeners(EventType.POST_DELETE, collector);
+    }
+
+    /**
+     * Reports a change of a profile that did not go through its entities, so the subscribers are notified once the
+     * transaction of the session has committed.
+     *
+     * @param profileId the ID of the changed profile
+     * @param session   the session that changed it, within a transaction
+     */
+    public static void changed(long profileId, EventSource session) {
+        collector.changedProfile(profileId, session);
+    }
+
+    private static final class ChangeCollector
+            implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+        /**
+         * The IDs of the profiles changed in the current transaction of a session; a session is used by one thread
+         * at a time, so the sets need no synchronization.
+         */
+        private final Map<EventSource, Set<Long>> changed = new ConcurrentHashMap<>();
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            changed(event.getEntity(), event.getSession());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            changed(event.getEntity(), event.getSession());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            changed(event.getEntity(), event.getSession());
+        }
+
+        private void changed(Object entity, EventSource session) {
+            Long profileId = AggregateChangeListener.profileIdOf(entity);
+            if (profileId != null) {
+                changedProfile(profileId, session);
+            }
+        }
+
+        private void changedProfile(long profileId, EventSource session) {
+            Set<Long> profileIds = changed.get(session);
+            if (profileIds == null) {
+                profileIds = new HashSet<>();
+                changed.put(session, profileIds);
+                session.getActionQueue().registerProcess((success, completed) -> {
+                    Set<Long> committed = changed.remove(session);
+                    if (success && committed != null) {
+                        committed.forEach(AggregateChangeListener::committed);
+                    }
+                });
+            }
+            profileIds.add(profileId);
+        }
+    }
+}
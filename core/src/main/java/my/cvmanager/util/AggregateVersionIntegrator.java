@@ -0,0 +1,128 @@
+package my.cvmanager.util;
+
+import jakarta.persistence.LockModeType;
+import my.cvmanager.domain.AggregatePart;
+import my.cvmanager.domain.PartOf;
+import org.hibernate.Hibernate;
+import org.hibernate.LockMode;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.DeleteContext;
+import org.hibernate.event.spi.DeleteEvent;
+import org.hibernate.event.spi.DeleteEventListener;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEntityEvent;
+import org.hibernate.event.spi.FlushEntityEventListener;
+import org.hibernate.event.spi.PersistContext;
+import org.hibernate.event.spi.PersistEvent;
+import org.hibernate.event.spi.PersistEventListener;
+import org.hibernate.integrator.spi.Integrator;
+
+/**
+ * Increments the version of an aggregate root when one of its {@link AggregatePart parts} is added, changed or
+ * removed. The root is locked with {@link LockModeType#OPTIMISTIC_FORCE_INCREMENT}, so its version is incremented
+ * once per transaction at commit, and a concurrent change of the same aggregate fails with an optimistic lock
+ * exception. A part moved to another root changes both roots, so both are incremented. Roots that are new or removed
+ * themselves are left alone.
+ * <p>
+ * Registered for every session factory through {@code META-INF/services/org.hibernate.integrator.spi.Integrator}.
+ */
+public class AggregateVersionIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        EventListenerRegistry registry = sessionFactory.getEventListenerRegistry();
+        RootVersionListener listener = new RootVersionListener();
+        // appended, so that the default listeners have done the dirty check and the state transition before
+        registry.appendListeners(EventType.FLUSH_ENTITY, listener);
+        registry.appendListeners(EventType.PERSIST, listener);
+        registry.appendListeners(EventType.PERSIST_ONFLUSH, listener);
+        registry.appendListeners(EventType.DELETE, listener);
+    }
+
+    private static final class RootVersionListener
+            implements FlushEntityEventListener, PersistEventListener, DeleteEventListener {
+
+        @Override
+        public void onFlushEntity(FlushEntityEvent event) {
+            if (event.getEntity() instanceof AggregatePart part && event.hasDirtyProperties()) {
+                incrementRootVersion(part.getAggregateRoot(), event.getSession());
+                incrementPreviousRootVersions(part, event);
+            }
+        }
+
+        /**
+         * Increments the root a part has been moved away from, which has changed as well. The previous root is the
+         * loaded value of a dirty property, either the root itself or the part the moved part belonged to.
+         */
+        private void incrementPreviousRootVersions(AggregatePart part, FlushEntityEvent event) {
+            PartOf partOf = part.getClass().getAnnotation(PartOf.class);
+            Object[] loadedState = event.getEntityEntry().getLoadedState();
+            if (partOf == null || loadedState == null) {
+                return;
+            }
+            for (int property : event.getDirtyProperties()) {
+                Object previous = loadedState[property];
+                if (previous instanceof AggregatePart previousParent) {
+                    previous = previousParent.getAggregateRoot();
+                }
+                if (previous != null && partOf.root().isInstance(Hibernate.unproxy(previous))) {
+                    incrementRootVersion(previous, event.getSession());
+                }
+            }
+        }
+
+        @Override
+        public void onPersist(PersistEvent event) {
+            onPersist(event.getObject(), event.getSession());
+        }
+
+        @Override
+        public void onPersist(PersistEvent event, PersistContext context) {
+            onPersist(event.getObject(), event.getSession());
+        }
+
+        private void onPersist(Object entity, EventSource session) {
+            if (entity instanceof AggregatePart part) {
+                EntityEntry entry = session.getPersistenceContextInternal().getEntry(entity);
+                if (entry != null && !entry.isExistsInDatabase()) {
+                    incrementRootVersion(part.getAggregateRoot(), session);
+                }
+            }
+        }
+
+        @Override
+        public void onDelete(DeleteEvent event) {
+            onDelete(event.getObject(), event.getSession());
+        }
+
+        @Override
+        public void onDelete(DeleteEvent event, DeleteContext context) {
+            onDelete(event.getObject(), event.getSession());
+        }
+
+        private void onDelete(Object entity, EventSource session) {
+            if (Hibernate.unproxy(entity) instanceof AggregatePart part) {
+                incrementRootVersion(part.getAggregateRoot(), session);
+            }
+        }
+
+        private void incrementRootVersion(Object root, EventSource session) {
+            if (root == null) {
+                return;
+            }
+            root = Hibernate.unproxy(root);
+            EntityEntry entry = session.getPersistenceContextInternal().getEntry(root);
+            if (entry == null || entry.getStatus() != Status.MANAGED || !entry.isExistsInDatabase()
+                    || entry.getLockMode() == LockMode.OPTIMISTIC_FORCE_INCREMENT) {
+                return;
+            }
+            session.lock(root, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+        }
+    }
+}
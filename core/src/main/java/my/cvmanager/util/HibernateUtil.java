@@ -1,43 +1,199 @@
 package my.cvmanager.util;
 
+import my.cvmanager.domain.ImportProgress;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.TechnologyName;
+import my.cvmanager.domain.User;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.pool.PooledConnectionProvider;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.Metadata;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
 
-public class HibernateUtil {
-    private static StandardServiceRegistry registry;
-    private static SessionFactory sessionFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
 
+/**
+ * Holder of the native {@link SessionFactory} for code running outside of the container, e.g. batch jobs.
+ * <p>
+ * The factory is built once per JVM on the first call, also with concurrent callers. The settings come from
+ * {@code hibernate.cfg.xml} if present, otherwise from {@code hibernate.properties} and the system properties,
+ * plus the settings passed to {@link #configure(Map)}. To keep the boot short the entities are registered directly
+ * instead of being scanned, the schema is not touched unless {@code hibernate.hbm2ddl.auto} is set explicitly, and
+ * the JDBC metadata is not read at boot when a dialect is configured. Connections come from the
+ * {@link PooledConnectionProvider} unless another provider is configured.
+ */
+public final class HibernateUtil {
+
+    /**
+     * The mapped entities.
+     */
+    static final List<Class<?>> ANNOTATED_CLASSES = List.of(
+            UserProfile.class, Position.class, Technology.class, TechnologyName.class, User.class, ImportProgress.class);
+
+    private static final String CONFIG_FILE = "hibernate.cfg.xml";
+
+    /**
+     * The legacy name of the data source setting, whose Hibernate constant is deprecated.
+     */
+    private static final String LEGACY_DATASOURCE = "hibernate.connection.datasource";
+
+    private static final Logger logger = Logger.getLogger(HibernateUtil.class.getName());
+
+    private static final Object LOCK = new Object();
+
+    private static final Map<String, Object> settings = new HashMap<>();
+
+    private static volatile Bootstrap bootstrap;
+
+    /**
+     * The result of the bootstrap.
+     */
+    private record Bootstrap(StandardServiceRegistry registry, Metadata metadata, SessionFactory sessionFactory,
+                             BootstrapTimings timings) {
+    }
+
+    /**
+     * Durations of the bootstrap phases.
+     *
+     * @param registryNanos       building the service registry, including reading the configuration
+     * @param metadataNanos       building the mapping metadata
+     * @param sessionFactoryNanos building the session factory
+     */
+    public record BootstrapTimings(long registryNanos, long metadataNanos, long sessionFactoryNanos) {
+
+        public long totalNanos() {
+            return registryNanos + metadataNanos + sessionFactoryNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("registry=%d ms, metadata=%d ms, sessionFactory=%d ms, total=%d ms",
+                    registryNanos / 1_000_000, metadataNanos / 1_000_000, sessionFactoryNanos / 1_000_000,
+                    totalNanos() / 1_000_000);
+        }
+    }
+
+    private HibernateUtil() {
+    }
+
+    /**
+     * Returns the session factory, building it on the first call.
+     *
+     * @return the session factory
+     * @throws IllegalStateException if the session factory cannot be built
+     */
     public static SessionFactory getSessionFactory() {
-        if (sessionFactory == null) {
-            try {
-                // Create registry
-                registry = new StandardServiceRegistryBuilder().configure().build();
+        return bootstrap().sessionFactory();
+    }
 
-                // Create MetadataSources
-                MetadataSources sources = new MetadataSources(registry);
+    /**
+     * Returns the mapping metadata the session factory was built from, e.g. for schema tools.
+     *
+     * @return the metadata
+     * @throws IllegalStateException if the session factory cannot be built
+     */
+    public static Metadata getMetadata() {
+        return bootstrap().metadata();
+    }
 
-                // Create Metadata
-                Metadata metadata = sources.getMetadataBuilder().build();
+    /**
+     * Returns the durations of the bootstrap phases.
+     *
+     * @return the timings, or null if the session factory has not been built yet
+     */
+    public static BootstrapTimings getBootstrapTimings() {
+        Bootstrap current = bootstrap;
+        return current == null ? null : current.timings();
+    }
 
-                // Create SessionFactory
-                sessionFactory = metadata.getSessionFactoryBuilder().build();
+    /**
+     * Adds settings for the next bootstrap, overriding the configuration files.
+     *
+     * @param additionalSettings the settings
+     * @throws IllegalStateException if the session factory has already been built
+     */
+    public static void configure(Map<String, Object> additionalSettings) {
+        synchronized (LOCK) {
+            if (bootstrap != null) {
+                throw new IllegalStateException("Session factory has already been built");
+            }
+            settings.putAll(additionalSettings);
+        }
+    }
+
+    /**
+     * Closes the session factory. The next call of {@link #getSessionFactory()} builds a new one.
+     */
+    public static void shutdown() {
+        synchronized (LOCK) {
+            if (bootstrap != null) {
+                bootstrap.sessionFactory().close();
+                StandardServiceRegistryBuilder.destroy(bootstrap.registry());
+                bootstrap = null;
+            }
+        }
+    }
 
-            } catch (Exception e) {
-                e.printStackTrace();
-                if (registry != null) {
-                    StandardServiceRegistryBuilder.destroy(registry);
+    private static Bootstrap bootstrap() {
+        Bootstrap current = bootstrap;
+        if (current == null) {
+            synchronized (LOCK) {
+                current = bootstrap;
+                if (current == null) {
+                    current = build();
+                    bootstrap = current;
                 }
             }
         }
-        return sessionFactory;
+        return current;
     }
 
-    public static void shutdown() {
-        if (registry != null) {
-            StandardServiceRegistryBuilder.destroy(registry);
+    private static Bootstrap build() {
+        StandardServiceRegistry registry = null;
+        try {
+            long start = System.nanoTime();
+            StandardServiceRegistryBuilder registryBuilder = new StandardServiceRegistryBuilder();
+            if (HibernateUtil.class.getClassLoader().getResource(CONFIG_FILE) != null) {
+                registryBuilder.configure(CONFIG_FILE);
+            }
+            registryBuilder.applySettings(settings);
+            Map<String, Object> configured = registryBuilder.getSettings();
+            if (!configured.containsKey(AvailableSettings.HBM2DDL_AUTO)) {
+                registryBuilder.applySetting(AvailableSettings.HBM2DDL_AUTO, "none");
+            }
+            if (!configured.containsKey(AvailableSettings.CONNECTION_PROVIDER)
+                    && !configured.containsKey(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE)
+                    && !configured.containsKey(LEGACY_DATASOURCE)) {
+                registryBuilder.applySetting(AvailableSettings.CONNECTION_PROVIDER, PooledConnectionProvider.class.getName());
+            }
+            if (configured.containsKey(AvailableSettings.DIALECT)) {
+                registryBuilder.applySetting(AvailableSettings.ALLOW_METADATA_ON_BOOT, false);
+            }
+            registry = registryBuilder.build();
+            long registryDone = System.nanoTime();
+
+            MetadataSources sources = new MetadataSources(registry);
+            ANNOTATED_CLASSES.forEach(sources::addAnnotatedClass);
+            Metadata metadata = sources.getMetadataBuilder().build();
+            long metadataDone = System.nanoTime();
+
+            SessionFactory sessionFactory = metadata.getSessionFactoryBuilder().build();
+            BootstrapTimings timings = new BootstrapTimings(registryDone - start, metadataDone - registryDone,
+                    System.nanoTime() - metadataDone);
+            logger.info(() -> "Session factory built: " + timings);
+            return new Bootstrap(registry, metadata, sessionFactory, timings);
+        } catch (RuntimeException e) {
+            if (registry != null) {
+                StandardServiceRegistryBuilder.destroy(registry);
+            }
+            throw new IllegalStateException("Could not build the session factory", e);
         }
     }
-}
\ No newline at end of file
+}
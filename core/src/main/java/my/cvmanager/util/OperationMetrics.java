@@ -0,0 +1,76 @@
+package my.cvmanager.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the {@link OperationStats} of the application, by operation name, e.g. {@code dao.User.find}.
+ * Callers look up their stats once and keep the reference, so recording never touches the registry.
+ */
+public class OperationMetrics {
+
+    private static final OperationMetrics GLOBAL = new OperationMetrics();
+
+    private final ConcurrentMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    private volatile long startNanos = System.nanoTime();
+
+    /**
+     * Returns the registry shared by the DAOs and services.
+     *
+     * @return the global registry
+     */
+    public static OperationMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Returns the stats of an operation, creating them on the first call.
+     *
+     * @param name the name of the operation
+     * @return the stats
+     */
+    public OperationStats operation(String name) {
+        return operations.computeIfAbsent(name, OperationStats::new);
+    }
+
+    /**
+     * Returns the stats of all operations.
+     *
+     * @return the stats by operation name, sorted by name
+     */
+    public Map<String, OperationStats> getOperations() {
+        return new TreeMap<>(operations);
+    }
+
+    /**
+     * Returns the seconds since the creation of the registry or the last {@link #reset()}, the time base of the
+     * throughput.
+     *
+     * @return the elapsed seconds
+     */
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    /**
+     * Returns the calls per second of an operation since the creation of the registry or the last reset.
+     *
+     * @param stats the stats of the operation
+     * @return the throughput
+     */
+    public double getThroughput(OperationStats stats) {
+        double seconds = getElapsedSeconds();
+        return seconds <= 0 ? 0 : stats.getCount() / seconds;
+    }
+
+    /**
+     * Resets the stats of all operations.
+     */
+    public void reset() {
+        operations.values().forEach(OperationStats::reset);
+        startNanos = System.nanoTime();
+    }
+}
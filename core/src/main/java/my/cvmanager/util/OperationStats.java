@@ -0,0 +1,87 @@
+package my.cvmanager.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, error and SQL statement counters of one operation.
+ * <p>
+ * Usage, without allocating:
+ * <pre>{@code
+ * long start = System.nanoTime(), statements = StatementCounter.current();
+ * try {
+ *     ...
+ * } catch (RuntimeException ex) {
+ *     throw stats.failed(ex);
+ * } finally {
+ *     stats.record(start, statements);
+ * }
+ * }</pre>
+ */
+public class OperationStats {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param name the name of the operation
+     */
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a finished call, successful or not.
+     *
+     * @param startNanos       the {@link System#nanoTime()} at the start of the call
+     * @param statementsBefore the {@link StatementCounter#current()} at the start of the call
+     */
+    public void record(long startNanos, long statementsBefore) {
+        latency.recordSince(startNanos);
+        statements.add(StatementCounter.current() - statementsBefore);
+    }
+
+    /**
+     * Counts a failed call.
+     *
+     * @param ex  the exception of the call
+     * @param <E> the type of the exception
+     * @return the exception, to be rethrown
+     */
+    public <E extends Throwable> E failed(E ex) {
+        errors.increment();
+        return ex;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    /**
+     * Resets all counters.
+     */
+    public void reset() {
+        latency.reset();
+        errors.reset();
+        statements.reset();
+    }
+}
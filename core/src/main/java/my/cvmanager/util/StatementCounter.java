@@ -0,0 +1,28 @@
+package my.cvmanager.util;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares, per thread.
+ * Registered with {@code hibernate.session_factory.statement_inspector}; callers take {@link #current()} before and
+ * after an operation to get the number of statements it issued. Counting does not allocate.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Returns the number of statements prepared by the current thread so far.
+     *
+     * @return the statement count
+     */
+    public static long current() {
+        return COUNT.get()[0];
+    }
+}
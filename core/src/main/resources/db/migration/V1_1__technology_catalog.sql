@@ -0,0 +1,52 @@
+-- Moves technology names into the shared catalog and stores the skill level as enum ordinal.
+-- hbm2ddl update may already have created the catalog and the new columns, and the application may already have
+-- written rows with them, so every step skips what is there already.
+
+create table if not exists technology_names (
+    id   integer generated by default as identity,
+    name varchar(100) not null,
+    primary key (id),
+    constraint uk_technology_names_name unique (name)
+);
+
+-- rows the catalog cannot take stop the migration here instead of failing the insert or losing their level; the
+-- violated constraint names the problem, fix the rows by hand and migrate again. The constraints are only checks
+-- and are dropped right away.
+alter table technologies
+    add constraint ck_technologies_name_longer_than_100 check (name is null or length(trim(name)) <= 100);
+alter table technologies drop constraint ck_technologies_name_longer_than_100;
+alter table technologies
+    add constraint ck_technologies_level_unknown check (level is null or trim(level) = ''
+        or upper(trim(level)) in ('AAA', 'ADVANCED', 'AA', 'INTERMEDIATE', 'A', 'BEGINNER'));
+alter table technologies drop constraint ck_technologies_level_unknown;
+
+insert into technology_names (name)
+select distinct trim(t.name)
+from technologies t
+where t.name is not null
+  and trim(t.name) <> ''
+  and trim(t.name) not in (select n.name from technology_names n);
+
+alter table technologies add column if not exists technology_name_id integer;
+alter table technologies add column if not exists skill_level smallint;
+
+update technologies
+set technology_name_id = (select n.id from technology_names n where n.name = trim(technologies.name))
+where technology_name_id is null;
+
+-- ordinal of Technology.Level: AAA = 0, AA = 1, A = 2; the oldest rows have the levels of the first UI
+update technologies
+set skill_level = case upper(trim(level))
+                      when 'AAA' then 0 when 'ADVANCED' then 0
+                      when 'AA' then 1 when 'INTERMEDIATE' then 1
+                      when 'A' then 2 when 'BEGINNER' then 2
+                  end
+where skill_level is null;
+
+-- created before the foreign key, so that H2 backs it with this index instead of one of its own
+create index if not exists idx_technologies_name_level on technologies (technology_name_id, skill_level);
+alter table technologies
+    add constraint fk_technologies_technology_name foreign key (technology_name_id) references technology_names (id);
+
+alter table technologies drop column if exists name;
+alter table technologies drop column if exists level;
@@ -0,0 +1,17 @@
+-- Adds the optimistic locking versions of profiles, positions and technologies; rows without a version would be
+-- treated as unsaved by Hibernate. hbm2ddl update may already have added the columns as nullable without a default.
+
+alter table userProfiles add column if not exists version bigint default 0;
+update userProfiles set version = 0 where version is null;
+alter table userProfiles alter column version set default 0;
+alter table userProfiles alter column version set not null;
+
+alter table positions add column if not exists version bigint default 0;
+update positions set version = 0 where version is null;
+alter table positions alter column version set default 0;
+alter table positions alter column version set not null;
+
+alter table technologies add column if not exists version bigint default 0;
+update technologies set version = 0 where version is null;
+alter table technologies alter column version set default 0;
+alter table technologies alter column version set not null;
@@ -0,0 +1,7 @@
+-- Adds the optimistic locking version of users; rows without a version would be treated as unsaved by Hibernate.
+-- hbm2ddl update may already have added the column as nullable without a default.
+
+alter table users add column if not exists version bigint default 0;
+update users set version = 0 where version is null;
+alter table users alter column version set default 0;
+alter table users alter column version set not null;
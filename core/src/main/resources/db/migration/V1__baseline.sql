@@ -0,0 +1,54 @@
+-- The schema as it was generated by hbm2ddl before the migrations were versioned, with identity ids and the
+-- technology names and levels as free text. Databases created by hbm2ddl already have it and are baselined at this
+-- version instead, see SchemaMigrator; V1.1 to V2 then bring both to the current schema.
+
+create table users (
+    id       bigint generated by default as identity,
+    username varchar(255) not null,
+    password varchar(255) not null,
+    email    varchar(255) not null,
+    loggedIn boolean      not null,
+    primary key (id),
+    constraint uk_users_username unique (username),
+    constraint uk_users_email unique (email)
+);
+
+create table userProfiles (
+    id        bigint generated by default as identity,
+    firstName varchar(255),
+    lastName  varchar(255),
+    email     varchar(255),
+    phone     varchar(255),
+    location  varchar(255),
+    summary   varchar(2000),
+    primary key (id)
+);
+
+create table positions (
+    id             bigint generated by default as identity,
+    title          varchar(255),
+    company        varchar(255),
+    location       varchar(255),
+    startDate      date,
+    endDate        date,
+    description    varchar(2000),
+    userProfile_id bigint,
+    primary key (id)
+);
+
+create table technologies (
+    id          bigint generated by default as identity,
+    name        varchar(255),
+    level       varchar(255),
+    position_id bigint,
+    primary key (id)
+);
+
+-- created before the foreign keys, so that H2 backs them with these instead of indexes of its own, see V2
+create index idx_positions_user_profile on positions (userProfile_id);
+create index idx_technologies_position on technologies (position_id);
+
+alter table positions
+    add constraint fk_positions_user_profile foreign key (userProfile_id) references userProfiles (id);
+alter table technologies
+    add constraint fk_technologies_position foreign key (position_id) references positions (id);
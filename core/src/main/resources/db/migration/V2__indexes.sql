@@ -0,0 +1,15 @@
+-- Indexes for the foreign keys and the lookup columns, which hbm2ddl never created. Databases created by V1 have the
+-- indexes of the foreign keys already. The unique constraints of users.username, users.email and
+-- technology_names.name are backed by indexes of their own.
+
+-- the positions of a profile, also covers the foreign key; a profile has few positions, sorting them is cheap
+create index if not exists idx_positions_user_profile on positions (userProfile_id);
+
+-- positions by period
+create index if not exists idx_positions_dates on positions (startDate, endDate);
+
+-- the technologies of a position
+create index if not exists idx_technologies_position on technologies (position_id);
+
+-- skill search by technology and level, also covers the foreign key; created by V1.1 already
+create index if not exists idx_technologies_name_level on technologies (technology_name_id, skill_level);
@@ -0,0 +1,6 @@
+-- The progress of the CV imports, written in the transaction of each batch instead of a file next to the input.
+create table if not exists import_progress (
+    input varchar(500) not null,
+    last_record bigint not null,
+    primary key (input)
+);
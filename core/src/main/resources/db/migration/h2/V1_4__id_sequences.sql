@@ -0,0 +1,27 @@
+-- The sequences of the ids generated by GenerationType.SEQUENCE, with the default allocation size of 50, restarted
+-- above the ids the tables already have: rows created with identity ids, and blocks of ids that nodes using a
+-- sequence created by hbm2ddl update may still hand out. Hibernate hands out the 49 ids below the value it gets.
+
+create sequence if not exists users_SEQ start with 1 increment by 50;
+alter sequence users_SEQ restart with (
+    select greatest(coalesce(max(id) + 51, 1), (select base_value from information_schema.sequences
+                                                where sequence_schema = current_schema and sequence_name = 'USERS_SEQ'))
+    from users);
+
+create sequence if not exists userProfiles_SEQ start with 1 increment by 50;
+alter sequence userProfiles_SEQ restart with (
+    select greatest(coalesce(max(id) + 51, 1), (select base_value from information_schema.sequences
+                                                where sequence_schema = current_schema and sequence_name = 'USERPROFILES_SEQ'))
+    from userProfiles);
+
+create sequence if not exists positions_SEQ start with 1 increment by 50;
+alter sequence positions_SEQ restart with (
+    select greatest(coalesce(max(id) + 51, 1), (select base_value from information_schema.sequences
+                                                where sequence_schema = current_schema and sequence_name = 'POSITIONS_SEQ'))
+    from positions);
+
+create sequence if not exists technologies_SEQ start with 1 increment by 50;
+alter sequence technologies_SEQ restart with (
+    select greatest(coalesce(max(id) + 51, 1), (select base_value from information_schema.sequences
+                                                where sequence_schema = current_schema and sequence_name = 'TECHNOLOGIES_SEQ'))
+    from technologies);
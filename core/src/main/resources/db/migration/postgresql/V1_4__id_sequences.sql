@@ -0,0 +1,30 @@
+-- The sequences of the ids generated by GenerationType.SEQUENCE, with the default allocation size of 50, restarted
+-- above the ids the tables already have: rows created with identity ids, and blocks of ids that nodes using a
+-- sequence created by hbm2ddl update may still hand out. Hibernate hands out the 49 ids below the value it gets.
+
+create sequence if not exists users_seq start with 1 increment by 50;
+select setval('users_seq', greatest(coalesce(max(id) + 51, 1),
+                                    (select case when is_called then last_value + 50 else last_value end from users_seq)),
+              false)
+from users;
+
+create sequence if not exists userprofiles_seq start with 1 increment by 50;
+select setval('userprofiles_seq', greatest(coalesce(max(id) + 51, 1),
+                                           (select case when is_called then last_value + 50 else last_value end
+                                            from userprofiles_seq)),
+              false)
+from userProfiles;
+
+create sequence if not exists positions_seq start with 1 increment by 50;
+select setval('positions_seq', greatest(coalesce(max(id) + 51, 1),
+                                        (select case when is_called then last_value + 50 else last_value end
+                                         from positions_seq)),
+              false)
+from positions;
+
+create sequence if not exists technologies_seq start with 1 increment by 50;
+select setval('technologies_seq', greatest(coalesce(max(id) + 51, 1),
+                                           (select case when is_called then last_value + 50 else last_value end
+                                            from technologies_seq)),
+              false)
+from technologies;
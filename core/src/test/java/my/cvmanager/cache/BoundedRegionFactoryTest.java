@@ -0,0 +1,115 @@
+package my.cvmanager.cache;
+
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.User;
+import my.cvmanager.repositories.AbstractDaoTest;
+import my.cvmanager.repositories.UserDao;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BoundedRegionFactoryTest extends AbstractDaoTest {
+
+    private final UserDao userDao = new UserDao();
+
+    @Test
+    public void testRegionsAreConfiguredPerEntity() {
+        BoundedRegionFactory factory = BoundedRegionFactory.of(emf);
+        Assert.assertNotNull(factory);
+        Assert.assertEquals(100, factory.getRegion("user").getMaxEntries());
+        Assert.assertEquals(BoundedRegionFactory.DEFAULT_MAX_ENTRIES, factory.getRegion("technology").getMaxEntries());
+        Assert.assertEquals(BoundedRegionFactory.DEFAULT_MAX_ENTRIES,
+                factory.getRegion("technology-name").getMaxEntries());
+    }
+
+    @Test
+    public void testRepeatedTechnologyLoadIsServedFromCache() {
+        Technology technology = new Technology();
+        technology.setName("Java");
+        technology.setLevel(Technology.Level.AA);
+        inTransaction(() -> {
+            catalog.resolve(technology, em);
+            em.persist(technology);
+        });
+        emf.getCache().evictAll();
+        Assert.assertEquals("Java", findTechnology(technology.getId()).getName());
+
+        long statements = countStatements(() -> {
+            Technology cached = findTechnology(technology.getId());
+            Assert.assertEquals("Java", cached.getName());
+            Assert.assertEquals(Technology.Level.AA, cached.getLevel());
+        });
+        Assert.assertEquals(0, statements);
+        Assert.assertTrue(BoundedRegionFactory.of(emf).getRegion("technology").getStatistics().getHits() > 0);
+        Assert.assertTrue(BoundedRegionFactory.of(emf).getRegion("technology-name").getStatistics().getHits() > 0);
+    }
+
+    @Test
+    public void testRepeatedLookupByUsernameIsServedFromCache() {
+        inTransaction(() -> userDao.persistAll(createUsers("user", 3), em));
+        emf.getCache().evictAll();
+
+        Assert.assertEquals("user1@example.com", findByUsername("user1").getEmail());
+
+        long statements = countStatements(() -> {
+            Assert.assertEquals("user1@example.com", findByUsername("user1").getEmail());
+            Assert.assertEquals("user1@example.com", findByUsername("user1").getEmail());
+        });
+        Assert.assertEquals(0, statements);
+        Assert.assertTrue(BoundedRegionFactory.of(emf).getRegion("user").getStatistics().getHits() > 0);
+    }
+
+    @Test
+    public void testUpdateThroughDaoRefreshesCachedUser() {
+        inTransaction(() -> userDao.persistAll(createUsers("user", 1), em));
+        User user = findByUsername("user0");
+
+        user.setEmail("changed@example.com");
+        inTransaction(() -> userDao.update(user, em));
+
+        Assert.assertEquals("changed@example.com", findByUsername("user0").getEmail());
+    }
+
+    @Test
+    public void testDeleteThroughDaoEvictsCachedUser() {
+        inTransaction(() -> userDao.persistAll(createUsers("user", 1), em));
+        User user = findByUsername("user0");
+
+        inTransaction(() -> userDao.delete(user, em));
+
+        em.clear();
+        inTransaction(() -> {
+            Assert.assertTrue(userDao.findOne("username", "user0", em).isEmpty());
+            Assert.assertTrue(userDao.find(user.getId(), em).isEmpty());
+        });
+    }
+
+    private User findByUsername(String username) {
+        // a fresh persistence context and transaction for every lookup, like one request per login
+        em.clear();
+        em.getTransaction().begin();
+        try {
+            return userDao.findOne("username", username, em).orElseThrow();
+        } finally {
+            em.getTransaction().commit();
+        }
+    }
+
+    private Technology findTechnology(long id) {
+        em.clear();
+        em.getTransaction().begin();
+        try {
+            return em.find(Technology.class, id);
+        } finally {
+            em.getTransaction().commit();
+        }
+    }
+
+    private long countStatements(Runnable block) {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        block.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,108 @@
+package my.cvmanager.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BoundedStorageAccessTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsedEntry() {
+        BoundedStorageAccess storage = new BoundedStorageAccess("test", 2, Duration.ZERO);
+        storage.putIntoCache(1, "one", null);
+        storage.putIntoCache(2, "two", null);
+        Assert.assertEquals("one", storage.getFromCache(1, null));
+
+        storage.putIntoCache(3, "three", null);
+
+        Assert.assertEquals(2, storage.size());
+        Assert.assertEquals("one", storage.getFromCache(1, null));
+        Assert.assertNull(storage.getFromCache(2, null));
+        Assert.assertEquals("three", storage.getFromCache(3, null));
+        Assert.assertEquals(1, storage.getStatistics().getEvictions());
+        Assert.assertEquals(3, storage.getStatistics().getHits());
+        Assert.assertEquals(1, storage.getStatistics().getMisses());
+    }
+
+    @Test
+    public void testExpiresEntriesAfterTimeToLive() throws InterruptedException {
+        BoundedStorageAccess storage = new BoundedStorageAccess("test", 10, Duration.ofMillis(20));
+        storage.putIntoCache(1, "one", null);
+        Assert.assertTrue(storage.contains(1));
+
+        Thread.sleep(40);
+
+        Assert.assertFalse(storage.contains(1));
+        Assert.assertNull(storage.getFromCache(1, null));
+        Assert.assertEquals(0, storage.size());
+        Assert.assertEquals(1, storage.getStatistics().getEvictions());
+    }
+
+    @Test
+    public void testEvictData() {
+        BoundedStorageAccess storage = new BoundedStorageAccess("test", 10, Duration.ZERO);
+        storage.putIntoCache(1, "one", null);
+        storage.putIntoCache(2, "two", null);
+
+        storage.evictData(1);
+        Assert.assertFalse(storage.contains(1));
+        Assert.assertTrue(storage.contains(2));
+
+        storage.evictData();
+        Assert.assertEquals(0, storage.size());
+    }
+
+    @Test
+    public void testEvictionPassLeavesHeadroom() {
+        BoundedStorageAccess storage = new BoundedStorageAccess("test", 1000, Duration.ZERO);
+        for (int i = 0; i < 1000; i++) {
+            storage.putIntoCache(i, "value " + i, null);
+        }
+        Assert.assertEquals("hot", "value 0", storage.getFromCache(0, null));
+
+        storage.putIntoCache(1000, "value 1000", null);
+
+        Assert.assertEquals(1000 - 1000 * BoundedStorageAccess.EVICTION_HEADROOM / 1000, storage.size());
+        Assert.assertEquals("value 0", storage.getFromCache(0, null));
+        Assert.assertEquals("value 1000", storage.getFromCache(1000, null));
+        Assert.assertNull("the least recently used", storage.getFromCache(1, null));
+        Assert.assertEquals(51, storage.getStatistics().getEvictions());
+    }
+
+    @Test
+    public void testConcurrentAccessStaysBounded() throws InterruptedException {
+        BoundedStorageAccess storage = new BoundedStorageAccess("test", 500, Duration.ZERO);
+        AtomicInteger wrong = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t * 100_000;
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    for (int i = 0; i < 20_000; i++) {
+                        int key = offset + i % 2000;
+                        Object value = storage.getFromCache(key, null);
+                        if (value == null) {
+                            storage.putIntoCache(key, key, null);
+                        } else if (!value.equals(key)) {
+                            wrong.incrementAndGet();
+                        }
+                    }
+                } catch (RuntimeException ex) {
+                    wrong.incrementAndGet();
+                    throw ex;
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(0, wrong.get());
+        // an eviction pass still running when the last writes arrive may leave a few entries over the maximum
+        Assert.assertTrue("size " + storage.size(), storage.size() <= 500 + 8);
+    }
+}
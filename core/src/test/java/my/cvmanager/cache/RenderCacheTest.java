@@ -0,0 +1,76 @@
+package my.cvmanager.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RenderCacheTest {
+
+    @Test
+    public void testServesRepeatViewsFromMemory() {
+        RenderCache cache = new RenderCache(100);
+        Assert.assertNull(cache.get(1, 0, "html"));
+        byte[] page = new byte[10];
+        cache.put(1, 0, "html", page);
+
+        Assert.assertSame(page, cache.get(1, 0, "html"));
+        Assert.assertSame(page, cache.get(1, 0, "html"));
+        Assert.assertEquals(2, cache.getStatistics().getHits());
+        Assert.assertEquals(1, cache.getStatistics().getMisses());
+        Assert.assertEquals(10, cache.getBytes());
+    }
+
+    @Test
+    public void testNewerVersionReplacesOlderDocuments() {
+        RenderCache cache = new RenderCache(100);
+        cache.put(1, 0, "html", new byte[10]);
+        cache.put(1, 0, "pdf", new byte[20]);
+
+        Assert.assertNull(cache.get(1, 1, "html"));
+        cache.put(1, 1, "html", new byte[15]);
+
+        Assert.assertNull(cache.get(1, 1, "pdf"));
+        Assert.assertNull(cache.get(1, 0, "html"));
+        Assert.assertEquals(15, cache.getBytes());
+
+        cache.put(1, 0, "pdf", new byte[20]);
+        Assert.assertNull("older version is not stored", cache.get(1, 0, "pdf"));
+        Assert.assertEquals(15, cache.getBytes());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedProfileByBytes() {
+        RenderCache cache = new RenderCache(100);
+        cache.put(1, 0, "pdf", new byte[40]);
+        cache.put(2, 0, "pdf", new byte[40]);
+        Assert.assertNotNull(cache.get(1, 0, "pdf"));
+
+        cache.put(3, 0, "pdf", new byte[40]);
+
+        Assert.assertEquals(80, cache.getBytes());
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.get(1, 0, "pdf"));
+        Assert.assertNull(cache.get(2, 0, "pdf"));
+        Assert.assertNotNull(cache.get(3, 0, "pdf"));
+        Assert.assertEquals(1, cache.getStatistics().getEvictions());
+
+        cache.put(4, 0, "pdf", new byte[101]);
+        Assert.assertNull("larger than the cache", cache.get(4, 0, "pdf"));
+        Assert.assertEquals(80, cache.getBytes());
+    }
+
+    @Test
+    public void testInvalidateFreesTheDocuments() {
+        RenderCache cache = new RenderCache(100);
+        cache.put(1, 0, "html", new byte[10]);
+        cache.put(1, 0, "pdf", new byte[20]);
+        cache.put(2, 0, "html", new byte[10]);
+
+        cache.invalidate(1);
+        cache.invalidate(3);
+
+        Assert.assertNull(cache.get(1, 0, "html"));
+        Assert.assertEquals(10, cache.getBytes());
+        Assert.assertEquals(1, cache.getInvalidations());
+        Assert.assertEquals(0, cache.getStatistics().getEvictions());
+    }
+}
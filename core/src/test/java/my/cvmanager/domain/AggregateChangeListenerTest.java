@@ -0,0 +1,113 @@
+package my.cvmanager.domain;
+
+import my.cvmanager.cache.RenderCache;
+import my.cvmanager.repositories.AbstractDaoTest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+
+public class AggregateChangeListenerTest extends AbstractDaoTest {
+
+    private final List<Long> changed = new CopyOnWriteArrayList<>();
+    private final LongConsumer subscriber = changed::add;
+
+    @Before
+    public void subscribe() {
+        AggregateChangeListener.subscribe(subscriber);
+    }
+
+    @After
+    public void unsubscribe() {
+        AggregateChangeListener.unsubscribe(subscriber);
+    }
+
+    @Test
+    public void testChangesOfAnyPartNotifyTheProfile() {
+        Long id = createProfile();
+        Assert.assertTrue(changed.contains(id));
+
+        changed.clear();
+        inTransaction(() -> technology(id).setLevel(Technology.Level.AAA));
+        Assert.assertTrue(changed.contains(id));
+        em.clear();
+
+        changed.clear();
+        inTransaction(() -> {
+            Position position = new Position();
+            position.setTitle("Lead");
+            em.find(UserProfile.class, id).addPosition(position);
+        });
+        Assert.assertTrue(changed.contains(id));
+        em.clear();
+
+        changed.clear();
+        inTransaction(() -> em.find(UserProfile.class, id).getPositions().removeIf(p -> "Lead".equals(p.getTitle())));
+        Assert.assertTrue(changed.contains(id));
+    }
+
+    @Test
+    public void testReadsDoNotNotify() {
+        Long id = createProfile();
+        changed.clear();
+
+        inTransaction(() -> technology(id).getName());
+
+        Assert.assertTrue(changed.isEmpty());
+    }
+
+    @Test
+    public void testInvalidatesRenderedDocuments() {
+        Long id = createProfile();
+        RenderCache cache = new RenderCache(1024);
+        LongConsumer invalidate = cache::invalidate;
+        AggregateChangeListener.subscribe(invalidate);
+        try {
+            cache.put(id, 0, "html", new byte[10]);
+
+            inTransaction(() -> technology(id).setLevel(Technology.Level.A));
+
+            Assert.assertEquals(0, cache.size());
+            Assert.assertEquals(1, cache.getInvalidations());
+        } finally {
+            AggregateChangeListener.unsubscribe(invalidate);
+        }
+    }
+
+    @Test
+    public void testCommittedChangesNotifyOncePerTransaction() {
+        List<Long> committed = new CopyOnWriteArrayList<>();
+        LongConsumer committedSubscriber = committed::add;
+        AggregateChangeListener.subscribeCommitted(committedSubscriber);
+        try {
+            Long id = createProfile();
+            Assert.assertEquals(List.of(id), committed);
+
+            committed.clear();
+            em.getTransaction().begin();
+            technology(id).setLevel(Technology.Level.AAA);
+            em.flush();
+            Assert.assertTrue(changed.contains(id));
+            Assert.assertTrue(committed.isEmpty());
+            em.getTransaction().rollback();
+            em.clear();
+            Assert.assertTrue(committed.isEmpty());
+
+            inTransaction(() -> {
+                technology(id).setLevel(Technology.Level.A);
+                em.find(UserProfile.class, id).getPositions().get(0).setTitle("Lead");
+            });
+            Assert.assertEquals(List.of(id), committed);
+        } finally {
+            AggregateChangeListener.unsubscribeCommitted(committedSubscriber);
+        }
+    }
+
+    private Technology technology(Long profileId) {
+        return em.find(UserProfile.class, profileId).getPositions().get(0).getTechnologies().get(0);
+    }
+}
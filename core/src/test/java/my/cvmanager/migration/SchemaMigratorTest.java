@@ -0,0 +1,331 @@
+package my.cvmanager.migration;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.User;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SchemaMigratorTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    String url;
+    Connection connection;
+    SchemaMigrator migrator;
+
+    @Before
+    public void setUp() throws SQLException {
+        url = "jdbc:h2:mem:migration" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+        connection = DriverManager.getConnection(url, "sa", "");
+        migrator = SchemaMigrator.forDatabase(connection);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    /**
+     * The schema hbm2ddl generated for the entities before the migrations were versioned.
+     */
+    private static final List<String> LEGACY_SCHEMA = List.of(
+            "create table users (id bigint generated by default as identity, email varchar(255) not null unique, "
+                    + "loggedIn boolean not null, password varchar(255) not null, "
+                    + "username varchar(255) not null unique, primary key (id))",
+            "create table userProfiles (id bigint generated by default as identity, email varchar(255), "
+                    + "firstName varchar(255), lastName varchar(255), location varchar(255), phone varchar(255), "
+                    + "summary varchar(2000), primary key (id))",
+            "create table positions (id bigint generated by default as identity, company varchar(255), "
+                    + "description varchar(2000), endDate date, location varchar(255), startDate date, "
+                    + "title varchar(255), userProfile_id bigint, primary key (id))",
+            "create table technologies (id bigint generated by default as identity, level varchar(255), "
+                    + "name varchar(255), position_id bigint, primary key (id))",
+            "alter table positions add constraint FK7w5h2gyqd1d9ri0ofcquxaxe3 foreign key (userProfile_id) "
+                    + "references userProfiles",
+            "alter table technologies add constraint FKq6xaxnu0ti8k5rkuhwirq5ik5 foreign key (position_id) "
+                    + "references positions");
+
+    private static final List<String> LEGACY_DATA = List.of(
+            "insert into users (username, password, email, loggedIn) values ('alice', 'secret', 'alice@example.com', false)",
+            "insert into userProfiles (firstName, lastName) values ('Alice', 'Smith')",
+            "insert into positions (title, startDate, userProfile_id) values ('CTO', date '2020-01-01', 1)",
+            "insert into technologies (name, level, position_id) values ('Java ', 'AA', 1)",
+            "insert into technologies (name, level, position_id) values ('Java', 'Beginner', 1)",
+            "insert into technologies (name, level, position_id) values ('SQL', 'AAA', 1)");
+
+    private static final List<String> ALL_VERSIONS = List.of("1", "1.1", "1.2", "1.3", "1.4", "2", "3");
+
+    @Test
+    public void testMigratesAnEmptyDatabaseOnce() throws SQLException {
+        Assert.assertEquals(ALL_VERSIONS, versions(migrator.pending(connection)));
+
+        Assert.assertEquals(ALL_VERSIONS, versions(migrator.migrate(connection)));
+        Assert.assertTrue(migrator.migrate(connection).isEmpty());
+        Assert.assertEquals(ALL_VERSIONS, new ArrayList<>(migrator.applied(connection).keySet()));
+        Assert.assertTrue(connection.getAutoCommit());
+        Assert.assertEquals(List.of("1"), query("select next value for users_SEQ"));
+    }
+
+    @Test
+    public void testNodesStartingTogetherMigrateOnce() throws Exception {
+        int nodes = 4;
+        CyclicBarrier start = new CyclicBarrier(nodes);
+        ExecutorService executor = Executors.newFixedThreadPool(nodes);
+        try {
+            List<Future<List<Migration>>> results = new ArrayList<>();
+            for (int i = 0; i < nodes; i++) {
+                results.add(executor.submit(() -> {
+                    try (Connection node = DriverManager.getConnection(url, "sa", "")) {
+                        start.await();
+                        return SchemaMigrator.forDatabase(node).migrate(node);
+                    }
+                }));
+            }
+            List<String> applied = new ArrayList<>();
+            for (Future<List<Migration>> result : results) {
+                applied.addAll(versions(result.get()));
+            }
+            Assert.assertEquals("every migration applied by one of the nodes", ALL_VERSIONS.size(), applied.size());
+            Assert.assertEquals(ALL_VERSIONS, new ArrayList<>(migrator.applied(connection).keySet()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testMigratedSchemaMatchesTheMapping() {
+        EntityManagerFactory emf = validatingFactory();
+        try {
+            EntityManager em = emf.createEntityManager();
+            em.getTransaction().begin();
+            User user = new User();
+            user.setUsername("alice");
+            user.setPassword("secret");
+            user.setEmail("alice@example.com");
+            em.persist(user);
+            em.getTransaction().commit();
+            em.close();
+        } finally {
+            emf.close();
+        }
+    }
+
+    @Test
+    public void testMigratesASchemaCreatedByHbm2ddl() throws SQLException {
+        execute(LEGACY_SCHEMA);
+        execute(LEGACY_DATA);
+
+        Assert.assertEquals(ALL_VERSIONS.subList(1, ALL_VERSIONS.size()), versions(migrator.migrate(connection)));
+        Assert.assertEquals(ALL_VERSIONS, new ArrayList<>(migrator.applied(connection).keySet()));
+        Assert.assertEquals(List.of("Java:1", "Java:2", "SQL:0"), query("select n.name || ':' || t.skill_level "
+                + "from technologies t join technology_names n on n.id = t.technology_name_id order by t.id"));
+        Assert.assertEquals(List.of("0"), query("select distinct version from technologies"));
+        Assert.assertEquals(List.of("0"), query("select version from users"));
+
+        EntityManagerFactory emf = validatingFactory();
+        try {
+            EntityManager em = emf.createEntityManager();
+            Position position = em.find(Position.class, 1L);
+            Assert.assertEquals(List.of("Java", "Java", "SQL"),
+                    position.getTechnologies().stream().map(Technology::getName).sorted().toList());
+
+            em.getTransaction().begin();
+            User user = new User();
+            user.setUsername("bob");
+            user.setPassword("secret");
+            user.setEmail("bob@example.com");
+            em.persist(user);
+            Position next = new Position();
+            next.setTitle("CEO");
+            em.persist(next);
+            em.getTransaction().commit();
+            Assert.assertTrue(user.getId() > 1);
+            Assert.assertTrue(next.getId() > 1);
+            em.close();
+        } finally {
+            emf.close();
+        }
+    }
+
+    @Test
+    public void testMigratesASchemaThatHbm2ddlHasUpdated() throws SQLException {
+        execute(LEGACY_SCHEMA);
+        execute(LEGACY_DATA);
+        execute(List.of(
+                "alter table users add column version bigint",
+                "alter table technologies add column version bigint",
+                "create table technology_names (id integer generated by default as identity, "
+                        + "name varchar(100) not null unique, primary key (id))",
+                "alter table technologies add column skill_level smallint",
+                "alter table technologies add column technology_name_id integer",
+                "create sequence users_SEQ start with 1 increment by 50",
+                // blocks of ids up to 101 handed out by nodes running with the sequence already
+                "select next value for users_SEQ",
+                "select next value for users_SEQ",
+                "select next value for users_SEQ",
+                "insert into technology_names (name) values ('Kotlin')",
+                "insert into technologies (technology_name_id, skill_level, version, position_id) values (1, 1, 3, 1)"));
+
+        Assert.assertEquals(ALL_VERSIONS.subList(1, ALL_VERSIONS.size()), versions(migrator.migrate(connection)));
+        Assert.assertEquals(List.of("Java:1", "Java:2", "SQL:0", "Kotlin:1"), query("select n.name || ':' || "
+                + "t.skill_level from technologies t join technology_names n on n.id = t.technology_name_id "
+                + "order by t.id"));
+        Assert.assertEquals(List.of("0", "0", "0", "3"), query("select version from technologies order by id"));
+        Assert.assertEquals(List.of("151"), query("select next value for users_SEQ"));
+        Assert.assertEquals(List.of("55"), query("select next value for technologies_SEQ"));
+        validatingFactory().close();
+    }
+
+    @Test
+    public void testRejectsTechnologiesTheCatalogCannotTake() throws SQLException {
+        execute(LEGACY_SCHEMA);
+        execute(LEGACY_DATA);
+        execute(List.of("insert into technologies (name, level, position_id) values ('" + "x".repeat(101) + "', 'A', 1)"));
+
+        MigrationException tooLong = Assert.assertThrows(MigrationException.class, () -> migrator.migrate(connection));
+        Assert.assertTrue(tooLong.getMessage(), tooLong.getMessage().contains("CK_TECHNOLOGIES_NAME_LONGER_THAN_100"));
+
+        execute(List.of("update technologies set name = 'Go', level = 'Expert' where length(name) > 100"));
+        MigrationException unknown = Assert.assertThrows(MigrationException.class, () -> migrator.migrate(connection));
+        Assert.assertTrue(unknown.getMessage(), unknown.getMessage().contains("CK_TECHNOLOGIES_LEVEL_UNKNOWN"));
+
+        execute(List.of("update technologies set level = 'Advanced' where level = 'Expert'"));
+        migrator.migrate(connection);
+        Assert.assertEquals(List.of("Go:0"), query("select n.name || ':' || t.skill_level from technologies t "
+                + "join technology_names n on n.id = t.technology_name_id where n.name = 'Go'"));
+    }
+
+    @Test
+    public void testRejectsASchemaThatDoesNotMatchTheBaseline() throws SQLException {
+        execute(List.of("create table users (id bigint not null, username varchar(255), primary key (id))"));
+
+        try {
+            migrator.migrate(connection);
+            Assert.fail();
+        } catch (MigrationException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("users.password"));
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("userProfiles.firstName"));
+        }
+        Assert.assertFalse(SchemaMigrator.tableExists(connection, SchemaMigrator.HISTORY_TABLE));
+    }
+
+    @Test
+    public void testRejectsChangedMigration() throws SQLException {
+        migrator.migrate(connection);
+        List<Migration> changed = new ArrayList<>(migrator.getMigrations());
+        int last = changed.size() - 1;
+        changed.set(last, Migration.parse(changed.get(last).script(), "create index idx_other on users (loggedIn);"));
+
+        try {
+            new SchemaMigrator(changed).migrate(connection);
+            Assert.fail();
+        } catch (MigrationException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("V3"));
+        }
+    }
+
+    @Test
+    public void testFailedMigrationIsNotRecorded() throws SQLException {
+        migrator.migrate(connection);
+        List<Migration> migrations = new ArrayList<>(migrator.getMigrations());
+        migrations.add(Migration.parse("V4__broken.sql", "alter table users add column nickname varchar(50);\n"
+                + "alter table nowhere add column nickname varchar(50);"));
+
+        Assert.assertThrows(MigrationException.class, () -> new SchemaMigrator(migrations).migrate(connection));
+        Assert.assertFalse(migrator.applied(connection).containsKey("4"));
+    }
+
+    @Test
+    public void testParsesStatementsAndIgnoresComments() {
+        Migration migration = Migration.parse("V7__add_nickname.sql", """
+                -- a comment
+                alter table users
+                    add column nickname varchar(50);
+
+                create index idx_users_nickname on users (nickname);
+                """);
+        Migration commented = Migration.parse("V7__add_nickname.sql", """
+                alter table users
+                    add column nickname varchar(50);
+                -- another comment
+                create index idx_users_nickname on users (nickname);
+                """);
+
+        Assert.assertEquals("7", migration.version());
+        Assert.assertEquals("add nickname", migration.description());
+        Assert.assertEquals(List.of("alter table users\n    add column nickname varchar(50)",
+                "create index idx_users_nickname on users (nickname)"), migration.statements());
+        Assert.assertEquals(migration.checksum(), commented.checksum());
+        Assert.assertThrows(MigrationException.class, () -> Migration.parse("add_nickname.sql", ""));
+        Assert.assertEquals("1.10", Migration.parse("V1_10__later.sql", "").version());
+    }
+
+    @Test
+    public void testComparesVersionsNumberByNumber() {
+        Assert.assertTrue(Migration.compareVersions("1", "1.1") < 0);
+        Assert.assertTrue(Migration.compareVersions("1.2", "1.10") < 0);
+        Assert.assertTrue(Migration.compareVersions("1.10", "2") < 0);
+        Assert.assertEquals(0, Migration.compareVersions("2", "2.0"));
+        Assert.assertThrows(MigrationException.class, () -> new SchemaMigrator(List.of(
+                Migration.parse("V1_10__b.sql", ""), Migration.parse("V1_2__a.sql", ""))));
+    }
+
+    @Test
+    public void testHotQueriesUseTheirIndexes() throws SQLException {
+        migrator.migrate(connection);
+        Assert.assertEquals(List.of(), IndexUsageCheck.check(connection));
+        Assert.assertEquals(1, IndexUsageCheck.check(connection, List.of(new IndexUsageCheck.HotQuery("by title",
+                "select id from positions where title = 'CTO'", "idx_positions_user_profile"))).size());
+    }
+
+    private EntityManagerFactory validatingFactory() {
+        return Persistence.createEntityManagerFactory("cvmanagerTestPU", Map.of(
+                "jakarta.persistence.jdbc.url", url,
+                "hibernate.hbm2ddl.auto", "validate",
+                SchemaMigrationIntegrator.ENABLED, "true"));
+    }
+
+    private void execute(List<String> statements) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private List<String> query(String sql) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(sql)) {
+            while (rows.next()) {
+                values.add(rows.getString(1));
+            }
+        }
+        return values;
+    }
+
+    private static List<String> versions(List<Migration> migrations) {
+        return migrations.stream().map(Migration::version).toList();
+    }
+}
@@ -0,0 +1,99 @@
+package my.cvmanager.pool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void testNeverAdmitsMoreThanTheLimit() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, Duration.ofSeconds(10));
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            threads.add(Thread.ofVirtual().start(() -> limiter.run(() -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                active.decrementAndGet();
+            })));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(4, maxActive.get());
+        Assert.assertEquals(0, limiter.getActive());
+        Assert.assertEquals(200, limiter.getWaitLatency().getCount());
+        Assert.assertEquals(0, limiter.getRejected());
+    }
+
+    @Test
+    public void testRejectsAfterTimeout() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, Duration.ofMillis(50));
+        CountDownLatch admitted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> limiter.run(() -> {
+            admitted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        admitted.await();
+
+        try {
+            limiter.call(() -> "never");
+            Assert.fail();
+        } catch (ConcurrencyLimitException expected) {
+            Assert.assertEquals(1, limiter.getRejected());
+            Assert.assertEquals(1, limiter.getActive());
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+        Assert.assertEquals("admitted", limiter.call(() -> "admitted"));
+    }
+
+    @Test
+    public void testCallGivesItsPermitBackWithoutTheDatabase() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, Duration.ofMillis(50));
+        CountDownLatch hashing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger activeAfterwards = new AtomicInteger(-1);
+        Thread holder = Thread.ofVirtual().start(() -> limiter.run(() -> {
+            ConcurrencyLimiter.withoutPermit(() -> {
+                hashing.countDown();
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+            activeAfterwards.set(limiter.getActive());
+        }));
+        hashing.await();
+
+        Assert.assertEquals(0, limiter.getActive());
+        Assert.assertEquals("admitted", limiter.call(() -> "admitted"));
+        release.countDown();
+        holder.join();
+        Assert.assertEquals(1, activeAfterwards.get());
+        Assert.assertEquals(0, limiter.getActive());
+        Assert.assertEquals("outside", ConcurrencyLimiter.withoutPermit(() -> "outside"));
+        Assert.assertEquals(0, limiter.getActive());
+    }
+}
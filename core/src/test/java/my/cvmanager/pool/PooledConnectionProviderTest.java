@@ -0,0 +1,55 @@
+package my.cvmanager.pool;
+
+import my.cvmanager.repositories.AbstractDaoTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+public class PooledConnectionProviderTest extends AbstractDaoTest {
+
+    @Test
+    public void testUnitUsesPool() {
+        PooledConnectionProvider provider = PooledConnectionProvider.of(emf);
+        Assert.assertNotNull(provider);
+
+        inTransaction(() -> em.createQuery("select count(u) from User u").getSingleResult());
+
+        PoolStatistics statistics = provider.getStatistics();
+        Assert.assertEquals(0, statistics.active());
+        Assert.assertTrue(statistics.total() >= 1 && statistics.total() <= 10);
+        Assert.assertTrue(provider.getAcquisitionLatency().getCount() > 0);
+    }
+
+    @Test
+    public void testAcquisitionTimesOut() throws SQLException {
+        PooledConnectionProvider provider = new PooledConnectionProvider();
+        provider.configure(Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1",
+                "jakarta.persistence.jdbc.user", "sa",
+                PooledConnectionProvider.MIN_SIZE, "0",
+                PooledConnectionProvider.MAX_SIZE, "1",
+                PooledConnectionProvider.ACQUISITION_TIMEOUT_MS, "250"));
+        try (Connection connection = provider.getConnection()) {
+            Assert.assertEquals(1, provider.getStatistics().active());
+            try {
+                provider.getConnection();
+                Assert.fail();
+            } catch (SQLException expected) {
+                Assert.assertEquals(1, provider.getStatistics().acquisitionFailures());
+            }
+        } finally {
+            provider.stop();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMinSizeAboveMaxSize() {
+        new PooledConnectionProvider().configure(Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:pool",
+                PooledConnectionProvider.MIN_SIZE, "5",
+                PooledConnectionProvider.MAX_SIZE, "2"));
+    }
+}
@@ -0,0 +1,315 @@
+package my.cvmanager.pool;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.transaction.Status;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.TransactionManager;
+import my.cvmanager.domain.User;
+import my.cvmanager.repositories.UserDao;
+import my.cvmanager.testsupport.LocalJta;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Two in-memory databases stand in for the primary and a replica; a third replica is down. A second unit on the
+ * primary runs in JTA transactions of {@link LocalJta} and acquires a connection per statement, like in the container.
+ */
+public class RoutingConnectionProviderTest {
+
+    private static final String PRIMARY = "jdbc:h2:mem:primary";
+    private static final String REPLICA = "jdbc:h2:mem:replica";
+    private static final String PRIMARY_URL = PRIMARY + ";DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = REPLICA + ";DB_CLOSE_DELAY=-1";
+    private static final String DOWN_URL = "jdbc:h2:tcp://localhost:1/down";
+
+    private static EntityManagerFactory replicaEmf;
+    private static EntityManagerFactory emf;
+    private static RoutingConnectionProvider provider;
+    private static LocalJta jta;
+    private static EntityManagerFactory jtaEmf;
+    private static RoutingConnectionProvider jtaProvider;
+
+    /**
+     * The statements of the primary unit, each prefixed with the scope it ran in. A JTA unit acquires a connection
+     * per statement, so the scope of a statement decides where it goes.
+     */
+    private static final List<String> scopedStatements = Collections.synchronizedList(new ArrayList<>());
+
+    private final UserDao userDao = new UserDao();
+
+    @BeforeClass
+    public static void createDatabases() {
+        replicaEmf = Persistence.createEntityManagerFactory("cvmanagerTestPU", Map.of(
+                "jakarta.persistence.jdbc.url", REPLICA_URL));
+        emf = Persistence.createEntityManagerFactory("cvmanagerTestPU", Map.of(
+                "jakarta.persistence.jdbc.url", PRIMARY_URL,
+                "hibernate.connection.provider_class", RoutingConnectionProvider.class.getName(),
+                RoutingConnectionProvider.REPLICA_URLS, REPLICA_URL + "," + DOWN_URL,
+                RoutingConnectionProvider.REPLICA_TIMEOUT_MS, "250",
+                RoutingConnectionProvider.HEALTH_CHECK_MS, "60000",
+                "hibernate.session.events.auto", FlushRoutingListener.class.getName(),
+                // a shared cache would answer the reads of both databases
+                "hibernate.cache.use_second_level_cache", "false",
+                "hibernate.session_factory.statement_inspector", (StatementInspector) sql -> {
+                    scopedStatements.add((ReadRouting.isReadOnly() ? "read-only " : "primary ") + sql);
+                    return sql;
+                }));
+        provider = provider(emf);
+
+        jta = new LocalJta();
+        JdbcDataSource primaryDataSource = new JdbcDataSource();
+        primaryDataSource.setURL(PRIMARY_URL);
+        primaryDataSource.setUser("sa");
+        jtaEmf = Persistence.createEntityManagerFactory("cvmanagerTestPU", Map.of(
+                "jakarta.persistence.transactionType", "JTA",
+                "hibernate.transaction.jta.platform", jta,
+                "hibernate.connection.datasource", primaryDataSource,
+                "hibernate.connection.provider_class", RoutingConnectionProvider.class.getName(),
+                RoutingConnectionProvider.REPLICA_URLS, REPLICA_URL,
+                RoutingConnectionProvider.HEALTH_CHECK_MS, "60000",
+                "hibernate.session.events.auto", FlushRoutingListener.class.getName(),
+                // the schema of the primary belongs to the first unit
+                "hibernate.hbm2ddl.auto", "none"));
+        jtaProvider = provider(jtaEmf);
+
+        // the replica has an older copy of the user
+        inTransaction(emf, em -> persist(em, "alice", "alice@primary.example.com"));
+        inTransaction(replicaEmf, em -> persist(em, "alice", "alice@replica.example.com"));
+    }
+
+    @AfterClass
+    public static void closeDatabases() {
+        jtaEmf.close();
+        emf.close();
+        replicaEmf.close();
+    }
+
+    @After
+    public void endTransaction() throws SystemException {
+        if (jta.getTransactionManager().getStatus() != Status.STATUS_NO_TRANSACTION) {
+            jta.getTransactionManager().rollback();
+        }
+    }
+
+    @Test
+    public void testReadOnlyWorkGoesToAHealthyReplica() throws SQLException {
+        provider.checkHealth();
+        Assert.assertEquals(2, provider.getReplicaCount());
+        Assert.assertEquals(1, provider.getHealthyReplicaCount());
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(REPLICA, ReadRouting.readOnly(() -> url(provider)));
+        }
+        Assert.assertEquals(PRIMARY, url(provider));
+    }
+
+    @Test
+    public void testReadOnlyTransactionReadsTheReplica() {
+        long replicaAcquisitions = provider.getReplicaAcquisitions();
+
+        User alice = ReadRouting.readOnly(() -> inTransaction(emf, em -> userDao.findOne("username", "alice", em).orElseThrow()));
+
+        Assert.assertEquals("alice@replica.example.com", alice.getEmail());
+        Assert.assertEquals(replicaAcquisitions + 1, provider.getReplicaAcquisitions());
+    }
+
+    @Test
+    public void testReadsOfAWritingTransactionStayOnThePrimary() {
+        inTransaction(emf, em -> {
+            persist(em, "bob", "bob@primary.example.com");
+            em.flush();
+            Assert.assertTrue("reads its own write", userDao.findOne("username", "bob", em).isPresent());
+            Assert.assertEquals("alice@primary.example.com", userDao.findOne("username", "alice", em).orElseThrow().getEmail());
+            return null;
+        });
+    }
+
+    @Test
+    public void testFlushOfAReadLeavesTheReadOnlyScope() {
+        inTransaction(emf, em -> persist(em, "dave", "dave@primary.example.com"));
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            scopedStatements.clear();
+            User dave = userDao.findOne("username", "dave", em).orElseThrow();
+            dave.setEmail("dave@new.example.com");
+            // the query flushes the change first, which must not happen on a replica
+            userDao.findOne("email", "alice@primary.example.com", em).orElseThrow();
+            em.flush();
+            em.getTransaction().rollback();
+        } finally {
+            em.close();
+        }
+
+        List<String> scopes = scopedStatements.stream()
+                .map(statement -> String.join(" ", List.of(statement.split(" ", 3)).subList(0, 2)).toLowerCase(Locale.ROOT))
+                .toList();
+        Assert.assertEquals(List.of("read-only select", "primary update", "read-only select"), scopes);
+    }
+
+    @Test
+    public void testJtaTransactionStaysOnThePrimaryOnceItWrites() throws Exception {
+        inTransaction(emf, em -> persist(em, "frank", "frank@primary.example.com"));
+        inTransaction(replicaEmf, em -> persist(em, "frank", "frank@replica.example.com"));
+        TransactionManager transactionManager = jta.getTransactionManager();
+        jtaEmf.getCache().evictAll();
+
+        transactionManager.begin();
+        EntityManager em = jtaEmf.createEntityManager();
+        try {
+            long replicaAcquisitions = jtaProvider.getReplicaAcquisitions();
+            User frank = userDao.findOne("username", "frank", em).orElseThrow();
+            Assert.assertEquals("frank@replica.example.com", frank.getEmail());
+            Assert.assertEquals(replicaAcquisitions + 1, jtaProvider.getReplicaAcquisitions());
+
+            // the query flushes the change on the primary, which then answers the rest of the transaction
+            frank.setEmail("frank@new.example.com");
+            Assert.assertTrue(userDao.findOne("email", "frank@new.example.com", em).isPresent());
+            Assert.assertEquals("alice@primary.example.com", userDao.findOne("username", "alice", em).orElseThrow().getEmail());
+            Assert.assertEquals(replicaAcquisitions + 1, jtaProvider.getReplicaAcquisitions());
+            transactionManager.commit();
+        } finally {
+            em.close();
+        }
+
+        jtaEmf.getCache().evictAll();
+        transactionManager.begin();
+        em = jtaEmf.createEntityManager();
+        try {
+            Assert.assertEquals("a new transaction reads the replica again",
+                    "frank@replica.example.com", userDao.findOne("username", "frank", em).orElseThrow().getEmail());
+            transactionManager.commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void testReplicaReadsAreNotCached() throws Exception {
+        TransactionManager transactionManager = jta.getTransactionManager();
+        jtaEmf.getCache().evictAll();
+
+        transactionManager.begin();
+        EntityManager em = jtaEmf.createEntityManager();
+        User alice;
+        try {
+            alice = userDao.findOne("username", "alice", em).orElseThrow();
+            Assert.assertEquals("alice@replica.example.com", alice.getEmail());
+            transactionManager.commit();
+        } finally {
+            em.close();
+        }
+        Assert.assertFalse(jtaEmf.getCache().contains(User.class, alice.getId()));
+
+        em = jtaEmf.createEntityManager();
+        try {
+            // outside of a transaction the read goes to the primary
+            Assert.assertEquals("alice@primary.example.com", userDao.find(alice.getId(), em).orElseThrow().getEmail());
+        } finally {
+            em.close();
+        }
+        Assert.assertTrue(jtaEmf.getCache().contains(User.class, alice.getId()));
+    }
+
+    @Test
+    public void testNestedReadOnlyWorkStaysOnThePrimary() throws SQLException {
+        Connection primary = provider.getConnection();
+        try {
+            Assert.assertEquals(PRIMARY, ReadRouting.readOnly(() -> url(provider)));
+        } finally {
+            provider.closeConnection(primary);
+        }
+        Assert.assertEquals(REPLICA, ReadRouting.readOnly(() -> url(provider)));
+    }
+
+    @Test
+    public void testReadsGoToThePrimaryWithoutHealthyReplica() throws SQLException {
+        RoutingConnectionProvider downOnly = new RoutingConnectionProvider();
+        downOnly.configure(Map.of(
+                "jakarta.persistence.jdbc.url", PRIMARY_URL,
+                "jakarta.persistence.jdbc.user", "sa",
+                RoutingConnectionProvider.REPLICA_URLS, DOWN_URL,
+                RoutingConnectionProvider.REPLICA_TIMEOUT_MS, "250"));
+        try {
+            Assert.assertEquals(PRIMARY, ReadRouting.readOnly(() -> url(downOnly)));
+            Assert.assertEquals(1, downOnly.getReplicaFailures());
+            Assert.assertEquals(0, downOnly.getHealthyReplicaCount());
+
+            Assert.assertEquals("the replica is skipped", PRIMARY, ReadRouting.readOnly(() -> url(downOnly)));
+            Assert.assertEquals(1, downOnly.getReplicaFailures());
+        } finally {
+            downOnly.stop();
+        }
+    }
+
+    @Test
+    public void testReadsOutsideOfATransactionDoNotTieTheEntityManagerToTheReplica() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            Assert.assertEquals("alice@primary.example.com", userDao.findOne("username", "alice", em).orElseThrow().getEmail());
+            em.getTransaction().begin();
+            persist(em, "carol", "carol@primary.example.com");
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+        Assert.assertTrue(inTransaction(emf, em2 -> userDao.findOne("username", "carol", em2).isPresent()));
+    }
+
+    private static RoutingConnectionProvider provider(EntityManagerFactory factory) {
+        return (RoutingConnectionProvider) factory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(ConnectionProvider.class);
+    }
+
+    private static String url(RoutingConnectionProvider provider) {
+        try {
+            Connection connection = provider.getConnection();
+            try {
+                return connection.getMetaData().getURL();
+            } finally {
+                provider.closeConnection(connection);
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Void persist(EntityManager em, String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setEmail(email);
+        em.persist(user);
+        return null;
+    }
+
+    private static <T> T inTransaction(EntityManagerFactory factory, Function<EntityManager, T> work) {
+        EntityManager em = factory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            T result = work.apply(em);
+            em.getTransaction().commit();
+            return result;
+        } finally {
+            em.close();
+        }
+    }
+}
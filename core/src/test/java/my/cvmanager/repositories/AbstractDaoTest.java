@@ -0,0 +1,110 @@
+package my.cvmanager.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.User;
+import my.cvmanager.domain.UserProfile;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for DAO tests against the in-memory H2 unit.
+ */
+public abstract class AbstractDaoTest {
+
+    protected static EntityManagerFactory emf;
+    protected EntityManager em;
+    protected final TechnologyCatalog catalog = new TechnologyCatalog();
+
+    @BeforeClass
+    public static void createEntityManagerFactory() {
+        emf = Persistence.createEntityManagerFactory("cvmanagerTestPU");
+    }
+
+    @AfterClass
+    public static void closeEntityManagerFactory() {
+        emf.close();
+    }
+
+    @Before
+    public void setUp() {
+        em = emf.createEntityManager();
+        inTransaction(() -> {
+            em.createQuery("delete from Technology").executeUpdate();
+            em.createQuery("delete from TechnologyName").executeUpdate();
+            em.createQuery("delete from Position").executeUpdate();
+            em.createQuery("delete from UserProfile").executeUpdate();
+            em.createQuery("delete from User").executeUpdate();
+            em.createQuery("delete from ImportProgress").executeUpdate();
+        });
+    }
+
+    @After
+    public void tearDown() {
+        em.close();
+    }
+
+    protected void inTransaction(Runnable block) {
+        em.getTransaction().begin();
+        block.run();
+        em.getTransaction().commit();
+    }
+
+    protected List<User> createUsers(String prefix, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setUsername(prefix + i);
+            user.setPassword("secret");
+            user.setEmail(prefix + i + "@example.com");
+            users.add(user);
+        }
+        return users;
+    }
+
+    /**
+     * Creates the profile of Marco, an engineer since 2020 with Java at level AA.
+     *
+     * @return the ID of the profile
+     */
+    protected Long createProfile() {
+        return createProfile("Marco", "Java", Technology.Level.AA);
+    }
+
+    /**
+     * Creates a profile with one position, an engineer since 2020, and clears the persistence context.
+     *
+     * @param firstName the first name
+     * @param skills    the technologies of the position, alternating name and {@link Technology.Level}
+     * @return the ID of the profile
+     */
+    protected Long createProfile(String firstName, Object... skills) {
+        UserProfile profile = new UserProfile();
+        profile.setFirstName(firstName);
+        Position position = new Position();
+        position.setTitle("Engineer");
+        position.setStartDate(LocalDate.of(2020, 1, 1));
+        profile.addPosition(position);
+        for (int i = 0; i < skills.length; i += 2) {
+            Technology technology = new Technology();
+            technology.setName((String) skills[i]);
+            technology.setLevel((Technology.Level) skills[i + 1]);
+            position.addTechnology(technology);
+        }
+        inTransaction(() -> {
+            catalog.resolve(profile, em);
+            em.persist(profile);
+        });
+        em.clear();
+        return profile.getId();
+    }
+}
@@ -0,0 +1,67 @@
+package my.cvmanager.repositories;
+
+import my.cvmanager.domain.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+public class BaseDaoBatchTest extends AbstractDaoTest {
+    Logger logger = Logger.getLogger(BaseDaoBatchTest.class.getName());
+
+    private static final int USERS = 500;
+
+    private final UserDao userDao = new UserDao();
+
+    @Test
+    public void testPersistAllUsesFewerStatementsThanSinglePersist() {
+        long single = countStatements(() -> {
+            for (User user : createUsers("single", USERS)) {
+                inTransaction(() -> userDao.persist(user, em));
+            }
+        });
+
+        long batched = countStatements(() -> inTransaction(() -> userDao.persistAll(createUsers("batched", USERS), em)));
+
+        logger.info("persist: " + single + " statements one-at-a-time, " + batched + " with persistAll");
+        Assert.assertEquals(2L * USERS, countUsers());
+        Assert.assertTrue(batched * 10 < single);
+    }
+
+    @Test
+    public void testUpdateAllAndDeleteAll() {
+        inTransaction(() -> userDao.persistAll(createUsers("user", USERS), em));
+
+        List<User> users = userDao.loadAll(em);
+        users.forEach(user -> user.setLoggedIn(true));
+        em.clear();
+
+        long updated = countStatements(() -> inTransaction(() -> userDao.updateAll(users, em)));
+        Assert.assertTrue(userDao.loadAll(em).stream().allMatch(User::isLoggedIn));
+
+        em.clear();
+        inTransaction(() -> userDao.deleteAll(users, em));
+
+        logger.info("updateAll: " + updated + " statements for " + USERS + " users");
+        Assert.assertEquals(0L, countUsers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchSizeMustBePositive() {
+        userDao.setBatchSize(0);
+    }
+
+    private long countUsers() {
+        return em.createQuery("select count(u) from User u", Long.class).getSingleResult();
+    }
+
+    private long countStatements(Runnable block) {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        block.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
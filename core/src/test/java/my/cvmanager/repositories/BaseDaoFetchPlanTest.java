@@ -0,0 +1,70 @@
+package my.cvmanager.repositories;
+
+import my.cvmanager.domain.FetchPlan;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.testsupport.QueryCounter;
+import my.cvmanager.testsupport.QueryReport;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BaseDaoFetchPlanTest extends AbstractDaoTest {
+
+    private final BaseDao<UserProfile> profileDao = new BaseDao<>(UserProfile.class);
+
+    @Test
+    public void testFullCvLoadsGraphInFixedNumberOfStatements() {
+        Assert.assertEquals(2, countStatementsForFullCv(createProfile(3)));
+        Assert.assertEquals(2, countStatementsForFullCv(createProfile(40)));
+    }
+
+    @Test
+    public void testSummaryDoesNotLoadPositions() {
+        UserProfile profile = profileDao.find(createProfile(3), FetchPlan.SUMMARY, em).orElseThrow();
+        Assert.assertFalse(emf.getPersistenceUnitUtil().isLoaded(profile, "positions"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownPlan() {
+        profileDao.find(1L, "unknown", em);
+    }
+
+    private long countStatementsForFullCv(Long profileId) {
+        QueryReport report = QueryCounter.record(emf, () -> {
+            UserProfile profile = profileDao.find(profileId, FetchPlan.FULL_CV, em).orElseThrow();
+            int technologies = 0;
+            for (Position position : profile.getPositions()) {
+                technologies += position.getTechnologies().size();
+            }
+            Assert.assertEquals(profile.getPositions().size() * 2, technologies);
+        });
+        report.assertNoNPlusOne();
+        return report.getStatementCount();
+    }
+
+    private Long createProfile(int positions) {
+        UserProfile profile = new UserProfile();
+        profile.setFirstName("Marco");
+        profile.setLastName("Braun");
+        for (int i = 0; i < positions; i++) {
+            Position position = new Position();
+            position.setTitle("Software Engineer " + i);
+            position.setUser(profile);
+            profile.addPosition(position);
+            for (String name : new String[]{"Java", "Kotlin"}) {
+                Technology technology = new Technology();
+                technology.setName(name);
+                technology.setLevel(Technology.Level.AA);
+                technology.setPosition(position);
+                position.addTechnology(technology);
+            }
+        }
+        inTransaction(() -> {
+            catalog.resolve(profile, em);
+            profileDao.persist(profile, em);
+        });
+        em.clear();
+        return profile.getId();
+    }
+}
@@ -0,0 +1,66 @@
+package my.cvmanager.repositories;
+
+import jakarta.persistence.PersistenceException;
+import my.cvmanager.domain.User;
+import my.cvmanager.util.OperationMetrics;
+import my.cvmanager.util.OperationStats;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class BaseDaoMetricsTest extends AbstractDaoTest {
+
+    private final UserDao userDao = new UserDao();
+
+    @Test
+    public void testOperationsAreRecorded() {
+        OperationStats persistAll = OperationMetrics.global().operation("dao.User.persistAll");
+        OperationStats findOne = OperationMetrics.global().operation("dao.User.findOne");
+        persistAll.reset();
+        findOne.reset();
+
+        inTransaction(() -> userDao.persistAll(createUsers("metrics", 3), em));
+        em.clear();
+        Assert.assertTrue(userDao.findOne("email", "metrics1@example.com", em).isPresent());
+
+        Assert.assertEquals(1, persistAll.getCount());
+        Assert.assertTrue(persistAll.getStatements() >= 1);
+        Assert.assertEquals(1, findOne.getCount());
+        Assert.assertEquals(1, findOne.getStatements());
+        Assert.assertTrue(findOne.getLatency().getMaxNanos() > 0);
+    }
+
+    @Test
+    public void testErrorsAreCounted() {
+        OperationStats persist = OperationMetrics.global().operation("dao.User.persist");
+        persist.reset();
+        User user = createUsers("error", 1).get(0);
+        inTransaction(() -> userDao.persist(user, em));
+        em.clear();
+
+        em.getTransaction().begin();
+        try {
+            userDao.persist(user, em); // detached
+            Assert.fail();
+        } catch (PersistenceException expected) {
+            // counted below
+        } finally {
+            em.getTransaction().rollback();
+        }
+        Assert.assertEquals(2, persist.getCount());
+        Assert.assertEquals(1, persist.getErrors());
+    }
+
+    @Test
+    public void testBulkOperationDoesNotRecordSingleOperations() {
+        inTransaction(() -> userDao.persistAll(createUsers("bulk", 3), em));
+        List<User> users = userDao.loadAll(em);
+        em.clear();
+
+        OperationStats update = OperationMetrics.global().operation("dao.User.update");
+        update.reset();
+        inTransaction(() -> userDao.updateAll(users, em));
+        Assert.assertEquals(0, update.getCount());
+    }
+}
@@ -0,0 +1,51 @@
+package my.cvmanager.repositories;
+
+import my.cvmanager.domain.User;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class BaseDaoPagingTest extends AbstractDaoTest {
+
+    private static final int USERS = 120;
+
+    private final UserDao userDao = new UserDao();
+
+    @Test
+    public void testStreamAllReadsEveryEntity() {
+        inTransaction(() -> userDao.persistAll(createUsers("user", USERS), em));
+
+        userDao.setBatchSize(25);
+        try (Stream<User> users = userDao.streamAll(em)) {
+            Assert.assertEquals(USERS, users.map(User::getUsername).distinct().count());
+        }
+    }
+
+    @Test
+    public void testLoadPageWalksAllEntitiesInIdOrder() {
+        inTransaction(() -> userDao.persistAll(createUsers("user", USERS), em));
+
+        List<Long> ids = new ArrayList<>();
+        Page<User> page = userDao.loadPage(null, 50, em);
+        ids.addAll(page.content().stream().map(User::getId).toList());
+        while (page.hasNext()) {
+            page = userDao.loadPage(page.lastId(), 50, em);
+            ids.addAll(page.content().stream().map(User::getId).toList());
+        }
+
+        Assert.assertEquals(USERS, ids.size());
+        Assert.assertEquals(ids.stream().sorted().toList(), ids);
+        Assert.assertEquals(20, page.content().size());
+    }
+
+    @Test
+    public void testLoadPageOnEmptyTable() {
+        Page<User> page = userDao.loadPage(null, 10, em);
+        Assert.assertTrue(page.content().isEmpty());
+        Assert.assertFalse(page.hasNext());
+        Assert.assertNull(page.lastId());
+    }
+}
@@ -0,0 +1,51 @@
+package my.cvmanager.repositories;
+
+import my.cvmanager.domain.User;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BaseDaoQueryCacheTest extends AbstractDaoTest {
+
+    private final UserDao userDao = new UserDao();
+
+    @Test
+    public void testFindOneReusesPreparedQuery() {
+        inTransaction(() -> userDao.persistAll(createUsers("user", 3), em));
+
+        Assert.assertEquals("user1", userDao.findOne("email", "user1@example.com", em).orElseThrow().getUsername());
+        Assert.assertEquals("user2", userDao.findOne("email", "user2@example.com", em).orElseThrow().getUsername());
+        Assert.assertTrue(userDao.findOne("email", "unknown@example.com", em).isEmpty());
+
+        Assert.assertEquals(1, userDao.getQueryCacheStatistics().getMisses());
+        Assert.assertEquals(2, userDao.getQueryCacheStatistics().getHits());
+    }
+
+    @Test
+    public void testFindOneByAttributesIgnoresParameterOrder() {
+        inTransaction(() -> userDao.persistAll(createUsers("user", 3), em));
+
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("username", "user0");
+        params.put("email", "user0@example.com");
+        User user = userDao.findOne(params, em).orElseThrow();
+
+        Map<String, Object> reversed = new LinkedHashMap<>();
+        reversed.put("email", "user0@example.com");
+        reversed.put("username", "user0");
+        Assert.assertEquals(user.getId(), userDao.findOne(reversed, em).orElseThrow().getId());
+
+        reversed.put("username", "user1");
+        Assert.assertTrue(userDao.findOne(reversed, em).isEmpty());
+
+        Assert.assertEquals(1, userDao.getQueryCacheStatistics().getMisses());
+        Assert.assertEquals(2, userDao.getQueryCacheStatistics().getHits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindOneRejectsUnknownAttribute() {
+        userDao.findOne("nickname", "user0", em);
+    }
+}
@@ -0,0 +1,112 @@
+package my.cvmanager.repositories;
+
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.RollbackException;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.User;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.testsupport.QueryCounter;
+import my.cvmanager.testsupport.QueryReport;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+public class BaseDaoUpdateTest extends AbstractDaoTest {
+
+    private final UserDao userDao = new UserDao();
+    private final BaseDao<Technology> technologyDao = new BaseDao<>(Technology.class);
+
+    @Test
+    public void testUpdateOfManagedEntityWritesOnlyTheChangedColumn() {
+        inTransaction(() -> userDao.persistAll(createUsers("user", 1), em));
+
+        QueryReport report = QueryCounter.record(emf, () -> inTransaction(() -> {
+            User user = userDao.findOne("username", "user0", em).orElseThrow();
+            user.setLoggedIn(true);
+            Assert.assertSame(user, userDao.update(user, em));
+        }));
+
+        String update = report.getStatements().stream().filter(sql -> sql.startsWith("update")).findFirst().orElseThrow();
+        Assert.assertEquals("update users set loggedIn=?,version=? where id=? and version=?", update);
+        em.clear();
+        Assert.assertEquals(1L, (long) userDao.findOne("username", "user0", em).orElseThrow().getVersion());
+    }
+
+    @Test
+    public void testUpdateOfStaleDetachedEntityFails() {
+        inTransaction(() -> userDao.persistAll(createUsers("user", 1), em));
+        User stale = userDao.findOne("username", "user0", em).orElseThrow();
+        em.clear();
+        inTransaction(() -> userDao.findOne("username", "user0", em).orElseThrow().setEmail("changed@example.com"));
+        em.clear();
+
+        stale.setLoggedIn(true);
+        em.getTransaction().begin();
+        try {
+            userDao.update(stale, em);
+            em.getTransaction().commit();
+            Assert.fail("the stale user must not overwrite the concurrent change");
+        } catch (OptimisticLockException | RollbackException expected) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateWhereIsASingleStatement() {
+        inTransaction(() -> userDao.persistAll(createUsers("user", 20), em));
+        inTransaction(() -> userDao.updateWhere("username", List.of("user0", "user1", "user2"), "loggedIn", true, em));
+
+        QueryReport report = QueryCounter.record(emf, () -> inTransaction(() ->
+                Assert.assertEquals(3, userDao.updateWhere("loggedIn", true, "loggedIn", false, em))));
+
+        Assert.assertEquals(1, report.getStatementCount());
+        Assert.assertTrue(report.getEntityFetches().isEmpty());
+        em.clear();
+        Assert.assertTrue(userDao.loadAll(em).stream().noneMatch(User::isLoggedIn));
+        Assert.assertEquals("versions are incremented", 2L,
+                (long) userDao.findOne("username", "user1", em).orElseThrow().getVersion());
+        Assert.assertEquals(0, userDao.updateWhere("id", List.of(), "loggedIn", true, em));
+    }
+
+    @Test
+    public void testUpdateWhereOfAPartIncrementsTheRoots() {
+        Long java = createProfile("Marco", "Java", Technology.Level.AA);
+        Long go = createProfile("Marco", "Go", Technology.Level.AA);
+
+        int updated = inTransactionReturning(() -> technologyDao.updateWhere(
+                Map.of("technologyName", catalog.resolve("Java", em), "level", Technology.Level.AA),
+                Map.of("level", Technology.Level.AAA), em));
+
+        Assert.assertEquals(1, updated);
+        em.clear();
+        Assert.assertEquals(Technology.Level.AAA, technology(java).getLevel());
+        Assert.assertEquals(1L, version(java));
+        Assert.assertEquals(0L, version(go));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpdateWhereRejectsUnknownAttributes() {
+        inTransaction(() -> userDao.updateWhere("username", "user0", "nickname", "x", em));
+    }
+
+    private int inTransactionReturning(IntSupplier block) {
+        int[] result = new int[1];
+        inTransaction(() -> result[0] = block.getAsInt());
+        return result[0];
+    }
+
+    private Technology technology(Long profileId) {
+        return em.find(UserProfile.class, profileId).getPositions().get(0).getTechnologies().get(0);
+    }
+
+    private long version(Long profileId) {
+        return em.createQuery("select p.version from UserProfile p where p.id = :id", Long.class)
+                .setParameter("id", profileId)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,160 @@
+package my.cvmanager.repositories;
+
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.TechnologyName;
+import my.cvmanager.domain.UserProfile;
+import jakarta.persistence.EntityManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+public class TechnologyCatalogTest extends AbstractDaoTest {
+
+    private final BaseDao<UserProfile> profileDao = new BaseDao<>(UserProfile.class);
+
+    @Test
+    public void testSameNameIsStoredOnce() {
+        UserProfile profile = new UserProfile();
+        for (int i = 0; i < 3; i++) {
+            Position position = new Position();
+            position.setTitle("Position " + i);
+            profile.addPosition(position);
+            position.addTechnology(technology("Java", Technology.Level.AAA));
+            position.addTechnology(technology(" Java ", Technology.Level.A));
+        }
+        inTransaction(() -> {
+            catalog.resolve(profile, em);
+            profileDao.persist(profile, em);
+        });
+        em.clear();
+
+        Assert.assertEquals(1L, (long) em.createQuery("select count(n) from TechnologyName n", Long.class).getSingleResult());
+        Assert.assertEquals(6L, (long) em.createQuery("select count(t) from Technology t where t.technologyName.name = 'Java'", Long.class).getSingleResult());
+    }
+
+    @Test
+    public void testLevelIsComparedAsOrdinal() {
+        Position position = new Position();
+        position.setTitle("Engineer");
+        position.addTechnology(technology("Java", Technology.Level.AAA));
+        position.addTechnology(technology("Kotlin", Technology.Level.AA));
+        position.addTechnology(technology("Go", Technology.Level.A));
+        UserProfile profile = new UserProfile();
+        profile.addPosition(position);
+        inTransaction(() -> {
+            catalog.resolve(profile, em);
+            profileDao.persist(profile, em);
+        });
+        em.clear();
+
+        long atLeastAa = em.createQuery("select count(t) from Technology t where t.level <= :level", Long.class)
+                .setParameter("level", Technology.Level.AA)
+                .getSingleResult();
+        Assert.assertEquals(2L, atLeastAa);
+        Assert.assertTrue(Technology.Level.AAA.isAtLeast(Technology.Level.AA));
+        Assert.assertFalse(Technology.Level.A.isAtLeast(Technology.Level.AA));
+        Assert.assertEquals(Technology.Level.AA, Technology.Level.fromCode("AA"));
+    }
+
+    @Test
+    public void testResolvedNameIsCached() {
+        TechnologyName first = inTransactionResult(() -> catalog.resolve("Java", em));
+        em.clear();
+        TechnologyName second = inTransactionResult(() -> catalog.resolve("Java", em));
+        Assert.assertEquals(first.getId(), second.getId());
+        Assert.assertTrue(catalog.find("Java", em).isPresent());
+        Assert.assertFalse(catalog.find("Cobol", em).isPresent());
+    }
+
+    @Test
+    public void testRolledBackNameIsNotCached() {
+        em.getTransaction().begin();
+        catalog.resolve("Rust", em);
+        em.flush();
+        em.getTransaction().rollback();
+        em.clear();
+
+        TechnologyName entry = inTransactionResult(() -> catalog.resolve("Rust", em));
+        em.clear();
+        Assert.assertEquals("Rust", em.find(TechnologyName.class, entry.getId()).getName());
+    }
+
+    @Test
+    public void testNameCreatedConcurrentlyIsLookedUp() {
+        TechnologyName existing = inTransactionResult(() -> new TechnologyCatalog().resolve("Scala", em));
+        em.clear();
+        AtomicBoolean stale = new AtomicBoolean(true);
+        TechnologyCatalog racing = new TechnologyCatalog() {
+            @Override
+            public Optional<TechnologyName> find(String name, EntityManager em) {
+                // looked up before the other transaction committed the name
+                return stale.getAndSet(false) ? Optional.empty() : super.find(name, em);
+            }
+        };
+        Position position = new Position();
+        position.setTitle("Engineer");
+        position.addTechnology(technology("Scala", Technology.Level.AA));
+        UserProfile profile = new UserProfile();
+        profile.addPosition(position);
+
+        inTransaction(() -> {
+            racing.resolve(profile, em);
+            profileDao.persist(profile, em);
+        });
+        em.clear();
+
+        Assert.assertFalse(stale.get());
+        Assert.assertEquals(List.of(existing.getId()), em.createQuery(
+                "select t.technologyName.id from Technology t", Integer.class).getResultList());
+        Assert.assertEquals(1L, (long) em.createQuery("select count(n) from TechnologyName n", Long.class).getSingleResult());
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        TechnologyCatalog small = new TechnologyCatalog(2);
+        for (String name : List.of("Java", "Kotlin", "Go")) {
+            inTransaction(() -> small.resolve(name, em));
+        }
+        Assert.assertEquals(2, small.size());
+        Assert.assertEquals("Java", inTransactionResult(() -> small.resolve("Java", em)).getName());
+    }
+
+    @Test
+    public void testTooLongNameIsRejected() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> catalog.resolve("x".repeat(101), em));
+        Assert.assertEquals(TechnologyCatalog.MAX_NAME_LENGTH,
+                inTransactionResult(() -> catalog.resolve(" " + "x".repeat(100) + " ", em)).getName().length());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnresolvedNameIsRejected() {
+        Position position = new Position();
+        position.addTechnology(technology("Java", Technology.Level.AAA));
+        UserProfile profile = new UserProfile();
+        profile.addPosition(position);
+        em.getTransaction().begin();
+        try {
+            profileDao.persist(profile, em);
+        } finally {
+            em.getTransaction().rollback();
+        }
+    }
+
+    private TechnologyName inTransactionResult(Supplier<TechnologyName> block) {
+        TechnologyName[] result = new TechnologyName[1];
+        inTransaction(() -> result[0] = block.get());
+        return result[0];
+    }
+
+    private static Technology technology(String name, Technology.Level level) {
+        Technology technology = new Technology();
+        technology.setName(name);
+        technology.setLevel(level);
+        return technology;
+    }
+}
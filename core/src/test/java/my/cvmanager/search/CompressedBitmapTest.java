@@ -0,0 +1,109 @@
+package my.cvmanager.search;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+public class CompressedBitmapTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testOperationsMatchBitSet() {
+        // sparse, dense and mixed chunks, so all container combinations meet
+        for (int round = 0; round < 20; round++) {
+            BitSet expectedA = new BitSet();
+            BitSet expectedB = new BitSet();
+            CompressedBitmap a = new CompressedBitmap();
+            CompressedBitmap b = new CompressedBitmap();
+            fill(a, expectedA, round % 2 == 0 ? 3_000 : 20_000);
+            fill(b, expectedB, round % 3 == 0 ? 500 : 12_000);
+
+            assertSame(expectedA, a);
+            assertSame(and(expectedA, expectedB), a.and(b));
+            assertSame(or(expectedA, expectedB), a.or(b));
+            assertSame(andNot(expectedA, expectedB), a.andNot(b));
+            assertSame(andNot(expectedB, expectedA), b.andNot(a));
+            assertSame(expectedA, a);
+        }
+    }
+
+    @Test
+    public void testContainersChangeKindBothWays() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value = 0; value < 2 * CompressedBitmap.ARRAY_MAX; value += 2) {
+            bitmap.set(value);
+        }
+        Assert.assertEquals(CompressedBitmap.ARRAY_MAX, bitmap.cardinality());
+        bitmap.set(1);
+        Assert.assertEquals(CompressedBitmap.ARRAY_MAX + 1, bitmap.cardinality());
+        Assert.assertTrue(bitmap.get(1));
+        bitmap.clear(1);
+        bitmap.clear(1);
+        Assert.assertEquals(CompressedBitmap.ARRAY_MAX, bitmap.cardinality());
+        Assert.assertFalse(bitmap.get(1));
+        Assert.assertTrue(bitmap.get(2 * CompressedBitmap.ARRAY_MAX - 2));
+
+        for (int value = 0; value < 2 * CompressedBitmap.ARRAY_MAX; value += 2) {
+            bitmap.clear(value);
+        }
+        Assert.assertTrue(bitmap.isEmpty());
+        Assert.assertArrayEquals(new long[0], bitmap.toArray());
+    }
+
+    @Test
+    public void testSparseBitmapStaysSmall() {
+        // one profile in a thousand over a million IDs, like a rare technology
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet bitSet = new BitSet();
+        for (int value = 999; value < 1_000_000; value += 1000) {
+            bitmap.set(value);
+            bitSet.set(value);
+        }
+        Assert.assertEquals(1000, bitmap.cardinality());
+        Assert.assertTrue(bitmap.sizeInBytes() + " bytes", bitmap.sizeInBytes() < 8 * 1024);
+        Assert.assertTrue(bitSet.size() / 8 > 100 * 1024);
+
+        bitmap.set(Integer.MAX_VALUE);
+        Assert.assertEquals(Integer.MAX_VALUE, bitmap.toArray()[1000]);
+    }
+
+    private void fill(CompressedBitmap bitmap, BitSet expected, int count) {
+        for (int i = 0; i < count; i++) {
+            // most values in the first two chunks, some far away
+            int value = i % 10 == 0 ? random.nextInt(1 << 24) : random.nextInt(1 << 17);
+            bitmap.set(value);
+            expected.set(value);
+        }
+        for (int i = 0; i < count / 10; i++) {
+            int value = random.nextInt(1 << 17);
+            bitmap.clear(value);
+            expected.clear(value);
+        }
+    }
+
+    private static void assertSame(BitSet expected, CompressedBitmap actual) {
+        Assert.assertEquals(expected.cardinality(), actual.cardinality());
+        Assert.assertArrayEquals(expected.stream().asLongStream().toArray(), actual.toArray());
+    }
+
+    private static BitSet and(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.and(b);
+        return result;
+    }
+
+    private static BitSet or(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.or(b);
+        return result;
+    }
+
+    private static BitSet andNot(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.andNot(b);
+        return result;
+    }
+}
@@ -0,0 +1,62 @@
+package my.cvmanager.search;
+
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.repositories.AbstractDaoTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static my.cvmanager.search.SkillQuery.has;
+import static my.cvmanager.search.SkillQuery.not;
+
+public class SkillIndexTest extends AbstractDaoTest {
+
+    private final SkillIndex index = new SkillIndex();
+
+    @Test
+    public void testRebuildAndQuery() {
+        Long javaKotlin = createProfile("Kai", "Java", Technology.Level.AA, "Kotlin", Technology.Level.A);
+        Long javaExpert = createProfile("Eva", "Java", Technology.Level.AAA);
+        Long javaJunior = createProfile("Jan", "Java", Technology.Level.A, "Go", Technology.Level.AAA);
+        Long none = createProfile("Nina");
+
+        Assert.assertEquals(4, index.rebuild(em));
+
+        assertIds(index.search(has("Java", Technology.Level.AA)), javaKotlin, javaExpert);
+        assertIds(index.search(has("java")), javaKotlin, javaExpert, javaJunior);
+        assertIds(index.search(has("Java", Technology.Level.AA).and(has("Kotlin"))), javaKotlin);
+        assertIds(index.search(has("Kotlin").or(has("Go", Technology.Level.AAA))), javaKotlin, javaJunior);
+        assertIds(index.search(has("Java").andNot(has("Kotlin"))), javaExpert, javaJunior);
+        assertIds(index.search(not(has("Java"))), none);
+        Assert.assertEquals(0, index.count(has("Cobol")));
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        Long profile = createProfile("Marco", "Java", Technology.Level.A);
+        index.rebuild(em);
+        Assert.assertEquals(0, index.count(has("Java", Technology.Level.AAA)));
+
+        inTransaction(() -> {
+            UserProfile managed = em.find(UserProfile.class, profile);
+            managed.getPositions().get(0).getTechnologies().get(0).setLevel(Technology.Level.AAA);
+            index.index(managed);
+        });
+        assertIds(index.search(has("Java", Technology.Level.AAA)), profile);
+
+        index.remove(profile);
+        Assert.assertEquals(0, index.count(has("Java")));
+        Assert.assertEquals(0, index.size());
+    }
+
+    private static void assertIds(long[] actual, Long... expected) {
+        long[] ids = new long[expected.length];
+        for (int i = 0; i < expected.length; i++) {
+            ids[i] = expected[i];
+        }
+        Arrays.sort(ids);
+        Assert.assertArrayEquals(ids, actual);
+    }
+}
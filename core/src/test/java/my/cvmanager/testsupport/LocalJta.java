@@ -0,0 +1,196 @@
+package my.cvmanager.testsupport;
+
+import jakarta.transaction.HeuristicMixedException;
+import jakarta.transaction.HeuristicRollbackException;
+import jakarta.transaction.RollbackException;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.Transaction;
+import jakarta.transaction.TransactionManager;
+import jakarta.transaction.UserTransaction;
+import org.hibernate.engine.transaction.jta.platform.spi.JtaPlatform;
+
+import javax.transaction.xa.XAResource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A JTA platform for tests: thread-bound transactions without resources, which only call their synchronizations.
+ * The connections of a unit on this platform commit on their own, so a rollback undoes nothing in the database.
+ * Registered with {@code hibernate.transaction.jta.platform}.
+ */
+public class LocalJta implements JtaPlatform {
+
+    private final LocalTransactionManager transactionManager = new LocalTransactionManager();
+
+    /**
+     * Returns the transaction manager of the platform.
+     *
+     * @return the transaction manager
+     */
+    public TransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    @Override
+    public TransactionManager retrieveTransactionManager() {
+        return transactionManager;
+    }
+
+    @Override
+    public UserTransaction retrieveUserTransaction() {
+        return null;
+    }
+
+    @Override
+    public Object getTransactionIdentifier(Transaction transaction) {
+        return transaction;
+    }
+
+    @Override
+    public boolean canRegisterSynchronization() {
+        return transactionManager.current.get() != null;
+    }
+
+    @Override
+    public void registerSynchronization(Synchronization synchronization) {
+        try {
+            transactionManager.getTransaction().registerSynchronization(synchronization);
+        } catch (RollbackException | SystemException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public int getCurrentStatus() throws SystemException {
+        return transactionManager.getStatus();
+    }
+
+    private static final class LocalTransactionManager implements TransactionManager {
+
+        private final ThreadLocal<LocalTransaction> current = new ThreadLocal<>();
+
+        @Override
+        public void begin() {
+            if (current.get() != null) {
+                throw new IllegalStateException("Transaction already active");
+            }
+            current.set(new LocalTransaction());
+        }
+
+        @Override
+        public void commit() throws RollbackException {
+            LocalTransaction transaction = active();
+            try {
+                // a synchronization may register another one while the transaction completes
+                for (int i = 0; i < transaction.synchronizations.size(); i++) {
+                    transaction.synchronizations.get(i).beforeCompletion();
+                }
+            } catch (RuntimeException ex) {
+                current.remove();
+                transaction.complete(Status.STATUS_ROLLEDBACK);
+                throw (RollbackException) new RollbackException(ex.getMessage()).initCause(ex);
+            }
+            current.remove();
+            if (transaction.status == Status.STATUS_MARKED_ROLLBACK) {
+                transaction.complete(Status.STATUS_ROLLEDBACK);
+                throw new RollbackException("Transaction marked for rollback");
+            }
+            transaction.complete(Status.STATUS_COMMITTED);
+        }
+
+        @Override
+        public void rollback() {
+            LocalTransaction transaction = active();
+            current.remove();
+            transaction.complete(Status.STATUS_ROLLEDBACK);
+        }
+
+        private LocalTransaction active() {
+            LocalTransaction transaction = current.get();
+            if (transaction == null) {
+                throw new IllegalStateException("No transaction");
+            }
+            return transaction;
+        }
+
+        @Override
+        public int getStatus() {
+            LocalTransaction transaction = current.get();
+            return transaction == null ? Status.STATUS_NO_TRANSACTION : transaction.status;
+        }
+
+        @Override
+        public Transaction getTransaction() {
+            return current.get();
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            active().setRollbackOnly();
+        }
+
+        @Override
+        public void setTransactionTimeout(int seconds) {
+        }
+
+        @Override
+        public Transaction suspend() {
+            LocalTransaction transaction = current.get();
+            current.remove();
+            return transaction;
+        }
+
+        @Override
+        public void resume(Transaction transaction) {
+            current.set((LocalTransaction) transaction);
+        }
+    }
+
+    private static final class LocalTransaction implements Transaction {
+
+        private final List<Synchronization> synchronizations = new ArrayList<>();
+        private int status = Status.STATUS_ACTIVE;
+
+        private void complete(int outcome) {
+            status = outcome;
+            List.copyOf(synchronizations).forEach(synchronization -> synchronization.afterCompletion(outcome));
+        }
+
+        @Override
+        public void commit() throws HeuristicMixedException, HeuristicRollbackException, RollbackException {
+            throw new UnsupportedOperationException("Commit through the transaction manager");
+        }
+
+        @Override
+        public void rollback() {
+            throw new UnsupportedOperationException("Roll back through the transaction manager");
+        }
+
+        @Override
+        public boolean delistResource(XAResource resource, int flag) {
+            return false;
+        }
+
+        @Override
+        public boolean enlistResource(XAResource resource) {
+            return false;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public void registerSynchronization(Synchronization synchronization) {
+            synchronizations.add(synchronization);
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            status = Status.STATUS_MARKED_ROLLBACK;
+        }
+    }
+}
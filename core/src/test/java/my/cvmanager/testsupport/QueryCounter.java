@@ -0,0 +1,97 @@
+package my.cvmanager.testsupport;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the SQL statements of a block of test code and asserts on them, to catch fetch regressions:
+ * <pre>{@code
+ * QueryCounter.record(emf, () -> dao.find(id, FetchPlan.FULL_CV, em))
+ *         .assertAtMost(2)
+ *         .assertNoNPlusOne();
+ * }</pre>
+ * The unit must use {@link SqlRecorder} as statement inspector and have {@code hibernate.generate_statistics}
+ * enabled. The statistics are global, so the block should not run in parallel with other database work.
+ */
+public final class QueryCounter {
+
+    private QueryCounter() {
+    }
+
+    /**
+     * Runs a block and records the statements it issues on the current thread.
+     *
+     * @param emf   the entity manager factory the block works with
+     * @param block the block
+     * @return the recorded statements
+     */
+    public static QueryReport record(EntityManagerFactory emf, Runnable block) {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            throw new IllegalStateException("hibernate.generate_statistics must be enabled");
+        }
+        Map<String, Long> collectionFetches = collectionFetches(statistics);
+        Map<String, Long> entityFetches = entityFetches(statistics);
+
+        List<String> statements;
+        SqlRecorder.start();
+        try {
+            block.run();
+        } finally {
+            statements = SqlRecorder.stop();
+        }
+
+        Map<String, Long> collectionFetchesDuring = new TreeMap<>();
+        collectionFetches(statistics).forEach((role, count) ->
+                collectionFetchesDuring.put(role, count - collectionFetches.getOrDefault(role, 0L)));
+        Map<String, Long> entityFetchesDuring = new TreeMap<>();
+        entityFetches(statistics).forEach((entity, count) ->
+                entityFetchesDuring.put(entity, count - entityFetches.getOrDefault(entity, 0L)));
+        return new QueryReport(statements, collectionFetchesDuring, entityFetchesDuring);
+    }
+
+    /**
+     * Asserts that a block issues at most a number of statements.
+     *
+     * @param emf           the entity manager factory the block works with
+     * @param maxStatements the maximum number of statements
+     * @param block         the block
+     * @return the recorded statements
+     */
+    public static QueryReport assertAtMost(EntityManagerFactory emf, int maxStatements, Runnable block) {
+        return record(emf, block).assertAtMost(maxStatements);
+    }
+
+    /**
+     * Asserts that a block does not repeat a select, which is the pattern of N+1 loading.
+     *
+     * @param emf   the entity manager factory the block works with
+     * @param block the block
+     * @return the recorded statements
+     */
+    public static QueryReport assertNoNPlusOne(EntityManagerFactory emf, Runnable block) {
+        return record(emf, block).assertNoNPlusOne();
+    }
+
+    private static Map<String, Long> collectionFetches(Statistics statistics) {
+        Map<String, Long> fetches = new HashMap<>();
+        for (String role : statistics.getCollectionRoleNames()) {
+            fetches.put(role, statistics.getCollectionStatistics(role).getFetchCount());
+        }
+        return fetches;
+    }
+
+    private static Map<String, Long> entityFetches(Statistics statistics) {
+        Map<String, Long> fetches = new HashMap<>();
+        for (String entity : statistics.getEntityNames()) {
+            fetches.put(entity, statistics.getEntityStatistics(entity).getFetchCount());
+        }
+        return fetches;
+    }
+}
@@ -0,0 +1,69 @@
+package my.cvmanager.testsupport;
+
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.repositories.AbstractDaoTest;
+import my.cvmanager.repositories.BaseDao;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class QueryCounterTest extends AbstractDaoTest {
+
+    private static final int PROFILES = 5;
+
+    private final BaseDao<UserProfile> profileDao = new BaseDao<>(UserProfile.class);
+
+    @Test
+    public void testAssertAtMost() {
+        createProfiles();
+        QueryReport report = QueryCounter.assertAtMost(emf, 1, () -> profileDao.loadAll(em));
+        Assert.assertEquals(1, report.getStatementCount());
+
+        em.clear();
+        try {
+            QueryCounter.assertAtMost(emf, 0, () -> profileDao.loadAll(em));
+            Assert.fail();
+        } catch (AssertionError expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().startsWith("Expected at most 0 statements but got 1"));
+        }
+    }
+
+    @Test
+    public void testNPlusOneIsReportedWithAssociation() {
+        createProfiles();
+        QueryReport report = QueryCounter.record(emf, () -> {
+            List<UserProfile> profiles = profileDao.loadAll(em);
+            for (UserProfile profile : profiles) {
+                profile.getPositions().size();
+            }
+        });
+
+        Assert.assertEquals(1 + PROFILES, report.getStatementCount());
+        Assert.assertEquals(Integer.valueOf(PROFILES), report.getRepeatedSelects().values().iterator().next());
+        Assert.assertEquals(Long.valueOf(PROFILES), report.getCollectionFetches().get(UserProfile.class.getName() + ".positions"));
+        try {
+            report.assertNoNPlusOne();
+            Assert.fail();
+        } catch (AssertionError expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains(PROFILES + "x select"));
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("UserProfile.positions=" + PROFILES));
+        }
+        report.assertNoNPlusOne(PROFILES);
+    }
+
+    private void createProfiles() {
+        inTransaction(() -> {
+            for (int i = 0; i < PROFILES; i++) {
+                UserProfile profile = new UserProfile();
+                profile.setLastName("Profile " + i);
+                Position position = new Position();
+                position.setTitle("Engineer");
+                profile.addPosition(position);
+                profileDao.persist(profile, em);
+            }
+        });
+        em.clear();
+    }
+}
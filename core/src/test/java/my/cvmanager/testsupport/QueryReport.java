@@ -0,0 +1,145 @@
+package my.cvmanager.testsupport;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The statements a block of test code issued, recorded by {@link QueryCounter}, together with the collections and
+ * entities Hibernate fetched meanwhile.
+ */
+public class QueryReport {
+
+    private final List<String> statements;
+    private final Map<String, Long> collectionFetches;
+    private final Map<String, Long> entityFetches;
+
+    QueryReport(List<String> statements, Map<String, Long> collectionFetches, Map<String, Long> entityFetches) {
+        this.statements = List.copyOf(statements);
+        this.collectionFetches = withoutZeros(collectionFetches);
+        this.entityFetches = withoutZeros(entityFetches);
+    }
+
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    public int getStatementCount() {
+        return statements.size();
+    }
+
+    /**
+     * Returns the number of separate loads per collection role, e.g. {@code my.cvmanager.domain.Position.technologies}.
+     *
+     * @return the fetch counts of the collections fetched at least once
+     */
+    public Map<String, Long> getCollectionFetches() {
+        return collectionFetches;
+    }
+
+    /**
+     * Returns the number of separate loads per entity, e.g. lazy or eager to-one associations.
+     *
+     * @return the fetch counts of the entities fetched at least once
+     */
+    public Map<String, Long> getEntityFetches() {
+        return entityFetches;
+    }
+
+    /**
+     * Returns the selects that were issued more than once. The statements are parameterized, so a repeated
+     * select only differed by its bind values.
+     *
+     * @return the number of executions per repeated select, in order of the first execution
+     */
+    public Map<String, Integer> getRepeatedSelects() {
+        Map<String, Integer> executions = new LinkedHashMap<>();
+        for (String statement : statements) {
+            if (isSelect(statement)) {
+                executions.merge(statement, 1, Integer::sum);
+            }
+        }
+        executions.values().removeIf(count -> count < 2);
+        return executions;
+    }
+
+    /**
+     * Asserts that at most a number of statements were issued.
+     *
+     * @param maxStatements the maximum number of statements
+     * @return this report
+     * @throws AssertionError if more statements were issued
+     */
+    public QueryReport assertAtMost(int maxStatements) {
+        if (statements.size() > maxStatements) {
+            throw new AssertionError("Expected at most " + maxStatements + " statements but got " + statements.size()
+                    + describe());
+        }
+        return this;
+    }
+
+    /**
+     * Asserts that no select was issued more than once.
+     *
+     * @return this report
+     * @throws AssertionError if a select was repeated
+     */
+    public QueryReport assertNoNPlusOne() {
+        return assertNoNPlusOne(1);
+    }
+
+    /**
+     * Asserts that no select was issued more than a number of times.
+     * Use a limit above 1 for blocks that legitimately run the same select a few times, e.g. in batches.
+     *
+     * @param maxExecutions the maximum number of executions of the same select
+     * @return this report
+     * @throws AssertionError if a select was issued more often
+     */
+    public QueryReport assertNoNPlusOne(int maxExecutions) {
+        Map<String, Integer> repeated = getRepeatedSelects();
+        repeated.values().removeIf(count -> count <= maxExecutions);
+        if (!repeated.isEmpty()) {
+            StringBuilder message = new StringBuilder("N+1 selects detected:");
+            repeated.forEach((sql, count) -> message.append("\n  ").append(count).append("x ").append(sql));
+            throw new AssertionError(message.append(describe()).toString());
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return statements.size() + " statements" + describe();
+    }
+
+    /**
+     * Describes the associations that were loaded separately, which are the usual culprits, and all statements.
+     */
+    private String describe() {
+        StringBuilder description = new StringBuilder();
+        if (!collectionFetches.isEmpty()) {
+            description.append("\ncollections fetched separately: ").append(collectionFetches);
+        }
+        if (!entityFetches.isEmpty()) {
+            description.append("\nentities fetched separately: ").append(entityFetches);
+        }
+        description.append("\nstatements:");
+        for (int i = 0; i < statements.size(); i++) {
+            description.append("\n  ").append(i + 1).append(": ").append(statements.get(i));
+        }
+        return description.toString();
+    }
+
+    private static boolean isSelect(String statement) {
+        String sql = statement.stripLeading().toLowerCase(Locale.ROOT);
+        return sql.startsWith("select") || sql.startsWith("with");
+    }
+
+    private static Map<String, Long> withoutZeros(Map<String, Long> fetches) {
+        Map<String, Long> result = new LinkedHashMap<>(fetches);
+        result.values().removeIf(count -> count == 0);
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -0,0 +1,35 @@
+package my.cvmanager.testsupport;
+
+import my.cvmanager.util.StatementCounter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statement inspector of the test units: counts like {@link StatementCounter} and additionally collects the SQL of
+ * the current thread while a {@link QueryCounter} records.
+ * Registered with {@code hibernate.session_factory.statement_inspector}.
+ */
+public class SqlRecorder extends StatementCounter {
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> recorded = RECORDED.get();
+        if (recorded != null) {
+            recorded.add(sql);
+        }
+        return super.inspect(sql);
+    }
+
+    static void start() {
+        RECORDED.set(new ArrayList<>());
+    }
+
+    static List<String> stop() {
+        List<String> recorded = RECORDED.get();
+        RECORDED.remove();
+        return recorded == null ? List.of() : recorded;
+    }
+}
@@ -0,0 +1,130 @@
+package my.cvmanager.util;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.RollbackException;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.repositories.AbstractDaoTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class AggregateVersionTest extends AbstractDaoTest {
+
+
+    @Test
+    public void testNewProfileStartsAtFirstVersion() {
+        Long id = createProfile();
+        Assert.assertEquals(0L, version(id));
+    }
+
+    @Test
+    public void testChangingAPartIncrementsTheRoot() {
+        Long id = createProfile();
+
+        inTransaction(() -> technology(id).setLevel(Technology.Level.AAA));
+        em.clear();
+        Assert.assertEquals(1L, version(id));
+        Assert.assertEquals(1L, (long) technology(id).getVersion());
+        em.clear();
+
+        inTransaction(() -> {
+            UserProfile profile = em.find(UserProfile.class, id);
+            profile.getPositions().get(0).setTitle("Architect");
+            profile.getPositions().get(0).getTechnologies().get(0).setLevel(Technology.Level.A);
+        });
+        em.clear();
+        Assert.assertEquals("one increment per transaction", 2L, version(id));
+    }
+
+    @Test
+    public void testAddingAndRemovingAPartIncrementsTheRoot() {
+        Long id = createProfile();
+
+        inTransaction(() -> {
+            Position position = new Position();
+            position.setTitle("Lead");
+            em.find(UserProfile.class, id).addPosition(position);
+        });
+        em.clear();
+        Assert.assertEquals(1L, version(id));
+
+        inTransaction(() -> em.find(UserProfile.class, id).getPositions().removeIf(p -> "Lead".equals(p.getTitle())));
+        em.clear();
+        Assert.assertEquals(2L, version(id));
+        Assert.assertEquals(1, em.find(UserProfile.class, id).getPositions().size());
+    }
+
+    @Test
+    public void testMovingAPartIncrementsBothRoots() {
+        Long from = createProfile();
+        Long to = createProfile("Anna");
+
+        inTransaction(() -> {
+            Position position = em.find(UserProfile.class, from).getPositions().get(0);
+            position.setUser(em.find(UserProfile.class, to));
+        });
+        em.clear();
+
+        Assert.assertEquals(1L, version(from));
+        Assert.assertEquals(1L, version(to));
+    }
+
+    @Test
+    public void testMovingATechnologyToAnotherProfileIncrementsBothRoots() {
+        Long from = createProfile();
+        Long to = createProfile("Anna", "Go", Technology.Level.A);
+
+        inTransaction(() -> technology(from).setPosition(em.find(UserProfile.class, to).getPositions().get(0)));
+        em.clear();
+
+        Assert.assertEquals(1L, version(from));
+        Assert.assertEquals(1L, version(to));
+    }
+
+    @Test
+    public void testRemovingTheRoot() {
+        Long id = createProfile();
+        inTransaction(() -> em.remove(em.find(UserProfile.class, id)));
+        Assert.assertNull(em.find(UserProfile.class, id));
+    }
+
+    @Test
+    public void testConcurrentChangesOfDifferentPartsConflict() {
+        Long id = createProfile();
+        inTransaction(() -> {
+            Position position = new Position();
+            position.setTitle("Lead");
+            em.find(UserProfile.class, id).addPosition(position);
+        });
+        em.clear();
+
+        EntityManager other = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.find(UserProfile.class, id).getPositions().get(0).setTitle("Architect");
+
+            other.getTransaction().begin();
+            other.find(UserProfile.class, id).getPositions().get(1).setTitle("Manager");
+            other.getTransaction().commit();
+
+            em.getTransaction().commit();
+            Assert.fail("the second change of the same profile must fail");
+        } catch (RollbackException expected) {
+            Assert.assertEquals(2L, version(id));
+        } finally {
+            other.close();
+        }
+    }
+
+    private Technology technology(Long profileId) {
+        return em.find(UserProfile.class, profileId).getPositions().get(0).getTechnologies().get(0);
+    }
+
+    private long version(Long profileId) {
+        return em.createQuery("select p.version from UserProfile p where p.id = :id", Long.class)
+                .setParameter("id", profileId)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,72 @@
+package my.cvmanager.util;
+
+import org.hibernate.SessionFactory;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class HibernateUtilTest {
+
+    @BeforeClass
+    public static void configure() {
+        HibernateUtil.configure(Map.of(
+                "hibernate.connection.url", "jdbc:h2:mem:hibernate-util;DB_CLOSE_DELAY=-1",
+                "hibernate.connection.username", "sa",
+                "hibernate.connection.password", "",
+                "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                "hibernate.hbm2ddl.auto", "create-drop"));
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        HibernateUtil.shutdown();
+    }
+
+    @Test
+    public void testConcurrentCallsBuildOneFactory() throws Exception {
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        Set<SessionFactory> factories = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return factories.add(HibernateUtil.getSessionFactory());
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(1, factories.size());
+        Assert.assertTrue(HibernateUtil.getBootstrapTimings().totalNanos() > 0);
+        Assert.assertEquals(HibernateUtil.ANNOTATED_CLASSES.size(),
+                HibernateUtil.getMetadata().getEntityBindings().size());
+        long users = HibernateUtil.getSessionFactory().fromSession(session ->
+                session.createSelectionQuery("select count(u) from User u", Long.class).getSingleResult());
+        Assert.assertEquals(0L, users);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testConfigureAfterBootstrapFails() {
+        HibernateUtil.getSessionFactory();
+        HibernateUtil.configure(Map.of("hibernate.show_sql", "true"));
+    }
+}
@@ -0,0 +1,38 @@
+package my.cvmanager.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBoundsContainTheirValues() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789L, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            Assert.assertTrue(value <= LatencyHistogram.upperBoundOf(bucket));
+            Assert.assertTrue(bucket == 0 || value > LatencyHistogram.upperBoundOf(bucket - 1));
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(1_000_000, histogram.getMaxNanos());
+        Assert.assertEquals(500_500, histogram.getMeanNanos(), 0.1);
+        Assert.assertEquals(500_000, histogram.getPercentileNanos(50), 500_000 * 0.07);
+        Assert.assertEquals(990_000, histogram.getPercentileNanos(99), 990_000 * 0.07);
+        Assert.assertEquals(1_000_000, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getPercentileNanos(99));
+        Assert.assertEquals(0, histogram.getMeanNanos(), 0);
+    }
+}
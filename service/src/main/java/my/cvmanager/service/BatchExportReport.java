@@ -0,0 +1,27 @@
+package my.cvmanager.service;
+
+/**
+ * Result of a {@link CvBatchExporter} run.
+ *
+ * @param exported     the number of written documents
+ * @param missing      the number of profiles that did not exist
+ * @param failed       the number of profiles that could not be exported
+ * @param elapsedNanos the duration of the run
+ */
+public record BatchExportReport(int exported, int missing, int failed, long elapsedNanos) {
+
+    /**
+     * Returns the written documents per second.
+     *
+     * @return the throughput
+     */
+    public double throughput() {
+        return elapsedNanos == 0 ? 0 : exported / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("exported=%d, missing=%d, failed=%d, elapsed=%d ms, throughput=%.1f/s",
+                exported, missing, failed, elapsedNanos / 1_000_000, throughput());
+    }
+}
@@ -0,0 +1,161 @@
+package my.cvmanager.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ContextService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import my.cvmanager.pool.ConcurrencyLimiter;
+import my.cvmanager.pool.PooledConnectionProvider;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * This class runs blocking service calls, which wait for JDBC, off the request threads of the container.
+ * <p>
+ * By default every call gets a virtual thread of its own, so waiting for the database does not tie up a platform
+ * thread. A {@link ConcurrencyLimiter} in front of the connection pool bounds how many calls use the database at a
+ * time; the other calls wait for a permit on their virtual thread. With {@value #VIRTUAL_THREADS_PROPERTY} set to
+ * false the calls run on a fixed pool of {@value #PLATFORM_THREADS_PROPERTY} platform threads instead, for
+ * comparison. The wait timeout is read from {@value #TIMEOUT_PROPERTY}.
+ * <p>
+ * The limit must match the connection pool the calls use, which for the JTA unit is the pool of the container data
+ * source. It is read from {@value #MAX_CONCURRENCY_PROPERTY}, as system property or property of the persistence unit,
+ * or else from the {@code cvmanager.pool.max_size} of the unit's own pool; without any of them the executor does
+ * not start.
+ * <p>
+ * In the container the calls run with the context of the request, e.g. its naming and security context, captured by
+ * the default {@link ContextService}; transactions are not propagated, the called services start their own.
+ */
+@ApplicationScoped
+public class BlockingCallExecutor {
+
+    public static final String VIRTUAL_THREADS_PROPERTY = "cvmanager.executor.virtual_threads";
+    public static final String PLATFORM_THREADS_PROPERTY = "cvmanager.executor.platform_threads";
+    public static final String MAX_CONCURRENCY_PROPERTY = "cvmanager.executor.max_concurrency";
+    public static final String TIMEOUT_PROPERTY = "cvmanager.executor.timeout_ms";
+
+    /**
+     * The default number of platform threads, the size of a typical container worker pool.
+     */
+    public static final int DEFAULT_PLATFORM_THREADS = 32;
+
+    /**
+     * The context service of the container, null outside of it.
+     */
+    @Resource
+    private ContextService contextService;
+
+    /**
+     * The persistence unit the calls use, for the size of its connection pool.
+     */
+    @PersistenceUnit(unitName = "cvmanagerPU")
+    private EntityManagerFactory emf;
+
+    private final boolean virtualThreads;
+    private final ExecutorService executor;
+    private ConcurrencyLimiter limiter;
+
+    /**
+     * Creates an executor configured from the system properties; the limiter is created once the persistence unit
+     * is injected, see {@link #createLimiter()}.
+     */
+    public BlockingCallExecutor() {
+        this(Boolean.parseBoolean(System.getProperty(VIRTUAL_THREADS_PROPERTY, "true")),
+                Integer.getInteger(PLATFORM_THREADS_PROPERTY, DEFAULT_PLATFORM_THREADS), null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param virtualThreads  true to run every call on a virtual thread of its own, false for a platform thread pool
+     * @param platformThreads the number of platform threads, ignored with virtual threads
+     * @param limiter         the limiter in front of the connection pool
+     */
+    public BlockingCallExecutor(boolean virtualThreads, int platformThreads, ConcurrencyLimiter limiter) {
+        this.virtualThreads = virtualThreads;
+        this.limiter = limiter;
+        if (virtualThreads) {
+            this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cv-call-", 1).factory());
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(platformThreads, runnable -> {
+                Thread thread = new Thread(runnable, "cv-call-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Creates the limiter sized for the connection pool of the persistence unit.
+     *
+     * @throws IllegalStateException if the size of the pool is not configured
+     */
+    @PostConstruct
+    void createLimiter() {
+        if (limiter == null) {
+            limiter = new ConcurrencyLimiter(maxConcurrency(emf.getProperties()),
+                    Duration.ofMillis(Long.getLong(TIMEOUT_PROPERTY, 2000)));
+        }
+    }
+
+    /**
+     * Returns the limit of concurrent calls, see the class comment.
+     *
+     * @param unitProperties the properties of the persistence unit
+     * @return the limit
+     * @throws IllegalStateException if the limit is not configured
+     */
+    static int maxConcurrency(Map<String, Object> unitProperties) {
+        Object configured = System.getProperty(MAX_CONCURRENCY_PROPERTY);
+        if (configured == null) {
+            configured = unitProperties.get(MAX_CONCURRENCY_PROPERTY);
+        }
+        if (configured == null) {
+            configured = unitProperties.get(PooledConnectionProvider.MAX_SIZE);
+        }
+        if (configured == null) {
+            throw new IllegalStateException("Set " + MAX_CONCURRENCY_PROPERTY
+                    + " to the maximum size of the connection pool of the persistence unit");
+        }
+        return Integer.parseInt(configured.toString().trim());
+    }
+
+    /**
+     * Runs a call asynchronously once the limiter admits it.
+     *
+     * @param call the blocking call
+     * @param <T>  the type of the result
+     * @return the result; completes exceptionally with a {@link my.cvmanager.pool.ConcurrencyLimitException} if
+     * the call was not admitted in time
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> call) {
+        Supplier<T> contextual = contextService != null ? contextService.contextualSupplier(call) : call;
+        return CompletableFuture.supplyAsync(() -> limiter.call(contextual), executor);
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Stops the executor; running calls are finished.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,19 @@
+package my.cvmanager.service;
+
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+import my.cvmanager.pool.ConcurrencyLimitException;
+
+/**
+ * Answers calls that were not admitted by the {@link my.cvmanager.pool.ConcurrencyLimiter} with
+ * {@code 503 Service Unavailable}, asking the client to retry after a second.
+ */
+@Provider
+public class ConcurrencyLimitExceptionMapper implements ExceptionMapper<ConcurrencyLimitException> {
+
+    @Override
+    public Response toResponse(ConcurrencyLimitException exception) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE).header("Retry-After", "1").build();
+    }
+}
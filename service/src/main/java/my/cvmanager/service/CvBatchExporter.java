@@ -0,0 +1,217 @@
+package my.cvmanager.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import my.cvmanager.domain.FetchPlan;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.repositories.BaseDao;
+import my.cvmanager.util.HibernateUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * This class exports the CVs of many profiles as PDF files in parallel, for batch jobs outside of the container.
+ * Every worker thread loads its profiles with its own entity manager. The work queue is bounded; when it is full
+ * the submitting thread renders the next profile itself, so a large run does not queue up all profiles at once.
+ * <p>
+ * A document is written to a temporary file next to its target and moved into place once it is complete, so a
+ * failed or interrupted export never leaves a partial {@code cv-<id>.pdf} behind. Runs from the command line with
+ * {@link #main(String[])}.
+ */
+public class CvBatchExporter implements AutoCloseable {
+
+    /**
+     * The logger instance for this class.
+     */
+    private final Logger logger = Logger.getLogger(CvBatchExporter.class.getName());
+
+    private final EntityManagerFactory emf;
+    private final ThreadPoolExecutor executor;
+    private final BaseDao<UserProfile> profileDataProvider = new BaseDao<>(UserProfile.class);
+    private final CvPdfRenderer renderer;
+
+    /**
+     * Creates an exporter with one thread per core.
+     *
+     * @param emf the entity manager factory to load the profiles with
+     */
+    public CvBatchExporter(EntityManagerFactory emf) {
+        this(emf, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param emf     the entity manager factory to load the profiles with
+     * @param threads the number of export threads
+     */
+    public CvBatchExporter(EntityManagerFactory emf, int threads) {
+        this(emf, threads, new CvPdfRenderer());
+    }
+
+    /**
+     * Constructor for testing purposes.
+     *
+     * @param emf      the entity manager factory to load the profiles with
+     * @param threads  the number of export threads
+     * @param renderer the renderer of the documents
+     */
+    CvBatchExporter(EntityManagerFactory emf, int threads, CvPdfRenderer renderer) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+        }
+        this.emf = emf;
+        this.renderer = renderer;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cv-export-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Exports all profiles.
+     *
+     * @param directory    the directory to write the files {@code cv-<id>.pdf} to
+     * @param templateName the name of the layout, see {@link CvTemplate}
+     * @return the report of the run
+     */
+    public BatchExportReport exportAll(Path directory, String templateName) {
+        List<Long> ids;
+        EntityManager em = emf.createEntityManager();
+        try {
+            ids = em.createQuery("select p.id from UserProfile p order by p.id", Long.class).getResultList();
+        } finally {
+            em.close();
+        }
+        return export(ids, directory, templateName);
+    }
+
+    /**
+     * Exports profiles.
+     *
+     * @param profileIds   the IDs of the profiles
+     * @param directory    the directory to write the files {@code cv-<id>.pdf} to
+     * @param templateName the name of the layout, see {@link CvTemplate}
+     * @return the report of the run
+     */
+    public BatchExportReport export(List<Long> profileIds, Path directory, String templateName) {
+        CvTemplate template = CvTemplate.get(templateName);
+        long start = System.nanoTime();
+        LongAdder exported = new LongAdder();
+        LongAdder missing = new LongAdder();
+        LongAdder failed = new LongAdder();
+
+        List<Future<?>> futures = new ArrayList<>(profileIds.size());
+        for (Long profileId : profileIds) {
+            futures.add(executor.submit(() -> {
+                try {
+                    if (exportOne(profileId, directory.resolve("cv-" + profileId + ".pdf"), template)) {
+                        exported.increment();
+                    } else {
+                        missing.increment();
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    failed.increment();
+                    logger.warning("Error exporting profile " + profileId + ": " + ex.getMessage());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Export interrupted", ex);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Export failed", ex.getCause());
+            }
+        }
+
+        BatchExportReport report = new BatchExportReport(exported.intValue(), missing.intValue(), failed.intValue(),
+                System.nanoTime() - start);
+        logger.info(() -> "CV export finished: " + report);
+        return report;
+    }
+
+    private boolean exportOne(Long profileId, Path file, CvTemplate template) throws IOException {
+        EntityManager em = emf.createEntityManager();
+        try {
+            Optional<UserProfile> profile = profileDataProvider.find(profileId, FetchPlan.FULL_CV, em);
+            if (profile.isEmpty()) {
+                return false;
+            }
+            Path temporary = Files.createTempFile(file.getParent(), file.getFileName() + ".", ".tmp");
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                    renderer.render(profile.get(), template, out);
+                }
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            return true;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Stops the export threads.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Exports the CVs of all profiles from the command line, with the database of {@link HibernateUtil}.
+     * <p>
+     * Usage: {@code CvBatchExporter <directory> [<template> [<threads>]]}. The directory is created if it does not
+     * exist; the template defaults to {@value CvTemplate#DEFAULT} and the threads to one per core. Exits with 1 if
+     * a profile could not be exported.
+     *
+     * @param args the command line arguments
+     * @throws IOException if the directory cannot be created
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: CvBatchExporter <directory> [<template> [<threads>]]");
+            System.exit(2);
+        }
+        Path directory = Files.createDirectories(Path.of(args[0]));
+        String templateName = args.length > 1 ? args[1] : CvTemplate.DEFAULT;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        BatchExportReport report;
+        try (CvBatchExporter exporter = new CvBatchExporter(HibernateUtil.getSessionFactory(), threads)) {
+            report = exporter.exportAll(directory, templateName);
+        } finally {
+            HibernateUtil.shutdown();
+        }
+        System.out.println(report);
+        if (report.failed() > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package my.cvmanager.service;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+/**
+ * This class serves the CV of a profile as PDF download under {@code /api/profiles/{id}/cv/export}.
+ * <p>
+ * Unlike the preview of the {@link CvPreviewResource}, the document is not cached: the {@link CvExportService}
+ * renders it straight to the response while it is sent.
+ */
+@Path("/profiles/{id: \\d+}/cv/export")
+public class CvExportResource {
+
+    /**
+     * The content type of the PDF documents.
+     */
+    public static final String PDF = "application/pdf";
+
+    /**
+     * The export service instance for this class.
+     */
+    @Inject
+    private CvExportService exportService;
+
+    /**
+     * Returns the CV of a profile as PDF attachment.
+     *
+     * @param profileId    the ID of the profile
+     * @param templateName the name of the layout, see {@link CvTemplate}
+     * @return the streaming response
+     * @throws NotFoundException   if the profile does not exist
+     * @throws BadRequestException if there is no template with this name
+     */
+    @GET
+    @Produces(PDF)
+    public Response export(@PathParam("id") Long profileId,
+                           @QueryParam("template") @DefaultValue(CvTemplate.DEFAULT) String templateName) {
+        try {
+            CvTemplate.get(templateName);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage());
+        }
+        // the status is sent with the first byte, so a missing profile is answered before the document
+        if (!exportService.exists(profileId)) {
+            throw new NotFoundException();
+        }
+        StreamingOutput body = output -> exportService.export(profileId, templateName, output);
+        return Response.ok(body)
+                .header("Content-Disposition", "attachment; filename=\"cv-" + profileId + ".pdf\"")
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package my.cvmanager.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import my.cvmanager.domain.FetchPlan;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.repositories.BaseDao;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * This class exports the CV of a profile as PDF, for the downloads of the {@link CvExportResource}.
+ * For exports of many profiles outside of the container see {@link CvBatchExporter}.
+ */
+@ApplicationScoped
+@Monitored
+public class CvExportService {
+
+    /**
+     * The entity manager instance for this class.
+     */
+    @PersistenceContext(unitName = "cvmanagerPU")
+    private EntityManager em;
+
+    /**
+     * The profile data provider instance for this class.
+     */
+    private final BaseDao<UserProfile> profileDataProvider = new BaseDao<>(UserProfile.class);
+
+    /**
+     * The renderer of the PDF documents.
+     */
+    private final CvPdfRenderer renderer = new CvPdfRenderer();
+
+    public CvExportService() {
+    }
+
+    /**
+     * Constructor for testing purposes.
+     *
+     * @param em the entity manager
+     */
+    CvExportService(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Checks if a profile exists with a single query, without loading the profile.
+     *
+     * @param profileId the ID of the profile
+     * @return true if the profile exists, false otherwise
+     */
+    public boolean exists(Long profileId) {
+        List<Long> ids = em.createQuery("select p.id from UserProfile p where p.id = :id", Long.class)
+                .setParameter("id", profileId)
+                .getResultList();
+        return !ids.isEmpty();
+    }
+
+    /**
+     * Writes the CV of a profile as PDF to a stream.
+     *
+     * @param profileId    the ID of the profile
+     * @param templateName the name of the layout, see {@link CvTemplate}
+     * @param out          the stream to write to, not closed by this method
+     * @return true if the profile exists and has been written, false otherwise
+     */
+    @Transactional
+    public boolean export(Long profileId, String templateName, OutputStream out) {
+        CvTemplate template = CvTemplate.get(templateName);
+        Optional<UserProfile> profile = profileDataProvider.find(profileId, FetchPlan.FULL_CV, em);
+        profile.ifPresent(p -> renderer.render(p, template, out));
+        return profile.isPresent();
+    }
+}
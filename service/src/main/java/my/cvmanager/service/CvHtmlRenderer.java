@@ -0,0 +1,125 @@
+package my.cvmanager.service;
+
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.UserProfile;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.StringJoiner;
+
+/**
+ * This class renders a profile with its positions and technologies as an HTML page, the preview of the CV.
+ * The content has the same structure as the PDF of {@link CvPdfRenderer}. The renderer is stateless and can be used
+ * by several threads.
+ */
+public class CvHtmlRenderer {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/yyyy");
+
+    /**
+     * Renders a profile.
+     *
+     * @param profile the profile, with its positions and technologies loaded
+     * @return the page, encoded as UTF-8
+     */
+    public byte[] render(UserProfile profile) {
+        StringBuilder html = new StringBuilder(4096)
+                .append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"utf-8\">\n<title>")
+                .append(escape(fullName(profile)))
+                .append("</title>\n</head>\n<body>\n<article class=\"cv\">\n<h1>")
+                .append(escape(fullName(profile)))
+                .append("</h1>\n");
+        element(html, "p class=\"contact\"", contact(profile));
+        element(html, "p class=\"summary\"", profile.getSummary());
+
+        if (!profile.getPositions().isEmpty()) {
+            html.append("<section>\n<h2>Experience</h2>\n");
+            for (Position position : profile.getPositions()) {
+                addPosition(html, position);
+            }
+            html.append("</section>\n");
+        }
+        return html.append("</article>\n</body>\n</html>\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void addPosition(StringBuilder html, Position position) {
+        html.append("<div class=\"position\">\n<h3>").append(escape(position.getTitle()));
+        if (hasText(position.getCompany())) {
+            html.append(" <span class=\"company\">- ").append(escape(position.getCompany())).append("</span>");
+        }
+        html.append("</h3>\n");
+
+        StringJoiner details = new StringJoiner(" | ");
+        if (position.getStartDate() != null) {
+            details.add(DATE_FORMAT.format(position.getStartDate()) + " - "
+                    + (position.getEndDate() == null ? "today" : DATE_FORMAT.format(position.getEndDate())));
+        }
+        if (hasText(position.getLocation())) {
+            details.add(position.getLocation());
+        }
+        element(html, "p class=\"details\"", details.toString());
+        element(html, "p", position.getDescription());
+
+        if (!position.getTechnologies().isEmpty()) {
+            html.append("<ul class=\"technologies\">\n");
+            for (Technology technology : position.getTechnologies()) {
+                element(html, "li", technology.getLevel() == null
+                        ? technology.getName()
+                        : technology.getName() + " (" + technology.getLevel().code() + ")");
+            }
+            html.append("</ul>\n");
+        }
+        html.append("</div>\n");
+    }
+
+    private static void element(StringBuilder html, String tag, String text) {
+        if (hasText(text)) {
+            int nameEnd = tag.indexOf(' ');
+            html.append('<').append(tag).append('>')
+                    .append(escape(text))
+                    .append("</").append(nameEnd < 0 ? tag : tag.substring(0, nameEnd)).append(">\n");
+        }
+    }
+
+    static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '&' -> escaped.append("&amp;");
+                case '"' -> escaped.append("&quot;");
+                case '\'' -> escaped.append("&#39;");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String fullName(UserProfile profile) {
+        return (nullToEmpty(profile.getFirstName()) + " " + nullToEmpty(profile.getLastName())).trim();
+    }
+
+    private static String contact(UserProfile profile) {
+        StringJoiner contact = new StringJoiner(" | ");
+        for (String value : new String[]{profile.getEmail(), profile.getPhone(), profile.getLocation()}) {
+            if (hasText(value)) {
+                contact.add(value);
+            }
+        }
+        return contact.toString();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
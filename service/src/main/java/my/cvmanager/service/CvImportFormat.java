@@ -0,0 +1,49 @@
+package my.cvmanager.service;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The input formats of the {@link CvImportPipeline}.
+ */
+public enum CvImportFormat {
+
+    /**
+     * One profile per line as JSON, the format written by {@link ProfileNdjsonWriter}.
+     */
+    NDJSON,
+
+    /**
+     * Comma separated values with a header line and one line per position. Consecutive lines with the same value in
+     * the first column belong to the same profile; the profile columns are taken from its first line. The
+     * technologies of a position are separated by semicolons, each with an optional level, e.g. {@code Java:AA;SQL}.
+     */
+    CSV;
+
+    /**
+     * The columns of the {@link #CSV} format, in this order.
+     */
+    public static final List<String> CSV_COLUMNS = List.of("profile", "firstName", "lastName", "email", "phone",
+            "location", "summary", "title", "company", "positionLocation", "startDate", "endDate", "description",
+            "technologies");
+
+    /**
+     * Returns the format of a file by its extension.
+     *
+     * @param file the file
+     * @return {@link #CSV} for {@code .csv} files, {@link #NDJSON} for {@code .ndjson}, {@code .jsonl} and
+     * {@code .json} files
+     * @throws IllegalArgumentException if the extension is unknown
+     */
+    public static CvImportFormat of(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Unknown import format: " + file);
+    }
+}
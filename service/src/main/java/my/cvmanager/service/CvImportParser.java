@@ -0,0 +1,171 @@
+package my.cvmanager.service;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonReaderFactory;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import my.cvmanager.service.CvImportRecord.PositionData;
+import my.cvmanager.service.CvImportRecord.TechnologyData;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class parses the raw records of an import file. It is stateless and used by all parser threads at once.
+ */
+class CvImportParser {
+
+    private static final JsonReaderFactory JSON = Json.createReaderFactory(Map.of());
+
+    private static final int TITLE = CvImportFormat.CSV_COLUMNS.indexOf("title");
+
+    /**
+     * Parses a record.
+     *
+     * @param record the raw record
+     * @param format the format of the file
+     * @return the parsed record
+     * @throws IllegalArgumentException if the record is malformed
+     */
+    CvImportRecord parse(CvImportReader.RawRecord record, CvImportFormat format) {
+        return format == CvImportFormat.CSV ? parseCsv(record) : parseJson(record);
+    }
+
+    private CvImportRecord parseJson(CvImportReader.RawRecord record) {
+        JsonObject profile;
+        try (JsonReader reader = JSON.createReader(new StringReader(record.lines().get(0)))) {
+            profile = reader.readObject();
+        } catch (JsonException | IllegalStateException ex) {
+            throw new IllegalArgumentException("Malformed JSON: " + ex.getMessage(), ex);
+        }
+        List<PositionData> positions = new ArrayList<>();
+        for (JsonObject position : array(profile, "positions").getValuesAs(JsonObject.class)) {
+            List<TechnologyData> technologies = new ArrayList<>();
+            for (JsonObject technology : array(position, "technologies").getValuesAs(JsonObject.class)) {
+                technologies.add(new TechnologyData(string(technology, "name"), string(technology, "level")));
+            }
+            positions.add(new PositionData(string(position, "title"), string(position, "company"),
+                    string(position, "location"), date(string(position, "startDate")),
+                    date(string(position, "endDate")), string(position, "description"), technologies));
+        }
+        return new CvImportRecord(record.sequence(), string(profile, "firstName"), string(profile, "lastName"),
+                string(profile, "email"), string(profile, "phone"), string(profile, "location"),
+                string(profile, "summary"), positions);
+    }
+
+    private CvImportRecord parseCsv(CvImportReader.RawRecord record) {
+        List<String> first = null;
+        List<PositionData> positions = new ArrayList<>();
+        for (String line : record.lines()) {
+            List<String> columns = splitCsv(line);
+            if (columns.size() != CvImportFormat.CSV_COLUMNS.size()) {
+                throw new IllegalArgumentException("Expected " + CvImportFormat.CSV_COLUMNS.size()
+                        + " columns but found " + columns.size());
+            }
+            if (first == null) {
+                first = columns;
+            }
+            if (columns.subList(TITLE, columns.size()).stream().allMatch(String::isEmpty)) {
+                continue; // a profile without positions
+            }
+            positions.add(new PositionData(column(columns, "title"), column(columns, "company"),
+                    column(columns, "positionLocation"), date(column(columns, "startDate")),
+                    date(column(columns, "endDate")), column(columns, "description"),
+                    technologies(column(columns, "technologies"))));
+        }
+        return new CvImportRecord(record.sequence(), column(first, "firstName"), column(first, "lastName"),
+                column(first, "email"), column(first, "phone"), column(first, "location"), column(first, "summary"),
+                positions);
+    }
+
+    private static List<TechnologyData> technologies(String value) {
+        if (value == null) {
+            return List.of();
+        }
+        List<TechnologyData> technologies = new ArrayList<>();
+        for (String entry : value.split(";")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.lastIndexOf(':');
+            technologies.add(colon < 0
+                    ? new TechnologyData(entry.strip(), null)
+                    : new TechnologyData(entry.substring(0, colon).strip(), entry.substring(colon + 1).strip()));
+        }
+        return technologies;
+    }
+
+    /**
+     * Splits a CSV line into its columns. Quoted columns may contain commas, line breaks and doubled quotes.
+     *
+     * @param line the line
+     * @return the unquoted columns
+     */
+    static List<String> splitCsv(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    column.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    column.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(column.toString());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(column.toString());
+        return columns;
+    }
+
+    private static String column(List<String> columns, String name) {
+        String value = columns.get(CvImportFormat.CSV_COLUMNS.indexOf(name)).strip();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static JsonArray array(JsonObject object, String name) {
+        JsonValue value = object.get(name);
+        if (value == null || value == JsonValue.NULL) {
+            return JsonValue.EMPTY_JSON_ARRAY;
+        }
+        if (value instanceof JsonArray array) {
+            return array;
+        }
+        throw new IllegalArgumentException("Expected an array: " + name);
+    }
+
+    private static String string(JsonObject object, String name) {
+        JsonValue value = object.get(name);
+        if (value == null || value == JsonValue.NULL) {
+            return null;
+        }
+        return value instanceof JsonString string ? string.getString() : value.toString();
+    }
+
+    private static LocalDate date(String value) {
+        try {
+            return value == null ? null : LocalDate.parse(value);
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid date: " + value, ex);
+        }
+    }
+}
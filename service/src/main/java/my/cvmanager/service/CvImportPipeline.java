@@ -0,0 +1,394 @@
+package my.cvmanager.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.repositories.BaseDao;
+import my.cvmanager.repositories.TechnologyCatalog;
+import my.cvmanager.service.CvImportRecord.PositionData;
+import my.cvmanager.service.CvImportRecord.TechnologyData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * This class imports CVs from {@link CvImportFormat#NDJSON} or {@link CvImportFormat#CSV} files, for batch jobs
+ * outside of the container.
+ * <p>
+ * A reader thread groups the lines of each profile and hands them to the worker threads, which parse, validate and
+ * map them to entities. The calling thread writes the profiles in the order of the file, one transaction per batch.
+ * Between reader and writer there is a bounded queue of pending results: when the writer falls behind, the queue
+ * fills up and the reader waits, so only a bounded number of profiles is held in memory whatever the size of the
+ * file. Invalid records are logged and skipped, as are records beyond the limits of the {@link CvImportReader}.
+ * <p>
+ * Each batch stores the number of its last record as {@link ImportCheckpoint} in its own transaction, and the last
+ * batch deletes it, so the checkpoint always matches the stored profiles. When an import fails, a rerun with the
+ * same file skips the records that are already stored, and no profile is stored twice. The entity manager factory
+ * must belong to a resource-local persistence unit.
+ */
+public class CvImportPipeline implements AutoCloseable {
+
+    /**
+     * The number of profiles written per transaction by default.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * The number of pending records between reader and writer by default.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    /**
+     * The stages of the pipeline.
+     */
+    private enum Stage {
+        READ, PARSE, VALIDATE, MAP, WRITE
+    }
+
+    /**
+     * A processed record, either with a mapped profile or with the reason why it is invalid.
+     */
+    private record Item(long sequence, UserProfile profile, String error) {
+    }
+
+    /**
+     * Marks the end of the input in the queue.
+     */
+    private static final Item END = new Item(Long.MAX_VALUE, null, null);
+
+    /**
+     * The logger instance for this class.
+     */
+    private final Logger logger = Logger.getLogger(CvImportPipeline.class.getName());
+
+    private final EntityManagerFactory emf;
+    private final ThreadPoolExecutor executor;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final CvImportParser parser = new CvImportParser();
+    private final CvImportValidator validator = new CvImportValidator();
+    private final TechnologyCatalog catalog = new TechnologyCatalog();
+    private final BaseDao<UserProfile> profileDataProvider = new BaseDao<>(UserProfile.class);
+
+    /**
+     * Creates a pipeline with one worker thread per core and the default batch size and queue capacity.
+     *
+     * @param emf the entity manager factory to store the profiles with
+     */
+    public CvImportPipeline(EntityManagerFactory emf) {
+        this(emf, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param emf           the entity manager factory to store the profiles with
+     * @param threads       the number of threads that parse, validate and map the records
+     * @param batchSize     the number of profiles written per transaction
+     * @param queueCapacity the maximum number of pending records between reader and writer
+     */
+    public CvImportPipeline(EntityManagerFactory emf, int threads, int batchSize, int queueCapacity) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+        this.emf = emf;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        profileDataProvider.setBatchSize(batchSize);
+        AtomicInteger threadNumber = new AtomicInteger();
+        // the work queue is not bounded itself, the reader never submits more tasks than the result queue holds
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cv-import-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Imports a file, continuing after the checkpoint of an earlier failed run. The checkpoint is deleted with the
+     * last batch.
+     *
+     * @param input the file, its format is chosen by {@link CvImportFormat#of(Path)}
+     * @return the report of the run
+     * @throws IllegalStateException if the import failed; the profiles up to the checkpoint are stored
+     */
+    public ImportReport importFile(Path input) {
+        CvImportFormat format = CvImportFormat.of(input);
+        ImportCheckpoint checkpoint = new ImportCheckpoint(input);
+        long resumeAfter = load(checkpoint);
+        if (resumeAfter > 0) {
+            logger.info(() -> "Resuming import of " + input + " after record " + resumeAfter);
+        }
+        CvImportReader reader;
+        try {
+            reader = new CvImportReader(input, format);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Error opening " + input, ex);
+        }
+
+        long start = System.nanoTime();
+        StageStats stats = new StageStats();
+        LongAdder resumed = new LongAdder();
+        BlockingQueue<Future<Item>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Thread readerThread = new Thread(() -> read(reader, format, resumeAfter, queue, resumed, stats),
+                "cv-import-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        long[] counts;
+        try {
+            counts = write(queue, checkpoint, resumeAfter, stats);
+        } catch (RuntimeException ex) {
+            readerThread.interrupt();
+            for (Future<Item> pending = queue.poll(); pending != null; pending = queue.poll()) {
+                pending.cancel(true);
+            }
+            logger.warning("Import of " + input + " failed, a rerun resumes after record " + load(checkpoint));
+            throw ex;
+        }
+
+        ImportReport report = new ImportReport(counts[0], counts[1], resumed.sum(), stats.toReports(),
+                System.nanoTime() - start);
+        logger.info(() -> "CV import of " + input + " finished: " + report);
+        return report;
+    }
+
+    private long load(ImportCheckpoint checkpoint) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return checkpoint.load(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Reads the records and submits them to the workers, in the reader thread.
+     */
+    private void read(CvImportReader reader, CvImportFormat format, long resumeAfter,
+                      BlockingQueue<Future<Item>> queue, LongAdder resumed, StageStats stats) {
+        try (reader) {
+            while (true) {
+                long started = System.nanoTime();
+                CvImportReader.RawRecord record = reader.next();
+                if (record == null) {
+                    break;
+                }
+                stats.record(Stage.READ, started, 1);
+                if (record.sequence() <= resumeAfter) {
+                    resumed.increment();
+                    continue;
+                }
+                queue.put(executor.submit(() -> process(record, format, stats)));
+            }
+            queue.put(CompletableFuture.completedFuture(END));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt(); // the writer has stopped
+        } catch (IOException | RuntimeException ex) {
+            try {
+                queue.put(CompletableFuture.failedFuture(ex));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Parses, validates and maps a record, in a worker thread.
+     */
+    private Item process(CvImportReader.RawRecord raw, CvImportFormat format, StageStats stats) {
+        long started = System.nanoTime();
+        if (raw.error() != null) {
+            stats.record(Stage.PARSE, started, 1);
+            return new Item(raw.sequence(), null, raw.error());
+        }
+        CvImportRecord record;
+        try {
+            record = parser.parse(raw, format);
+        } catch (RuntimeException ex) {
+            stats.record(Stage.PARSE, started, 1);
+            return new Item(raw.sequence(), null, ex.getMessage());
+        }
+        started = stats.record(Stage.PARSE, started, 1);
+
+        List<String> errors = validator.validate(record);
+        started = stats.record(Stage.VALIDATE, started, 1);
+        if (!errors.isEmpty()) {
+            return new Item(raw.sequence(), null, String.join("; ", errors));
+        }
+
+        UserProfile profile = map(record);
+        stats.record(Stage.MAP, started, 1);
+        return new Item(raw.sequence(), profile, null);
+    }
+
+    private static UserProfile map(CvImportRecord record) {
+        UserProfile profile = new UserProfile();
+        profile.setFirstName(record.firstName());
+        profile.setLastName(record.lastName());
+        profile.setEmail(record.email());
+        profile.setPhone(record.phone());
+        profile.setLocation(record.location());
+        profile.setSummary(record.summary());
+        for (PositionData data : record.positions()) {
+            Position position = new Position();
+            position.setTitle(data.title());
+            position.setCompany(data.company());
+            position.setLocation(data.location());
+            position.setStartDate(data.startDate());
+            position.setEndDate(data.endDate());
+            position.setDescription(data.description());
+            for (TechnologyData technologyData : data.technologies()) {
+                Technology technology = new Technology();
+                technology.setName(technologyData.name());
+                technology.setLevel(technologyData.level() == null ? null : Technology.Level.fromCode(technologyData.level()));
+                position.addTechnology(technology);
+            }
+            profile.addPosition(position);
+        }
+        return profile;
+    }
+
+    /**
+     * Writes the processed records in the order of the file, in the calling thread.
+     *
+     * @return the number of imported and invalid records
+     */
+    private long[] write(BlockingQueue<Future<Item>> queue, ImportCheckpoint checkpoint, long resumeAfter,
+                         StageStats stats) {
+        long imported = 0;
+        long invalid = 0;
+        long lastSequence = resumeAfter;
+        List<UserProfile> batch = new ArrayList<>(batchSize);
+        EntityManager em = emf.createEntityManager();
+        try {
+            for (Item item = take(queue); item != END; item = take(queue)) {
+                if (item.profile() == null) {
+                    invalid++;
+                    logger.warning("Skipping invalid record " + item.sequence() + ": " + item.error());
+                } else {
+                    batch.add(item.profile());
+                }
+                lastSequence = item.sequence();
+                if (batch.size() >= batchSize) {
+                    imported += writeBatch(batch, lastSequence, false, em, checkpoint, stats);
+                }
+            }
+            imported += writeBatch(batch, lastSequence, true, em, checkpoint, stats);
+        } finally {
+            em.close();
+        }
+        return new long[]{imported, invalid};
+    }
+
+    private Item take(BlockingQueue<Future<Item>> queue) {
+        try {
+            return queue.take().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Import failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Stores a batch together with the checkpoint, or with the deletion of the checkpoint for the last batch.
+     */
+    private int writeBatch(List<UserProfile> batch, long lastSequence, boolean last, EntityManager em,
+                           ImportCheckpoint checkpoint, StageStats stats) {
+        long started = System.nanoTime();
+        int size = batch.size();
+        EntityTransaction transaction = em.getTransaction();
+        try {
+            transaction.begin();
+            for (UserProfile profile : batch) {
+                catalog.resolve(profile, em);
+            }
+            profileDataProvider.persistAll(batch, em);
+            if (last) {
+                checkpoint.delete(em);
+            } else {
+                checkpoint.store(lastSequence, em);
+            }
+            transaction.commit();
+        } catch (RuntimeException ex) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            catalog.clear(); // it may hold IDs of rolled back names
+            throw new IllegalStateException("Error writing the batch ending with record " + lastSequence, ex);
+        } finally {
+            em.clear();
+        }
+        batch.clear();
+        stats.record(Stage.WRITE, started, size);
+        return size;
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The processed records and busy time of each stage of one run.
+     */
+    private static final class StageStats {
+        private final LongAdder[] records = new LongAdder[Stage.values().length];
+        private final LongAdder[] busyNanos = new LongAdder[Stage.values().length];
+
+        StageStats() {
+            for (int i = 0; i < records.length; i++) {
+                records[i] = new LongAdder();
+                busyNanos[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Records work of a stage.
+         *
+         * @return the current time, the start of the next stage
+         */
+        long record(Stage stage, long started, int count) {
+            long now = System.nanoTime();
+            records[stage.ordinal()].add(count);
+            busyNanos[stage.ordinal()].add(now - started);
+            return now;
+        }
+
+        List<ImportReport.StageReport> toReports() {
+            List<ImportReport.StageReport> reports = new ArrayList<>();
+            for (Stage stage : Stage.values()) {
+                reports.add(new ImportReport.StageReport(stage.name().toLowerCase(),
+                        records[stage.ordinal()].sum(), busyNanos[stage.ordinal()].sum()));
+            }
+            return reports;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package my.cvmanager.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class reads the raw records of an import file, the lines of one profile each, numbered from 1 in the order
+ * of the file. It does not parse more than it needs to group the lines, the parsing is left to the parallel stage
+ * of the {@link CvImportPipeline}.
+ * <p>
+ * The memory of a record is bounded, whatever the file holds: a logical line keeps at most the maximum line length
+ * and a profile at most the maximum number of lines. A record beyond these limits, or with a quote that is not closed
+ * before the end of the file, is returned with an error instead of its lines, so it fails like an invalid record.
+ */
+class CvImportReader implements AutoCloseable {
+
+    /**
+     * The maximum number of characters of a logical line by default.
+     */
+    static final int DEFAULT_MAX_LINE_LENGTH = 1_000_000;
+
+    /**
+     * The maximum number of CSV lines of a profile by default.
+     */
+    static final int DEFAULT_MAX_RECORD_LINES = 1000;
+
+    /**
+     * The lines of one profile.
+     *
+     * @param sequence the number of the record in the file, starting at 1
+     * @param lines    the lines of the record, empty if the record has an error
+     * @param error    the reason why the record cannot be parsed, or null
+     */
+    record RawRecord(long sequence, List<String> lines, String error) {
+    }
+
+    /**
+     * A logical line.
+     *
+     * @param text  the text, cut at the maximum line length
+     * @param error the reason why the line cannot be parsed, or null
+     */
+    private record Line(String text, String error) {
+    }
+
+    private final BufferedReader reader;
+    private final CvImportFormat format;
+    private final int maxLineLength;
+    private final int maxRecordLines;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private boolean tooLong;
+    private long sequence;
+    private Line pending;
+
+    /**
+     * Opens a file with the default limits and checks the header line of the {@link CvImportFormat#CSV} format.
+     *
+     * @param file   the file
+     * @param format the format of the file
+     * @throws IOException if the file cannot be read
+     */
+    CvImportReader(Path file, CvImportFormat format) throws IOException {
+        this(file, format, DEFAULT_MAX_LINE_LENGTH, DEFAULT_MAX_RECORD_LINES);
+    }
+
+    /**
+     * Opens a file and checks the header line of the {@link CvImportFormat#CSV} format.
+     *
+     * @param file           the file
+     * @param format         the format of the file
+     * @param maxLineLength  the maximum number of characters of a logical line
+     * @param maxRecordLines the maximum number of CSV lines of a profile
+     * @throws IOException if the file cannot be read
+     */
+    CvImportReader(Path file, CvImportFormat format, int maxLineLength, int maxRecordLines) throws IOException {
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        this.format = format;
+        this.maxLineLength = maxLineLength;
+        this.maxRecordLines = maxRecordLines;
+        if (format == CvImportFormat.CSV) {
+            Line header = readLine();
+            if (header == null || header.error() != null
+                    || !CvImportParser.splitCsv(header.text()).equals(CvImportFormat.CSV_COLUMNS)) {
+                reader.close();
+                throw new IllegalArgumentException("CSV header must be " + String.join(",", CvImportFormat.CSV_COLUMNS));
+            }
+            pending = readLine();
+        }
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record, or null at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    RawRecord next() throws IOException {
+        if (format == CvImportFormat.NDJSON) {
+            Line line = readLine();
+            if (line == null) {
+                return null;
+            }
+            return line.error() == null
+                    ? new RawRecord(++sequence, List.of(line.text()), null)
+                    : new RawRecord(++sequence, List.of(), line.error());
+        }
+        if (pending == null) {
+            return null;
+        }
+        String key = CvImportParser.splitCsv(pending.text()).get(0);
+        List<String> lines = new ArrayList<>();
+        String error = null;
+        do {
+            if (error == null && pending.error() != null) {
+                error = pending.error();
+            } else if (error == null && lines.size() >= maxRecordLines) {
+                error = "More than " + maxRecordLines + " lines for profile " + key;
+            }
+            if (error == null) {
+                lines.add(pending.text());
+            } else {
+                lines.clear(); // the rest of the profile is skipped
+            }
+            pending = readLine();
+        } while (pending != null && CvImportParser.splitCsv(pending.text()).get(0).equals(key));
+        return new RawRecord(++sequence, error == null ? lines : List.of(), error);
+    }
+
+    /**
+     * Reads the next non-blank line. A CSV line with an open quote continues on the next line.
+     */
+    private Line readLine() throws IOException {
+        StringBuilder logical = new StringBuilder();
+        int quotes;
+        do {
+            logical.setLength(0);
+            tooLong = false;
+            quotes = appendLine(logical);
+            if (quotes < 0) {
+                return null;
+            }
+        } while (logical.chars().allMatch(Character::isWhitespace));
+        if (format == CvImportFormat.CSV) {
+            while (quotes % 2 != 0) {
+                append(logical, '\n');
+                int continued = appendLine(logical);
+                if (continued < 0) {
+                    return new Line(logical.toString(), "Unterminated quote");
+                }
+                quotes += continued;
+            }
+        }
+        return new Line(logical.toString(), tooLong ? "Line longer than " + maxLineLength + " characters" : null);
+    }
+
+    /**
+     * Appends the next physical line to a logical line. The characters beyond the maximum line length are counted
+     * but skipped.
+     *
+     * @return the number of quotes of the physical line, or -1 at the end of the file
+     */
+    private int appendLine(StringBuilder logical) throws IOException {
+        int c = read();
+        if (c < 0) {
+            return -1;
+        }
+        int quotes = 0;
+        for (; c >= 0 && c != '\n' && c != '\r'; c = read()) {
+            if (c == '"') {
+                quotes++;
+            }
+            append(logical, (char) c);
+        }
+        if (c == '\r' && peek() == '\n') {
+            read();
+        }
+        return quotes;
+    }
+
+    private void append(StringBuilder logical, char c) {
+        if (logical.length() < maxLineLength) {
+            logical.append(c);
+        } else {
+            tooLong = true;
+        }
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c >= 0) {
+            position++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            int read = reader.read(buffer, 0, buffer.length);
+            if (read <= 0) {
+                return -1;
+            }
+            position = 0;
+            limit = read;
+        }
+        return buffer[position];
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,44 @@
+package my.cvmanager.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A parsed profile of an import file, before it is validated and mapped to the entities.
+ *
+ * @param sequence  the number of the record in the file, starting at 1
+ * @param firstName the first name
+ * @param lastName  the last name
+ * @param email     the email address
+ * @param phone     the phone number
+ * @param location  the location
+ * @param summary   the summary
+ * @param positions the positions
+ */
+public record CvImportRecord(long sequence, String firstName, String lastName, String email, String phone,
+                             String location, String summary, List<PositionData> positions) {
+
+    /**
+     * A parsed position.
+     *
+     * @param title        the title
+     * @param company      the company
+     * @param location     the location
+     * @param startDate    the start date
+     * @param endDate      the end date, null if the position is current
+     * @param description  the description
+     * @param technologies the technologies
+     */
+    public record PositionData(String title, String company, String location, LocalDate startDate,
+                               LocalDate endDate, String description, List<TechnologyData> technologies) {
+    }
+
+    /**
+     * A parsed technology.
+     *
+     * @param name  the name
+     * @param level the level code, e.g. "AA", or null
+     */
+    public record TechnologyData(String name, String level) {
+    }
+}
@@ -0,0 +1,83 @@
+package my.cvmanager.service;
+
+import my.cvmanager.domain.Technology;
+import my.cvmanager.service.CvImportRecord.PositionData;
+import my.cvmanager.service.CvImportRecord.TechnologyData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * This class checks parsed import records against the constraints of the database columns, so that an invalid
+ * record is reported on its own instead of failing the transaction of its whole batch.
+ */
+class CvImportValidator {
+
+    private static final Pattern EMAIL = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+
+    private static final int MAX_LENGTH = 255;
+    private static final int MAX_TEXT_LENGTH = 2000;
+    private static final int MAX_TECHNOLOGY_LENGTH = 100;
+
+    /**
+     * Validates a record.
+     *
+     * @param record the parsed record
+     * @return the violations, empty if the record is valid
+     */
+    List<String> validate(CvImportRecord record) {
+        List<String> errors = new ArrayList<>();
+        if (isBlank(record.firstName()) && isBlank(record.lastName())) {
+            errors.add("first or last name is required");
+        }
+        if (record.email() != null && !EMAIL.matcher(record.email()).matches()) {
+            errors.add("invalid email: " + record.email());
+        }
+        length(errors, "firstName", record.firstName(), MAX_LENGTH);
+        length(errors, "lastName", record.lastName(), MAX_LENGTH);
+        length(errors, "email", record.email(), MAX_LENGTH);
+        length(errors, "phone", record.phone(), MAX_LENGTH);
+        length(errors, "location", record.location(), MAX_LENGTH);
+        length(errors, "summary", record.summary(), MAX_TEXT_LENGTH);
+
+        for (PositionData position : record.positions()) {
+            if (isBlank(position.title()) && isBlank(position.company())) {
+                errors.add("position needs a title or company");
+            }
+            if (position.startDate() != null && position.endDate() != null
+                    && position.endDate().isBefore(position.startDate())) {
+                errors.add("position ends before it starts: " + position.title());
+            }
+            length(errors, "title", position.title(), MAX_LENGTH);
+            length(errors, "company", position.company(), MAX_LENGTH);
+            length(errors, "positionLocation", position.location(), MAX_LENGTH);
+            length(errors, "description", position.description(), MAX_TEXT_LENGTH);
+
+            for (TechnologyData technology : position.technologies()) {
+                if (isBlank(technology.name())) {
+                    errors.add("technology name is required");
+                }
+                length(errors, "technology", technology.name(), MAX_TECHNOLOGY_LENGTH);
+                if (technology.level() != null) {
+                    try {
+                        Technology.Level.fromCode(technology.level());
+                    } catch (IllegalArgumentException ex) {
+                        errors.add(ex.getMessage());
+                    }
+                }
+            }
+        }
+        return errors;
+    }
+
+    private static void length(List<String> errors, String field, String value, int max) {
+        if (value != null && value.length() > max) {
+            errors.add(field + " is longer than " + max + " characters");
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
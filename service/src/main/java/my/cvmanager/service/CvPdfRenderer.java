@@ -0,0 +1,129 @@
+package my.cvmanager.service;
+
+import com.lowagie.text.Chunk;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Font;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfWriter;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.UserProfile;
+
+import java.io.OutputStream;
+import java.util.StringJoiner;
+
+/**
+ * This class renders a profile with its positions and technologies as PDF.
+ * The document is written to the stream while it is built: every full page is written out and released, so only
+ * the current page is held in memory. The renderer is stateless and can be used by several threads.
+ */
+public class CvPdfRenderer {
+
+    /**
+     * Renders a profile with the default template.
+     *
+     * @param profile the profile, with its positions and technologies loaded
+     * @param out     the stream to write to, not closed by this method
+     */
+    public void render(UserProfile profile, OutputStream out) {
+        render(profile, CvTemplate.get(CvTemplate.DEFAULT), out);
+    }
+
+    /**
+     * Renders a profile.
+     *
+     * @param profile  the profile, with its positions and technologies loaded
+     * @param template the layout
+     * @param out      the stream to write to, not closed by this method
+     */
+    public void render(UserProfile profile, CvTemplate template, OutputStream out) {
+        float margin = template.getMargin();
+        Document document = new Document(template.getPageSize(), margin, margin, margin, margin);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            document.addTitle(fullName(profile));
+            document.open();
+
+            document.add(new Paragraph(fullName(profile), template.getNameFont()));
+            document.add(paragraph(contact(profile), template.getMutedFont(), 0));
+            if (hasText(profile.getSummary())) {
+                document.add(paragraph(profile.getSummary(), template.getTextFont(), template.getSpacing()));
+            }
+
+            if (!profile.getPositions().isEmpty()) {
+                document.add(paragraph("Experience", template.getHeadingFont(), template.getSpacing() * 2));
+            }
+            for (Position position : profile.getPositions()) {
+                addPosition(document, position, template);
+            }
+            document.close();
+        } catch (DocumentException ex) {
+            throw new IllegalStateException("Could not render the CV of profile " + profile.getId(), ex);
+        }
+    }
+
+    private void addPosition(Document document, Position position, CvTemplate template) throws DocumentException {
+        Paragraph title = paragraph(null, template.getTitleFont(), template.getSpacing());
+        title.add(new Chunk(nullToEmpty(position.getTitle()), template.getTitleFont()));
+        if (hasText(position.getCompany())) {
+            title.add(new Chunk(" - " + position.getCompany(), template.getTextFont()));
+        }
+        title.setKeepTogether(true);
+        document.add(title);
+
+        StringJoiner details = new StringJoiner(" | ");
+        if (position.getStartDate() != null) {
+            details.add(template.getDateFormat().format(position.getStartDate()) + " - "
+                    + (position.getEndDate() == null ? "today" : template.getDateFormat().format(position.getEndDate())));
+        }
+        if (hasText(position.getLocation())) {
+            details.add(position.getLocation());
+        }
+        if (details.length() > 0) {
+            document.add(paragraph(details.toString(), template.getMutedFont(), 0));
+        }
+        if (hasText(position.getDescription())) {
+            document.add(paragraph(position.getDescription(), template.getTextFont(), template.getSpacing() / 2));
+        }
+
+        StringJoiner technologies = new StringJoiner(", ");
+        for (Technology technology : position.getTechnologies()) {
+            technologies.add(technology.getLevel() == null
+                    ? technology.getName()
+                    : technology.getName() + " (" + technology.getLevel().code() + ")");
+        }
+        if (technologies.length() > 0) {
+            document.add(paragraph("Technologies: " + technologies, template.getMutedFont(), template.getSpacing() / 2));
+        }
+    }
+
+    private static Paragraph paragraph(String text, Font font, float spacingBefore) {
+        Paragraph paragraph = text == null ? new Paragraph() : new Paragraph(text, font);
+        paragraph.setSpacingBefore(spacingBefore);
+        return paragraph;
+    }
+
+    private static String fullName(UserProfile profile) {
+        return (nullToEmpty(profile.getFirstName()) + " " + nullToEmpty(profile.getLastName())).trim();
+    }
+
+    private static String contact(UserProfile profile) {
+        StringJoiner contact = new StringJoiner(" | ");
+        for (String value : new String[]{profile.getEmail(), profile.getPhone(), profile.getLocation()}) {
+            if (hasText(value)) {
+                contact.add(value);
+            }
+        }
+        return contact.toString();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,111 @@
+package my.cvmanager.service;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+/**
+ * This class serves the previews of CVs under {@code /api/profiles/{id}/cv}, as HTML or PDF, depending on the
+ * {@code Accept} header.
+ * <p>
+ * The documents come from the cache of the {@link CvPreviewService}. Like the {@link ProfileResource}, every response
+ * carries a strong ETag of the profile version, so a client with the current version gets
+ * {@code 304 Not Modified} after a single version lookup.
+ */
+@Path("/profiles/{id: \\d+}/cv")
+public class CvPreviewResource {
+
+    /**
+     * Clients may keep the preview but have to revalidate it before every use.
+     */
+    private static final CacheControl REVALIDATE = new CacheControl();
+
+    static {
+        REVALIDATE.setNoCache(true);
+    }
+
+    /**
+     * The preview service instance for this class.
+     */
+    @Inject
+    private CvPreviewService previewService;
+
+    /**
+     * Returns the CV of a profile as HTML page.
+     *
+     * @param profileId the ID of the profile
+     * @param request   the request with the preconditions
+     * @return the response
+     * @throws NotFoundException if the profile does not exist
+     */
+    @GET
+    @Produces(MediaType.TEXT_HTML + ";charset=utf-8")
+    public Response html(@PathParam("id") Long profileId, @Context Request request) {
+        return preview(profileId, CvPreviewService.HTML, request, version -> previewService.html(profileId, version));
+    }
+
+    /**
+     * Returns the CV of a profile as PDF.
+     *
+     * @param profileId    the ID of the profile
+     * @param templateName the name of the layout, see {@link CvTemplate}
+     * @param request      the request with the preconditions
+     * @return the response
+     * @throws NotFoundException   if the profile does not exist
+     * @throws BadRequestException if there is no template with this name
+     */
+    @GET
+    @Produces(CvExportResource.PDF)
+    public Response pdf(@PathParam("id") Long profileId,
+                        @QueryParam("template") @DefaultValue(CvTemplate.DEFAULT) String templateName,
+                        @Context Request request) {
+        try {
+            CvTemplate.get(templateName);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage());
+        }
+        return preview(profileId, CvPreviewService.PDF + templateName, request,
+                version -> previewService.pdf(profileId, version, templateName));
+    }
+
+    private Response preview(Long profileId, String variant, Request request,
+                             LongFunction<Optional<CvPreviewService.Preview>> preview) {
+        Long version = previewService.findVersion(profileId).orElseThrow(NotFoundException::new);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag(version, variant));
+        if (notModified != null) {
+            return notModified.cacheControl(REVALIDATE).build();
+        }
+
+        CvPreviewService.Preview rendered = preview.apply(version).orElseThrow(NotFoundException::new);
+        return Response.ok(rendered.content())
+                .tag(entityTag(rendered.version(), variant))
+                .cacheControl(REVALIDATE)
+                .build();
+    }
+
+    /**
+     * Returns the strong entity tag of a preview, which differs between the variants of the same profile version.
+     *
+     * @param version the version of the profile
+     * @param variant the variant of the preview
+     * @return the entity tag
+     */
+    static EntityTag entityTag(long version, String variant) {
+        return new EntityTag(version + "-" + variant.replace(":", "-"));
+    }
+}
@@ -0,0 +1,136 @@
+package my.cvmanager.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import my.cvmanager.cache.RenderCache;
+import my.cvmanager.domain.AggregateChangeListener;
+import my.cvmanager.domain.UserProfile;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * This class renders the previews of CVs, as HTML or PDF, for the {@link CvPreviewResource}.
+ * <p>
+ * Rendered documents are kept in a {@link RenderCache} keyed by the version of the profile, so a repeated view of an
+ * unchanged CV costs only the version lookup of the caller. When a profile, one of its positions or one of its technologies
+ * changes, its documents are dropped by the {@link AggregateChangeListener}. The size of the cache is read from
+ * {@value #CACHE_MAX_BYTES_PROPERTY}.
+ */
+@ApplicationScoped
+@Monitored
+public class CvPreviewService {
+
+    public static final String CACHE_MAX_BYTES_PROPERTY = "cvmanager.preview.cache_max_bytes";
+
+    /**
+     * The default size of the cache, 64 MiB.
+     */
+    public static final long DEFAULT_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+
+    static final String HTML = "html";
+    static final String PDF = "pdf:";
+
+    /**
+     * The profile service instance for this class.
+     */
+    @Inject
+    private ProfileService profileService;
+
+    private final RenderCache cache;
+    private final LongConsumer invalidation;
+
+    private final CvHtmlRenderer htmlRenderer = new CvHtmlRenderer();
+    private final CvPdfRenderer pdfRenderer = new CvPdfRenderer();
+
+    public CvPreviewService() {
+        this(null, new RenderCache(Long.getLong(CACHE_MAX_BYTES_PROPERTY, DEFAULT_CACHE_MAX_BYTES)));
+    }
+
+    CvPreviewService(ProfileService profileService, RenderCache cache) {
+        this.profileService = profileService;
+        this.cache = cache;
+        this.invalidation = cache::invalidate;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        AggregateChangeListener.subscribe(invalidation);
+    }
+
+    @PreDestroy
+    void unsubscribe() {
+        AggregateChangeListener.unsubscribe(invalidation);
+    }
+
+    /**
+     * Returns the version of a profile, see {@link ProfileService#findVersion(Long)}.
+     *
+     * @param profileId the ID of the profile
+     * @return the version, empty if the profile does not exist
+     */
+    public Optional<Long> findVersion(Long profileId) {
+        return profileService.findVersion(profileId);
+    }
+
+    /**
+     * Returns the CV of a profile as HTML page.
+     *
+     * @param profileId the ID of the profile
+     * @param version   the current version of the profile, see {@link #findVersion(Long)}
+     * @return the page, encoded as UTF-8, empty if the profile does not exist
+     */
+    public Optional<Preview> html(Long profileId, long version) {
+        return preview(profileId, version, HTML, htmlRenderer::render);
+    }
+
+    /**
+     * Returns the CV of a profile as PDF.
+     *
+     * @param profileId    the ID of the profile
+     * @param version      the current version of the profile, see {@link #findVersion(Long)}
+     * @param templateName the name of the layout, see {@link CvTemplate}
+     * @return the document, empty if the profile does not exist
+     * @throws IllegalArgumentException if there is no template with this name
+     */
+    public Optional<Preview> pdf(Long profileId, long version, String templateName) {
+        CvTemplate template = CvTemplate.get(templateName);
+        return preview(profileId, version, PDF + template.getName(), profile -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+            pdfRenderer.render(profile, template, out);
+            return out.toByteArray();
+        });
+    }
+
+    private Optional<Preview> preview(Long profileId, long version, String variant,
+                                      Function<UserProfile, byte[]> renderer) {
+        byte[] content = cache.get(profileId, version, variant);
+        if (content != null) {
+            return Optional.of(new Preview(version, content));
+        }
+
+        // the profile may have changed since the lookup, the document is cached under the loaded version
+        return profileService.findCv(profileId).map(profile -> {
+            byte[] rendered = renderer.apply(profile);
+            cache.put(profileId, profile.getVersion(), variant, rendered);
+            return new Preview(profile.getVersion(), rendered);
+        });
+    }
+
+    public RenderCache getCache() {
+        return cache;
+    }
+
+    /**
+     * A rendered CV.
+     *
+     * @param version the version of the profile it was rendered from
+     * @param content the document, shared with the cache and not to be modified
+     */
+    public record Preview(long version, byte[] content) {
+    }
+}
@@ -0,0 +1,137 @@
+package my.cvmanager.service;
+
+import com.lowagie.text.Font;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.BaseFont;
+
+import java.awt.Color;
+import java.io.InputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiled layout of the PDF export: page format, fonts and spacing.
+ * Templates are compiled once per name and shared by all exports, so the fonts are not loaded per document.
+ * The fonts and layout values are only read while rendering, which makes a template safe for parallel exports.
+ * <p>
+ * The text is set in DejaVu Sans, bundled under {@value #FONTS}, with the Unicode encoding {@code Identity-H}, so
+ * names in any script that the font covers print as they are. Each document embeds the subset of the glyphs it uses.
+ */
+public final class CvTemplate {
+
+    /**
+     * The name of the default template.
+     */
+    public static final String DEFAULT = "default";
+
+    /**
+     * The name of the template with smaller fonts and spacing.
+     */
+    public static final String COMPACT = "compact";
+
+    /**
+     * The class path directory of the bundled fonts.
+     */
+    static final String FONTS = "/fonts/";
+
+    private static final ConcurrentMap<String, CvTemplate> templates = new ConcurrentHashMap<>();
+
+    private static final Map<String, Float> BASE_SIZES = Map.of(DEFAULT, 10.5f, COMPACT, 9f);
+
+    private static final Color ACCENT = new Color(0x1F, 0x4E, 0x79);
+
+    private final String name;
+    private final Rectangle pageSize = PageSize.A4;
+    private final float margin;
+    private final float spacing;
+    private final Font nameFont;
+    private final Font headingFont;
+    private final Font titleFont;
+    private final Font textFont;
+    private final Font mutedFont;
+    private final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("MM/yyyy");
+
+    private CvTemplate(String name, float baseSize) {
+        this.name = name;
+        this.margin = baseSize * 4;
+        this.spacing = baseSize * 0.8f;
+        BaseFont regular = font("DejaVuSans.ttf");
+        BaseFont bold = font("DejaVuSans-Bold.ttf");
+        this.nameFont = new Font(bold, baseSize * 2, Font.NORMAL, ACCENT);
+        this.headingFont = new Font(bold, baseSize * 1.3f, Font.NORMAL, ACCENT);
+        this.titleFont = new Font(bold, baseSize, Font.NORMAL, Color.BLACK);
+        this.textFont = new Font(regular, baseSize, Font.NORMAL, Color.BLACK);
+        this.mutedFont = new Font(regular, baseSize * 0.9f, Font.NORMAL, Color.DARK_GRAY);
+    }
+
+    /**
+     * Returns a template, compiling it on the first use.
+     *
+     * @param name the name of the template, e.g. {@link #DEFAULT}
+     * @return the template
+     * @throws IllegalArgumentException if there is no template with this name
+     */
+    public static CvTemplate get(String name) {
+        return templates.computeIfAbsent(name, key -> {
+            Float baseSize = BASE_SIZES.get(key);
+            if (baseSize == null) {
+                throw new IllegalArgumentException("Unknown template: " + key);
+            }
+            return new CvTemplate(key, baseSize);
+        });
+    }
+
+    private static BaseFont font(String file) {
+        try (InputStream in = CvTemplate.class.getResourceAsStream(FONTS + file)) {
+            if (in == null) {
+                throw new IllegalStateException("Font " + FONTS + file + " not found");
+            }
+            return BaseFont.createFont(file, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, true, in.readAllBytes(), null);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Could not load font " + file, ex);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Rectangle getPageSize() {
+        return pageSize;
+    }
+
+    public float getMargin() {
+        return margin;
+    }
+
+    public float getSpacing() {
+        return spacing;
+    }
+
+    public Font getNameFont() {
+        return nameFont;
+    }
+
+    public Font getHeadingFont() {
+        return headingFont;
+    }
+
+    public Font getTitleFont() {
+        return titleFont;
+    }
+
+    public Font getTextFont() {
+        return textFont;
+    }
+
+    public Font getMutedFont() {
+        return mutedFont;
+    }
+
+    public DateTimeFormatter getDateFormat() {
+        return dateFormat;
+    }
+}
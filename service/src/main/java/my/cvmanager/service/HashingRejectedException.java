@@ -0,0 +1,16 @@
+package my.cvmanager.service;
+
+/**
+ * Thrown when a password cannot be hashed or verified because the hashing executor is saturated.
+ * Callers should answer with a "try again later" instead of retrying right away.
+ */
+public class HashingRejectedException extends RuntimeException {
+
+    public HashingRejectedException(String message) {
+        super(message);
+    }
+
+    public HashingRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
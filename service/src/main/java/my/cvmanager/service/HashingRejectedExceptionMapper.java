@@ -0,0 +1,18 @@
+package my.cvmanager.service;
+
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Answers calls rejected by the saturated {@link PasswordHasher} with {@code 503 Service Unavailable}, asking the
+ * client to retry after a second.
+ */
+@Provider
+public class HashingRejectedExceptionMapper implements ExceptionMapper<HashingRejectedException> {
+
+    @Override
+    public Response toResponse(HashingRejectedException exception) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE).header("Retry-After", "1").build();
+    }
+}
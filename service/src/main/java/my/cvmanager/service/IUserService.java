@@ -9,6 +9,8 @@ public interface IUserService {
 
     User login(String username, String password);
 
+    User login(String username, String password, String clientAddress);
+
     void logout(Long userId);
 
     boolean validateCredentials(String username, String password);
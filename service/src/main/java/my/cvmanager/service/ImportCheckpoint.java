@@ -0,0 +1,63 @@
+package my.cvmanager.service;
+
+import jakarta.persistence.EntityManager;
+import my.cvmanager.domain.ImportProgress;
+
+import java.nio.file.Path;
+
+/**
+ * The number of the last record of an import file whose batch was committed, stored as {@link ImportProgress} under
+ * the absolute path of the input. It is written in the transaction of the batch, so a crash after the commit cannot
+ * make a rerun store the batch again. A rerun of a failed import continues after this record.
+ */
+class ImportCheckpoint {
+
+    private final String input;
+
+    /**
+     * Constructor.
+     *
+     * @param input the import file
+     */
+    ImportCheckpoint(Path input) {
+        this.input = input.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Reads the checkpoint.
+     *
+     * @param em the entity manager
+     * @return the number of the last committed record, 0 if there is no checkpoint
+     */
+    long load(EntityManager em) {
+        ImportProgress progress = em.find(ImportProgress.class, input);
+        return progress == null ? 0 : progress.getLastRecord();
+    }
+
+    /**
+     * Writes the checkpoint, within the transaction of the batch.
+     *
+     * @param sequence the number of the last record of the batch
+     * @param em       the entity manager, within a transaction
+     */
+    void store(long sequence, EntityManager em) {
+        ImportProgress progress = em.find(ImportProgress.class, input);
+        if (progress == null) {
+            em.persist(new ImportProgress(input, sequence));
+        } else {
+            progress.setLastRecord(sequence);
+        }
+    }
+
+    /**
+     * Deletes the checkpoint, within the transaction of the last batch.
+     *
+     * @param em the entity manager, within a transaction
+     */
+    void delete(EntityManager em) {
+        ImportProgress progress = em.find(ImportProgress.class, input);
+        if (progress != null) {
+            em.remove(progress);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package my.cvmanager.service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Result of a {@link CvImportPipeline} run.
+ *
+ * @param imported     the number of stored profiles
+ * @param invalid      the number of records that could not be parsed or failed validation
+ * @param resumed      the number of records skipped because they were committed by an earlier run
+ * @param stages       the statistics of the stages, in pipeline order
+ * @param elapsedNanos the duration of the run
+ */
+public record ImportReport(long imported, long invalid, long resumed, List<StageReport> stages, long elapsedNanos) {
+
+    /**
+     * Statistics of one stage.
+     *
+     * @param stage     the name of the stage
+     * @param records   the number of records the stage processed
+     * @param busyNanos the time the threads of the stage spent processing, summed over the threads
+     */
+    public record StageReport(String stage, long records, long busyNanos) {
+
+        /**
+         * Returns the records per second of busy time, i.e. the rate of a single thread of the stage. The stage
+         * with the lowest rate per thread limits the pipeline.
+         *
+         * @return the throughput
+         */
+        public double throughput() {
+            return busyNanos == 0 ? 0 : records / (busyNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d in %d ms (%.1f/s)", stage, records, busyNanos / 1_000_000, throughput());
+        }
+    }
+
+    /**
+     * Returns the stored profiles per second.
+     *
+     * @return the throughput
+     */
+    public double throughput() {
+        return elapsedNanos == 0 ? 0 : imported / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("imported=%d, invalid=%d, resumed=%d, elapsed=%d ms, throughput=%.1f/s [%s]",
+                imported, invalid, resumed, elapsedNanos / 1_000_000, throughput(),
+                stages.stream().map(StageReport::toString).collect(Collectors.joining(", ")));
+    }
+}
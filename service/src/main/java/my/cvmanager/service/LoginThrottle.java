@@ -0,0 +1,252 @@
+package my.cvmanager.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * This class limits the login attempts per username and per client address, so that a credential-stuffing wave is
+ * turned away before it reaches the database and the password hashing.
+ * <p>
+ * The attempts that are let through are counted in a sliding window of {@value #WINDOW_PROPERTY} milliseconds. An
+ * attempt is rejected with a {@link LoginThrottledException} once the count of the client address has reached
+ * {@value #MAX_PER_ADDRESS_PROPERTY} or the count of the username has reached {@value #MAX_PER_USERNAME_PROPERTY}.
+ * Rejected attempts are not counted, so a username or address is let through again as soon as its counted attempts
+ * slide out of the window, even while a flood against it goes on.
+ * <p>
+ * The counts are kept in a fixed number of stripes, {@value #STRIPES_PROPERTY} per key type, so the memory does not
+ * grow with the number of usernames and addresses an attacker tries: 8 bytes per stripe, 512 KiB per key type with the
+ * default. A stripe is a single {@code long} updated by compare-and-set, holding the counts of the current and the
+ * previous window; the sliding count is the current count plus the part of the previous count that still overlaps
+ * the window. Every key is counted in two stripes and the smaller count is used, and only the stripes holding the
+ * smaller count are incremented (conservative update), so that keys sharing one stripe rarely throttle each other.
+ * Collisions can only make a count too high, never too low; since the two stripes are not updated together, callers
+ * racing at the limit may each get one attempt past it.
+ * <p>
+ * No stripe is counted beyond the limit, so a key type saturates when its stripes are full. A wave that sprays
+ * distinct usernames with one attempt each fills them after between half and all of stripes times limit attempts per
+ * window, 327,680 to 655,360 with the defaults. A wave that hammers usernames up to the limit fills the two stripes of
+ * each of them: after k such usernames about {@code 1 - exp(-2k / stripes)} of the stripes are full, and an innocent
+ * username is throttled with about the square of that, 1% after k = stripes / 19, about 3,400 with the defaults. The
+ * stripes should therefore be sized a few times above the number of usernames a wave is expected to hammer per
+ * window; the same holds for the addresses.
+ */
+@ApplicationScoped
+public class LoginThrottle {
+
+    public static final String MAX_PER_USERNAME_PROPERTY = "cvmanager.login.max_attempts_per_username";
+    public static final String MAX_PER_ADDRESS_PROPERTY = "cvmanager.login.max_attempts_per_address";
+    public static final String WINDOW_PROPERTY = "cvmanager.login.window_ms";
+    public static final String STRIPES_PROPERTY = "cvmanager.login.stripes";
+
+    public static final int DEFAULT_MAX_PER_USERNAME = 10;
+    public static final int DEFAULT_MAX_PER_ADDRESS = 100;
+    public static final int DEFAULT_STRIPES = 65536;
+
+    private final int maxPerUsername;
+    private final int maxPerAddress;
+    private final long retryAfterSeconds;
+
+    private final StripedWindowCounter usernames;
+    private final StripedWindowCounter addresses;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder throttledByUsername = new LongAdder();
+    private final LongAdder throttledByAddress = new LongAdder();
+
+    /**
+     * Creates a throttle configured from the system properties.
+     */
+    public LoginThrottle() {
+        this(Integer.getInteger(MAX_PER_USERNAME_PROPERTY, DEFAULT_MAX_PER_USERNAME),
+                Integer.getInteger(MAX_PER_ADDRESS_PROPERTY, DEFAULT_MAX_PER_ADDRESS),
+                Duration.ofMillis(Long.getLong(WINDOW_PROPERTY, 60_000)),
+                Integer.getInteger(STRIPES_PROPERTY, DEFAULT_STRIPES));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxPerUsername the maximum number of attempts per username within the window
+     * @param maxPerAddress  the maximum number of attempts per client address within the window
+     * @param window         the length of the sliding window
+     * @param stripes        the number of counters per key type, rounded up to a power of two
+     */
+    public LoginThrottle(int maxPerUsername, int maxPerAddress, Duration window, int stripes) {
+        this(maxPerUsername, maxPerAddress, window, stripes, System::currentTimeMillis);
+    }
+
+    LoginThrottle(int maxPerUsername, int maxPerAddress, Duration window, int stripes, LongSupplier clock) {
+        if (maxPerUsername < 1 || maxPerAddress < 1 || stripes < 1 || window.toMillis() < 1) {
+            throw new IllegalArgumentException("Limits, window and stripes must be positive");
+        }
+        this.maxPerUsername = maxPerUsername;
+        this.maxPerAddress = maxPerAddress;
+        this.retryAfterSeconds = Math.max(1, window.toSeconds());
+        this.usernames = new StripedWindowCounter(stripes, window.toMillis(), clock);
+        this.addresses = new StripedWindowCounter(stripes, window.toMillis(), clock);
+    }
+
+    /**
+     * Checks a login attempt against the limits and counts it if it is let through.
+     *
+     * @param username      the username of the attempt
+     * @param clientAddress the address of the client, null if unknown
+     * @throws LoginThrottledException if there were too many attempts
+     */
+    public void acquire(String username, String clientAddress) {
+        String usernameKey = username == null ? "" : username;
+        if (clientAddress != null && addresses.get(clientAddress) >= maxPerAddress) {
+            throttledByAddress.increment();
+            throw new LoginThrottledException("Too many login attempts from " + clientAddress, retryAfterSeconds);
+        }
+        if (usernames.get(usernameKey) >= maxPerUsername) {
+            throttledByUsername.increment();
+            throw new LoginThrottledException("Too many login attempts for user " + username, retryAfterSeconds);
+        }
+        if (clientAddress != null) {
+            addresses.increment(clientAddress);
+        }
+        usernames.increment(usernameKey);
+        allowed.increment();
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getThrottledByUsername() {
+        return throttledByUsername.sum();
+    }
+
+    public long getThrottledByAddress() {
+        return throttledByAddress.sum();
+    }
+
+    public int getStripes() {
+        return usernames.length();
+    }
+
+    /**
+     * Sliding-window counts in a fixed array of stripes.
+     * A stripe packs the window number into the upper {@value #WINDOW_BITS} bits, followed by the count of the
+     * previous and of the current window with {@value #COUNT_BITS} bits each; counts saturate at their maximum.
+     */
+    static final class StripedWindowCounter {
+
+        static final int COUNT_BITS = 21;
+        static final int WINDOW_BITS = 64 - 2 * COUNT_BITS;
+        static final long MAX_COUNT = (1L << COUNT_BITS) - 1;
+        static final long WINDOW_MASK = (1L << WINDOW_BITS) - 1;
+
+        private final AtomicLongArray stripes;
+        private final int mask;
+        private final long windowMillis;
+        private final LongSupplier clock;
+
+        StripedWindowCounter(int stripes, long windowMillis, LongSupplier clock) {
+            int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+            this.stripes = new AtomicLongArray(size);
+            this.mask = size - 1;
+            this.windowMillis = windowMillis;
+            this.clock = clock;
+        }
+
+        /**
+         * Returns the sliding count of a key.
+         *
+         * @param key the key
+         * @return the smaller sliding count of the two stripes of the key
+         */
+        long get(String key) {
+            long now = clock.getAsLong();
+            long tag = (now / windowMillis) & WINDOW_MASK;
+            double overlap = overlap(now);
+            int hash = mix(key.hashCode());
+            return Math.min(count(stripes.get(firstIndex(hash)), tag, overlap),
+                    count(stripes.get(secondIndex(hash)), tag, overlap));
+        }
+
+        /**
+         * Counts an event of a key in those of its two stripes that hold the smaller count.
+         *
+         * @param key the key
+         */
+        void increment(String key) {
+            long now = clock.getAsLong();
+            long tag = (now / windowMillis) & WINDOW_MASK;
+            double overlap = overlap(now);
+            int hash = mix(key.hashCode());
+            int firstIndex = firstIndex(hash);
+            int secondIndex = secondIndex(hash);
+            long smaller = Math.min(count(stripes.get(firstIndex), tag, overlap),
+                    count(stripes.get(secondIndex), tag, overlap));
+            increment(firstIndex, tag, overlap, smaller);
+            if (secondIndex != firstIndex) {
+                increment(secondIndex, tag, overlap, smaller);
+            }
+        }
+
+        int length() {
+            return stripes.length();
+        }
+
+        private int firstIndex(int hash) {
+            return hash & mask;
+        }
+
+        private int secondIndex(int hash) {
+            return mix(hash ^ 0x9e3779b9) & mask;
+        }
+
+        private double overlap(long now) {
+            return 1.0 - (double) (now % windowMillis) / windowMillis;
+        }
+
+        /**
+         * Increments the current count of a stripe, unless its sliding count is above the count of the key, which
+         * then stems from other keys.
+         */
+        private void increment(int index, long tag, double overlap, long keyCount) {
+            while (true) {
+                long stripe = stripes.get(index);
+                if (count(stripe, tag, overlap) > keyCount) {
+                    return;
+                }
+                long previous = previous(stripe, tag);
+                long current = stripe >>> (2 * COUNT_BITS) == tag ? stripe & MAX_COUNT : 0;
+                current = Math.min(current + 1, MAX_COUNT);
+                if (stripes.compareAndSet(index, stripe, tag << (2 * COUNT_BITS) | previous << COUNT_BITS | current)) {
+                    return;
+                }
+            }
+        }
+
+        private static long count(long stripe, long tag, double overlap) {
+            long current = stripe >>> (2 * COUNT_BITS) == tag ? stripe & MAX_COUNT : 0;
+            return current + (long) (previous(stripe, tag) * overlap);
+        }
+
+        /**
+         * Returns the count of the window before the window of a tag.
+         */
+        private static long previous(long stripe, long tag) {
+            long stripeTag = stripe >>> (2 * COUNT_BITS);
+            if (stripeTag == tag) {
+                return (stripe >>> COUNT_BITS) & MAX_COUNT;
+            }
+            return stripeTag == ((tag - 1) & WINDOW_MASK) ? stripe & MAX_COUNT : 0;
+        }
+
+        private static int mix(int hash) {
+            hash ^= hash >>> 16;
+            hash *= 0x85ebca6b;
+            hash ^= hash >>> 13;
+            hash *= 0xc2b2ae35;
+            return hash ^ hash >>> 16;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package my.cvmanager.service;
+
+/**
+ * Thrown when a login attempt is rejected by the {@link LoginThrottle} because there were too many attempts for the
+ * username or from the client address. Callers should answer with a "try again later".
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Returns the time after which the attempts have left the sliding window.
+     *
+     * @return the time in seconds
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,20 @@
+package my.cvmanager.service;
+
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Answers login attempts rejected by the {@link LoginThrottle} with {@code 429 Too Many Requests}, asking the client
+ * to retry once the sliding window has passed.
+ */
+@Provider
+public class LoginThrottledExceptionMapper implements ExceptionMapper<LoginThrottledException> {
+
+    @Override
+    public Response toResponse(LoginThrottledException exception) {
+        return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header("Retry-After", Long.toString(exception.getRetryAfterSeconds()))
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package my.cvmanager.service;
+
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import my.cvmanager.util.OperationMetrics;
+import my.cvmanager.util.OperationStats;
+import my.cvmanager.util.StatementCounter;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class records the calls of {@link Monitored} beans in {@link OperationMetrics#global()} under
+ * {@code service.<Bean>.<method>}.
+ * It runs before the transaction interceptor, so the commit is part of the recorded latency and statements.
+ */
+@Monitored
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE)
+public class MetricsInterceptor {
+
+    /**
+     * The stats per intercepted method, looked up without building the operation name.
+     */
+    private static final ConcurrentMap<Method, OperationStats> STATS = new ConcurrentHashMap<>();
+
+    @AroundInvoke
+    public Object record(InvocationContext context) throws Exception {
+        OperationStats stats = STATS.computeIfAbsent(context.getMethod(), MetricsInterceptor::statsOf);
+        long start = System.nanoTime(), statements = StatementCounter.current();
+        try {
+            return context.proceed();
+        } catch (Exception ex) {
+            throw stats.failed(ex);
+        } finally {
+            stats.record(start, statements);
+        }
+    }
+
+    private static OperationStats statsOf(Method method) {
+        return OperationMetrics.global()
+                .operation("service." + method.getDeclaringClass().getSimpleName() + "." + method.getName());
+    }
+}
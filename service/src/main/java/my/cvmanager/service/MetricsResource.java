@@ -0,0 +1,328 @@
+package my.cvmanager.service;
+
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonBuilderFactory;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import my.cvmanager.cache.RenderCache;
+import my.cvmanager.util.CacheStatistics;
+import my.cvmanager.util.LatencyHistogram;
+import my.cvmanager.util.OperationMetrics;
+import my.cvmanager.util.OperationStats;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class exposes the operation metrics of the DAOs and services under {@code /api/metrics}, as JSON or in the
+ * Prometheus text format, depending on the {@code Accept} header, together with the statistics of the render cache
+ * of the {@link CvPreviewService}, the footprint of the HTTP sessions, see {@link SessionFootprint}, the counts
+ * of the {@link LoginThrottle} and the latency and saturation of the {@link PasswordHasher}.
+ */
+@Path("/metrics")
+public class MetricsResource {
+
+    /**
+     * The content type of the Prometheus text format.
+     */
+    public static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4";
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Map.of());
+
+    /**
+     * The metrics exposed by this resource.
+     */
+    private final OperationMetrics metrics;
+
+    /**
+     * The preview service instance for this class, null if there is none.
+     */
+    @Inject
+    private CvPreviewService previewService;
+
+    /**
+     * The session footprint instance for this class, null if there is none.
+     */
+    @Inject
+    private SessionFootprint sessionFootprint;
+
+    /**
+     * The login throttle instance for this class, null if there is none.
+     */
+    @Inject
+    private LoginThrottle loginThrottle;
+
+    /**
+     * The password hasher instance for this class, null if there is none.
+     */
+    @Inject
+    private PasswordHasher passwordHasher;
+
+    public MetricsResource() {
+        this(OperationMetrics.global());
+    }
+
+    MetricsResource(OperationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets the preview service instance for this class.
+     * This method is used for testing purposes.
+     *
+     * @param previewService the preview service instance to set
+     */
+    void setPreviewService(CvPreviewService previewService) {
+        this.previewService = previewService;
+    }
+
+    /**
+     * Sets the session footprint instance for this class.
+     * This method is used for testing purposes.
+     *
+     * @param sessionFootprint the session footprint instance to set
+     */
+    void setSessionFootprint(SessionFootprint sessionFootprint) {
+        this.sessionFootprint = sessionFootprint;
+    }
+
+    /**
+     * Sets the login throttle instance for this class.
+     * This method is used for testing purposes.
+     *
+     * @param loginThrottle the login throttle instance to set
+     */
+    void setLoginThrottle(LoginThrottle loginThrottle) {
+        this.loginThrottle = loginThrottle;
+    }
+
+    /**
+     * Sets the password hasher instance for this class.
+     * This method is used for testing purposes.
+     *
+     * @param passwordHasher the password hasher instance to set
+     */
+    void setPasswordHasher(PasswordHasher passwordHasher) {
+        this.passwordHasher = passwordHasher;
+    }
+
+    /**
+     * Returns the metrics of all operations as JSON.
+     * Latencies are in microseconds, the throughput is in calls per second since startup.
+     * The render cache is reported under {@code renderCache}, the HTTP sessions under {@code sessions}, the login
+     * throttle under {@code loginThrottle} and the password hasher under {@code passwordHashing}.
+     *
+     * @return the metrics
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public String json() {
+        JsonArrayBuilder operations = JSON.createArrayBuilder();
+        for (OperationStats stats : metrics.getOperations().values()) {
+            LatencyHistogram latency = stats.getLatency();
+            operations.add(JSON.createObjectBuilder()
+                    .add("name", stats.getName())
+                    .add("count", stats.getCount())
+                    .add("errors", stats.getErrors())
+                    .add("statements", stats.getStatements())
+                    .add("throughput", decimal(metrics.getThroughput(stats)))
+                    .add("meanMicros", decimal(latency.getMeanNanos() / 1e3))
+                    .add("p50Micros", decimal(latency.getPercentileNanos(50) / 1e3))
+                    .add("p99Micros", decimal(latency.getPercentileNanos(99) / 1e3))
+                    .add("p999Micros", decimal(latency.getPercentileNanos(99.9) / 1e3))
+                    .add("maxMicros", decimal(latency.getMaxNanos() / 1e3)));
+        }
+        JsonObjectBuilder json = JSON.createObjectBuilder()
+                .add("elapsedSeconds", decimal(metrics.getElapsedSeconds()))
+                .add("operations", operations);
+        if (previewService != null) {
+            RenderCache cache = previewService.getCache();
+            CacheStatistics statistics = cache.getStatistics();
+            json.add("renderCache", JSON.createObjectBuilder()
+                    .add("entries", cache.size())
+                    .add("bytes", cache.getBytes())
+                    .add("maxBytes", cache.getMaxBytes())
+                    .add("hits", statistics.getHits())
+                    .add("misses", statistics.getMisses())
+                    .add("hitRatio", decimal(statistics.getHitRatio()))
+                    .add("evictions", statistics.getEvictions())
+                    .add("invalidations", cache.getInvalidations()));
+        }
+        if (sessionFootprint != null) {
+            SessionFootprint.Report sessions = sessionFootprint.report();
+            json.add("sessions", JSON.createObjectBuilder()
+                    .add("live", sessions.liveSessions())
+                    .add("sampled", sessions.sampledSessions())
+                    .add("meanBytes", sessions.meanBytes())
+                    .add("maxBytes", sessions.maxBytes())
+                    .add("estimatedTotalBytes", sessions.estimatedTotalBytes())
+                    .add("unserializableAttributes", sessions.unserializableAttributes()));
+        }
+        if (loginThrottle != null) {
+            json.add("loginThrottle", JSON.createObjectBuilder()
+                    .add("allowed", loginThrottle.getAllowed())
+                    .add("throttledByUsername", loginThrottle.getThrottledByUsername())
+                    .add("throttledByAddress", loginThrottle.getThrottledByAddress()));
+        }
+        if (passwordHasher != null) {
+            json.add("passwordHashing", JSON.createObjectBuilder()
+                    .add("hash", latency(passwordHasher.getHashLatency()))
+                    .add("verify", latency(passwordHasher.getVerifyLatency()))
+                    .add("rejected", passwordHasher.getRejectedCount())
+                    .add("queued", passwordHasher.getQueuedCount())
+                    .add("active", passwordHasher.getActiveCount()));
+        }
+        return json.build().toString();
+    }
+
+    /**
+     * Returns the metrics of all operations in the Prometheus text format.
+     *
+     * @return the metrics
+     */
+    @GET
+    @Produces(PROMETHEUS_TEXT)
+    public String prometheus() {
+        Map<String, OperationStats> operations = metrics.getOperations();
+        StringBuilder text = new StringBuilder();
+
+        text.append("# HELP cvmanager_operation_duration_seconds Latency of the DAO and service operations.\n")
+                .append("# TYPE cvmanager_operation_duration_seconds summary\n");
+        for (OperationStats stats : operations.values()) {
+            LatencyHistogram latency = stats.getLatency();
+            for (double quantile : QUANTILES) {
+                text.append("cvmanager_operation_duration_seconds{operation=\"").append(label(stats.getName()))
+                        .append("\",quantile=\"").append(quantile).append("\"} ")
+                        .append(format(latency.getPercentileNanos(quantile * 100) / 1e9)).append('\n');
+            }
+            sample(text, "cvmanager_operation_duration_seconds_sum", stats, format(latency.getSumNanos() / 1e9));
+            sample(text, "cvmanager_operation_duration_seconds_count", stats, Long.toString(stats.getCount()));
+        }
+
+        text.append("# HELP cvmanager_operation_errors_total Failed calls of the DAO and service operations.\n")
+                .append("# TYPE cvmanager_operation_errors_total counter\n");
+        for (OperationStats stats : operations.values()) {
+            sample(text, "cvmanager_operation_errors_total", stats, Long.toString(stats.getErrors()));
+        }
+
+        text.append("# HELP cvmanager_operation_statements_total SQL statements of the DAO and service operations.\n")
+                .append("# TYPE cvmanager_operation_statements_total counter\n");
+        for (OperationStats stats : operations.values()) {
+            sample(text, "cvmanager_operation_statements_total", stats, Long.toString(stats.getStatements()));
+        }
+
+        if (previewService != null) {
+            RenderCache cache = previewService.getCache();
+            CacheStatistics statistics = cache.getStatistics();
+            metric(text, "cvmanager_render_cache_bytes", "gauge", "Size of the cached CV documents.", cache.getBytes());
+            metric(text, "cvmanager_render_cache_max_bytes", "gauge", "Maximum size of the cached CV documents.",
+                    cache.getMaxBytes());
+            metric(text, "cvmanager_render_cache_entries", "gauge", "Profiles with cached CV documents.", cache.size());
+            metric(text, "cvmanager_render_cache_hits_total", "counter", "CV documents served from the cache.",
+                    statistics.getHits());
+            metric(text, "cvmanager_render_cache_misses_total", "counter", "CV documents rendered on a cache miss.",
+                    statistics.getMisses());
+            metric(text, "cvmanager_render_cache_evictions_total", "counter",
+                    "Profiles evicted from the full cache.", statistics.getEvictions());
+            metric(text, "cvmanager_render_cache_invalidations_total", "counter",
+                    "Profiles dropped from the cache because they have changed.", cache.getInvalidations());
+        }
+
+        if (sessionFootprint != null) {
+            SessionFootprint.Report sessions = sessionFootprint.report();
+            metric(text, "cvmanager_sessions_live", "gauge", "Live HTTP sessions.", sessions.liveSessions());
+            metric(text, "cvmanager_session_mean_bytes", "gauge", "Mean serialized size of the sampled sessions.",
+                    sessions.meanBytes());
+            metric(text, "cvmanager_session_max_bytes", "gauge", "Serialized size of the largest sampled session.",
+                    sessions.maxBytes());
+            metric(text, "cvmanager_sessions_bytes", "gauge", "Estimated serialized size of all live sessions.",
+                    sessions.estimatedTotalBytes());
+            metric(text, "cvmanager_session_unserializable_attributes", "gauge",
+                    "Attributes of the sampled sessions that cannot be serialized.", sessions.unserializableAttributes());
+        }
+
+        if (loginThrottle != null) {
+            metric(text, "cvmanager_login_attempts_allowed_total", "counter",
+                    "Login attempts admitted by the throttle.", loginThrottle.getAllowed());
+            text.append("# HELP cvmanager_login_attempts_throttled_total Login attempts rejected by the throttle.\n")
+                    .append("# TYPE cvmanager_login_attempts_throttled_total counter\n")
+                    .append("cvmanager_login_attempts_throttled_total{limit=\"username\"} ")
+                    .append(loginThrottle.getThrottledByUsername()).append('\n')
+                    .append("cvmanager_login_attempts_throttled_total{limit=\"address\"} ")
+                    .append(loginThrottle.getThrottledByAddress()).append('\n');
+        }
+
+        if (passwordHasher != null) {
+            text.append("# HELP cvmanager_password_hashing_duration_seconds Latency of hashing and verifying a password, "
+                            + "including the time queued.\n")
+                    .append("# TYPE cvmanager_password_hashing_duration_seconds summary\n");
+            hashingSummary(text, "hash", passwordHasher.getHashLatency());
+            hashingSummary(text, "verify", passwordHasher.getVerifyLatency());
+            metric(text, "cvmanager_password_hashing_rejected_total", "counter",
+                    "Password hashing calls rejected because the hasher was saturated.", passwordHasher.getRejectedCount());
+            metric(text, "cvmanager_password_hashing_queued", "gauge", "Password hashing calls waiting for a thread.",
+                    passwordHasher.getQueuedCount());
+            metric(text, "cvmanager_password_hashing_active", "gauge", "Password hashing calls running.",
+                    passwordHasher.getActiveCount());
+        }
+        return text.toString();
+    }
+
+    private static JsonObjectBuilder latency(LatencyHistogram latency) {
+        return JSON.createObjectBuilder()
+                .add("count", latency.getCount())
+                .add("meanMicros", decimal(latency.getMeanNanos() / 1e3))
+                .add("p50Micros", decimal(latency.getPercentileNanos(50) / 1e3))
+                .add("p99Micros", decimal(latency.getPercentileNanos(99) / 1e3))
+                .add("maxMicros", decimal(latency.getMaxNanos() / 1e3));
+    }
+
+    private static void hashingSummary(StringBuilder text, String operation, LatencyHistogram latency) {
+        String metric = "cvmanager_password_hashing_duration_seconds";
+        for (double quantile : QUANTILES) {
+            text.append(metric).append("{operation=\"").append(operation).append("\",quantile=\"").append(quantile)
+                    .append("\"} ").append(format(latency.getPercentileNanos(quantile * 100) / 1e9)).append('\n');
+        }
+        text.append(metric).append("_sum{operation=\"").append(operation).append("\"} ")
+                .append(format(latency.getSumNanos() / 1e9)).append('\n')
+                .append(metric).append("_count{operation=\"").append(operation).append("\"} ")
+                .append(latency.getCount()).append('\n');
+    }
+
+    private static void metric(StringBuilder text, String metric, String type, String help, long value) {
+        text.append("# HELP ").append(metric).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(metric).append(' ').append(type).append('\n')
+                .append(metric).append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder text, String metric, OperationStats stats, String value) {
+        text.append(metric).append("{operation=\"").append(label(stats.getName())).append("\"} ").append(value).append('\n');
+    }
+
+    /**
+     * Escapes a label value of the Prometheus text format.
+     */
+    private static String label(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Returns a value rounded to six decimals, which JSON-P writes as it is.
+     */
+    private static BigDecimal decimal(double value) {
+        return BigDecimal.valueOf(value).setScale(6, RoundingMode.HALF_UP);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+}
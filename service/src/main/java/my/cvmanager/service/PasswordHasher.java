@@ -0,0 +1,225 @@
+package my.cvmanager.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import my.cvmanager.pool.ConcurrencyLimiter;
+import my.cvmanager.util.LatencyHistogram;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class hashes and verifies passwords with PBKDF2.
+ * <p>
+ * Hashing is CPU bound, so it runs on a dedicated executor with one thread per core and a bounded queue. When the
+ * queue is full, or a queued call cannot finish within the timeout, the call fails with a
+ * {@link HashingRejectedException} instead of tying up the request thread. While a call waits for its hash, it gives
+ * its {@link ConcurrencyLimiter} permit to calls that need the database. Settings are read from the system
+ * properties {@value #ITERATIONS_PROPERTY}, {@value #QUEUE_CAPACITY_PROPERTY} and {@value #TIMEOUT_PROPERTY}.
+ * <p>
+ * Hashes are stored as {@code pbkdf2$<iterations>$<salt>$<hash>}. Stored values without this prefix are treated as
+ * legacy plain-text passwords.
+ */
+@ApplicationScoped
+public class PasswordHasher {
+
+    public static final String ITERATIONS_PROPERTY = "cvmanager.password.iterations";
+    public static final String QUEUE_CAPACITY_PROPERTY = "cvmanager.password.queue_capacity";
+    public static final String TIMEOUT_PROPERTY = "cvmanager.password.timeout_ms";
+
+    /**
+     * The default work factor, the number of PBKDF2 iterations.
+     */
+    public static final int DEFAULT_ITERATIONS = 210_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final int iterations;
+    private final Duration timeout;
+    private final ThreadPoolExecutor executor;
+
+    private final LatencyHistogram hashLatency = new LatencyHistogram();
+    private final LatencyHistogram verifyLatency = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a hasher configured from the system properties, with one thread per core.
+     */
+    public PasswordHasher() {
+        this(Integer.getInteger(ITERATIONS_PROPERTY, DEFAULT_ITERATIONS),
+                Runtime.getRuntime().availableProcessors(),
+                Integer.getInteger(QUEUE_CAPACITY_PROPERTY, 4 * Runtime.getRuntime().availableProcessors()),
+                Duration.ofMillis(Long.getLong(TIMEOUT_PROPERTY, 2000)));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param iterations    the number of PBKDF2 iterations of new hashes
+     * @param threads       the number of hashing threads
+     * @param queueCapacity the number of calls that may wait for a hashing thread
+     * @param timeout       the maximum time a call waits for its result
+     */
+    public PasswordHasher(int iterations, int threads, int queueCapacity, Duration timeout) {
+        if (iterations < 1 || threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Iterations, threads and queue capacity must be positive");
+        }
+        this.iterations = iterations;
+        this.timeout = timeout;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Hashes a password with a new random salt.
+     *
+     * @param password the password
+     * @return the encoded hash
+     * @throws HashingRejectedException if the executor is saturated
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = call(() -> pbkdf2(password, salt, iterations), hashLatency);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Verifies a password against a stored hash.
+     *
+     * @param password the password to check
+     * @param stored   the stored hash or legacy plain-text password
+     * @return true if the password matches, false otherwise
+     * @throws HashingRejectedException if the executor is saturated
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        int storedIterations = Integer.parseInt(parts[1]);
+        byte[] salt = Base64.getDecoder().decode(parts[2]);
+        byte[] expected = Base64.getDecoder().decode(parts[3]);
+        byte[] actual = call(() -> pbkdf2(password, salt, storedIterations), verifyLatency);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    /**
+     * Checks if a stored value should be replaced by a new hash, because it is plain text or uses fewer iterations
+     * than configured.
+     *
+     * @param stored the stored hash or legacy plain-text password
+     * @return true if the password should be hashed again
+     */
+    public boolean needsRehash(String stored) {
+        String[] parts = stored == null ? new String[0] : stored.split("\\$");
+        return parts.length != 4 || !PREFIX.equals(parts[0]) || Integer.parseInt(parts[1]) < iterations;
+    }
+
+    public LatencyHistogram getHashLatency() {
+        return hashLatency;
+    }
+
+    public LatencyHistogram getVerifyLatency() {
+        return verifyLatency;
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Stops the hashing threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs a hashing task on the executor and waits for its result, without the database permit of the calling
+     * thread.
+     *
+     * @param task    the task
+     * @param latency the histogram recording the latency of the call, including the time spent queued
+     * @return the result of the task
+     */
+    private byte[] call(Callable<byte[]> task, LatencyHistogram latency) {
+        return ConcurrencyLimiter.withoutPermit(() -> await(task, latency));
+    }
+
+    private byte[] await(Callable<byte[]> task, LatencyHistogram latency) {
+        long start = System.nanoTime();
+        Future<byte[]> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new HashingRejectedException("Password hashing is saturated", ex);
+        }
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            rejected.increment();
+            throw new HashingRejectedException("Password hashing timed out after " + timeout.toMillis() + " ms", ex);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new HashingRejectedException("Interrupted while waiting for password hashing", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Password hashing failed", ex.getCause());
+        } finally {
+            latency.recordSince(start);
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package my.cvmanager.service;
+
+import jakarta.annotation.Resource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import jakarta.transaction.Status;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.UserTransaction;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+/**
+ * This class streams all profiles as newline-delimited JSON under {@code /api/profiles/export}.
+ * The response is written while the profiles are read from the database cursor, see {@link ProfileNdjsonWriter}.
+ * <p>
+ * A full export outlasts the default timeout of the container transactions, so the cursor is read in a transaction
+ * with the timeout of {@value #TRANSACTION_TIMEOUT_PROPERTY}, in seconds.
+ */
+@Path("/profiles/export")
+public class ProfileExportResource {
+
+    /**
+     * The content type of newline-delimited JSON.
+     */
+    public static final String NDJSON = "application/x-ndjson";
+
+    public static final String TRANSACTION_TIMEOUT_PROPERTY = "cvmanager.export.transaction_timeout_s";
+    public static final int DEFAULT_TRANSACTION_TIMEOUT_SECONDS = 3600;
+
+    /**
+     * The logger instance for this class.
+     */
+    private final Logger logger = Logger.getLogger(ProfileExportResource.class.getName());
+
+    /**
+     * The entity manager factory; the response is written after this resource returns, so the export uses an
+     * entity manager of its own.
+     */
+    @PersistenceUnit(unitName = "cvmanagerPU")
+    private EntityManagerFactory emf;
+
+    /**
+     * The transaction the cursors are read in.
+     */
+    @Resource
+    private UserTransaction transaction;
+
+    private final ProfileNdjsonWriter profileWriter = new ProfileNdjsonWriter();
+
+    /**
+     * The timeout of the export transaction in seconds.
+     */
+    private final int transactionTimeout;
+
+    public ProfileExportResource() {
+        this(Integer.getInteger(TRANSACTION_TIMEOUT_PROPERTY, DEFAULT_TRANSACTION_TIMEOUT_SECONDS));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param transactionTimeout the timeout of the export transaction in seconds
+     */
+    public ProfileExportResource(int transactionTimeout) {
+        if (transactionTimeout < 1) {
+            throw new IllegalArgumentException("Transaction timeout must be positive: " + transactionTimeout);
+        }
+        this.transactionTimeout = transactionTimeout;
+    }
+
+    /**
+     * Sets the entity manager factory and the transaction.
+     * This method is used for testing purposes.
+     *
+     * @param emf         the entity manager factory
+     * @param transaction the transaction the cursors are read in
+     */
+    void setPersistence(EntityManagerFactory emf, UserTransaction transaction) {
+        this.emf = emf;
+        this.transaction = transaction;
+    }
+
+    /**
+     * Streams all profiles with their positions and technologies, one JSON object per line.
+     *
+     * @return the streaming response
+     */
+    @GET
+    @Produces(NDJSON)
+    public Response export() {
+        return Response.ok(body()).header("Content-Disposition", "attachment; filename=\"profiles.ndjson\"").build();
+    }
+
+    /**
+     * Returns the body of the export.
+     *
+     * @return the output writing all profiles when the response is sent
+     */
+    StreamingOutput body() {
+        return output -> {
+            Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            long start = System.nanoTime();
+            EntityManager em = null;
+            try {
+                transaction.setTransactionTimeout(transactionTimeout);
+                transaction.begin();
+                em = emf.createEntityManager();
+                em.joinTransaction();
+                long count = profileWriter.write(em, out);
+                transaction.commit();
+                logger.info(() -> "Exported " + count + " profiles in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } catch (IOException ex) {
+                rollback();
+                throw ex;
+            } catch (Exception ex) {
+                rollback();
+                throw new WebApplicationException("Profile export failed", ex);
+            } finally {
+                resetTransactionTimeout();
+                if (em != null) {
+                    em.close();
+                }
+            }
+        };
+    }
+
+    private void resetTransactionTimeout() {
+        try {
+            transaction.setTransactionTimeout(0); // the default of the container for the next transactions of the thread
+        } catch (SystemException ex) {
+            logger.severe("Error resetting the transaction timeout: " + ex.getMessage());
+        }
+    }
+
+    private void rollback() {
+        try {
+            if (transaction.getStatus() == Status.STATUS_ACTIVE || transaction.getStatus() == Status.STATUS_MARKED_ROLLBACK) {
+                transaction.rollback();
+            }
+        } catch (SystemException ex) {
+            logger.severe("Error rolling back the profile export: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package my.cvmanager.service;
+
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.UserProfile;
+
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * This class writes a loaded profile with its positions and technologies as JSON, in the shape of the lines of
+ * {@link ProfileNdjsonWriter} plus the version of the profile.
+ */
+public class ProfileJsonWriter {
+
+    private static final JsonGeneratorFactory JSON = Json.createGeneratorFactory(Map.of());
+
+    /**
+     * Writes a profile.
+     *
+     * @param profile the profile, with positions and technologies loaded
+     * @return the JSON document
+     */
+    public String write(UserProfile profile) {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator json = JSON.createGenerator(out)) {
+            json.writeStartObject()
+                    .write("id", profile.getId())
+                    .write("version", profile.getVersion());
+            string(json, "firstName", profile.getFirstName());
+            string(json, "lastName", profile.getLastName());
+            string(json, "email", profile.getEmail());
+            string(json, "phone", profile.getPhone());
+            string(json, "location", profile.getLocation());
+            string(json, "summary", profile.getSummary());
+            json.writeStartArray("positions");
+            for (Position position : profile.getPositions()) {
+                json.writeStartObject().write("id", position.getId());
+                string(json, "title", position.getTitle());
+                string(json, "company", position.getCompany());
+                string(json, "location", position.getLocation());
+                date(json, "startDate", position.getStartDate());
+                date(json, "endDate", position.getEndDate());
+                string(json, "description", position.getDescription());
+                json.writeStartArray("technologies");
+                for (Technology technology : position.getTechnologies()) {
+                    json.writeStartObject();
+                    string(json, "name", technology.getName());
+                    string(json, "level", technology.getLevel() == null ? null : technology.getLevel().code());
+                    json.writeEnd();
+                }
+                json.writeEnd().writeEnd();
+            }
+            json.writeEnd().writeEnd();
+        }
+        return out.toString();
+    }
+
+    private static void string(JsonGenerator json, String name, String value) {
+        if (value == null) {
+            json.writeNull(name);
+        } else {
+            json.write(name, value);
+        }
+    }
+
+    private static void date(JsonGenerator json, String name, LocalDate value) {
+        string(json, name, value == null ? null : value.toString());
+    }
+}
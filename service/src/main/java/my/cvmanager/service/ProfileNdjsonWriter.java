@@ -0,0 +1,175 @@
+package my.cvmanager.service;
+
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import jakarta.persistence.EntityManager;
+import my.cvmanager.domain.Technology;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * This class writes all profiles with their positions and technologies as newline-delimited JSON, one profile
+ * per line.
+ * <p>
+ * Profiles, positions and technologies are read with three forward-only cursors ordered by profile and merged
+ * while writing. Only scalar values are selected, so the persistence context stays empty and the memory use does
+ * not grow with the number of rows. The caller must provide a transaction, some drivers only stream inside one.
+ * Every line is written by its own {@link JsonGenerator} on the shared writer, like {@link ProfileJsonWriter} does.
+ */
+public class ProfileNdjsonWriter {
+
+    /**
+     * The number of rows fetched per round trip.
+     */
+    public static final int FETCH_SIZE = 500;
+
+    private static final JsonGeneratorFactory JSON = Json.createGeneratorFactory(Map.of());
+
+    private static final String PROFILES = "select p.id, p.firstName, p.lastName, p.email, p.phone, p.location, p.summary"
+            + " from UserProfile p order by p.id";
+
+    private static final String POSITIONS = "select p.id, pos.id, pos.title, pos.company, pos.location, pos.startDate,"
+            + " pos.endDate, pos.description from Position pos join pos.userProfile p order by p.id, pos.id";
+
+    private static final String TECHNOLOGIES = "select p.id, pos.id, n.name, t.level from Technology t"
+            + " join t.position pos join pos.userProfile p left join t.technologyName n order by p.id, pos.id, t.id";
+
+    /**
+     * Writes all profiles.
+     *
+     * @param em  the entity manager, within a transaction
+     * @param out the writer, flushed after the first profile and at the end but not closed
+     * @return the number of written profiles
+     * @throws IOException if writing fails
+     */
+    public long write(EntityManager em, Writer out) throws IOException {
+        Session session = em.unwrap(Session.class);
+        // the generator of a line closes its writer, which must not close or flush the shared one
+        Writer line = new FilterWriter(out) {
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (Cursor profiles = new Cursor(session, PROFILES);
+             Cursor positions = new Cursor(session, POSITIONS);
+             Cursor technologies = new Cursor(session, TECHNOLOGIES)) {
+            long count = 0;
+            for (Object[] profile = profiles.row; profile != null; profile = profiles.next()) {
+                long profileId = (Long) profile[0];
+                try (JsonGenerator json = JSON.createGenerator(line)) {
+                    writeProfile(profile, profileId, positions, technologies, json);
+                } catch (JsonException ex) {
+                    if (ex.getCause() instanceof IOException io) {
+                        throw io; // the generator wraps the failures of the writer
+                    }
+                    throw ex;
+                }
+                out.write('\n');
+                if (++count == 1) {
+                    out.flush(); // the first line goes out at once
+                }
+            }
+            out.flush();
+            return count;
+        }
+    }
+
+    private void writeProfile(Object[] profile, long profileId, Cursor positions, Cursor technologies, JsonGenerator json) {
+        json.writeStartObject().write("id", profileId);
+        value(json, "firstName", profile[1]);
+        value(json, "lastName", profile[2]);
+        value(json, "email", profile[3]);
+        value(json, "phone", profile[4]);
+        value(json, "location", profile[5]);
+        value(json, "summary", profile[6]);
+        json.writeStartArray("positions");
+
+        positions.skipBefore(profileId, Long.MIN_VALUE);
+        for (Object[] position = positions.row; position != null && (Long) position[0] == profileId; position = positions.next()) {
+            long positionId = (Long) position[1];
+            json.writeStartObject().write("id", positionId);
+            value(json, "title", position[2]);
+            value(json, "company", position[3]);
+            value(json, "location", position[4]);
+            value(json, "startDate", position[5]);
+            value(json, "endDate", position[6]);
+            value(json, "description", position[7]);
+            json.writeStartArray("technologies");
+            writeTechnologies(profileId, positionId, technologies, json);
+            json.writeEnd().writeEnd();
+        }
+        json.writeEnd().writeEnd();
+    }
+
+    private void writeTechnologies(long profileId, long positionId, Cursor technologies, JsonGenerator json) {
+        technologies.skipBefore(profileId, positionId);
+        for (Object[] technology = technologies.row;
+             technology != null && (Long) technology[0] == profileId && (Long) technology[1] == positionId;
+             technology = technologies.next()) {
+            json.writeStartObject();
+            value(json, "name", technology[2]);
+            value(json, "level", technology[3] == null ? null : ((Technology.Level) technology[3]).code());
+            json.writeEnd();
+        }
+    }
+
+    private static void value(JsonGenerator json, String name, Object value) {
+        if (value == null) {
+            json.writeNull(name);
+        } else {
+            json.write(name, value instanceof LocalDate date ? date.toString() : value.toString());
+        }
+    }
+
+    /**
+     * Forward-only cursor over the rows of a query, ordered by profile ID and position ID.
+     */
+    private static final class Cursor implements AutoCloseable {
+        private final ScrollableResults<Object[]> results;
+        private Object[] row;
+
+        Cursor(Session session, String query) {
+            this.results = session.createSelectionQuery(query, Object[].class)
+                    .setFetchSize(FETCH_SIZE)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            next();
+        }
+
+        Object[] next() {
+            row = results.next() ? results.get() : null;
+            return row;
+        }
+
+        /**
+         * Skips the rows ordered before a profile and position, e.g. of profiles that were added meanwhile.
+         */
+        void skipBefore(long profileId, long positionId) {
+            while (row != null && compareTo(profileId, positionId) < 0) {
+                next();
+            }
+        }
+
+        private int compareTo(long profileId, long positionId) {
+            int result = Long.compare((Long) row[0], profileId);
+            return result != 0 ? result : Long.compare((Long) row[1], positionId);
+        }
+
+        @Override
+        public void close() {
+            results.close();
+        }
+    }
+}
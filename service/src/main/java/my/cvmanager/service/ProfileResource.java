@@ -0,0 +1,82 @@
+package my.cvmanager.service;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import my.cvmanager.domain.UserProfile;
+
+/**
+ * This class serves profiles with their positions and technologies under {@code /api/profiles/{id}}.
+ * <p>
+ * Every response carries a strong ETag, the version of the profile. A client that polls sends it back in
+ * {@code If-None-Match} and gets {@code 304 Not Modified} after a single version lookup, without the profile being
+ * loaded or serialized.
+ */
+@Path("/profiles")
+public class ProfileResource {
+
+    /**
+     * Clients may keep the profile but have to revalidate it before every use.
+     */
+    private static final CacheControl REVALIDATE = new CacheControl();
+
+    static {
+        REVALIDATE.setNoCache(true);
+    }
+
+    /**
+     * The profile service instance for this class.
+     */
+    @Inject
+    private ProfileService profileService;
+
+    /**
+     * The writer of the JSON documents.
+     */
+    private final ProfileJsonWriter profileWriter = new ProfileJsonWriter();
+
+    /**
+     * Returns a profile, or {@code 304 Not Modified} if the client has the current version.
+     *
+     * @param profileId the ID of the profile
+     * @param request   the request with the preconditions
+     * @return the response
+     * @throws NotFoundException if the profile does not exist
+     */
+    @GET
+    @Path("{id: \\d+}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response get(@PathParam("id") Long profileId, @Context Request request) {
+        Long version = profileService.findVersion(profileId).orElseThrow(NotFoundException::new);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag(version));
+        if (notModified != null) {
+            return notModified.cacheControl(REVALIDATE).build();
+        }
+
+        // the profile may have changed since the lookup, the tag is taken from the loaded version
+        UserProfile profile = profileService.findCv(profileId).orElseThrow(NotFoundException::new);
+        return Response.ok(profileWriter.write(profile))
+                .tag(entityTag(profile.getVersion()))
+                .cacheControl(REVALIDATE)
+                .build();
+    }
+
+    /**
+     * Returns the strong entity tag of a profile version.
+     *
+     * @param version the version
+     * @return the entity tag
+     */
+    static EntityTag entityTag(long version) {
+        return new EntityTag(Long.toString(version));
+    }
+}
@@ -0,0 +1,64 @@
+package my.cvmanager.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import my.cvmanager.domain.FetchPlan;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.repositories.BaseDao;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * This class reads profiles for the {@link ProfileResource}.
+ * The version of a profile covers its positions and technologies, see {@link my.cvmanager.domain.AggregatePart}, so
+ * {@link #findVersion(Long)} is enough to tell if a client's copy of the CV is still current.
+ */
+@ApplicationScoped
+@Monitored
+public class ProfileService {
+
+    /**
+     * The entity manager instance for this class.
+     */
+    @PersistenceContext(unitName = "cvmanagerPU")
+    private EntityManager em;
+
+    /**
+     * The profile data provider instance for this class.
+     */
+    private final BaseDao<UserProfile> profileDataProvider = new BaseDao<>(UserProfile.class);
+
+    public ProfileService() {
+    }
+
+    ProfileService(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Returns the version of a profile with a single query, without loading the profile.
+     *
+     * @param profileId the ID of the profile
+     * @return the version, empty if the profile does not exist
+     */
+    public Optional<Long> findVersion(Long profileId) {
+        List<Long> versions = em.createQuery("select p.version from UserProfile p where p.id = :id", Long.class)
+                .setParameter("id", profileId)
+                .getResultList();
+        return versions.stream().findFirst();
+    }
+
+    /**
+     * Loads a profile with its positions and technologies.
+     *
+     * @param profileId the ID of the profile
+     * @return the profile, empty if it does not exist
+     */
+    @Transactional
+    public Optional<UserProfile> findCv(Long profileId) {
+        return profileDataProvider.find(profileId, FetchPlan.FULL_CV, em);
+    }
+}
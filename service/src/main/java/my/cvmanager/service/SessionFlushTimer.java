@@ -0,0 +1,69 @@
+package my.cvmanager.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.logging.Logger;
+
+/**
+ * This class periodically writes the logged-in states of the {@link SessionRegistry} to the database.
+ */
+@Singleton
+@Startup
+public class SessionFlushTimer {
+
+    /**
+     * The logger instance for this class.
+     */
+    private final Logger logger = Logger.getLogger(SessionFlushTimer.class.getName());
+
+    /**
+     * The entity manager instance for this class.
+     */
+    @PersistenceContext(unitName = "cvmanagerPU")
+    private EntityManager em;
+
+    /**
+     * The session registry whose changes are written.
+     */
+    @Inject
+    private SessionRegistry sessionRegistry;
+
+    /**
+     * Writes the pending changes every 30 seconds.
+     */
+    @Schedule(second = "*/30", minute = "*", hour = "*", persistent = false)
+    public void flush() {
+        if (sessionRegistry.getPendingChangeCount() == 0) {
+            return;
+        }
+        try {
+            int count = sessionRegistry.flush(em);
+            logger.fine(() -> "Flushed logged-in state of " + count + " users, "
+                    + sessionRegistry.getActiveSessionCount() + " active sessions");
+        } catch (RuntimeException ex) {
+            logger.severe("Error flushing logged-in state: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Logs out the users of this node on shutdown, their sessions end with the application.
+     */
+    @PreDestroy
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void shutdown() {
+        try {
+            int count = sessionRegistry.logoutAll(em);
+            logger.fine(() -> "Logged out " + count + " users on shutdown");
+        } catch (RuntimeException ex) {
+            logger.severe("Error logging out users on shutdown: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package my.cvmanager.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.BeforeDestroyed;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.context.SessionScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.servlet.http.HttpSession;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * This class keeps track of the live HTTP sessions and reports their footprint: the number of sessions and the bytes
+ * a session takes when it is serialized for replication or passivation.
+ * <p>
+ * The sessions are registered when their session context starts and forgotten before it is destroyed. The size of a
+ * session is the sum of the serialized sizes of its attributes, which include the session-scoped beans; attributes
+ * that cannot be serialized are counted separately, since they break replication. A report serializes at most
+ * {@value #SAMPLE_SIZE} sessions and estimates the total from their mean. Since serializing is expensive, a report is
+ * reused for {@value #MAX_AGE_PROPERTY} milliseconds, and only one thread measures at a time.
+ * <p>
+ * The sessions are held by weak references, so a session the container discards without the destroy event, e.g.
+ * when it is passivated, is not kept alive by this class; it is dropped by the next report.
+ */
+@ApplicationScoped
+public class SessionFootprint {
+
+    /**
+     * The maximum number of sessions serialized for a report.
+     */
+    public static final int SAMPLE_SIZE = 100;
+
+    public static final String MAX_AGE_PROPERTY = "cvmanager.sessions.report_max_age_ms";
+
+    /**
+     * The live sessions by their ID.
+     */
+    private final Map<String, WeakReference<HttpSession>> sessions = new ConcurrentHashMap<>();
+
+    private final long maxAgeMillis;
+    private final LongSupplier clock;
+    private volatile Report lastReport;
+    private volatile long lastReportTime;
+
+    /**
+     * Creates a footprint configured from the system properties.
+     */
+    public SessionFootprint() {
+        this(Long.getLong(MAX_AGE_PROPERTY, 10_000), System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor for testing purposes.
+     *
+     * @param maxAgeMillis the time a report is reused
+     * @param clock        the clock in milliseconds
+     */
+    SessionFootprint(long maxAgeMillis, LongSupplier clock) {
+        this.maxAgeMillis = maxAgeMillis;
+        this.clock = clock;
+    }
+
+    void sessionCreated(@Observes @Initialized(SessionScoped.class) HttpSession session) {
+        register(session);
+    }
+
+    void sessionDestroyed(@Observes @BeforeDestroyed(SessionScoped.class) HttpSession session) {
+        unregister(session);
+    }
+
+    /**
+     * Registers a live session.
+     *
+     * @param session the session
+     */
+    public void register(HttpSession session) {
+        sessions.put(session.getId(), new WeakReference<>(session));
+    }
+
+    /**
+     * Forgets a session that has been invalidated or has expired.
+     *
+     * @param session the session
+     */
+    public void unregister(HttpSession session) {
+        sessions.remove(session.getId());
+    }
+
+    public int getLiveSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Returns the footprint of the live sessions, measured at most {@value #MAX_AGE_PROPERTY} milliseconds ago.
+     *
+     * @return the footprint of the sessions
+     */
+    public Report report() {
+        Report report = lastReport;
+        if (report != null && clock.getAsLong() - lastReportTime < maxAgeMillis) {
+            return report;
+        }
+        synchronized (this) {
+            if (lastReport != report) {
+                return lastReport; // measured by another thread meanwhile
+            }
+            report = measure();
+            lastReportTime = clock.getAsLong();
+            lastReport = report;
+            return report;
+        }
+    }
+
+    private Report measure() {
+        sessions.values().removeIf(reference -> reference.get() == null);
+        int live = sessions.size();
+        int sampled = 0;
+        long sampledBytes = 0;
+        long maxBytes = 0;
+        int unserializable = 0;
+        Iterator<WeakReference<HttpSession>> iterator = sessions.values().iterator();
+        while (sampled < SAMPLE_SIZE && iterator.hasNext()) {
+            WeakReference<HttpSession> reference = iterator.next();
+            HttpSession session = reference.get();
+            if (session == null) {
+                continue;
+            }
+            long bytes = 0;
+            try {
+                for (String name : Collections.list(session.getAttributeNames())) {
+                    long size = serializedSize(session.getAttribute(name));
+                    if (size < 0) {
+                        unserializable++;
+                    } else {
+                        bytes += size;
+                    }
+                }
+            } catch (IllegalStateException invalidated) {
+                sessions.remove(session.getId(), reference);
+                live--;
+                continue;
+            }
+            sampled++;
+            sampledBytes += bytes;
+            maxBytes = Math.max(maxBytes, bytes);
+        }
+        long meanBytes = sampled == 0 ? 0 : sampledBytes / sampled;
+        return new Report(live, sampled, meanBytes, maxBytes, meanBytes * live, unserializable);
+    }
+
+    /**
+     * Returns the size of an object in the Java serialization format.
+     *
+     * @param value the object
+     * @return the size in bytes, or -1 if the object cannot be serialized, also if its serialization fails at runtime
+     */
+    static long serializedSize(Object value) {
+        CountingOutputStream counter = new CountingOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(counter)) {
+            out.writeObject(value);
+        } catch (IOException | RuntimeException ex) {
+            return -1;
+        }
+        return counter.count;
+    }
+
+    /**
+     * The footprint of the live sessions.
+     *
+     * @param liveSessions             the number of live sessions
+     * @param sampledSessions          the number of sessions that were serialized
+     * @param meanBytes                the mean size of the sampled sessions
+     * @param maxBytes                 the size of the largest sampled session
+     * @param estimatedTotalBytes      the mean size times the number of live sessions
+     * @param unserializableAttributes the number of attributes of the sampled sessions that cannot be serialized
+     */
+    public record Report(int liveSessions, int sampledSessions, long meanBytes, long maxBytes,
+                         long estimatedTotalBytes, int unserializableAttributes) {
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
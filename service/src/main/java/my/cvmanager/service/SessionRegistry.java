@@ -0,0 +1,187 @@
+package my.cvmanager.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import my.cvmanager.repositories.UserDao;
+import org.hibernate.event.spi.EventSource;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class keeps track of the logged-in users in memory.
+ * Logins and logouts only change the in-memory state; the {@code loggedIn} column of the users is written behind
+ * in batches by {@link #flush(EntityManager)}. The state is local to this node.
+ * <p>
+ * The written changes are only dropped for good when the transaction commits: if it rolls back, e.g. because the
+ * container fails the commit, they are pending again, unless the user has changed state meanwhile.
+ */
+@ApplicationScoped
+public class SessionRegistry {
+
+    /**
+     * The IDs of the users that are currently logged in.
+     */
+    private final Set<Long> activeSessions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The logged-in state per user that has not been written to the database yet.
+     */
+    private final ConcurrentMap<Long, Boolean> pendingChanges = new ConcurrentHashMap<>();
+
+    /**
+     * The user data provider instance for this class.
+     */
+    private final UserDao userDataProvider = new UserDao();
+
+    /**
+     * Sets the number of users written per chunk by {@link #flush(EntityManager)}.
+     * This method is used for testing purposes.
+     *
+     * @param batchSize the batch size, must be positive
+     */
+    void setBatchSize(int batchSize) {
+        userDataProvider.setBatchSize(batchSize);
+    }
+
+    /**
+     * Marks a user as logged in.
+     *
+     * @param userId the ID of the user
+     */
+    public void login(Long userId) {
+        activeSessions.add(userId);
+        pendingChanges.put(userId, true);
+    }
+
+    /**
+     * Marks a user as logged out.
+     *
+     * @param userId the ID of the user
+     */
+    public void logout(Long userId) {
+        activeSessions.remove(userId);
+        pendingChanges.put(userId, false);
+    }
+
+    /**
+     * Forgets a user, e.g. after the user has been unregistered.
+     *
+     * @param userId the ID of the user
+     */
+    public void remove(Long userId) {
+        activeSessions.remove(userId);
+        pendingChanges.remove(userId);
+    }
+
+    /**
+     * Checks if a user is logged in.
+     *
+     * @param userId the ID of the user
+     * @return true if the user is logged in, false otherwise
+     */
+    public boolean isLoggedIn(Long userId) {
+        return activeSessions.contains(userId);
+    }
+
+    /**
+     * Returns the number of logged-in users.
+     *
+     * @return the number of active sessions
+     */
+    public int getActiveSessionCount() {
+        return activeSessions.size();
+    }
+
+    /**
+     * Returns the number of users whose logged-in state has not been written yet.
+     *
+     * @return the number of pending changes
+     */
+    public int getPendingChangeCount() {
+        return pendingChanges.size();
+    }
+
+    /**
+     * Writes the pending logged-in states to the database.
+     * Must be called within a transaction; if writing fails or the transaction rolls back, the changes are kept for
+     * the next flush.
+     *
+     * @param em the entity manager to write with
+     * @return the number of users written
+     */
+    public int flush(EntityManager em) {
+        Map<Long, Boolean> changes = drainPendingChanges();
+        requeueOnRollback(changes, em);
+        try {
+            int count = 0;
+            for (Map.Entry<Long, Boolean> change : changes.entrySet()) {
+                userDataProvider.find(change.getKey(), em).ifPresent(user -> user.setLoggedIn(change.getValue()));
+                if (++count % userDataProvider.getBatchSize() == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            return count;
+        } catch (RuntimeException ex) {
+            changes.forEach(pendingChanges::putIfAbsent);
+            throw ex;
+        }
+    }
+
+    /**
+     * Logs out all users of this node, e.g. when the application shuts down, with a single UPDATE statement.
+     * Users that logged in since the last flush are included. Must be called within a transaction; if it rolls
+     * back, the logouts are pending.
+     *
+     * @param em the entity manager to write with
+     * @return the number of users written
+     */
+    public int logoutAll(EntityManager em) {
+        Set<Long> userIds = new HashSet<>(activeSessions);
+        userIds.addAll(drainPendingChanges().keySet());
+        activeSessions.removeAll(userIds);
+        Map<Long, Boolean> logouts = new HashMap<>();
+        userIds.forEach(userId -> logouts.put(userId, false));
+        requeueOnRollback(logouts, em);
+        return userDataProvider.updateWhere("id", userIds, "loggedIn", false, em);
+    }
+
+    /**
+     * Puts changes back once the transaction of an entity manager has rolled back, unless the user has a newer
+     * pending change.
+     *
+     * @param changes the changes written in the transaction
+     * @param em      the entity manager
+     */
+    private void requeueOnRollback(Map<Long, Boolean> changes, EntityManager em) {
+        if (!changes.isEmpty()) {
+            em.unwrap(EventSource.class).getActionQueue().registerProcess((success, session) -> {
+                if (!success) {
+                    changes.forEach(pendingChanges::putIfAbsent);
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes and returns the pending changes.
+     * A change made concurrently for the same user stays pending.
+     *
+     * @return the pending changes
+     */
+    private Map<Long, Boolean> drainPendingChanges() {
+        Map<Long, Boolean> changes = new HashMap<>();
+        for (Map.Entry<Long, Boolean> change : pendingChanges.entrySet()) {
+            if (pendingChanges.remove(change.getKey(), change.getValue())) {
+                changes.put(change.getKey(), change.getValue());
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,169 @@
+package my.cvmanager.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import my.cvmanager.domain.AggregateChangeListener;
+import my.cvmanager.domain.FetchPlan;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.repositories.BaseDao;
+import my.cvmanager.search.SkillIndex;
+import my.cvmanager.search.SkillQuery;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class holds the {@link SkillIndex} of the application. The index is built at startup and kept up to date by
+ * the {@link AggregateChangeListener}: when a transaction that changed the positions or technologies of a profile
+ * has committed, the profile is read again and replaced in the index.
+ * <p>
+ * The committed profiles are reindexed one after the other on a thread of their own, so the committing thread does
+ * not wait for it, and with entity managers of their own, because the transaction that changed the profile is over.
+ * The index synchronizes itself, so the container lock is not used and searches run in parallel.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class SkillIndexService {
+
+    /**
+     * The logger instance for this class.
+     */
+    private final Logger logger = Logger.getLogger(SkillIndexService.class.getName());
+
+    /**
+     * The entity manager factory instance for this class.
+     */
+    @PersistenceUnit(unitName = "cvmanagerPU")
+    private EntityManagerFactory emf;
+
+    /**
+     * The profile data provider instance for this class.
+     */
+    private final BaseDao<UserProfile> profileDataProvider = new BaseDao<>(UserProfile.class);
+
+    /**
+     * The skill index.
+     */
+    private final SkillIndex index = new SkillIndex();
+
+    /**
+     * The executor the committed profiles are reindexed on.
+     */
+    private final ExecutorService executor;
+
+    private final LongConsumer committed = this::reindexLater;
+
+    public SkillIndexService() {
+        this(null, Executors.newSingleThreadExecutor(Thread.ofVirtual().name("skill-index").factory()));
+    }
+
+    /**
+     * Constructor for testing purposes.
+     *
+     * @param emf      the entity manager factory
+     * @param executor the executor the committed profiles are reindexed on
+     */
+    SkillIndexService(EntityManagerFactory emf, ExecutorService executor) {
+        this.emf = emf;
+        this.executor = executor;
+    }
+
+    /**
+     * Subscribes to the committed changes of the profiles and builds the index.
+     */
+    @PostConstruct
+    void start() {
+        AggregateChangeListener.subscribeCommitted(committed);
+        rebuild();
+    }
+
+    /**
+     * Cancels the subscription; profiles that are waiting to be reindexed are still reindexed.
+     */
+    @PreDestroy
+    void stop() {
+        AggregateChangeListener.unsubscribeCommitted(committed);
+        executor.shutdown();
+    }
+
+    /**
+     * Builds the index from the database.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        EntityManager em = emf.createEntityManager();
+        try {
+            int profiles = index.rebuild(em);
+            logger.info(() -> "Indexed skills of " + profiles + " profiles in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Returns the IDs of the profiles matching a query. No database access.
+     *
+     * @param query the query
+     * @return the profile IDs in ascending order
+     */
+    public long[] search(SkillQuery query) {
+        return index.search(query);
+    }
+
+    /**
+     * Counts the profiles matching a query. No database access.
+     *
+     * @param query the query
+     * @return the number of matching profiles
+     */
+    public int count(SkillQuery query) {
+        return index.count(query);
+    }
+
+    /**
+     * Reads the skills of a profile from the database and replaces them in the index.
+     * A profile that does not exist anymore is removed from the index.
+     *
+     * @param profileId the ID of the profile
+     */
+    public void reindex(Long profileId) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            profileDataProvider.find(profileId, FetchPlan.FULL_CV, em)
+                    .ifPresentOrElse(index::index, () -> index.remove(profileId));
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Removes a deleted profile from the index.
+     *
+     * @param profileId the ID of the profile
+     */
+    public void remove(Long profileId) {
+        index.remove(profileId);
+    }
+
+    private void reindexLater(long profileId) {
+        executor.execute(() -> {
+            try {
+                reindex(profileId);
+            } catch (RuntimeException ex) {
+                logger.log(Level.WARNING, "Cannot reindex the skills of profile " + profileId
+                        + ", they stay stale until the next rebuild", ex);
+            }
+        });
+    }
+}
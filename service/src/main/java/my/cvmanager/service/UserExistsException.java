@@ -0,0 +1,11 @@
+package my.cvmanager.service;
+
+/**
+ * Thrown when a user cannot be registered because the username or the email address is already registered.
+ */
+public class UserExistsException extends RuntimeException {
+
+    public UserExistsException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
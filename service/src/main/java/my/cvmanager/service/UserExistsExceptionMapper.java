@@ -0,0 +1,17 @@
+package my.cvmanager.service;
+
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Answers registrations of a taken username or email address with {@code 409 Conflict}.
+ */
+@Provider
+public class UserExistsExceptionMapper implements ExceptionMapper<UserExistsException> {
+
+    @Override
+    public Response toResponse(UserExistsException exception) {
+        return Response.status(Response.Status.CONFLICT).build();
+    }
+}
@@ -0,0 +1,88 @@
+package my.cvmanager.service;
+
+import my.cvmanager.domain.User;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.security.Principal;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * This class is the logged-in user as it is kept in the HTTP session: the ID, the username and the roles, without
+ * the password and detached from any persistence context.
+ * <p>
+ * It is immutable and small, so the replication and passivation of a session move a few dozen bytes instead of a
+ * {@link User} entity. The roles are stored as a bit set over {@link Role}.
+ *
+ * @param id       the ID of the user
+ * @param username the username
+ * @param roles    the roles, one bit per {@link Role#ordinal()}
+ */
+public record UserPrincipal(long id, String username, int roles) implements Principal, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The roles of a user.
+     */
+    public enum Role {
+        USER,
+        ADMIN
+    }
+
+    /**
+     * Creates the principal of a user.
+     *
+     * @param user  the user
+     * @param roles the roles of the user
+     * @return the principal
+     */
+    public static UserPrincipal of(User user, Set<Role> roles) {
+        int bits = 0;
+        for (Role role : roles) {
+            bits |= 1 << role.ordinal();
+        }
+        return new UserPrincipal(user.getId(), user.getUsername(), bits);
+    }
+
+    /**
+     * Checks if the user has a role.
+     *
+     * @param role the role
+     * @return true if the user has the role, false otherwise
+     */
+    public boolean hasRole(Role role) {
+        return (roles & 1 << role.ordinal()) != 0;
+    }
+
+    /**
+     * Returns the roles of the user.
+     *
+     * @return the roles
+     */
+    public Set<Role> getRoles() {
+        EnumSet<Role> result = EnumSet.noneOf(Role.class);
+        for (Role role : Role.values()) {
+            if (hasRole(role)) {
+                result.add(role);
+            }
+        }
+        return result;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the username.
+     *
+     * @return the username
+     */
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,201 @@
+package my.cvmanager.service;
+
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonBuilderFactory;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.FormParam;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+import my.cvmanager.domain.User;
+
+import java.net.URI;
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * This class exposes registration, login, logout and unregistration under {@code /api/users}.
+ * <p>
+ * The calls that wait for the database return a {@link CompletionStage} and run on the {@link BlockingCallExecutor},
+ * so the request thread is released while they block. Logout and unregistration need an authenticated caller, which
+ * must be the user itself or have the {@link UserPrincipal.Role#ADMIN ADMIN} role; otherwise they are answered with
+ * {@code 401 Unauthorized} or {@code 403 Forbidden}; the caller is taken from the security context on the request
+ * thread, before the call is handed over. Registering a taken username or email address is answered with
+ * {@code 409 Conflict}, see {@link UserExistsExceptionMapper}. When the database or the password hashing is
+ * saturated the endpoints answer {@code 503 Service Unavailable}, see {@link ConcurrencyLimitExceptionMapper} and
+ * {@link HashingRejectedExceptionMapper}. Logins beyond the limits of the {@link LoginThrottle} are answered with
+ * {@code 429 Too Many Requests}, see {@link LoginThrottledExceptionMapper}.
+ */
+@Path("/users")
+@Produces(MediaType.APPLICATION_JSON)
+public class UserResource {
+
+    private static final JsonBuilderFactory JSON = Json.createBuilderFactory(Map.of());
+
+    /**
+     * The user service instance for this class.
+     */
+    @Inject
+    private UserService userService;
+
+    /**
+     * The executor of the blocking calls.
+     */
+    @Inject
+    private BlockingCallExecutor executor;
+
+    /**
+     * Registers a user.
+     *
+     * @param username the username
+     * @param password the password
+     * @param email    the email address
+     * @return {@code 201 Created} with the user
+     * @throws UserExistsException if the username or the email address is already registered
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    public CompletionStage<Response> register(@FormParam("username") String username,
+                                              @FormParam("password") String password,
+                                              @FormParam("email") String email) {
+        return executor.supply(() -> userService.register(username, password, email))
+                .thenApply(user -> Response.created(URI.create("users/" + user.getId())).entity(toJson(user)).build());
+    }
+
+    /**
+     * Logs in a user.
+     *
+     * @param username the username
+     * @param password the password
+     * @param request  the request, for the address of the client
+     * @return the user, or {@code 401 Unauthorized} if the credentials are wrong
+     */
+    @POST
+    @Path("login")
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    public CompletionStage<Response> login(@FormParam("username") String username,
+                                           @FormParam("password") String password,
+                                           @Context HttpServletRequest request) {
+        String clientAddress = request != null ? request.getRemoteAddr() : null;
+        return executor.supply(() -> userService.login(username, password, clientAddress))
+                .thenApply(user -> user == null
+                        ? Response.status(Response.Status.UNAUTHORIZED).build()
+                        : Response.ok(toJson(user)).build());
+    }
+
+    /**
+     * Logs out a user.
+     *
+     * @param userId   the ID of the user
+     * @param security the security context of the request
+     * @return {@code 204 No Content}, or {@code 401 Unauthorized} or {@code 403 Forbidden} if the caller may not
+     * log out the user
+     */
+    @POST
+    @Path("{id: \\d+}/logout")
+    public CompletionStage<Response> logout(@PathParam("id") Long userId, @Context SecurityContext security) {
+        return supplyAsUserOrAdmin(userId, security, () -> userService.logout(userId));
+    }
+
+    /**
+     * Unregisters a user.
+     *
+     * @param userId   the ID of the user
+     * @param security the security context of the request
+     * @return {@code 204 No Content}, or {@code 401 Unauthorized} or {@code 403 Forbidden} if the caller may not
+     * unregister the user
+     */
+    @DELETE
+    @Path("{id: \\d+}")
+    public CompletionStage<Response> unregister(@PathParam("id") Long userId, @Context SecurityContext security) {
+        return supplyAsUserOrAdmin(userId, security, () -> userService.unregister(userId));
+    }
+
+    /**
+     * Runs a call on the account of a user on the executor if the caller may act on the account.
+     * The security context is bound to the request thread, so the caller is read from it before the call is handed
+     * over; the check itself may look up the user and runs on the executor.
+     *
+     * @param userId   the ID of the user
+     * @param security the security context of the request
+     * @param call     the call
+     * @return {@code 204 No Content}, or {@code 401 Unauthorized} or {@code 403 Forbidden} if the caller may not
+     * act on the account
+     */
+    private CompletionStage<Response> supplyAsUserOrAdmin(Long userId, SecurityContext security, Runnable call) {
+        Principal principal = security == null ? null : security.getUserPrincipal();
+        boolean admin = principal != null && security.isUserInRole(UserPrincipal.Role.ADMIN.name());
+        return executor.supply(() -> {
+            Response.Status denied = denied(userId, principal, admin);
+            if (denied != null) {
+                return Response.status(denied).build();
+            }
+            call.run();
+            return Response.noContent().build();
+        });
+    }
+
+    /**
+     * Checks if the caller may act on the account of a user. A {@link UserPrincipal} is compared by its ID, any
+     * other principal by its name, which needs a lookup of the user.
+     *
+     * @param userId    the ID of the user
+     * @param principal the principal of the caller, null if anonymous
+     * @param admin     true if the caller has the {@link UserPrincipal.Role#ADMIN ADMIN} role
+     * @return null if the caller is the user or an administrator, otherwise the status to answer with
+     */
+    Response.Status denied(Long userId, Principal principal, boolean admin) {
+        if (principal == null) {
+            return Response.Status.UNAUTHORIZED;
+        }
+        if (admin) {
+            return null;
+        }
+        boolean owner = principal instanceof UserPrincipal user
+                ? user.id() == userId
+                : userService.isAccountOf(userId, principal.getName());
+        return owner ? null : Response.Status.FORBIDDEN;
+    }
+
+    /**
+     * Sets the user service instance for this class.
+     * This method is used for testing purposes.
+     *
+     * @param userService the user service instance to set
+     */
+    void setUserService(UserService userService) {
+        this.userService = userService;
+    }
+
+    /**
+     * Sets the executor of the blocking calls.
+     * This method is used for testing purposes.
+     *
+     * @param executor the executor to set
+     */
+    void setExecutor(BlockingCallExecutor executor) {
+        this.executor = executor;
+    }
+
+    static String toJson(User user) {
+        JsonObjectBuilder json = JSON.createObjectBuilder()
+                .add("id", user.getId())
+                .add("username", user.getUsername());
+        if (user.getEmail() != null) {
+            json.add("email", user.getEmail());
+        } else {
+            json.addNull("email");
+        }
+        return json.add("loggedIn", user.isLoggedIn()).build().toString();
+    }
+}
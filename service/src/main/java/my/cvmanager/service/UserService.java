@@ -1,12 +1,16 @@
 package my.cvmanager.service;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
 import jakarta.transaction.Transactional;
 import my.cvmanager.domain.User;
 import my.cvmanager.repositories.UserDao;
+import org.hibernate.exception.ConstraintViolationException;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -15,11 +19,13 @@ import java.util.logging.Logger;
 /**
  * This class represents a user service that provides user-related operations.
  * It implements the IUserService interface and provides methods for registering, logging in, logging out, and unregistering users.
+ * The calls are recorded in the operation metrics, see {@link MetricsResource}.
  *
  * @author [Dein Name]
  * @version 1.0
  */
 @ApplicationScoped
+@Monitored
 public class UserService implements IUserService {
 
     /**
@@ -43,6 +49,47 @@ public class UserService implements IUserService {
      */
     private final UserDao userDataProvider = new UserDao();
 
+    /**
+     * The registry owning the logged-in state of the users.
+     */
+    @Inject
+    private SessionRegistry sessionRegistry;
+
+    /**
+     * The component hashing and verifying the passwords.
+     */
+    @Inject
+    private PasswordHasher passwordHasher;
+
+    /**
+     * The throttle of the login attempts.
+     */
+    @Inject
+    private LoginThrottle loginThrottle;
+
+    /**
+     * Creates a service wired by the container.
+     */
+    public UserService() {
+    }
+
+    /**
+     * Creates a service wired by hand, outside of the container; the caller opens the transactions the container
+     * would open.
+     *
+     * @param em              the entity manager
+     * @param sessionRegistry the registry owning the logged-in state of the users
+     * @param passwordHasher  the component hashing and verifying the passwords
+     * @param loginThrottle   the throttle of the login attempts
+     */
+    public UserService(EntityManager em, SessionRegistry sessionRegistry, PasswordHasher passwordHasher,
+                       LoginThrottle loginThrottle) {
+        this.em = em;
+        this.sessionRegistry = sessionRegistry;
+        this.passwordHasher = passwordHasher;
+        this.loginThrottle = loginThrottle;
+    }
+
     /**
      * Sets the entity manager instance for this class.
      * This method is used for testing purposes to inject a mock entity manager.
@@ -53,13 +100,47 @@ public class UserService implements IUserService {
         this.em = em;
     }
 
+    /**
+     * Sets the session registry instance for this class.
+     * This method is used for testing purposes.
+     *
+     * @param sessionRegistry the session registry instance to set
+     */
+    void setSessionRegistry(SessionRegistry sessionRegistry) {
+        this.sessionRegistry = sessionRegistry;
+    }
+
+    /**
+     * Sets the password hasher instance for this class.
+     * This method is used for testing purposes.
+     *
+     * @param passwordHasher the password hasher instance to set
+     */
+    void setPasswordHasher(PasswordHasher passwordHasher) {
+        this.passwordHasher = passwordHasher;
+    }
+
+    /**
+     * Sets the login throttle instance for this class.
+     * This method is used for testing purposes.
+     *
+     * @param loginThrottle the login throttle instance to set
+     */
+    void setLoginThrottle(LoginThrottle loginThrottle) {
+        this.loginThrottle = loginThrottle;
+    }
+
     /**
      * Registers a new user with the given username, password, and email.
+     * The unique constraints are checked when the user is stored, not when the transaction commits, so a taken
+     * username or email fails this call and rolls back the transaction.
      *
      * @param username the username of the user
      * @param password the password of the user
      * @param email    the email address of the user
      * @return the registered user
+     * @throws HashingRejectedException if the password hashing is saturated
+     * @throws UserExistsException      if the username or the email address is already registered
      */
     @Transactional
     @Override
@@ -67,20 +148,32 @@ public class UserService implements IUserService {
         // create user
         User user = new User();
         user.setUsername(username);
-        user.setPassword(password); //TODO: Hashing
+        user.setPassword(passwordHasher.hash(password));
         user.setEmail(email);
 
         try {
             userDataProvider.persist(user, em); // persist the user
-            logger.info("User has been registered successfully");
-        } catch (Exception ex) {
-            logger.severe("Error registering user: " + ex.getMessage());
-            //TODO: Hier könnte eine spezifische Ausnahmebehandlung erfolgen
+            em.flush(); // violates the unique constraints now instead of at the commit
+        } catch (PersistenceException ex) {
+            if (isConstraintViolation(ex)) {
+                throw new UserExistsException("User " + username + " or email " + email + " is already registered", ex);
+            }
+            throw ex;
         }
+        logger.info("User has been registered successfully");
 
         return user;
     }
 
+    private static boolean isConstraintViolation(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Unregisters the user with the given user ID.
      *
@@ -94,27 +187,61 @@ public class UserService implements IUserService {
                 logger.info("User " + user.getUsername() + " cannot be unregistered.");
             } else {
                 userDataProvider.delete(user, em);
+                sessionRegistry.remove(userId);
                 logger.info("User has been unregistered successfully");
             }
         }, () -> logger.warning("User not found"));
     }
 
     /**
-     * Logs in a user with the given username and password.
+     * Logs in a user with the given username and password, from an unknown client address.
      *
      * @param username the username of the user
      * @param password the password of the user
-     * @return the logged-in user
+     * @return the logged-in user, detached from the persistence context
+     * @throws HashingRejectedException if the password hashing is saturated
+     * @throws LoginThrottledException  if there were too many attempts for the username
+     * @see #login(String, String, String)
      */
     @Transactional
     @Override
     public User login(String username, String password) {
+        return doLogin(username, password, null);
+    }
+
+    /**
+     * Logs in a user with the given username and password.
+     * The attempt is checked against the login throttle first, so throttled attempts neither query the database nor
+     * hash the password. The logged-in state is kept by the session registry, which writes it to the database later.
+     *
+     * @param username      the username of the user
+     * @param password      the password of the user
+     * @param clientAddress the address of the client, null if unknown
+     * @return the logged-in user, detached from the persistence context
+     * @throws HashingRejectedException if the password hashing is saturated
+     * @throws LoginThrottledException  if there were too many attempts for the username or from the address
+     */
+    @Transactional
+    @Override
+    public User login(String username, String password, String clientAddress) {
+        return doLogin(username, password, clientAddress);
+    }
+
+    private User doLogin(String username, String password, String clientAddress) {
         try {
-            Optional<User> user = userDataProvider.findOne("username", username, em);
-            if (user.isPresent() && user.get().getPassword().equals(password)) {
-                user.get().setLoggedIn(true); // mark user as logged-in.
-                return userDataProvider.update(user.get(), em); // update user
+            Optional<User> user = authenticate(username, password, clientAddress);
+            if (user.isPresent()) {
+                if (passwordHasher.needsRehash(user.get().getPassword())) {
+                    user.get().setPassword(passwordHasher.hash(password)); // upgrade plain-text or weaker hashes
+                    em.flush();
+                }
+                sessionRegistry.login(user.get().getId()); // mark user as logged-in.
+                em.detach(user.get()); // the flag below must not be written with this transaction
+                user.get().setLoggedIn(true);
+                return user.get();
             }
+        } catch (HashingRejectedException | LoginThrottledException ex) {
+            throw ex;
         } catch (Exception ex) {
             logger.severe("Error during login: " + ex.getMessage());
         }
@@ -123,31 +250,46 @@ public class UserService implements IUserService {
 
     /**
      * Logs out the user with the given user ID.
+     * The logged-in state is kept by the session registry, which writes it to the database later.
      *
      * @param userId the ID of the user to log out
      */
-    @Transactional
     @Override
     public void logout(Long userId) {
-        Optional<User> user = userDataProvider.find(userId, em);
-        if (user.isPresent()) {
-            user.get().setLoggedIn(false);
-            userDataProvider.update(user.get(), em); // update user
-        }
+        sessionRegistry.logout(userId);
     }
 
     /**
      * Validates the credentials of a user.
+     * The attempt counts against the login throttle like a login, from an unknown client address.
      *
      * @param username the username of the user
      * @param password the password of the user
      * @return true if the credentials are valid, false otherwise
+     * @throws HashingRejectedException if the password hashing is saturated
+     * @throws LoginThrottledException  if there were too many attempts for the username
      */
     @Transactional
     @Override
     public boolean validateCredentials(String username, String password) {
-        Optional<User> user = userDataProvider.findOne("username", username, em);
-        return user.isPresent() && user.get().getPassword().equals(password);
+        return authenticate(username, password, null).isPresent();
+    }
+
+    /**
+     * Checks credentials, the only way to verify a password. The attempt is checked against the login throttle
+     * first, so throttled attempts neither query the database nor hash the password.
+     *
+     * @param username      the username of the user
+     * @param password      the password of the user
+     * @param clientAddress the address of the client, null if unknown
+     * @return the user if the credentials are valid, otherwise empty
+     * @throws HashingRejectedException if the password hashing is saturated
+     * @throws LoginThrottledException  if there were too many attempts for the username or from the address
+     */
+    private Optional<User> authenticate(String username, String password, String clientAddress) {
+        loginThrottle.acquire(username, clientAddress);
+        return userDataProvider.findOne("username", username, em)
+                .filter(user -> passwordHasher.verify(password, user.getPassword()));
     }
 
     /**
@@ -190,6 +332,30 @@ public class UserService implements IUserService {
         return null;
     }
 
+    /**
+     * Checks if a user ID is the account of the user with the given username.
+     *
+     * @param userId   the ID of the user
+     * @param username the username, usually the name of the caller's principal
+     * @return true if the user exists and has the username, false otherwise
+     */
+    @Transactional
+    public boolean isAccountOf(Long userId, String username) {
+        return userDataProvider.find(userId, em).map(user -> user.getUsername().equals(username)).orElse(false);
+    }
+
+    /**
+     * Returns the principal of a user to be kept in the HTTP session instead of the entity.
+     *
+     * @param user the user
+     * @return the principal with the ID, the username and the roles of the user
+     */
+    public UserPrincipal principalOf(User user) {
+        return UserPrincipal.of(user, ADMIN.equals(user.getUsername())
+                ? EnumSet.of(UserPrincipal.Role.USER, UserPrincipal.Role.ADMIN)
+                : EnumSet.of(UserPrincipal.Role.USER));
+    }
+
     /**
      * Checks if a user is an administrator.
      *
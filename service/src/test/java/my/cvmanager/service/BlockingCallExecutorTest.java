@@ -0,0 +1,75 @@
+package my.cvmanager.service;
+
+import my.cvmanager.pool.ConcurrencyLimitException;
+import my.cvmanager.pool.ConcurrencyLimiter;
+import my.cvmanager.pool.PooledConnectionProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class BlockingCallExecutorTest {
+
+    @Test
+    public void testRunsOnVirtualThreads() throws Exception {
+        BlockingCallExecutor executor = new BlockingCallExecutor(true, 1, new ConcurrencyLimiter(2, Duration.ofSeconds(1)));
+        try {
+            Assert.assertTrue(executor.supply(() -> Thread.currentThread().isVirtual()).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRunsOnPlatformThreads() throws Exception {
+        BlockingCallExecutor executor = new BlockingCallExecutor(false, 1, new ConcurrencyLimiter(2, Duration.ofSeconds(1)));
+        try {
+            Assert.assertFalse(executor.supply(() -> Thread.currentThread().isVirtual()).get());
+            Assert.assertEquals("cv-call-1", executor.supply(() -> Thread.currentThread().getName()).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompletesExceptionallyWhenNotAdmitted() throws Exception {
+        BlockingCallExecutor executor = new BlockingCallExecutor(true, 1, new ConcurrencyLimiter(1, Duration.ofMillis(50)));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> blocking = executor.supply(() -> {
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+            while (executor.getLimiter().getActive() == 0) {
+                Thread.onSpinWait();
+            }
+
+            try {
+                executor.supply(() -> "never").get();
+                Assert.fail();
+            } catch (ExecutionException ex) {
+                Assert.assertTrue(ex.getCause() instanceof ConcurrencyLimitException);
+            }
+            release.countDown();
+            Assert.assertTrue(blocking.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLimitIsTheSizeOfTheConfiguredPool() {
+        Assert.assertEquals(20, BlockingCallExecutor.maxConcurrency(Map.of(
+                BlockingCallExecutor.MAX_CONCURRENCY_PROPERTY, "20", PooledConnectionProvider.MAX_SIZE, "5")));
+        Assert.assertEquals(5, BlockingCallExecutor.maxConcurrency(Map.of(PooledConnectionProvider.MAX_SIZE, 5)));
+        Assert.assertThrows(IllegalStateException.class, () -> BlockingCallExecutor.maxConcurrency(Map.of()));
+    }
+}
@@ -0,0 +1,135 @@
+package my.cvmanager.service;
+
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.repositories.AbstractDaoTest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public class CvBatchExporterTest extends AbstractDaoTest {
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("cv-export");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testExportsEveryProfile() throws IOException {
+        Long marco = createProfile();
+        Long anna = createProfile("Anna", "Kotlin", Technology.Level.AAA);
+
+        BatchExportReport report;
+        try (CvBatchExporter exporter = new CvBatchExporter(emf, 2)) {
+            report = exporter.export(List.of(marco, anna, -1L), directory, CvTemplate.DEFAULT);
+        }
+
+        Assert.assertEquals(2, report.exported());
+        Assert.assertEquals(1, report.missing());
+        Assert.assertEquals(0, report.failed());
+        Assert.assertEquals(List.of("cv-" + anna + ".pdf", "cv-" + marco + ".pdf"), files());
+        Assert.assertTrue(text(directory.resolve("cv-" + anna + ".pdf")).contains("Kotlin (AAA)"));
+    }
+
+    @Test
+    public void testFailedExportLeavesNoFile() throws IOException {
+        Long marco = createProfile();
+        Long anna = createProfile("Anna", "Kotlin", Technology.Level.AAA);
+        CvPdfRenderer failing = new CvPdfRenderer() {
+            @Override
+            public void render(UserProfile profile, CvTemplate template, OutputStream out) {
+                if (!"Anna".equals(profile.getFirstName())) {
+                    super.render(profile, template, out);
+                    return;
+                }
+                try {
+                    out.write("%PDF-1.4 half a document".getBytes());
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                throw new IllegalStateException("Rendering failed");
+            }
+        };
+
+        BatchExportReport report;
+        try (CvBatchExporter exporter = new CvBatchExporter(emf, 2, failing)) {
+            report = exporter.export(List.of(marco, anna), directory, CvTemplate.DEFAULT);
+        }
+
+        Assert.assertEquals(1, report.exported());
+        Assert.assertEquals(1, report.failed());
+        Assert.assertEquals(List.of("cv-" + marco + ".pdf"), files());
+    }
+
+    @Test
+    public void testExportsInParallel() throws IOException {
+        List<Long> profileIds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            profileIds.add(createProfile("Profile " + i, "Java", Technology.Level.A));
+        }
+        // the first two documents only finish once they are rendered at the same time
+        CyclicBarrier together = new CyclicBarrier(2);
+        CvPdfRenderer meeting = new CvPdfRenderer() {
+            @Override
+            public void render(UserProfile profile, CvTemplate template, OutputStream out) {
+                if (profile.getFirstName().matches("Profile [01]")) {
+                    try {
+                        together.await(10, TimeUnit.SECONDS);
+                    } catch (Exception ex) {
+                        throw new IllegalStateException("Not rendered in parallel", ex);
+                    }
+                }
+                super.render(profile, template, out);
+            }
+        };
+
+        BatchExportReport report;
+        try (CvBatchExporter exporter = new CvBatchExporter(emf, 4, meeting)) {
+            report = exporter.export(profileIds, directory, CvTemplate.COMPACT);
+        }
+
+        Assert.assertEquals(report.toString(), 8, report.exported());
+        Assert.assertEquals(8, files().size());
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static String text(Path pdf) throws IOException {
+        PdfReader reader = new PdfReader(Files.readAllBytes(pdf));
+        try {
+            return new PdfTextExtractor(reader).getTextFromPage(1);
+        } finally {
+            reader.close();
+        }
+    }
+}
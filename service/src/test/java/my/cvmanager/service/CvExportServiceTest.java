@@ -0,0 +1,37 @@
+package my.cvmanager.service;
+
+import my.cvmanager.repositories.AbstractDaoTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class CvExportServiceTest extends AbstractDaoTest {
+
+    @Test
+    public void testExportsTheCv() {
+        Long id = createProfile();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Assert.assertTrue(new CvExportService(em).export(id, CvTemplate.COMPACT, out));
+        Assert.assertEquals("%PDF", new String(out.toByteArray(), 0, 4, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testMissingProfileWritesNothing() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Assert.assertFalse(new CvExportService(em).export(-1L, CvTemplate.DEFAULT, out));
+        Assert.assertEquals(0, out.size());
+    }
+
+    @Test
+    public void testExists() {
+        Long id = createProfile();
+        CvExportService exportService = new CvExportService(em);
+
+        Assert.assertTrue(exportService.exists(id));
+        Assert.assertFalse(exportService.exists(-1L));
+    }
+}
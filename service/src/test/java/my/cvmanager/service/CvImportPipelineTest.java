@@ -0,0 +1,149 @@
+package my.cvmanager.service;
+
+import my.cvmanager.domain.FetchPlan;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.repositories.AbstractDaoTest;
+import my.cvmanager.repositories.BaseDao;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public class CvImportPipelineTest extends AbstractDaoTest {
+
+    private static final String CSV_HEADER = String.join(",", CvImportFormat.CSV_COLUMNS);
+
+    private final BaseDao<UserProfile> profileDao = new BaseDao<>(UserProfile.class);
+    private final CvImportPipeline pipeline = new CvImportPipeline(emf, 4, 10, 16);
+
+    @After
+    public void closePipeline() {
+        pipeline.close();
+    }
+
+    @Test
+    public void testImportsCsvInFileOrder() throws IOException {
+        Path input = Files.createTempFile("profiles", ".csv");
+        Files.write(input, List.of(CSV_HEADER,
+                "1,Marco,Rossi,marco@example.com,,Milan,,Engineer,ACME,,2020-01-01,,\"Builds, ships\nand runs\",Java:AA;SQL",
+                "1,,,,,,,Architect,ACME,,2022-01-01,,,Java:AAA",
+                "2,Anna,,anna@example,,,,,,,,,,",
+                "3,Lena,,,,,,,,,,,,"), StandardCharsets.UTF_8);
+
+        ImportReport report = pipeline.importFile(input);
+
+        Assert.assertEquals(2, report.imported());
+        Assert.assertEquals(1, report.invalid());
+        Assert.assertEquals(5, report.stages().size());
+        Assert.assertEquals(3, report.stages().get(1).records()); // parse
+        Assert.assertEquals(2, report.stages().get(4).records()); // write
+        Assert.assertEquals(0, new ImportCheckpoint(input).load(em));
+
+        List<UserProfile> profiles = em.createQuery("select p from UserProfile p order by p.id", UserProfile.class)
+                .getResultList();
+        Assert.assertEquals(List.of("Marco", "Lena"), profiles.stream().map(UserProfile::getFirstName).toList());
+        UserProfile marco = profileDao.find(profiles.get(0).getId(), FetchPlan.FULL_CV, em).orElseThrow();
+        Assert.assertEquals(2, marco.getPositions().size());
+        Position engineer = marco.getPositions().stream().filter(p -> p.getTitle().equals("Engineer")).findFirst().orElseThrow();
+        Assert.assertEquals("Builds, ships\nand runs", engineer.getDescription());
+        Assert.assertEquals(List.of("Java", "SQL"), engineer.getTechnologies().stream().map(Technology::getName).sorted().toList());
+        Assert.assertEquals(1L, (long) em.createQuery("select count(n) from TechnologyName n where n.name = 'Java'", Long.class)
+                .getSingleResult());
+    }
+
+    @Test
+    public void testImportsExportedNdjson() throws IOException {
+        for (int i = 0; i < 25; i++) {
+            createProfile("Profile " + i, "Java", Technology.Level.AA, "Kotlin", Technology.Level.AA);
+        }
+        Path input = Files.createTempFile("profiles", ".ndjson");
+        em.getTransaction().begin();
+        try (Writer out = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+            new ProfileNdjsonWriter().write(em, out);
+        } finally {
+            em.getTransaction().commit();
+        }
+        Files.writeString(input, "{not json\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        ImportReport report = pipeline.importFile(input);
+
+        Assert.assertEquals(25, report.imported());
+        Assert.assertEquals(1, report.invalid());
+        Assert.assertEquals(50L, (long) em.createQuery("select count(p) from UserProfile p", Long.class).getSingleResult());
+        Assert.assertEquals(100L, (long) em.createQuery("select count(t) from Technology t where t.level = :level", Long.class)
+                .setParameter("level", Technology.Level.AA)
+                .getSingleResult());
+    }
+
+    @Test
+    public void testResumesAfterCheckpoint() throws IOException {
+        Path input = Files.createTempFile("profiles", ".csv");
+        Files.write(input, List.of(CSV_HEADER,
+                "1,Marco,,,,,,,,,,,,",
+                "2,Anna,,,,,,,,,,,,",
+                "3,Lena,,,,,,,,,,,,"), StandardCharsets.UTF_8);
+        inTransaction(() -> new ImportCheckpoint(input).store(2, em));
+        em.clear();
+
+        ImportReport report = pipeline.importFile(input);
+
+        Assert.assertEquals(2, report.resumed());
+        Assert.assertEquals(1, report.imported());
+        Assert.assertEquals(List.of("Lena"), em.createQuery("select p.firstName from UserProfile p", String.class)
+                .getResultList());
+        Assert.assertEquals(0, new ImportCheckpoint(input).load(em));
+    }
+
+    @Test
+    public void testCheckpointIsRolledBackWithTheBatch() throws IOException {
+        Path input = Files.createTempFile("profiles", ".csv");
+        ImportCheckpoint checkpoint = new ImportCheckpoint(input);
+        inTransaction(() -> checkpoint.store(10, em));
+
+        em.getTransaction().begin();
+        UserProfile profile = new UserProfile();
+        profile.setFirstName("Marco");
+        em.persist(profile);
+        checkpoint.store(20, em);
+        em.flush();
+        em.getTransaction().rollback();
+        em.clear();
+
+        Assert.assertEquals(10, checkpoint.load(em));
+        Assert.assertEquals(10, new ImportCheckpoint(input.resolveSibling(".").resolve(input.getFileName())).load(em));
+        Assert.assertEquals(0L, (long) em.createQuery("select count(p) from UserProfile p", Long.class).getSingleResult());
+    }
+
+    @Test
+    public void testUnterminatedQuoteFailsOnlyItsRecord() throws IOException {
+        Path input = Files.createTempFile("profiles", ".csv");
+        Files.write(input, List.of(CSV_HEADER,
+                "1,Marco,,,,,,,,,,,,",
+                "2,Anna,,,,,\"never closed,,,,,,,",
+                "3,Lena,,,,,,,,,,,,"), StandardCharsets.UTF_8);
+
+        ImportReport report = pipeline.importFile(input);
+
+        // the open quote swallows the rest of the file
+        Assert.assertEquals(1, report.imported());
+        Assert.assertEquals(1, report.invalid());
+        Assert.assertEquals(List.of("Marco"), em.createQuery("select p.firstName from UserProfile p", String.class)
+                .getResultList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownCsvHeader() throws IOException {
+        Path input = Files.createTempFile("profiles", ".csv");
+        Files.writeString(input, "name,email\n");
+        pipeline.importFile(input);
+    }
+}
@@ -0,0 +1,98 @@
+package my.cvmanager.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CvImportReaderTest {
+
+    private static final String CSV_HEADER = String.join(",", CvImportFormat.CSV_COLUMNS);
+
+    @Test
+    public void testGroupsTheLinesOfAProfile() throws IOException {
+        List<CvImportReader.RawRecord> records = read(CvImportFormat.CSV, 200, 10, CSV_HEADER + "\r\n"
+                + "1,Marco,,,,,,Engineer,,,,,\"two\r\nlines\",\r\n"
+                + "1,,,,,,,Architect,,,,,,\n"
+                + "\n"
+                + "2,Anna,,,,,,,,,,,,");
+
+        Assert.assertEquals(2, records.size());
+        Assert.assertEquals(List.of("1,Marco,,,,,,Engineer,,,,,\"two\nlines\",", "1,,,,,,,Architect,,,,,,"),
+                records.get(0).lines());
+        Assert.assertNull(records.get(0).error());
+        Assert.assertEquals(2, records.get(1).sequence());
+        Assert.assertEquals(List.of("2,Anna,,,,,,,,,,,,"), records.get(1).lines());
+    }
+
+    @Test
+    public void testUnterminatedQuoteFailsTheRecord() throws IOException {
+        List<CvImportReader.RawRecord> records = read(CvImportFormat.CSV, 200, 10, CSV_HEADER + "\n"
+                + "1,Marco,,,,,,,,,,,,\n"
+                + "2,Anna,,,,,\"never closed,,,,,,,\n"
+                + "3,Lena,,,,,,,,,,,,\n");
+
+        Assert.assertEquals(2, records.size());
+        Assert.assertEquals("Unterminated quote", records.get(1).error());
+        Assert.assertEquals(List.of(), records.get(1).lines());
+    }
+
+    @Test
+    public void testLongLineFailsTheRecord() throws IOException {
+        List<CvImportReader.RawRecord> records = read(CvImportFormat.CSV, 200, 10, CSV_HEADER + "\n"
+                + "1,Marco,,,,,\"" + "x".repeat(50) + "\n" + "y".repeat(500) + "\",,,,,,,\n"
+                + "2,Anna,,,,,,,,,,,,\n");
+
+        Assert.assertEquals(2, records.size());
+        Assert.assertEquals("Line longer than 200 characters", records.get(0).error());
+        Assert.assertNull("the closing quote is found beyond the limit", records.get(1).error());
+        Assert.assertEquals(List.of("2,Anna,,,,,,,,,,,,"), records.get(1).lines());
+    }
+
+    @Test
+    public void testLongNdjsonLineFailsTheRecord() throws IOException {
+        List<CvImportReader.RawRecord> records = read(CvImportFormat.NDJSON, 20, 10,
+                "{\"firstName\":\"" + "x".repeat(100) + "\"}\n{}\n");
+
+        Assert.assertEquals(2, records.size());
+        Assert.assertEquals("Line longer than 20 characters", records.get(0).error());
+        Assert.assertEquals(List.of("{}"), records.get(1).lines());
+    }
+
+    @Test
+    public void testProfileWithTooManyLinesFailsTheRecord() throws IOException {
+        StringBuilder file = new StringBuilder(CSV_HEADER).append('\n');
+        for (int i = 0; i < 5; i++) {
+            file.append("1,Marco,,,,,,Position ").append(i).append(",,,,,,\n");
+        }
+        file.append("2,Anna,,,,,,,,,,,,\n");
+
+        List<CvImportReader.RawRecord> records = read(CvImportFormat.CSV, 200, 3, file.toString());
+
+        Assert.assertEquals(2, records.size());
+        Assert.assertEquals("More than 3 lines for profile 1", records.get(0).error());
+        Assert.assertEquals(List.of("2,Anna,,,,,,,,,,,,"), records.get(1).lines());
+    }
+
+    private static List<CvImportReader.RawRecord> read(CvImportFormat format, int maxLineLength, int maxRecordLines,
+                                                       String content) throws IOException {
+        Path input = Files.createTempFile("profiles", format == CvImportFormat.CSV ? ".csv" : ".ndjson");
+        try {
+            Files.writeString(input, content, StandardCharsets.UTF_8);
+            List<CvImportReader.RawRecord> records = new ArrayList<>();
+            try (CvImportReader reader = new CvImportReader(input, format, maxLineLength, maxRecordLines)) {
+                for (CvImportReader.RawRecord record = reader.next(); record != null; record = reader.next()) {
+                    records.add(record);
+                }
+            }
+            return records;
+        } finally {
+            Files.delete(input);
+        }
+    }
+}
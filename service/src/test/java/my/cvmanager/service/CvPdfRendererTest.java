@@ -0,0 +1,87 @@
+package my.cvmanager.service;
+
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import my.cvmanager.domain.Position;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.UserProfile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+public class CvPdfRendererTest {
+    CvPdfRenderer renderer = new CvPdfRenderer();
+
+    @Test
+    public void testRenderProfile() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderer.render(createProfile(40), out);
+
+        byte[] pdf = out.toByteArray();
+        Assert.assertEquals("%PDF", new String(pdf, 0, 4, StandardCharsets.US_ASCII));
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            Assert.assertTrue(reader.getNumberOfPages() > 1);
+            String firstPage = new PdfTextExtractor(reader).getTextFromPage(1);
+            Assert.assertTrue(firstPage, firstPage.contains("Marco Braun"));
+            Assert.assertTrue(firstPage, firstPage.contains("Java (AAA)"));
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testRenderNamesOutsideOfLatin1() throws Exception {
+        UserProfile profile = createProfile(1);
+        profile.setFirstName("Łukasz");
+        profile.setLastName("Żółć");
+        profile.setSummary("Разработчик программного обеспечения");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderer.render(profile, out);
+
+        PdfReader reader = new PdfReader(out.toByteArray());
+        try {
+            String firstPage = new PdfTextExtractor(reader).getTextFromPage(1);
+            Assert.assertTrue(firstPage, firstPage.contains("Łukasz Żółć"));
+            Assert.assertTrue(firstPage, firstPage.contains("Разработчик"));
+        } finally {
+            reader.close();
+        }
+        // the glyphs travel with the document instead of depending on the fonts of the reader
+        Assert.assertTrue(new String(out.toByteArray(), StandardCharsets.ISO_8859_1).contains("/FontFile2"));
+    }
+
+    @Test
+    public void testTemplatesAreCompiledOnce() {
+        Assert.assertSame(CvTemplate.get(CvTemplate.COMPACT), CvTemplate.get(CvTemplate.COMPACT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownTemplate() {
+        CvTemplate.get("unknown");
+    }
+
+    private static UserProfile createProfile(int positions) {
+        UserProfile profile = new UserProfile();
+        profile.setFirstName("Marco");
+        profile.setLastName("Braun");
+        profile.setEmail("braun_marco@gmx.de");
+        profile.setSummary("Software engineer");
+        for (int i = 0; i < positions; i++) {
+            Position position = new Position();
+            position.setTitle("Software Engineer " + i);
+            position.setCompany("Company " + i);
+            position.setStartDate(LocalDate.of(2000 + i % 20, 1, 1));
+            position.setDescription("Built things. ".repeat(20));
+            Technology technology = new Technology();
+            technology.setName("Java");
+            technology.setLevel(Technology.Level.AAA);
+            position.addTechnology(technology);
+            profile.addPosition(position);
+        }
+        return profile;
+    }
+}
@@ -0,0 +1,94 @@
+package my.cvmanager.service;
+
+import my.cvmanager.cache.RenderCache;
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.repositories.AbstractDaoTest;
+import my.cvmanager.testsupport.QueryCounter;
+import my.cvmanager.testsupport.QueryReport;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+public class CvPreviewServiceTest extends AbstractDaoTest {
+
+    private RenderCache cache;
+    private CvPreviewService previewService;
+
+    @Before
+    public void subscribe() {
+        cache = new RenderCache(1024 * 1024);
+        previewService = new CvPreviewService(new ProfileService(em), cache);
+        previewService.subscribe();
+    }
+
+    @After
+    public void unsubscribe() {
+        previewService.unsubscribe();
+    }
+
+    @Test
+    public void testRepeatViewsAreServedFromTheCache() {
+        Long id = createProfile("Marco <Dev>", "Java", Technology.Level.AA);
+        String html = new String(html(id).content(), StandardCharsets.UTF_8);
+        Assert.assertTrue(html, html.contains("<h1>Marco &lt;Dev&gt;</h1>"));
+        Assert.assertTrue(html, html.contains("<li>Java (AA)</li>"));
+
+        QueryReport report = QueryCounter.record(emf, () -> Assert.assertEquals(0L, html(id).version()));
+
+        Assert.assertEquals("the version lookup only", 1, report.getStatementCount());
+        Assert.assertEquals(1, cache.getStatistics().getHits());
+        Assert.assertEquals(cache.getBytes(), html.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    public void testChangesOfTheCvInvalidateThePreviews() {
+        Long id = createProfile("Marco <Dev>", "Java", Technology.Level.AA);
+        html(id);
+        byte[] pdf = pdf(id).content();
+        Assert.assertEquals("%PDF", new String(pdf, 0, 4, StandardCharsets.US_ASCII));
+        Assert.assertEquals(1, cache.size());
+
+        inTransaction(() -> em.find(UserProfile.class, id).getPositions().get(0).getTechnologies().get(0)
+                .setLevel(Technology.Level.AAA));
+        em.clear();
+
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getBytes());
+        CvPreviewService.Preview preview = html(id);
+        Assert.assertEquals(1L, preview.version());
+        Assert.assertTrue(new String(preview.content(), StandardCharsets.UTF_8).contains("<li>Java (AAA)</li>"));
+    }
+
+    @Test
+    public void testUnknownProfile() {
+        em.getTransaction().begin();
+        Assert.assertEquals(Optional.empty(), previewService.findVersion(-1L));
+        Assert.assertEquals(Optional.empty(), previewService.html(-1L, 0));
+        em.getTransaction().commit();
+    }
+
+    private CvPreviewService.Preview html(Long id) {
+        em.getTransaction().begin();
+        try {
+            return previewService.html(id, previewService.findVersion(id).orElseThrow()).orElseThrow();
+        } finally {
+            em.getTransaction().commit();
+            em.clear();
+        }
+    }
+
+    private CvPreviewService.Preview pdf(Long id) {
+        em.getTransaction().begin();
+        try {
+            return previewService.pdf(id, previewService.findVersion(id).orElseThrow(), CvTemplate.DEFAULT).orElseThrow();
+        } finally {
+            em.getTransaction().commit();
+            em.clear();
+        }
+    }
+}
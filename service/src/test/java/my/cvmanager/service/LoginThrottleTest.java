@@ -0,0 +1,220 @@
+package my.cvmanager.service;
+
+import my.cvmanager.repositories.AbstractDaoTest;
+import my.cvmanager.testsupport.QueryCounter;
+import my.cvmanager.testsupport.QueryReport;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LoginThrottleTest extends AbstractDaoTest {
+    AtomicLong clock = new AtomicLong(1_000_000);
+
+    @Test
+    public void testThrottlesPerUsername() {
+        LoginThrottle throttle = new LoginThrottle(3, 100, Duration.ofMinutes(1), 64, clock::get);
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("alice", "10.0.0." + i);
+        }
+        try {
+            throttle.acquire("alice", "10.0.0.9");
+            Assert.fail();
+        } catch (LoginThrottledException expected) {
+            Assert.assertEquals(60, expected.getRetryAfterSeconds());
+        }
+        throttle.acquire("bob", "10.0.0.9");
+
+        Assert.assertEquals(4, throttle.getAllowed());
+        Assert.assertEquals(1, throttle.getThrottledByUsername());
+        Assert.assertEquals(0, throttle.getThrottledByAddress());
+    }
+
+    @Test
+    public void testThrottlesPerAddress() {
+        LoginThrottle throttle = new LoginThrottle(100, 5, Duration.ofMinutes(1), 64, clock::get);
+        for (int i = 0; i < 5; i++) {
+            throttle.acquire("user" + i, "10.0.0.1");
+        }
+        Assert.assertThrows(LoginThrottledException.class, () -> throttle.acquire("user9", "10.0.0.1"));
+        throttle.acquire("user9", "10.0.0.2");
+        throttle.acquire("user9", null);
+
+        Assert.assertEquals(1, throttle.getThrottledByAddress());
+    }
+
+    @Test
+    public void testWindowSlides() {
+        LoginThrottle throttle = new LoginThrottle(4, 100, Duration.ofSeconds(10), 64, clock::get);
+        clock.set(10_000);
+        for (int i = 0; i < 4; i++) {
+            throttle.acquire("alice", null);
+        }
+        Assert.assertThrows(LoginThrottledException.class, () -> throttle.acquire("alice", null));
+
+        // half of the four attempts let through in the previous window still count
+        clock.set(25_000);
+        throttle.acquire("alice", null);
+        throttle.acquire("alice", null);
+        Assert.assertThrows(LoginThrottledException.class, () -> throttle.acquire("alice", null));
+
+        // two windows later nothing is left
+        clock.set(40_000);
+        throttle.acquire("alice", null);
+    }
+
+    @Test
+    public void testMemoryIsBoundedByStripes() {
+        LoginThrottle throttle = new LoginThrottle(1, 1_000_000, Duration.ofMinutes(1), 4000, clock::get);
+        Assert.assertEquals(4096, throttle.getStripes());
+
+        int throttled = 0;
+        for (int i = 0; i < 200; i++) {
+            try {
+                throttle.acquire("user" + i, null);
+            } catch (LoginThrottledException ex) {
+                throttled++;
+            }
+        }
+        // with two stripes per key, distinct usernames rarely throttle each other
+        Assert.assertTrue("throttled " + throttled, throttled < 5);
+    }
+
+    @Test
+    public void testRejectedAttemptsDoNotExtendTheLockout() {
+        LoginThrottle throttle = new LoginThrottle(4, 100, Duration.ofSeconds(10), 64, clock::get);
+        clock.set(10_000);
+        for (int i = 0; i < 4; i++) {
+            throttle.acquire("alice", null);
+        }
+        for (long time = 10_000; time < 20_000; time += 100) {
+            clock.set(time);
+            Assert.assertThrows(LoginThrottledException.class, () -> throttle.acquire("alice", null));
+        }
+
+        // a quarter of the four attempts let through still counts, not of the hundred rejected ones
+        clock.set(27_500);
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("alice", null);
+        }
+        Assert.assertThrows(LoginThrottledException.class, () -> throttle.acquire("alice", null));
+    }
+
+    @Test
+    public void testWaveOfDistinctUsernamesBelowSaturation() {
+        LoginThrottle throttle = new LoginThrottle(3, 1_000_000, Duration.ofMinutes(1), 1024, clock::get);
+        // 50 usernames hammered past the limit fill about a tenth of the stripes, which throttles about 1% of the
+        // other usernames; 500 usernames tried once each stay far below the 1024 * 3 attempts the stripes hold
+        for (int i = 0; i < 50; i++) {
+            for (int j = 0; j < 10; j++) {
+                try {
+                    throttle.acquire("attacked" + i, null);
+                } catch (LoginThrottledException expected) {
+                    // the attempts beyond the limit are not counted
+                }
+            }
+        }
+        int throttled = 0;
+        for (int i = 0; i < 500; i++) {
+            try {
+                throttle.acquire("sprayed" + i, null);
+            } catch (LoginThrottledException ex) {
+                throttled++;
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            try {
+                throttle.acquire("user" + i, null);
+            } catch (LoginThrottledException ex) {
+                throttled++;
+            }
+        }
+        Assert.assertTrue("throttled " + throttled, throttled < 10);
+    }
+
+    @Test
+    public void testWaveOfDistinctUsernamesBeyondSaturation() {
+        LoginThrottle throttle = new LoginThrottle(3, 1_000_000, Duration.ofMinutes(1), 64, clock::get);
+        // 1000 usernames let through far more than the 64 * 3 attempts the stripes hold
+        for (int i = 0; i < 1000; i++) {
+            for (int j = 0; j < 3; j++) {
+                try {
+                    throttle.acquire("attacked" + i, null);
+                } catch (LoginThrottledException expected) {
+                    // saturated stripes turn away every key
+                }
+            }
+        }
+        Assert.assertTrue("allowed " + throttle.getAllowed(), throttle.getAllowed() <= 2 * 64 * 3);
+        Assert.assertThrows(LoginThrottledException.class, () -> throttle.acquire("alice", null));
+
+        // the stripes drain once the wave stops for a window
+        clock.addAndGet(120_000);
+        throttle.acquire("alice", null);
+    }
+
+    @Test
+    public void testConcurrentAttemptsAreNotLost() throws InterruptedException {
+        LoginThrottle throttle = new LoginThrottle(1000, 1_000_000, Duration.ofMinutes(1), 16, clock::get);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int j = 0; j < 250; j++) {
+                    try {
+                        throttle.acquire("alice", null);
+                    } catch (LoginThrottledException ex) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // the two stripes of a key are not updated together, so racing callers may each pass once at the limit
+        Assert.assertEquals(2000, throttle.getAllowed() + rejected.get());
+        Assert.assertTrue("allowed " + throttle.getAllowed(), throttle.getAllowed() >= 1000 && throttle.getAllowed() <= 1008);
+    }
+
+    @Test
+    public void testThrottledLoginDoesNotQueryTheDatabase() {
+        inTransaction(() -> em.persist(createUsers("user", 1).get(0)));
+        UserService userService = new UserService();
+        userService.setEntityManager(em);
+        userService.setSessionRegistry(new SessionRegistry());
+        userService.setPasswordHasher(new PasswordHasher(1000, 1, 1, Duration.ofSeconds(5)));
+        userService.setLoginThrottle(new LoginThrottle(2, 100, Duration.ofMinutes(1), 64, clock::get));
+
+        Assert.assertNull(userService.login("user0", "wrong", "10.0.0.1"));
+        inTransaction(() -> Assert.assertNotNull(userService.login("user0", "secret", "10.0.0.1")));
+        QueryReport report = QueryCounter.record(emf, () -> Assert.assertThrows(LoginThrottledException.class,
+                () -> userService.login("user0", "secret", "10.0.0.1")));
+
+        Assert.assertEquals(0, report.getStatementCount());
+    }
+
+    @Test
+    public void testCredentialChecksAreThrottledLikeLogins() {
+        inTransaction(() -> em.persist(createUsers("user", 1).get(0)));
+        PasswordHasher passwordHasher = new PasswordHasher(1000, 1, 1, Duration.ofSeconds(5));
+        UserService userService = new UserService(em, new SessionRegistry(), passwordHasher,
+                new LoginThrottle(2, 100, Duration.ofMinutes(1), 64, clock::get));
+
+        Assert.assertFalse(userService.validateCredentials("user0", "wrong"));
+        Assert.assertTrue(userService.validateCredentials("user0", "secret"));
+        long verified = passwordHasher.getVerifyLatency().getCount();
+        QueryReport report = QueryCounter.record(emf, () -> Assert.assertThrows(LoginThrottledException.class,
+                () -> userService.validateCredentials("user0", "secret")));
+        Assert.assertThrows("a login shares the count", LoginThrottledException.class,
+                () -> userService.login("user0", "secret"));
+
+        Assert.assertEquals(0, report.getStatementCount());
+        Assert.assertEquals(verified, passwordHasher.getVerifyLatency().getCount());
+    }
+}
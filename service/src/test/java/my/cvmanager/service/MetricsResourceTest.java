@@ -0,0 +1,124 @@
+package my.cvmanager.service;
+
+import my.cvmanager.cache.RenderCache;
+import my.cvmanager.util.OperationMetrics;
+import my.cvmanager.util.OperationStats;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+public class MetricsResourceTest {
+    OperationMetrics metrics = new OperationMetrics();
+    MetricsResource resource = new MetricsResource(metrics);
+
+    @Test
+    public void testJson() {
+        OperationStats stats = metrics.operation("service.UserService.login");
+        stats.record(System.nanoTime() - 2_000_000, 0);
+        stats.failed(new IllegalStateException());
+
+        String json = resource.json();
+        Assert.assertTrue(json, json.contains("\"name\":\"service.UserService.login\""));
+        Assert.assertTrue(json, json.contains("\"count\":1"));
+        Assert.assertTrue(json, json.contains("\"errors\":1"));
+        Assert.assertTrue(json, json.contains("\"p999Micros\":"));
+    }
+
+    @Test
+    public void testPrometheus() {
+        metrics.operation("dao.User.find").record(System.nanoTime(), 0);
+
+        String text = resource.prometheus();
+        Assert.assertTrue(text, text.contains("# TYPE cvmanager_operation_duration_seconds summary"));
+        Assert.assertTrue(text, text.contains("cvmanager_operation_duration_seconds{operation=\"dao.User.find\",quantile=\"0.99\"} "));
+        Assert.assertTrue(text, text.contains("cvmanager_operation_duration_seconds_count{operation=\"dao.User.find\"} 1\n"));
+        Assert.assertTrue(text, text.contains("cvmanager_operation_errors_total{operation=\"dao.User.find\"} 0\n"));
+    }
+
+    @Test
+    public void testNamesAreEscaped() {
+        metrics.operation("dao.\"Quoted\"\\find\n").record(System.nanoTime(), 0);
+
+        String json = resource.json();
+        Assert.assertTrue(json, json.contains("\"name\":\"dao.\\\"Quoted\\\"\\\\find\\n\""));
+        String text = resource.prometheus();
+        Assert.assertTrue(text, text.contains("cvmanager_operation_errors_total{operation=\"dao.\\\"Quoted\\\"\\\\find\\n\"} 0\n"));
+    }
+
+    @Test
+    public void testRenderCache() {
+        RenderCache cache = new RenderCache(1000);
+        cache.put(1, 0, "html", new byte[100]);
+        cache.get(1, 0, "html");
+        cache.get(2, 0, "html");
+        MetricsResource withCache = new MetricsResource(metrics);
+        withCache.setPreviewService(new CvPreviewService(null, cache));
+
+        String json = withCache.json();
+        Assert.assertTrue(json, json.contains("\"renderCache\":{\"entries\":1,\"bytes\":100,\"maxBytes\":1000,"
+                + "\"hits\":1,\"misses\":1,\"hitRatio\":0.500000,"));
+        String text = withCache.prometheus();
+        Assert.assertTrue(text, text.contains("# TYPE cvmanager_render_cache_bytes gauge\ncvmanager_render_cache_bytes 100\n"));
+        Assert.assertTrue(text, text.contains("cvmanager_render_cache_hits_total 1\n"));
+        Assert.assertFalse(resource.json().contains("renderCache"));
+    }
+
+    @Test
+    public void testSessions() {
+        SessionFootprint footprint = new SessionFootprint();
+        UserPrincipal principal = new UserPrincipal(1L, "alice", 1);
+        footprint.register(SessionFootprintTest.session("1", Map.of("principal", principal)));
+        long size = SessionFootprint.serializedSize(principal);
+        MetricsResource withSessions = new MetricsResource(metrics);
+        withSessions.setSessionFootprint(footprint);
+
+        String json = withSessions.json();
+        Assert.assertTrue(json, json.contains("\"sessions\":{\"live\":1,\"sampled\":1,\"meanBytes\":" + size + ","));
+        String text = withSessions.prometheus();
+        Assert.assertTrue(text, text.contains("# TYPE cvmanager_sessions_live gauge\ncvmanager_sessions_live 1\n"));
+        Assert.assertTrue(text, text.contains("cvmanager_sessions_bytes " + size + "\n"));
+        Assert.assertFalse(resource.json().contains("sessions"));
+    }
+
+    @Test
+    public void testLoginThrottle() {
+        LoginThrottle throttle = new LoginThrottle(1, 100, Duration.ofMinutes(1), 64);
+        throttle.acquire("alice", null);
+        Assert.assertThrows(LoginThrottledException.class, () -> throttle.acquire("alice", null));
+        MetricsResource withThrottle = new MetricsResource(metrics);
+        withThrottle.setLoginThrottle(throttle);
+
+        String json = withThrottle.json();
+        Assert.assertTrue(json, json.contains("\"loginThrottle\":{\"allowed\":1,\"throttledByUsername\":1,\"throttledByAddress\":0}"));
+        String text = withThrottle.prometheus();
+        Assert.assertTrue(text, text.contains("cvmanager_login_attempts_throttled_total{limit=\"username\"} 1\n"));
+        Assert.assertFalse(resource.json().contains("loginThrottle"));
+    }
+
+    @Test
+    public void testPasswordHashing() {
+        PasswordHasher hasher = new PasswordHasher(1000, 1, 1, Duration.ofSeconds(5));
+        try {
+            String hash = hasher.hash("secret");
+            hasher.verify("secret", hash);
+            hasher.verify("wrong", hash);
+            MetricsResource withHasher = new MetricsResource(metrics);
+            withHasher.setPasswordHasher(hasher);
+
+            String json = withHasher.json();
+            Assert.assertTrue(json, json.contains("\"passwordHashing\":{\"hash\":{\"count\":1,"));
+            Assert.assertTrue(json, json.contains("\"verify\":{\"count\":2,"));
+            Assert.assertTrue(json, json.contains("\"rejected\":0,\"queued\":0,\"active\":"));
+            String text = withHasher.prometheus();
+            Assert.assertTrue(text, text.contains("# TYPE cvmanager_password_hashing_duration_seconds summary\n"));
+            Assert.assertTrue(text, text.contains("cvmanager_password_hashing_duration_seconds{operation=\"hash\",quantile=\"0.99\"} "));
+            Assert.assertTrue(text, text.contains("cvmanager_password_hashing_duration_seconds_count{operation=\"verify\"} 2\n"));
+            Assert.assertTrue(text, text.contains("cvmanager_password_hashing_rejected_total 0\n"));
+            Assert.assertFalse(resource.json().contains("passwordHashing"));
+        } finally {
+            hasher.shutdown();
+        }
+    }
+}
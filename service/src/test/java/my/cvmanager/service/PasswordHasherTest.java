@@ -0,0 +1,75 @@
+package my.cvmanager.service;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class PasswordHasherTest {
+    PasswordHasher hasher = new PasswordHasher(1000, 2, 4, Duration.ofSeconds(5));
+
+    @After
+    public void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Test
+    public void testHashAndVerify() {
+        String hash = hasher.hash("secret");
+        Assert.assertTrue(hash.startsWith("pbkdf2$1000$"));
+        Assert.assertNotEquals(hash, hasher.hash("secret"));
+        Assert.assertTrue(hasher.verify("secret", hash));
+        Assert.assertFalse(hasher.verify("Secret", hash));
+        Assert.assertEquals(2, hasher.getHashLatency().getCount());
+        Assert.assertEquals(2, hasher.getVerifyLatency().getCount());
+    }
+
+    @Test
+    public void testLegacyPlainTextPassword() {
+        Assert.assertTrue(hasher.verify("secret", "secret"));
+        Assert.assertFalse(hasher.verify("other", "secret"));
+        Assert.assertTrue(hasher.needsRehash("secret"));
+    }
+
+    @Test
+    public void testNeedsRehashWhenWorkFactorIncreases() {
+        String hash = hasher.hash("secret");
+        Assert.assertFalse(hasher.needsRehash(hash));
+
+        PasswordHasher stronger = new PasswordHasher(2000, 1, 1, Duration.ofSeconds(5));
+        try {
+            Assert.assertTrue(stronger.needsRehash(hash));
+            Assert.assertTrue(stronger.verify("secret", hash));
+        } finally {
+            stronger.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectsCallsWhenSaturated() {
+        PasswordHasher slow = new PasswordHasher(2_000_000, 1, 1, Duration.ofSeconds(30));
+        try {
+            List<CompletableFuture<String>> calls = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                calls.add(CompletableFuture.supplyAsync(() -> slow.hash("secret")));
+            }
+            long rejected = calls.stream().filter(call -> {
+                try {
+                    call.join();
+                    return false;
+                } catch (CompletionException ex) {
+                    return ex.getCause() instanceof HashingRejectedException;
+                }
+            }).count();
+            Assert.assertTrue(rejected > 0);
+            Assert.assertEquals(rejected, slow.getRejectedCount());
+        } finally {
+            slow.shutdown();
+        }
+    }
+}
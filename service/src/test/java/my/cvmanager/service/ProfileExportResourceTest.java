@@ -0,0 +1,91 @@
+package my.cvmanager.service;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.UserTransaction;
+import my.cvmanager.repositories.AbstractDaoTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProfileExportResourceTest extends AbstractDaoTest {
+
+    private final RecordingTransaction transaction = new RecordingTransaction();
+
+    @Test
+    public void testExportRunsWithTheExportTimeout() throws IOException {
+        createProfile();
+        ProfileExportResource resource = new ProfileExportResource(1800);
+        resource.setPersistence(emf, transaction);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        resource.body().write(out);
+
+        Assert.assertTrue(out.toString(StandardCharsets.UTF_8).contains("\"firstName\":\"Marco\""));
+        Assert.assertEquals(List.of("timeout 1800", "begin", "commit", "timeout 0"), transaction.calls);
+    }
+
+    @Test
+    public void testTimeoutIsResetWhenTheExportFails() {
+        createProfile();
+        ProfileExportResource resource = new ProfileExportResource(1800);
+        resource.setPersistence(emf, transaction);
+        OutputStream closed = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Client went away");
+            }
+        };
+
+        Assert.assertThrows(IOException.class, () -> resource.body().write(closed));
+        Assert.assertEquals(List.of("timeout 1800", "begin", "rollback", "timeout 0"), transaction.calls);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTimeoutMustBePositive() {
+        new ProfileExportResource(0);
+    }
+
+    private static class RecordingTransaction implements UserTransaction {
+        private final List<String> calls = new ArrayList<>();
+        private int status = Status.STATUS_NO_TRANSACTION;
+
+        @Override
+        public void begin() {
+            calls.add("begin");
+            status = Status.STATUS_ACTIVE;
+        }
+
+        @Override
+        public void commit() {
+            calls.add("commit");
+            status = Status.STATUS_NO_TRANSACTION;
+        }
+
+        @Override
+        public void rollback() {
+            calls.add("rollback");
+            status = Status.STATUS_NO_TRANSACTION;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            status = Status.STATUS_MARKED_ROLLBACK;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public void setTransactionTimeout(int seconds) {
+            calls.add("timeout " + seconds);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package my.cvmanager.service;
+
+import my.cvmanager.domain.Technology;
+import my.cvmanager.repositories.AbstractDaoTest;
+import my.cvmanager.testsupport.QueryCounter;
+import org.hibernate.Session;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+public class ProfileNdjsonWriterTest extends AbstractDaoTest {
+
+    private final ProfileNdjsonWriter profileWriter = new ProfileNdjsonWriter();
+
+    @Test
+    public void testOneLinePerProfile() {
+        createProfile("Marco", "Java", Technology.Level.AA, "Kotlin", Technology.Level.AA);
+        createProfile("Anna \"A\"\nB");
+        createProfile("Lena", "Go", Technology.Level.AA);
+
+        StringWriter out = new StringWriter();
+        long[] count = new long[1];
+        inTransaction(() -> count[0] = write(out));
+
+        String[] lines = out.toString().split("\n");
+        Assert.assertEquals(3, count[0]);
+        Assert.assertEquals(3, lines.length);
+        Assert.assertTrue(lines[0], lines[0].contains("\"firstName\":\"Marco\""));
+        Assert.assertTrue(lines[0], lines[0].contains("\"startDate\":\"2020-01-01\",\"endDate\":null"));
+        Assert.assertTrue(lines[0], lines[0].contains("\"technologies\":[{\"name\":\"Java\",\"level\":\"AA\"},{\"name\":\"Kotlin\",\"level\":\"AA\"}]"));
+        Assert.assertTrue(lines[1], lines[1].contains("\"firstName\":\"Anna \\\"A\\\"\\nB\""));
+        Assert.assertTrue(lines[1], lines[1].contains("\"technologies\":[]"));
+        Assert.assertTrue(lines[2], lines[2].contains("\"name\":\"Go\""));
+        Assert.assertFalse(lines[2], lines[2].contains("Kotlin"));
+    }
+
+    @Test
+    public void testStatementCountDoesNotGrowWithProfiles() {
+        for (int i = 0; i < 20; i++) {
+            createProfile("Profile " + i, "Java", Technology.Level.AA);
+        }
+        inTransaction(() -> QueryCounter.assertAtMost(emf, 3, () -> write(new StringWriter())));
+        Assert.assertEquals(0, em.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    private long write(StringWriter out) {
+        try {
+            return profileWriter.write(em, out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
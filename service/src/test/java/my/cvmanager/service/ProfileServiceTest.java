@@ -0,0 +1,51 @@
+package my.cvmanager.service;
+
+import my.cvmanager.domain.Technology;
+import my.cvmanager.repositories.AbstractDaoTest;
+import my.cvmanager.testsupport.QueryCounter;
+import my.cvmanager.testsupport.QueryReport;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Optional;
+
+public class ProfileServiceTest extends AbstractDaoTest {
+
+
+    @Test
+    public void testFindVersionIsASingleQuery() {
+        Long id = createProfile();
+        ProfileService profileService = new ProfileService(em);
+
+        QueryReport report = QueryCounter.record(emf, () -> Assert.assertEquals(Optional.of(0L), profileService.findVersion(id)));
+
+        Assert.assertEquals(1, report.getStatementCount());
+        Assert.assertTrue(report.getEntityFetches().isEmpty());
+        Assert.assertEquals(Optional.empty(), profileService.findVersion(-1L));
+    }
+
+    @Test
+    public void testVersionFollowsChangesOfTheCv() {
+        Long id = createProfile();
+        ProfileService profileService = new ProfileService(em);
+
+        inTransaction(() -> profileService.findCv(id).orElseThrow()
+                .getPositions().get(0).getTechnologies().get(0).setLevel(Technology.Level.AAA));
+        em.clear();
+
+        Assert.assertEquals(Optional.of(1L), profileService.findVersion(id));
+        Assert.assertEquals(1L, (long) profileService.findCv(id).orElseThrow().getVersion());
+    }
+
+    @Test
+    public void testJsonContainsVersionAndGraph() {
+        Long id = createProfile();
+        em.getTransaction().begin();
+        String json = new ProfileJsonWriter().write(new ProfileService(em).findCv(id).orElseThrow());
+        em.getTransaction().commit();
+
+        Assert.assertTrue(json, json.startsWith("{\"id\":" + id + ",\"version\":0,\"firstName\":\"Marco\",\"lastName\":null"));
+        Assert.assertTrue(json, json.contains("\"startDate\":\"2020-01-01\",\"endDate\":null"));
+        Assert.assertTrue(json, json.contains("\"technologies\":[{\"name\":\"Java\",\"level\":\"AA\"}]"));
+    }
+}
@@ -0,0 +1,136 @@
+package my.cvmanager.service;
+
+import jakarta.servlet.http.HttpSession;
+import my.cvmanager.domain.User;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SessionFootprintTest {
+    SessionFootprint footprint = new SessionFootprint();
+
+    @Test
+    public void testPrincipalIsSmallAndHasNoPassword() throws ReflectiveOperationException {
+        User user = new User();
+        Field id = User.class.getDeclaredField("id");
+        id.setAccessible(true);
+        id.set(user, 42L);
+        user.setUsername("alice");
+        user.setPassword("secret");
+        UserPrincipal principal = UserPrincipal.of(user, EnumSet.of(UserPrincipal.Role.USER));
+
+        Assert.assertEquals("alice", principal.getName());
+        Assert.assertEquals(42L, principal.getId());
+        Assert.assertTrue(principal.hasRole(UserPrincipal.Role.USER));
+        Assert.assertFalse(principal.hasRole(UserPrincipal.Role.ADMIN));
+        Assert.assertEquals(EnumSet.of(UserPrincipal.Role.USER), principal.getRoles());
+        Assert.assertFalse(principal.toString().contains("secret"));
+        long size = SessionFootprint.serializedSize(principal);
+        Assert.assertTrue("size " + size, size > 0 && size < 200);
+        Assert.assertEquals(-1, SessionFootprint.serializedSize(user));
+    }
+
+    @Test
+    public void testReportsLiveSessions() {
+        UserPrincipal principal = new UserPrincipal(1L, "alice", 1);
+        HttpSession first = session("1", Map.of("principal", principal));
+        HttpSession second = session("2", Map.of("principal", principal, "entity", new User()));
+        footprint.register(first);
+        footprint.register(second);
+
+        SessionFootprint.Report report = footprint.report();
+        long size = SessionFootprint.serializedSize(principal);
+        Assert.assertEquals(2, report.liveSessions());
+        Assert.assertEquals(2, report.sampledSessions());
+        Assert.assertEquals(size, report.meanBytes());
+        Assert.assertEquals(size, report.maxBytes());
+        Assert.assertEquals(2 * size, report.estimatedTotalBytes());
+        Assert.assertEquals(1, report.unserializableAttributes());
+
+        footprint.unregister(first);
+        Assert.assertEquals(1, footprint.getLiveSessions());
+    }
+
+    @Test
+    public void testDropsInvalidatedSessions() {
+        footprint.register(session("1", null));
+
+        SessionFootprint.Report report = footprint.report();
+        Assert.assertEquals(0, report.sampledSessions());
+        Assert.assertEquals(0, report.meanBytes());
+        Assert.assertEquals(0, footprint.getLiveSessions());
+    }
+
+    @Test
+    public void testReportIsReused() {
+        AtomicLong clock = new AtomicLong(1_000);
+        SessionFootprint footprint = new SessionFootprint(5_000, clock::get);
+        HttpSession first = session("1", Map.of("principal", new UserPrincipal(1L, "alice", 1)));
+        footprint.register(first);
+        SessionFootprint.Report report = footprint.report();
+
+        footprint.register(session("2", Map.of()));
+        clock.addAndGet(4_999);
+        Assert.assertSame(report, footprint.report());
+        clock.addAndGet(1);
+        Assert.assertEquals(2, footprint.report().liveSessions());
+    }
+
+    @Test
+    public void testDoesNotKeepDiscardedSessionsAlive() throws InterruptedException {
+        HttpSession session = session("1", Map.of());
+        footprint.register(session);
+        WeakReference<HttpSession> reference = new WeakReference<>(session);
+        session = null;
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        Assert.assertNull(reference.get());
+        Assert.assertEquals(0, footprint.report().liveSessions());
+        Assert.assertEquals(0, footprint.getLiveSessions());
+    }
+
+    @Test
+    public void testAttributeFailingToSerializeIsUnserializable() {
+        Assert.assertEquals(-1, SessionFootprint.serializedSize(new FailingAttribute()));
+    }
+
+    private static class FailingAttribute implements Serializable {
+        private void writeObject(ObjectOutputStream out) {
+            throw new IllegalStateException("Modified while serialized");
+        }
+    }
+
+    /**
+     * Returns a session with the given attributes, or an invalidated session if they are null.
+     */
+    static HttpSession session(String id, Map<String, Object> attributes) {
+        Map<String, Object> values = attributes != null ? new HashMap<>(attributes) : null;
+        return (HttpSession) Proxy.newProxyInstance(HttpSession.class.getClassLoader(), new Class<?>[]{HttpSession.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getId" -> id;
+                    case "getAttributeNames" -> {
+                        if (values == null) {
+                            throw new IllegalStateException("invalidated");
+                        }
+                        yield Collections.enumeration(values.keySet());
+                    }
+                    case "getAttribute" -> values.get((String) args[0]);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,121 @@
+package my.cvmanager.service;
+
+import jakarta.persistence.TransactionRequiredException;
+import my.cvmanager.domain.User;
+import my.cvmanager.repositories.AbstractDaoTest;
+import org.hibernate.Session;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class SessionRegistryTest extends AbstractDaoTest {
+    SessionRegistry registry = new SessionRegistry();
+
+    @Test
+    public void testLoginAndLogout() {
+        registry.login(1L);
+        registry.login(2L);
+        Assert.assertEquals(2, registry.getActiveSessionCount());
+        Assert.assertTrue(registry.isLoggedIn(1L));
+
+        registry.logout(1L);
+        Assert.assertEquals(1, registry.getActiveSessionCount());
+        Assert.assertFalse(registry.isLoggedIn(1L));
+    }
+
+    @Test
+    public void testChangesOfSameUserAreCoalesced() {
+        registry.login(1L);
+        registry.logout(1L);
+        registry.login(1L);
+        Assert.assertEquals(1, registry.getPendingChangeCount());
+    }
+
+    @Test
+    public void testRemoveDropsPendingChange() {
+        registry.login(1L);
+        registry.remove(1L);
+        Assert.assertEquals(0, registry.getActiveSessionCount());
+        Assert.assertEquals(0, registry.getPendingChangeCount());
+    }
+
+    @Test
+    public void testFlushWritesTheStatesInBatches() {
+        List<User> users = persistUsers(7);
+        users.forEach(user -> registry.login(user.getId()));
+        registry.logout(users.get(0).getId());
+        registry.setBatchSize(3);
+
+        inTransaction(() -> {
+            Assert.assertEquals(7, registry.flush(em));
+            // the chunks before the last one have been cleared from the persistence context
+            Assert.assertTrue(em.unwrap(Session.class).getStatistics().getEntityCount() <= 3);
+        });
+
+        Assert.assertEquals(0, registry.getPendingChangeCount());
+        Assert.assertEquals(List.of(false, true, true, true, true, true, true), loggedIn(users));
+    }
+
+    @Test
+    public void testRolledBackFlushIsPendingAgain() {
+        List<User> users = persistUsers(2);
+        registry.login(users.get(0).getId());
+        registry.login(users.get(1).getId());
+
+        em.getTransaction().begin();
+        Assert.assertEquals(2, registry.flush(em));
+        Assert.assertEquals(0, registry.getPendingChangeCount());
+        registry.logout(users.get(1).getId());
+        em.getTransaction().rollback();
+
+        Assert.assertEquals(2, registry.getPendingChangeCount());
+        Assert.assertEquals(List.of(false, false), loggedIn(users));
+        inTransaction(() -> registry.flush(em));
+        // the newer logout wins over the rolled back login
+        Assert.assertEquals(List.of(true, false), loggedIn(users));
+    }
+
+    @Test
+    public void testFailedFlushIsPendingAgain() {
+        List<User> users = persistUsers(1);
+        registry.login(users.get(0).getId());
+
+        Assert.assertThrows(TransactionRequiredException.class, () -> registry.flush(em));
+
+        Assert.assertEquals(1, registry.getPendingChangeCount());
+        inTransaction(() -> registry.flush(em));
+        Assert.assertEquals(List.of(true), loggedIn(users));
+    }
+
+    @Test
+    public void testLogoutAllIncludesUnflushedLogins() {
+        List<User> users = persistUsers(3);
+        registry.login(users.get(0).getId());
+        registry.login(users.get(1).getId());
+        inTransaction(() -> registry.flush(em));
+        registry.login(users.get(2).getId());
+
+        em.getTransaction().begin();
+        Assert.assertEquals(3, registry.logoutAll(em));
+        em.getTransaction().rollback();
+        Assert.assertEquals(0, registry.getActiveSessionCount());
+        Assert.assertEquals(3, registry.getPendingChangeCount());
+        Assert.assertEquals(List.of(true, true, false), loggedIn(users));
+
+        inTransaction(() -> Assert.assertEquals(3, registry.logoutAll(em)));
+        Assert.assertEquals(0, registry.getPendingChangeCount());
+        Assert.assertEquals(List.of(false, false, false), loggedIn(users));
+    }
+
+    private List<User> persistUsers(int count) {
+        List<User> users = createUsers("user", count);
+        inTransaction(() -> users.forEach(em::persist));
+        return users;
+    }
+
+    private List<Boolean> loggedIn(List<User> users) {
+        em.clear();
+        return users.stream().map(user -> em.find(User.class, user.getId()).isLoggedIn()).toList();
+    }
+}
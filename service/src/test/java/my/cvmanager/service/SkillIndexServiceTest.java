@@ -0,0 +1,94 @@
+package my.cvmanager.service;
+
+import my.cvmanager.domain.Technology;
+import my.cvmanager.domain.UserProfile;
+import my.cvmanager.repositories.AbstractDaoTest;
+import my.cvmanager.repositories.BaseDao;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static my.cvmanager.search.SkillQuery.has;
+
+public class SkillIndexServiceTest extends AbstractDaoTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private SkillIndexService service;
+
+    @Before
+    public void startService() {
+        service = new SkillIndexService(emf, executor);
+        service.start();
+    }
+
+    @After
+    public void stopService() {
+        service.stop();
+    }
+
+    @Test
+    public void testSavedProfileIsFoundWithoutRebuild() throws Exception {
+        Long id = createProfile("Marco", "Java", Technology.Level.AA);
+        awaitReindexing();
+        Assert.assertArrayEquals(new long[]{id}, service.search(has("Java", Technology.Level.AA)));
+
+        inTransaction(() -> em.find(UserProfile.class, id).getPositions().get(0).getTechnologies().get(0)
+                .setLevel(Technology.Level.AAA));
+        awaitReindexing();
+        Assert.assertArrayEquals(new long[]{id}, service.search(has("Java", Technology.Level.AAA)));
+
+        inTransaction(() -> em.remove(em.find(UserProfile.class, id)));
+        awaitReindexing();
+        Assert.assertEquals(0, service.count(has("Java")));
+    }
+
+    @Test
+    public void testBulkUpdateIsIndexed() throws Exception {
+        Long java = createProfile("Marco", "Java", Technology.Level.AA);
+        Long go = createProfile("Anna", "Go", Technology.Level.AA);
+        awaitReindexing();
+
+        BaseDao<Technology> technologyDao = new BaseDao<>(Technology.class);
+        inTransaction(() -> technologyDao.updateWhere("technologyName", catalog.resolve("Java", em),
+                "level", Technology.Level.AAA, em));
+        awaitReindexing();
+
+        Assert.assertArrayEquals(new long[]{java}, service.search(has("Java", Technology.Level.AAA)));
+        Assert.assertArrayEquals(new long[]{go}, service.search(has("Go", Technology.Level.AA)));
+
+        em.getTransaction().begin();
+        technologyDao.updateWhere("technologyName", catalog.resolve("Go", em), "level", Technology.Level.AAA, em);
+        em.getTransaction().rollback();
+        awaitReindexing();
+        Assert.assertEquals(0, service.count(has("Go", Technology.Level.AAA)));
+    }
+
+    @Test
+    public void testRolledBackChangeIsNotIndexed() throws Exception {
+        Long id = createProfile("Marco", "Java", Technology.Level.A);
+        awaitReindexing();
+
+        em.getTransaction().begin();
+        em.find(UserProfile.class, id).getPositions().get(0).getTechnologies().get(0).setLevel(Technology.Level.AAA);
+        em.flush();
+        em.getTransaction().rollback();
+        em.clear();
+        awaitReindexing();
+
+        Assert.assertEquals(0, service.count(has("Java", Technology.Level.AAA)));
+        Assert.assertEquals(1, service.count(has("Java")));
+    }
+
+    /**
+     * Waits until the profiles committed so far have been reindexed.
+     */
+    private void awaitReindexing() throws ExecutionException, InterruptedException {
+        executor.submit(() -> {
+        }).get();
+    }
+}
@@ -0,0 +1,146 @@
+package my.cvmanager.service;
+
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+import my.cvmanager.domain.User;
+import my.cvmanager.pool.ConcurrencyLimiter;
+import my.cvmanager.repositories.AbstractDaoTest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class UserResourceTest extends AbstractDaoTest {
+
+    private final UserResource resource = new UserResource();
+    private final BlockingCallExecutor executor =
+            new BlockingCallExecutor(true, 1, new ConcurrencyLimiter(2, Duration.ofSeconds(1)));
+    private User alice;
+    private User bob;
+
+    @Before
+    public void createUsers() {
+        List<User> users = createUsers("user", 2);
+        alice = users.get(0);
+        bob = users.get(1);
+        inTransaction(() -> users.forEach(em::persist));
+        resource.setUserService(new UserService(em, new SessionRegistry(), null, null));
+    }
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testAnonymousCallerIsUnauthorized() {
+        Assert.assertEquals(Response.Status.UNAUTHORIZED, resource.denied(alice.getId(), null, false));
+        Assert.assertEquals(Response.Status.UNAUTHORIZED, resource.denied(alice.getId(), null, true));
+    }
+
+    @Test
+    public void testOtherUserIsForbidden() {
+        Principal byName = () -> bob.getUsername();
+        Principal byId = new UserPrincipal(bob.getId(), bob.getUsername(), 1);
+
+        Assert.assertEquals(Response.Status.FORBIDDEN, resource.denied(alice.getId(), byName, false));
+        Assert.assertEquals(Response.Status.FORBIDDEN, resource.denied(alice.getId(), byId, false));
+        Assert.assertEquals(Response.Status.FORBIDDEN, resource.denied(-1L, byName, false));
+    }
+
+    @Test
+    public void testUserActsOnItself() {
+        Assert.assertNull(resource.denied(alice.getId(), () -> alice.getUsername(), false));
+        Assert.assertNull(resource.denied(bob.getId(), new UserPrincipal(bob.getId(), bob.getUsername(), 1), false));
+    }
+
+    @Test
+    public void testAdministratorActsOnOtherUsers() {
+        Assert.assertNull(resource.denied(alice.getId(), () -> "admin", true));
+        Assert.assertNull(resource.denied(-1L, () -> "admin", true));
+    }
+
+    @Test
+    public void testCallerIsReadOnTheRequestThread() throws Exception {
+        SessionRegistry sessionRegistry = new SessionRegistry();
+        sessionRegistry.login(alice.getId());
+        resource.setUserService(new UserService(em, sessionRegistry, null, null));
+        resource.setExecutor(executor);
+        AtomicBoolean requestEnded = new AtomicBoolean();
+
+        CompletableFuture<Response> logout = resource.logout(alice.getId(),
+                security(() -> alice.getUsername(), false, requestEnded)).toCompletableFuture();
+        requestEnded.set(true);
+
+        // without a JAX-RS runtime the response cannot be built, but the logout has run
+        Assert.assertThrows(ExecutionException.class, logout::get);
+        Assert.assertFalse(sessionRegistry.isLoggedIn(alice.getId()));
+    }
+
+    @Test
+    public void testTakenUsernameIsAConflict() {
+        resource.setUserService(new UserService(em, new SessionRegistry(),
+                new PasswordHasher(1000, 1, 1, Duration.ofSeconds(5)), null) {
+            @Override
+            public User register(String username, String password, String email) {
+                // the transaction the container opens
+                em.getTransaction().begin();
+                try {
+                    User user = super.register(username, password, email);
+                    em.getTransaction().commit();
+                    return user;
+                } catch (RuntimeException ex) {
+                    em.getTransaction().rollback();
+                    throw ex;
+                }
+            }
+        });
+        resource.setExecutor(executor);
+
+        ExecutionException ex = Assert.assertThrows(ExecutionException.class, () -> resource
+                .register(alice.getUsername(), "secret", "other@example.com").toCompletableFuture().get());
+
+        Assert.assertTrue(String.valueOf(ex.getCause()), ex.getCause() instanceof UserExistsException);
+        Assert.assertEquals(1L, em.createQuery("select count(u) from User u where u.username = :username")
+                .setParameter("username", alice.getUsername()).getSingleResult());
+    }
+
+    private static SecurityContext security(Principal principal, boolean admin, AtomicBoolean requestEnded) {
+        return new SecurityContext() {
+            @Override
+            public Principal getUserPrincipal() {
+                checkRequest();
+                return principal;
+            }
+
+            @Override
+            public boolean isUserInRole(String role) {
+                checkRequest();
+                return admin && UserPrincipal.Role.ADMIN.name().equals(role);
+            }
+
+            private void checkRequest() {
+                if (requestEnded.get()) {
+                    throw new IllegalStateException("The security context is bound to the request");
+                }
+            }
+
+            @Override
+            public boolean isSecure() {
+                return true;
+            }
+
+            @Override
+            public String getAuthenticationScheme() {
+                return SecurityContext.BASIC_AUTH;
+            }
+        };
+    }
+}
@@ -1,17 +1,26 @@
 package my.cvmanager.web;
 
 import jakarta.enterprise.context.SessionScoped;
+import jakarta.faces.context.FacesContext;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.security.enterprise.AuthenticationException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ValidationException;
 import my.cvmanager.domain.User;
+import my.cvmanager.service.HashingRejectedException;
+import my.cvmanager.service.LoginThrottledException;
+import my.cvmanager.service.UserExistsException;
+import my.cvmanager.service.UserPrincipal;
 import my.cvmanager.service.UserService;
 
 import java.io.Serializable;
 
 /**
  * UserBean class for managing users.
+ * <p>
+ * The logged-in user is kept as a {@link UserPrincipal}, not as the entity, so the session only holds the ID, the
+ * username and the roles; the password of the form is cleared once it has been used, whatever the outcome.
  */
 @Named("userBean")
 @SessionScoped
@@ -21,7 +30,7 @@ public class UserBean implements Serializable {
     private String password;
     private String email;
 
-    private User loggedInUser;
+    private UserPrincipal loggedInUser;
 
     @Inject
     private UserService userService;
@@ -33,12 +42,18 @@ public class UserBean implements Serializable {
      */
     public String register() {
         try {
-            loggedInUser = userService.register(username, password, email);
+            User user = userService.register(username, password, email);
+            loggedInUser = userService.principalOf(user);
             clearForm();
             return "home.xhtml?faces-redirect=true";
-        } catch (ValidationException e) {
+        } catch (ValidationException | UserExistsException e) {
             // Error handling
             return "register.xhtml?error=true";
+        } catch (HashingRejectedException e) {
+            // overloaded, try again later
+            return "register.xhtml?error=busy";
+        } finally {
+            password = null; // the form is shown again without it
         }
     }
 
@@ -49,7 +64,7 @@ public class UserBean implements Serializable {
      */
     public String unregister() {
         try {
-            userService.unregister(loggedInUser.getId());
+            userService.unregister(loggedInUser.id());
             loggedInUser = null;
             return "login.xhtml?faces-redirect=true";
         } catch (Exception e) {
@@ -65,9 +80,9 @@ public class UserBean implements Serializable {
      */
     public String login() {
         try {
-            User user = userService.login(username, password);
+            User user = userService.login(username, password, clientAddress());
             if (user != null) {
-                loggedInUser = user;
+                loggedInUser = userService.principalOf(user);
                 return "home.xhtml?faces-redirect=true";
             } else {
                 throw new AuthenticationException("Login failed");
@@ -75,6 +90,14 @@ public class UserBean implements Serializable {
         } catch (AuthenticationException e) {
             // Error handling
             return "login.xhtml?error=true";
+        } catch (HashingRejectedException e) {
+            // overloaded, try again later
+            return "login.xhtml?error=busy";
+        } catch (LoginThrottledException e) {
+            // too many attempts, try again later
+            return "login.xhtml?error=throttled";
+        } finally {
+            password = null;
         }
     }
 
@@ -85,13 +108,21 @@ public class UserBean implements Serializable {
      */
     public String logout() {
         if (loggedInUser != null) {
-            userService.logout(loggedInUser.getId());
+            userService.logout(loggedInUser.id());
             loggedInUser = null;
         }
         return "login.xhtml?faces-redirect=true";
     }
 
-    // Hilfsmethode
+    // Hilfsmethoden
+    private String clientAddress() {
+        FacesContext context = FacesContext.getCurrentInstance();
+        if (context != null && context.getExternalContext().getRequest() instanceof HttpServletRequest request) {
+            return request.getRemoteAddr();
+        }
+        return null;
+    }
+
     private void clearForm() {
         username = null;
         password = null;
@@ -123,7 +154,7 @@ public class UserBean implements Serializable {
         this.email = email;
     }
 
-    public User getLoggedInUser() {
+    public UserPrincipal getLoggedInUser() {
         return loggedInUser;
     }
 }